@@ -39,6 +39,82 @@ public enum AppRoles {
      */
     GUEST;
 
+    /**
+     * Bit of the virtual role AuthRole.VIRT_ENDPOINT_CHECK in a role mask. It is no
+     * application role, so its bit follows the bits of all application roles.
+     */
+    public static final long VIRT_ENDPOINT_CHECK_BIT = 1L << values().length;
+
+    /**
+     * Bits of roles which grant access to anyone if a resource requires one of them.
+     */
+    public static final long GRANT_ANYONE_MASK = GUEST.bit() | VIRT_ENDPOINT_CHECK_BIT;
+
+    /**
+     * Lookup of role names and their bits, it is setup once on class loading.
+     */
+    private static final Map<String, Long> ROLE_BITS = new HashMap<>();
+
+    static {
+        for (AppRoles role: values()) {
+            ROLE_BITS.put(role.name(), role.bit());
+        }
+        ROLE_BITS.put(AuthRole.VIRT_ENDPOINT_CHECK, VIRT_ENDPOINT_CHECK_BIT);
+    }
+
+    /**
+     * Get the bit of this role in a role mask.
+     *
+     * @return Role bit
+     */
+    public long bit() {
+        return 1L << ordinal();
+    }
+
+    /**
+     * Given a role name return its bit in a role mask.
+     *
+     * @param name  Role name
+     * @return      Role bit, or 0 if the name is neither an application role nor AuthRole.VIRT_ENDPOINT_CHECK
+     */
+    public static long bitOf(String name) {
+        Long bit = ROLE_BITS.get(name);
+        return (bit != null) ? bit : 0L;
+    }
+
+    /**
+     * Given role names return the mask of their bits. Unknown names are ignored.
+     *
+     * @param names Role names
+     * @return      Role mask
+     */
+    public static long maskOf(Collection<String> names) {
+        long mask = 0L;
+        for (String name: names) {
+            mask |= bitOf(name);
+        }
+        return mask;
+    }
+
+    /**
+     * Given a role mask return the names of its roles.
+     *
+     * @param mask  Role mask
+     * @return      Role names
+     */
+    public static List<String> namesOf(long mask) {
+        List<String> names = new ArrayList<>();
+        for (AppRoles role: values()) {
+            if ((mask & role.bit()) != 0L) {
+                names.add(role.name());
+            }
+        }
+        if ((mask & VIRT_ENDPOINT_CHECK_BIT) != 0L) {
+            names.add(AuthRole.VIRT_ENDPOINT_CHECK);
+        }
+        return names;
+    }
+
     /**
      * Get all roles along their permissions.
      *
@@ -48,6 +48,16 @@ public class AuthAccessRuleChecker {
      */
     private final Map<String /*access method*/, List<String /*role*/>> accessRules;
 
+    /**
+     * Lookup for access methods and the mask of their roles, see AppRoles
+     */
+    private final Map<String /*access method*/, Long /*role mask*/> accessMasks;
+
+    /**
+     * Rule ID, it is assigned when the rule is added to a route trie
+     */
+    private int ruleId = 0;
+
     /**
      * Create a rule for given resource path.
      * 
@@ -57,6 +67,7 @@ public class AuthAccessRuleChecker {
         resourcePath = path;
         resourcePathRegexp = createPathRegExp(path);
         accessRules = new HashMap<>();
+        accessMasks = new HashMap<>();
     }
 
     /**
@@ -78,6 +89,19 @@ public class AuthAccessRuleChecker {
         return resourcePathRegexp;
     }
 
+    /**
+     * Get the rule ID, it is 0 as long as the rule was not added to a route trie.
+     *
+     * @return Rule ID
+     */
+    int getRuleId() {
+        return ruleId;
+    }
+
+    void setRuleId(int ruleId) {
+        this.ruleId = ruleId;
+    }
+
     /**
      * Get all access methods and corresponding roles.
      * 
@@ -104,9 +128,30 @@ public class AuthAccessRuleChecker {
             accessRules.put(accessMethod, roles);
         }
         roles.addAll(accessRoles);
+
+        long mask = 0L;
+        for (String role: accessRoles) {
+            long bit = AppRoles.bitOf(role);
+            if (bit == 0L) {
+                LOGGER.warn("Unknown role '{}' in access rule of resource '{}', it will never be granted access", role, resourcePath);
+            }
+            mask |= bit;
+        }
+        accessMasks.merge(accessMethod, mask, (current, added) -> current | added);
         return true;
     }
 
+    /**
+     * Get the mask of roles which have access to resource using given access method.
+     *
+     * @param accessMethod  Access method (GET, PUT, POST, DELETE)
+     * @return              Role mask, see AppRoles
+     */
+    public long getAccessMask(String accessMethod) {
+        Long mask = accessMasks.get(accessMethod);
+        return (mask != null) ? mask : 0L;
+    }
+
     /**
      * Check if the given role has access to resource considering a simple fix path.
      * 
@@ -171,7 +216,7 @@ public class AuthAccessRuleChecker {
      * Given an access method (such as GET, POST, etc.) check if any of user roles
      * match to required ones.
      * 
-     * NOTE: Access to paths with roles AuthRole.NO_CHECK or AuthRole.VIRT_ROLE_GUEST are always granted.
+     * NOTE: Access to paths with roles AuthRole.VIRT_ENDPOINT_CHECK or AuthRole.VIRT_ROLE_GUEST are always granted.
      * 
      * @param accessMethod  Access method
      * @param userRoles     List of user roles
@@ -181,15 +226,26 @@ public class AuthAccessRuleChecker {
         if ((accessMethod == null) || (userRoles == null)) {
             return false;
         }
-        List<String /*role*/> roles = accessRules.get(accessMethod);
+        return checkRoles(accessMethod, AppRoles.maskOf(userRoles));
+    }
+
+    /**
+     * Given an access method (such as GET, POST, etc.) check if any of user roles
+     * match to required ones.
+     *
+     * NOTE: Access to paths with roles AuthRole.VIRT_ENDPOINT_CHECK or AuthRole.VIRT_ROLE_GUEST are always granted.
+     *
+     * @param accessMethod  Access method
+     * @param userRoles     Mask of user roles, see AppRoles
+     * @return              Return true if at least one role matched, otherwise false.
+     */
+    protected boolean checkRoles(String accessMethod, long userRoles) {
+        Long roles = accessMasks.get(accessMethod);
         if (roles == null) {
             return false;
         }
-        // check for no-check and guest resource
-        if (roles.contains(AuthRole.VIRT_ENDPOINT_CHECK) || roles.contains(AuthRole.VIRT_ROLE_GUEST)) {
-            return true;
-        }
-        return userRoles.stream().anyMatch((role) -> (roles.contains(role)));
+        // no-check and guest resources are granted to anyone
+        return (roles & (userRoles | AppRoles.GRANT_ANYONE_MASK)) != 0L;
     }
 
     /**
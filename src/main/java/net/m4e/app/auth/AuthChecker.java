@@ -9,10 +9,9 @@ package net.m4e.app.auth;
 
 import org.slf4j.*;
 
-import javax.servlet.http.HttpServletRequest;
 import java.lang.invoke.MethodHandles;
-import java.net.*;
 import java.util.*;
+import java.util.concurrent.atomic.LongAdder;
 
 /**
  * Class performing authorization checks for accessing resources provided by Java Beans.
@@ -36,6 +35,9 @@ import java.util.*;
  * 
  * For available user roles see annotation interface AuthRole.
  * 
+ * Access decisions are cached by matched rule, access method and role mask. The cache
+ * is bounded and it is invalidated whenever the rules or the grant-always roles change.
+ * 
  * @author boto
  * Date of creation Aug 23, 2017
  */
@@ -44,27 +46,69 @@ public class AuthChecker {
     private static final Logger LOGGER = LoggerFactory.getLogger(MethodHandles.lookup().lookupClass());
 
     /**
-     * A lookup for access rules with fix paths. In order to speed up the lookup, the resource path is used as key.
+     * Default count of cached access decisions
      */
-    private final Map<String /*resource path*/, AuthAccessRuleChecker> accessRulesFixPath;
+    public static final int DEFAULT_DECISION_CACHE_SIZE = 1024;
 
     /**
-     * A list of access rules with complex paths consisting of regular expressions.
+     * Access rules compiled into a trie of path segments, it finds the rule of a
+     * resource path in one pass over the path.
      */
-    private final List<AuthAccessRuleChecker> accessRulesComplexPath;
+    private final AuthRouteTrie accessRules;
 
     /**
      * A list of roles getting access to any protected resource (e.g. super user roles)
      */
     private final List<String> grantAlwaysRoles = new ArrayList<>();
 
+    /**
+     * Mask of roles getting access to any protected resource, see AppRoles
+     */
+    private long grantAlwaysMask = 0L;
+
+    /**
+     * Count of cached access decisions
+     */
+    private final int decisionCacheSize;
+
+    /**
+     * Cached access decisions, the cache is replaced on invalidation.
+     */
+    private volatile AuthDecisionCache decisions;
+
+    private final LongAdder countChecks = new LongAdder();
+    private final LongAdder countGrantAlways = new LongAdder();
+    private final LongAdder countCacheHits = new LongAdder();
+    private final LongAdder countCacheMisses = new LongAdder();
+    private final AuthLatencyHistogram latencies = new AuthLatencyHistogram();
+
 
     /**
      * Create the authorization checker.
      */
     public AuthChecker() {
-        accessRulesFixPath = new HashMap<>();
-        accessRulesComplexPath = new ArrayList<>();
+        this(DEFAULT_DECISION_CACHE_SIZE);
+    }
+
+    /**
+     * Create the authorization checker with given count of cached access decisions.
+     *
+     * @param decisionCacheSize Count of cached access decisions
+     */
+    public AuthChecker(int decisionCacheSize) {
+        accessRules = new AuthRouteTrie();
+        this.decisionCacheSize = decisionCacheSize;
+        decisions = new AuthDecisionCache(decisionCacheSize);
+    }
+
+    /**
+     * Initialize the checker with the access rules of all REST beans, they were
+     * collected from the annotations at build time, see AuthRuleTable.
+     */
+    public void initialize() {
+        LOGGER.info("Initializing authorization checker from rule table");
+        setupRules(AuthRuleTable.getRules());
+        invalidateDecisions();
     }
 
     /**
@@ -78,6 +122,7 @@ public class AuthChecker {
         if (beanClasses != null) {
             setupRules(beanClasses);
         }
+        invalidateDecisions();
     }
 
     /**
@@ -88,6 +133,8 @@ public class AuthChecker {
     public void setGrantAlwaysRoles(List<String> roles) {
         grantAlwaysRoles.clear();
         grantAlwaysRoles.addAll(roles);
+        grantAlwaysMask = AppRoles.maskOf(roles);
+        invalidateDecisions();
         LOGGER.debug("Setting grant-always roles: {}", String.join(",", roles));
     }
 
@@ -100,6 +147,46 @@ public class AuthChecker {
         return grantAlwaysRoles;
     }
 
+    /**
+     * Drop all cached access decisions.
+     */
+    private void invalidateDecisions() {
+        decisions = new AuthDecisionCache(decisionCacheSize);
+    }
+
+    /**
+     * Export the statistics of access checks.
+     *
+     * @return Checker statistics
+     */
+    public AuthCheckerInfo exportInfo() {
+        long hits = countCacheHits.sum();
+        long misses = countCacheMisses.sum();
+        AuthCheckerInfo info = new AuthCheckerInfo();
+        info.setCountRules(accessRules.getCountRules());
+        info.setCacheCapacity(decisions.getCapacity());
+        info.setCountChecks(countChecks.sum());
+        info.setCountGrantAlways(countGrantAlways.sum());
+        info.setCountCacheHits(hits);
+        info.setCountCacheMisses(misses);
+        info.setCacheHitRatio(((hits + misses) == 0L) ? 0.0 : (double) hits / (hits + misses));
+        info.setLatencyHistogram(latencies.export());
+        return info;
+    }
+
+    /**
+     * Setup the authorization rules of given rule table.
+     *
+     * @param rules Rule table, each row holds the resource path, the access method and the granted roles
+     */
+    private void setupRules(String[][] rules) {
+        for (String[] row: rules) {
+            AuthAccessRuleChecker rule = new AuthAccessRuleChecker(row[0]);
+            rule.addAccessRoles(row[1], Arrays.asList(row).subList(2, row.length));
+            LOGGER.debug("Adding rule: {}", accessRules.add(rule));
+        }
+    }
+
     /**
      * Setup all authorization rules found on methods of given classes.
      * 
@@ -125,13 +212,8 @@ public class AuthChecker {
 
                 roles.forEach(rule::addAccessRoles);
 
-                // path entry is relative to class' path, check if a complex path was defined
-                if (fullResourcePath.contains("{")) {
-                    accessRulesComplexPath.add(rule);
-                } else {
-                    accessRulesFixPath.put(fullResourcePath, rule);
-                }
-                LOGGER.debug("Adding rule: {}", rule);
+                // path entry is relative to class' path, path parameters such as {id} become wildcard segments
+                LOGGER.debug("Adding rule: {}", accessRules.add(rule));
             });
         });
     }
@@ -139,53 +221,58 @@ public class AuthChecker {
     /**
      * Check authorization of incoming request.
      * 
-     * @param basePath  The base path of requesting resource
-     * @param request   Incoming request
-     * @param userRoles User roles
-     * @return          Return true if access authorization was ok, otherwise false.
+     * @param basePath      The base path of requesting resource
+     * @param path          Normalized request path, it begins with the base path
+     * @param accessMethod  Access method such as GET, PUT, POST, and DELETE
+     * @param userRoles     Mask of user roles including the virtual roles, see AppRoles
+     * @return              Return true if access authorization was ok, otherwise false.
      */
-    public boolean checkAccess(String basePath, HttpServletRequest request, List<String> userRoles) {
+    public boolean checkAccess(String basePath, String path, String accessMethod, long userRoles) {
+        long start = System.nanoTime();
+        boolean grantAccess = decideAccess(basePath, path, accessMethod, userRoles);
+        latencies.record(System.nanoTime() - start);
+        countChecks.increment();
+        return grantAccess;
+    }
+
+    private boolean decideAccess(String basePath, String path, String accessMethod, long userRoles) {
 
         // check for no-restriction access
-        if (grantAlwaysRoles.stream().anyMatch(userRoles::contains)) {
+        if ((userRoles & grantAlwaysMask) != 0L) {
             LOGGER.trace("Access granted to Grant-Always roles");
+            countGrantAlways.increment();
             return true;
         }
 
-        boolean grantAccess = false;
-        try {
-            URL url = new URL(request.getRequestURL().toString());
-            String path = url.getPath();
-
-            // do some checks first
-            if (!path.startsWith(basePath)) {
-                LOGGER.trace("Access denied: given path '{}' does not start with expected base path '{}'", path, basePath);
-                return false;
-            }
-
-            String resourcePath = path.substring(basePath.length());
-            LOGGER.trace("Checking resource path [{}]: {}", request.getMethod(), resourcePath);
-
-            // first check for fix path match
-            AuthAccessRuleChecker accessRule = accessRulesFixPath.get(resourcePath);
-            if (accessRule != null) {
-                grantAccess = accessRule.checkFixPath(resourcePath, request.getMethod(), userRoles);
-            }
-            else {
-                // if no hit then check for complex path match
-                for (AuthAccessRuleChecker acc: accessRulesComplexPath) {
-                    if (acc.checkComplexPath(resourcePath, request.getMethod(), userRoles)) {
-                        grantAccess = true;
-                        break;
-                    }
-                }
-            }
-            LOGGER.trace("Access granted: {}", (grantAccess ? "Yes" : "No"));
+        // do some checks first
+        if (!path.startsWith(basePath)) {
+            LOGGER.trace("Access denied: given path '{}' does not start with expected base path '{}'", path, basePath);
+            return false;
         }
-        catch(MalformedURLException | SecurityException ex) {
-            LOGGER.warn("An exception happened during auth check: {}", ex.getLocalizedMessage());
+
+        LOGGER.trace("Checking resource path [{}]: {}", accessMethod, path);
+
+        // literal path segments take precedence over path parameters, the resource path follows the base path
+        AuthAccessRuleChecker accessRule = accessRules.find(path, basePath.length());
+        if (accessRule == null) {
+            LOGGER.trace("Access denied: no rule for resource path");
             return false;
         }
+
+        AuthDecisionCache cache = decisions;
+        long key = AuthDecisionCache.createKey(accessRule.getRuleId(), accessMethod, userRoles);
+        int cached = (key != AuthDecisionCache.NO_KEY) ? cache.get(key) : AuthDecisionCache.MISS;
+        if (cached != AuthDecisionCache.MISS) {
+            countCacheHits.increment();
+            return cached == 1;
+        }
+        countCacheMisses.increment();
+
+        boolean grantAccess = accessRule.checkRoles(accessMethod, userRoles);
+        if (key != AuthDecisionCache.NO_KEY) {
+            cache.put(key, grantAccess);
+        }
+        LOGGER.trace("Access granted: {}", (grantAccess ? "Yes" : "No"));
         return grantAccess;
     }
 }
@@ -0,0 +1,95 @@
+/*
+ * Copyright (c) 2017-2019 by Botorabi. All rights reserved.
+ * https://github.com/botorabi/Meet4Eat
+ *
+ * License: MIT License (MIT), read the LICENSE text in
+ *          main directory for more details.
+ */
+package net.m4e.app.auth;
+
+import java.util.Map;
+
+/**
+ * Statistics of the authorization checker for exporting to clients.
+ *
+ * @author boto
+ * Date of creation Oct 18, 2026
+ */
+public class AuthCheckerInfo {
+
+    private int countRules;
+    private int cacheCapacity;
+    private long countChecks;
+    private long countGrantAlways;
+    private long countCacheHits;
+    private long countCacheMisses;
+    private double cacheHitRatio;
+    private Map<String, Long> latencyHistogram;
+
+    public AuthCheckerInfo() {
+    }
+
+    public int getCountRules() {
+        return countRules;
+    }
+
+    public void setCountRules(int countRules) {
+        this.countRules = countRules;
+    }
+
+    public int getCacheCapacity() {
+        return cacheCapacity;
+    }
+
+    public void setCacheCapacity(int cacheCapacity) {
+        this.cacheCapacity = cacheCapacity;
+    }
+
+    public long getCountChecks() {
+        return countChecks;
+    }
+
+    public void setCountChecks(long countChecks) {
+        this.countChecks = countChecks;
+    }
+
+    public long getCountGrantAlways() {
+        return countGrantAlways;
+    }
+
+    public void setCountGrantAlways(long countGrantAlways) {
+        this.countGrantAlways = countGrantAlways;
+    }
+
+    public long getCountCacheHits() {
+        return countCacheHits;
+    }
+
+    public void setCountCacheHits(long countCacheHits) {
+        this.countCacheHits = countCacheHits;
+    }
+
+    public long getCountCacheMisses() {
+        return countCacheMisses;
+    }
+
+    public void setCountCacheMisses(long countCacheMisses) {
+        this.countCacheMisses = countCacheMisses;
+    }
+
+    public double getCacheHitRatio() {
+        return cacheHitRatio;
+    }
+
+    public void setCacheHitRatio(double cacheHitRatio) {
+        this.cacheHitRatio = cacheHitRatio;
+    }
+
+    public Map<String, Long> getLatencyHistogram() {
+        return latencyHistogram;
+    }
+
+    public void setLatencyHistogram(Map<String, Long> latencyHistogram) {
+        this.latencyHistogram = latencyHistogram;
+    }
+}
@@ -0,0 +1,127 @@
+/*
+ * Copyright (c) 2017-2019 by Botorabi. All rights reserved.
+ * https://github.com/botorabi/Meet4Eat
+ *
+ * License: MIT License (MIT), read the LICENSE text in
+ *          main directory for more details.
+ */
+package net.m4e.app.auth;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Bounded cache of access decisions. A decision is stored under a key built of the
+ * matched rule, the access method and the user's role mask, see createKey.
+ *
+ * The cache is direct-mapped: every key has exactly one slot and a new decision replaces
+ * whatever was stored in its slot before. A slot holds the key along the decision in one
+ * long, so lookups and updates need neither locks nor allocations.
+ *
+ * @author boto
+ * Date of creation Oct 18, 2026
+ */
+class AuthDecisionCache {
+
+    /**
+     * Returned by get if there is no decision for a key.
+     */
+    static final int MISS = -1;
+
+    /**
+     * Returned by createKey if the decision cannot be cached.
+     */
+    static final long NO_KEY = 0L;
+
+    private static final int MAX_RULE_ID = (1 << 27) - 1;
+
+    private final AtomicLongArray slots;
+
+    private final int slotMask;
+
+    /**
+     * Create a cache.
+     *
+     * @param capacity  Count of cached decisions, it is rounded up to a power of two
+     */
+    AuthDecisionCache(int capacity) {
+        int size = Integer.highestOneBit(Math.max(1, capacity - 1)) << 1;
+        slots = new AtomicLongArray(size);
+        slotMask = size - 1;
+    }
+
+    /**
+     * Get the count of cached decisions.
+     */
+    int getCapacity() {
+        return slots.length();
+    }
+
+    /**
+     * Create the key of a decision. Only rules with an ID, the common access methods and
+     * role masks of up to 32 bits are considered.
+     *
+     * @param ruleId        ID of the matched rule
+     * @param accessMethod  Access method such as GET, PUT, POST, and DELETE
+     * @param userRoles     Mask of user roles
+     * @return              The key, or NO_KEY if the decision cannot be cached
+     */
+    static long createKey(int ruleId, String accessMethod, long userRoles) {
+        int method = methodIndex(accessMethod);
+        if ((ruleId < 1) || (ruleId > MAX_RULE_ID) || (method == 0) || ((userRoles >>> 32) != 0L)) {
+            return NO_KEY;
+        }
+        return ((long) ruleId << 35) | ((long) method << 32) | userRoles;
+    }
+
+    /**
+     * Get the decision for given key.
+     *
+     * @param key   Decision key created by createKey
+     * @return      1 if access is granted, 0 if it is denied, or MISS
+     */
+    int get(long key) {
+        long entry = slots.get(slotOf(key));
+        if ((entry >>> 1) != key) {
+            return MISS;
+        }
+        return (int) (entry & 1L);
+    }
+
+    /**
+     * Store the decision for given key.
+     *
+     * @param key       Decision key created by createKey
+     * @param granted   Decision
+     */
+    void put(long key, boolean granted) {
+        slots.lazySet(slotOf(key), (key << 1) | (granted ? 1L : 0L));
+    }
+
+    private int slotOf(long key) {
+        return (int) ((key * 0x9E3779B97F4A7C15L) >>> 32) & slotMask;
+    }
+
+    private static int methodIndex(String accessMethod) {
+        if (accessMethod == null) {
+            return 0;
+        }
+        switch (accessMethod) {
+            case "GET":
+                return 1;
+            case "POST":
+                return 2;
+            case "PUT":
+                return 3;
+            case "DELETE":
+                return 4;
+            case "HEAD":
+                return 5;
+            case "OPTIONS":
+                return 6;
+            case "PATCH":
+                return 7;
+            default:
+                return 0;
+        }
+    }
+}
@@ -7,7 +7,6 @@
  */
 package net.m4e.app.auth;
 
-import net.m4e.app.user.business.UserEntity;
 import net.m4e.common.*;
 import net.m4e.system.core.AppConfiguration;
 import org.slf4j.Logger;
@@ -15,13 +14,9 @@ import org.slf4j.LoggerFactory;
 
 import javax.servlet.*;
 import javax.servlet.http.HttpServletRequest;
-import javax.servlet.http.HttpSession;
 import java.io.IOException;
 import java.lang.invoke.MethodHandles;
-import java.net.URL;
-import java.util.ArrayList;
 import java.util.Arrays;
-import java.util.List;
 
 
 /**
@@ -69,6 +64,49 @@ public class AuthFilter implements Filter {
     private String publicBasePath = "";
     private String protectedBasePath = "";
 
+    /**
+     * Path prefixes used for classifying requests, they are built on initialization.
+     */
+    private String basePrefix = "/";
+    private String publicPrefix = "/";
+    private String protectedPrefix = "/";
+    private String swaggerPrefix = "/swagger.";
+    private String webSocketPath = AppConfiguration.WEBSOCKET_URL;
+
+    /**
+     * Type of a requested path
+     */
+    enum PathType {
+        /**
+         * Path outside of base path, the filter does not handle it
+         */
+        OUTSIDE,
+        /**
+         * Html file or base path itself
+         */
+        HTML,
+        /**
+         * Public resource
+         */
+        PUBLIC,
+        /**
+         * WebSocket endpoint
+         */
+        WEBSOCKET,
+        /**
+         * Swagger API description
+         */
+        SWAGGER,
+        /**
+         * Protected resource, access needs an authorization check
+         */
+        PROTECTED,
+        /**
+         * Any other path in base path, access is denied
+         */
+        UNKNOWN
+    }
+
     /**
      * Create the filter.
      */
@@ -99,11 +137,13 @@ public class AuthFilter implements Filter {
             LOGGER.debug("Initializing filter: basePath({}) | publicBasePath({}) | protectedBasePath({})",
                     basePath, basePath + "/" + publicBasePath, basePath + "/" + protectedBasePath);
         }
+        setupPathPrefixes();
         LOGGER.debug("Setup authorization check for protected path: {}/{}", basePath, protectedBasePath);
         // setup the auth checker
-        authChecker.initialize(AuthorityConfig.getInstance().getAccessBeanClasses());
+        authChecker.initialize();
         // ADMIN role gets always access to resources
         authChecker.setGrantAlwaysRoles(Arrays.asList(AuthRole.USER_ROLE_ADMIN));
+        AuthorityConfig.getInstance().setAuthChecker(authChecker);
     }
 
     /**
@@ -129,97 +169,131 @@ public class AuthFilter implements Filter {
         }
 
         HttpServletRequest httpRequest = (HttpServletRequest)request;
-        String             url         = httpRequest.getRequestURL().toString();
-        String             path        = new URL(url).getPath();
-
-        LOGGER.trace("Requesting for resource: " + path);
+        String             path        = stripPathParameters(httpRequest.getRequestURI());
 
-        if (path.startsWith("/" + basePath)) {
+        LOGGER.trace("Requesting for resource: {}", path);
 
-            boolean allowAccess = checkResourceAccess(httpRequest, path);
+        PathType pathType = classifyPath(path);
+        if (pathType == PathType.OUTSIDE) {
+            return;
+        }
 
-            if (allowAccess) {
-                processRequest(request, response, chain);
-            }
-            else {
-                LOGGER.warn("*** Access denied to protected resource: {}", path);
-                response.getWriter().print(GenericResponseResult.forbidden("Denied access to: " + path).toJSON());
-            }
+        boolean allowAccess = checkResourceAccess(httpRequest, path, pathType);
+        if (allowAccess) {
+            processRequest(request, response, chain);
+        }
+        else {
+            LOGGER.warn("*** Access denied to protected resource: {}", path);
+            response.getWriter().print(GenericResponseResult.forbidden("Denied access to: " + path).toJSON());
         }
     }
 
-    private boolean checkResourceAccess(HttpServletRequest httpRequest, String path) {
-        boolean allowAccess = false;
+    /**
+     * Build the path prefixes of all path types out of the filter parameters. The
+     * base path is the context root of the application.
+     */
+    private void setupPathPrefixes() {
+        basePrefix = "/" + basePath;
+        publicPrefix = basePrefix + "/" + publicBasePath;
+        protectedPrefix = basePrefix + "/" + protectedBasePath;
+        swaggerPrefix = protectedPrefix + "/swagger.";
+        webSocketPath = basePrefix + AppConfiguration.WEBSOCKET_URL;
+    }
 
+    /**
+     * Given a request URI return the path without path parameters such as ";jsessionid=...".
+     *
+     * @param uri   Request URI
+     * @return      Path without path parameters
+     */
+    static String stripPathParameters(String uri) {
+        int end = uri.indexOf(';');
+        return (end < 0) ? uri : uri.substring(0, end);
+    }
+
+    /**
+     * Classify the given request path. Paths containing dot segments such as "/../" are
+     * not normalized and are never granted access.
+     *
+     * @param path  Request path including the context root, e.g. /m4e/webresources/rest/users
+     * @return      Path type
+     */
+    PathType classifyPath(String path) {
+        if (!path.startsWith(basePrefix)) {
+            return PathType.OUTSIDE;
+        }
+        if (hasDotSegment(path)) {
+            return PathType.UNKNOWN;
+        }
         // check for accessing html files in base path
-        if (path.equals("/" + basePath + "/") || path.matches("/" + basePath + "/.*\\.html")) {
-            allowAccess = true;
+        if (path.startsWith("/", basePrefix.length()) &&
+            ((path.length() == basePrefix.length() + 1) || path.endsWith(".html"))) {
+            return PathType.HTML;
+        }
+        if (path.startsWith(publicPrefix)) {
+            return PathType.PUBLIC;
         }
-        // check for accessing public resources
-        else if (path.startsWith("/" + basePath + "/" + publicBasePath)) {
-            LOGGER.trace("  Fetching public resource: " + path);
-            allowAccess = true;
+        if (path.equals(webSocketPath)) {
+            return PathType.WEBSOCKET;
         }
-        // check for WebSocket endpoint access
-        else if (path.equals("/" + basePath + AppConfiguration.WEBSOCKET_URL)) {
-            allowAccess = true;
+        if (path.startsWith(swaggerPrefix)) {
+            return PathType.SWAGGER;
         }
-        // check for swagger access
-        else if (path.matches("/" + basePath + "/" + protectedBasePath + "/swagger\\..*")) {
-            allowAccess = true;
+        if (path.startsWith(protectedPrefix)) {
+            return PathType.PROTECTED;
         }
-        // check for accessing protected resources such as rest-services
-        else if (path.startsWith("/" + basePath + "/" + protectedBasePath)) {
-            // get the user roles out of the http session
-            allowAccess = checkProtectedPath(httpRequest, path);
+        return PathType.UNKNOWN;
+    }
+
+    private static boolean hasDotSegment(String path) {
+        int index = path.indexOf("/.");
+        while (index >= 0) {
+            int next = index + 2;
+            if ((next == path.length()) || (path.charAt(next) == '/')) {
+                return true;
+            }
+            if ((path.charAt(next) == '.') && ((next + 1 == path.length()) || (path.charAt(next + 1) == '/'))) {
+                return true;
+            }
+            index = path.indexOf("/.", next);
+        }
+        return false;
+    }
+
+    private boolean checkResourceAccess(HttpServletRequest httpRequest, String path, PathType pathType) {
+        switch (pathType) {
+            case HTML:
+            case WEBSOCKET:
+            case SWAGGER:
+                return true;
+            case PUBLIC:
+                LOGGER.trace("  Fetching public resource: {}", path);
+                return true;
+            case PROTECTED:
+                return checkProtectedPath(httpRequest, path);
+            default:
+                return false;
         }
-        return allowAccess;
     }
 
     private boolean checkProtectedPath(HttpServletRequest httpRequest, String path) {
-        UserEntity sessionUser = getSessionUser(httpRequest);
-        List<String> userRoles;
-        if (sessionUser != null) {
-            LOGGER.trace("   User '{}' accessing protected resource: {}", sessionUser.getLogin(), path);
-            userRoles = sessionUser.getRolesAsString();
+        SessionPrincipal principal = AuthorityConfig.getInstance().getSessionPrincipal(httpRequest);
+        long userRoles;
+        if (principal != null) {
+            LOGGER.trace("   User '{}' accessing protected resource: {}", principal.getUserId(), path);
+            userRoles = principal.getRoles();
             // authenticated users get automatically the role USER
-            if (userRoles.contains(AuthRole.VIRT_ROLE_USER)) {
+            if ((userRoles & AppRoles.USER.bit()) != 0L) {
                 LOGGER.warn("   *** Virtual user role {} was detected on user!", AuthRole.VIRT_ROLE_USER);
             }
-            userRoles.add(AuthRole.VIRT_ROLE_USER);
+            userRoles |= AppRoles.USER.bit();
         }
         else {
             LOGGER.trace("  Accessing protected resource: {}", path);
             // non-authenticated users get automatically the role GUEST
-            userRoles = new ArrayList<>();
-            userRoles.add(AuthRole.VIRT_ROLE_GUEST);
-        }
-        if (authChecker.checkAccess("/" + basePath + "/" + protectedBasePath, httpRequest, userRoles)) {
-            return true;
-        }
-        return false;
-    }
-
-    /**
-     * Check if the request came form a authenticated user, if so then return the
-     * user as set in session. An authenticated user is expected to be in HTTP session
-     * attribute defined by AuthorityConfig.SESSION_ATTR_USER.
-     * 
-     * @param request   HTTP request
-     * @return          UserEntity as currently set in session, or null if user is set in session.
-     */
-    private UserEntity getSessionUser(HttpServletRequest request) {
-        HttpSession  session   = request.getSession();
-        Object       user      = session.getAttribute(AuthorityConfig.SESSION_ATTR_USER);
-        if (user != null) {
-            if (user instanceof UserEntity) {
-                return (UserEntity)user;
-            }
-            else {
-                LOGGER.error("*** Unexpected session object type detected for '{}'", AuthorityConfig.SESSION_ATTR_USER);
-            }
+            userRoles = AppRoles.GUEST.bit();
         }
-        return null;
+        return authChecker.checkAccess(protectedPrefix, path, httpRequest.getMethod(), userRoles);
     }
 
     /**
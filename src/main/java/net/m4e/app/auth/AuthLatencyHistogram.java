@@ -0,0 +1,51 @@
+/*
+ * Copyright (c) 2017-2019 by Botorabi. All rights reserved.
+ * https://github.com/botorabi/Meet4Eat
+ *
+ * License: MIT License (MIT), read the LICENSE text in
+ *          main directory for more details.
+ */
+package net.m4e.app.auth;
+
+import java.util.*;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Histogram of access check latencies. The buckets are powers of two of nanoseconds
+ * starting with 64 ns, the last bucket takes everything from about one millisecond on.
+ *
+ * @author boto
+ * Date of creation Oct 18, 2026
+ */
+class AuthLatencyHistogram {
+
+    private static final int FIRST_BUCKET_SHIFT = 6;
+
+    private static final int COUNT_BUCKETS = 16;
+
+    private final AtomicLongArray buckets = new AtomicLongArray(COUNT_BUCKETS);
+
+    /**
+     * Record a latency.
+     *
+     * @param nanos Latency in nanoseconds
+     */
+    void record(long nanos) {
+        int bucket = (64 - Long.numberOfLeadingZeros(Math.max(0L, nanos))) - FIRST_BUCKET_SHIFT;
+        buckets.incrementAndGet(Math.min(Math.max(bucket, 0), COUNT_BUCKETS - 1));
+    }
+
+    /**
+     * Export the histogram. The keys are the upper bounds of the buckets.
+     *
+     * @return Counts of latencies by bucket
+     */
+    Map<String, Long> export() {
+        Map<String, Long> histogram = new LinkedHashMap<>();
+        for (int i = 0; i < COUNT_BUCKETS - 1; i++) {
+            histogram.put("<" + (1L << (i + FIRST_BUCKET_SHIFT)) + "ns", buckets.get(i));
+        }
+        histogram.put(">=" + (1L << (COUNT_BUCKETS - 1 + FIRST_BUCKET_SHIFT)) + "ns", buckets.get(COUNT_BUCKETS - 1));
+        return histogram;
+    }
+}
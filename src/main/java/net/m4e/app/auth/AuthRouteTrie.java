@@ -0,0 +1,161 @@
+/*
+ * Copyright (c) 2017-2019 by Botorabi. All rights reserved.
+ * https://github.com/botorabi/Meet4Eat
+ *
+ * License: MIT License (MIT), read the LICENSE text in
+ *          main directory for more details.
+ */
+package net.m4e.app.auth;
+
+import java.util.*;
+
+/**
+ * Segment trie of access rules. Resource paths are split into their segments; a
+ * segment is either a literal or a path parameter like {id}, which matches exactly
+ * one non-empty segment as in JAX-RS. Paths differing only in parameter names share
+ * the same rule.
+ *
+ * On lookup the literal children of a node are tried before its parameter child, if
+ * a branch does not lead to a rule then the next one is tried. The lookup works on
+ * the given path string in place, it uses neither regular expressions nor allocates
+ * any objects.
+ *
+ * The trie is built once and must not be modified while it is used for lookups.
+ *
+ * @author boto
+ * Date of creation Oct 18, 2026
+ */
+class AuthRouteTrie {
+
+    private static final String[] NO_NAMES = new String[0];
+    private static final Node[] NO_NODES = new Node[0];
+
+    /**
+     * Trie node, it represents a path segment.
+     */
+    private static final class Node {
+        private String[] literalNames = NO_NAMES;
+        private Node[] literalNodes = NO_NODES;
+        private Node paramNode;
+        private AuthAccessRuleChecker rule;
+
+        private Node getOrAddLiteral(String name) {
+            for (int i = 0; i < literalNames.length; i++) {
+                if (literalNames[i].equals(name)) {
+                    return literalNodes[i];
+                }
+            }
+            int count = literalNames.length;
+            literalNames = Arrays.copyOf(literalNames, count + 1);
+            literalNodes = Arrays.copyOf(literalNodes, count + 1);
+            literalNames[count] = name;
+            literalNodes[count] = new Node();
+            return literalNodes[count];
+        }
+
+        private Node getOrAddParam() {
+            if (paramNode == null) {
+                paramNode = new Node();
+            }
+            return paramNode;
+        }
+    }
+
+    private final Node root = new Node();
+
+    private int countRules = 0;
+
+    /**
+     * Add the access roles of given rule to the trie. If there is already a rule with
+     * the same path template then the access roles are merged into it, otherwise the
+     * rule gets the next rule ID.
+     *
+     * @param rule  Access rule
+     * @return      The rule which is stored in trie
+     */
+    AuthAccessRuleChecker add(AuthAccessRuleChecker rule) {
+        Node node = root;
+        for (String segment: rule.getResourcePath().split("/")) {
+            if (segment.isEmpty()) {
+                continue;
+            }
+            if (segment.startsWith("{") && segment.endsWith("}")) {
+                node = node.getOrAddParam();
+            }
+            else {
+                node = node.getOrAddLiteral(segment);
+            }
+        }
+        if (node.rule == null) {
+            node.rule = rule;
+            countRules++;
+            rule.setRuleId(countRules);
+        }
+        else {
+            rule.getAccessRules().forEach(node.rule::addAccessRoles);
+        }
+        return node.rule;
+    }
+
+    /**
+     * Find the rule for given resource path.
+     *
+     * @param path  Resource path beginning with a slash, e.g. /rest/users/42
+     * @return      The rule, or null if there is no rule for given path
+     */
+    AuthAccessRuleChecker find(String path) {
+        return find(path, 0);
+    }
+
+    /**
+     * Find the rule for the resource path which starts at given offset of a path.
+     *
+     * @param path      Path containing the resource path
+     * @param offset    Offset of the resource path in given path, it must point to a slash
+     * @return          The rule, or null if there is no rule for the resource path
+     */
+    AuthAccessRuleChecker find(String path, int offset) {
+        return find(root, path, offset);
+    }
+
+    /**
+     * Get the count of rules with distinct path templates.
+     */
+    int getCountRules() {
+        return countRules;
+    }
+
+    private static AuthAccessRuleChecker find(Node node, String path, int position) {
+        int length = path.length();
+        if (position == length) {
+            return node.rule;
+        }
+        if (path.charAt(position) != '/') {
+            return null;
+        }
+        int segmentStart = position + 1;
+        int segmentEnd = path.indexOf('/', segmentStart);
+        if (segmentEnd < 0) {
+            segmentEnd = length;
+        }
+        int segmentLength = segmentEnd - segmentStart;
+        if (segmentLength == 0) {
+            return null;
+        }
+
+        String[] names = node.literalNames;
+        for (int i = 0; i < names.length; i++) {
+            if ((names[i].length() == segmentLength) && path.regionMatches(segmentStart, names[i], 0, segmentLength)) {
+                AuthAccessRuleChecker rule = find(node.literalNodes[i], path, segmentEnd);
+                if (rule != null) {
+                    return rule;
+                }
+                break;
+            }
+        }
+        if (node.paramNode != null) {
+            return find(node.paramNode, path, segmentEnd);
+        }
+        return null;
+    }
+}
@@ -7,12 +7,8 @@
  */
 package net.m4e.app.auth;
 
-import net.m4e.app.resources.DocumentRestService;
 import net.m4e.app.user.business.UserEntity;
 import net.m4e.common.HashCreator;
-import net.m4e.system.core.AppInfoRestService;
-import net.m4e.system.maintenance.rest.MaintenanceRestService;
-import net.m4e.update.rest.UpdateCheckRestService;
 import org.slf4j.*;
 
 import javax.servlet.http.*;
@@ -30,30 +26,19 @@ public class AuthorityConfig {
     private static final Logger LOGGER = LoggerFactory.getLogger(MethodHandles.lookup().lookupClass());
 
     /**
-     * Session attribute name for user.
+     * Session attribute name for user's principal.
      */
     public static final String SESSION_ATTR_USER = "USER";
 
     /**
-     * A list of java beans which should be unter control of authority checker.
-     * Extend the list whenever new REST beans are created which need protected access.
+     * Count of iterations for creating a hash.
      */
-    private static final Class[] accessBeanClasses = {
-            UpdateCheckRestService.class,
-            AppInfoRestService.class,
-            MaintenanceRestService.class,
-            net.m4e.app.user.rest.UserRestService.class,
-            net.m4e.app.user.rest.UserAuthenticationRestService.class,
-            net.m4e.app.event.rest.EventRestService.class,
-            net.m4e.app.event.rest.EventLocationVoteRestService.class,
-            DocumentRestService.class,
-            net.m4e.app.mailbox.rest.MailRestService.class
-    };
+    private static final int PW_HASH_ITERATION = 10;
 
     /**
-     * Count of iterations for creating a hash.
+     * The authorization checker of the auth filter, it is set on filter initialization.
      */
-    private static final int PW_HASH_ITERATION = 10;
+    private volatile AuthChecker authChecker;
 
     /**
      * Construct the instance.
@@ -61,27 +46,41 @@ public class AuthorityConfig {
     private AuthorityConfig() {}
 
     /**
-     * Given a HTTP request object, return the user entity set in its session.
+     * Given a HTTP request object, return the principal of the user set in its session.
      * 
      * @param request   HTTP request
-     * @return          Return session's UserEntity, or null if no user was set in session
+     * @return          Return session's principal, or null if no user was set in session
      */
-    public UserEntity getSessionUser(HttpServletRequest request) {
-       return getSessionUser(request.getSession());
+    public SessionPrincipal getSessionPrincipal(HttpServletRequest request) {
+       return getSessionPrincipal(request.getSession());
     }
 
     /**
-     * Given a HTTP session, return the user entity set in its session.
+     * Given a HTTP session, return the principal of the user set in its session.
      * 
      * @param session   HTTP session
-     * @return          Return session's UserEntity, or null if no user was set in session
+     * @return          Return session's principal, or null if no user was set in session
      */
-    public UserEntity getSessionUser(HttpSession session) {
-        Object sessionUser = session.getAttribute(AuthorityConfig.SESSION_ATTR_USER);
-        if ((sessionUser == null) || !(sessionUser instanceof UserEntity)) {
+    public SessionPrincipal getSessionPrincipal(HttpSession session) {
+        Object principal = session.getAttribute(AuthorityConfig.SESSION_ATTR_USER);
+        if (!(principal instanceof SessionPrincipal)) {
             return null;
         }
-        return (UserEntity)sessionUser;
+        return (SessionPrincipal)principal;
+    }
+
+    /**
+     * Store the principal of given user in HTTP session. Only the principal is kept in the session,
+     * the user entity is loaded whenever it is needed.
+     * 
+     * @param session   HTTP session
+     * @param user      Authenticated user
+     * @return          The principal stored in session
+     */
+    public SessionPrincipal setSessionPrincipal(HttpSession session, UserEntity user) {
+        SessionPrincipal principal = SessionPrincipal.fromUser(user);
+        session.setAttribute(AuthorityConfig.SESSION_ATTR_USER, principal);
+        return principal;
     }
 
     /**
@@ -94,12 +93,32 @@ public class AuthorityConfig {
     }
 
     /**
-     * Get a list with all bean classes which need protected resource access.
+     * Set the authorization checker which is used for checking the access to protected resources.
+     *
+     * @param authChecker   Authorization checker
+     */
+    public void setAuthChecker(AuthChecker authChecker) {
+        this.authChecker = authChecker;
+    }
+
+    /**
+     * Export the statistics of the authorization checker.
+     *
+     * @return Checker statistics, or null if no checker was set yet
+     */
+    public AuthCheckerInfo exportAuthCheckerInfo() {
+        AuthChecker checker = authChecker;
+        return (checker != null) ? checker.exportInfo() : null;
+    }
+
+    /**
+     * Get a list with all bean classes which need protected resource access. These are
+     * all classes annotated with javax.ws.rs.Path, they are collected at build time.
      * 
      * @return List of bean classes.
      */
     public List<Class<?>> getAccessBeanClasses() {
-        return Arrays.asList(accessBeanClasses);
+        return AuthRuleTable.getResourceClasses();
     }
 
     /**
@@ -127,15 +146,14 @@ public class AuthorityConfig {
      * @return          Hash string, null if something went wrong
      */
     public String createPassword(String string) {
-        String pw = "" + string;
-        for (int i = 0; i < PW_HASH_ITERATION; i++) {
-            pw = createHash(pw);
-            if (pw == null) {
-                //TODO: better handling, see Issue #8 on github
-                return null;
-            }
+        try {
+            return HashCreator.createChainedSHA512("" + string, PW_HASH_ITERATION);
         }
-        return pw;
+        catch (Exception ex) {
+            //TODO: better handling, see Issue #8 on github
+            LOGGER.error("Problem occurred while hashing a password, reason: {}", ex.getMessage());
+        }
+        return null;
     }
 
     /**
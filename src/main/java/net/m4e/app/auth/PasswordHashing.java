@@ -0,0 +1,416 @@
+/*
+ * Copyright (c) 2017-2019 by Botorabi. All rights reserved.
+ * https://github.com/botorabi/Meet4Eat
+ *
+ * License: MIT License (MIT), read the LICENSE text in
+ *          main directory for more details.
+ */
+package net.m4e.app.auth;
+
+import net.m4e.app.user.business.Users;
+import net.m4e.system.core.AppConfiguration;
+import org.slf4j.*;
+
+import javax.annotation.*;
+import javax.crypto.SecretKeyFactory;
+import javax.crypto.spec.PBEKeySpec;
+import javax.enterprise.context.ApplicationScoped;
+import javax.inject.Inject;
+import java.lang.invoke.MethodHandles;
+import java.nio.charset.StandardCharsets;
+import java.security.*;
+import java.util.Base64;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Password checks on login run on a bounded pool of worker threads, it is sized to the count
+ * of cores. If the queue of pending checks is full then a login is rejected as the server is
+ * busy, instead of piling up request threads which are all burning CPU on hashing.
+ *
+ * Stored passwords are either legacy hashes, i.e. chained SHA-512 hex strings as created by
+ * 'AuthorityConfig.createPassword', or adaptive hashes in the format
+ *
+ *   pbkdf2-sha512$[iterations]$[salt]$[hash]
+ *
+ * The adaptive hash is derived from the legacy hash, so a client which sends the legacy hash
+ * along its login (see 'LoginCmd.passwordHash') can be checked against both formats. The
+ * iterations are calibrated on startup against the configured target latency. If the upgrade
+ * is enabled then legacy hashes and adaptive hashes with fewer iterations than calibrated are
+ * replaced on the next successful login.
+ *
+ * The upgrade cannot be reverted, disabling it again keeps the adaptive hashes stored so far.
+ * Users having one can log in only with clients which send the password hash, so the clients
+ * are asked for it as long as adaptive hashes may exist, see 'isPasswordHashNeeded'. Clients
+ * ignoring the request cannot log in those users anymore.
+ *
+ * @author boto
+ * Date of creation Oct 18, 2026
+ */
+@ApplicationScoped
+public class PasswordHashing {
+
+    /**
+     * Logger.
+     */
+    private static final Logger LOGGER = LoggerFactory.getLogger(MethodHandles.lookup().lookupClass());
+
+    /**
+     * Prefix of adaptive password hashes
+     */
+    public static final String ADAPTIVE_PREFIX = "pbkdf2-sha512$";
+
+    /**
+     * Minimal and maximal iterations of the adaptive hash
+     */
+    public static final int MIN_ITERATIONS = 10000;
+    public static final int MAX_ITERATIONS = 10000000;
+
+    /**
+     * Default maximal count of queued checks
+     */
+    public static final int DEFAULT_QUEUE_SIZE = 64;
+
+    /**
+     * Default target latency of an adaptive hash in milliseconds
+     */
+    public static final int DEFAULT_TARGET_LATENCY = 50;
+
+    /**
+     * Maximal time in milliseconds a login waits for its check
+     */
+    private static final long CHECK_TIMEOUT = 5000L;
+
+    /**
+     * Wait time in milliseconds for pending checks on shutdown
+     */
+    private static final long SHUTDOWN_TIMEOUT = 5000L;
+
+    private static final String KEY_ALGORITHM = "PBKDF2WithHmacSHA512";
+
+    private static final int SALT_LENGTH = 16;
+
+    private static final int KEY_LENGTH = 512;
+
+    private static final int CALIBRATION_ROUNDS = 5;
+
+    /**
+     * Outcome of a password check
+     */
+    public enum Outcome {
+        GRANTED,
+        DENIED,
+        BUSY
+    }
+
+    /**
+     * Result of a password check
+     */
+    public static class Result {
+        private final Outcome outcome;
+        private final String upgradedHash;
+
+        Result(Outcome outcome, String upgradedHash) {
+            this.outcome = outcome;
+            this.upgradedHash = upgradedHash;
+        }
+
+        public Outcome getOutcome() {
+            return outcome;
+        }
+
+        /**
+         * Get the new password hash which is to be stored for the user, null if the stored one is kept.
+         */
+        public String getUpgradedHash() {
+            return upgradedHash;
+        }
+    }
+
+    private final SecureRandom random = new SecureRandom();
+
+    private ThreadPoolExecutor executor;
+
+    private int iterations = MIN_ITERATIONS;
+
+    private boolean upgrade;
+
+    /**
+     * Is there any stored adaptive hash? It is determined on startup and set once one is created.
+     */
+    private volatile boolean adaptiveHashes;
+
+    /**
+     * Used for finding stored adaptive hashes on startup
+     */
+    @Inject
+    Users users;
+
+    /**
+     * Construct the bean.
+     */
+    public PasswordHashing() {}
+
+    /**
+     * Create the worker pool and calibrate the iterations of the adaptive hash.
+     */
+    @PostConstruct
+    public void passwordHashingInit() {
+        AppConfiguration config = AppConfiguration.getInstance();
+        int threads = (int) config.getConfigNumber(AppConfiguration.TOKEN_PW_HASH_THREADS,
+                Runtime.getRuntime().availableProcessors());
+        int queueSize = (int) config.getConfigNumber(AppConfiguration.TOKEN_PW_HASH_QUEUE_SIZE, DEFAULT_QUEUE_SIZE);
+        long targetLatency = config.getConfigNumber(AppConfiguration.TOKEN_PW_HASH_TARGET_LATENCY, DEFAULT_TARGET_LATENCY);
+        boolean upgradeHashes = Boolean.parseBoolean(config.getConfigValue(AppConfiguration.TOKEN_PW_HASH_UPGRADE));
+
+        setup(threads, queueSize, calibrate(targetLatency), upgradeHashes);
+        setAdaptiveHashes(findAdaptiveHashes());
+        LOGGER.info("Password hashing threads: {}, queue size: {}, iterations: {}, upgrade: {}, adaptive hashes stored: {}",
+                threads, queueSize, iterations, upgrade, adaptiveHashes);
+    }
+
+    /**
+     * Let the pending checks complete.
+     */
+    @PreDestroy
+    public void passwordHashingShutdown() {
+        if (executor == null) {
+            return;
+        }
+        executor.shutdown();
+        try {
+            if (!executor.awaitTermination(SHUTDOWN_TIMEOUT, TimeUnit.MILLISECONDS)) {
+                executor.shutdownNow();
+            }
+        }
+        catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            executor.shutdownNow();
+        }
+    }
+
+    /**
+     * Setup the worker pool, an already existing one is shut down.
+     *
+     * @param threads       Count of worker threads
+     * @param queueSize     Maximal count of queued checks
+     * @param iterations    Iterations of the adaptive hash
+     * @param upgrade       Pass true for upgrading stored hashes on login
+     */
+    public void setup(int threads, int queueSize, int iterations, boolean upgrade) {
+        passwordHashingShutdown();
+        AtomicInteger threadNumber = new AtomicInteger();
+        executor = new ThreadPoolExecutor(Math.max(1, threads), Math.max(1, threads), 0L, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(Math.max(1, queueSize)),
+                runnable -> {
+                    Thread thread = new Thread(runnable, "m4e-password-hashing-" + threadNumber.incrementAndGet());
+                    thread.setDaemon(true);
+                    return thread;
+                },
+                new ThreadPoolExecutor.AbortPolicy());
+        this.iterations = Math.min(MAX_ITERATIONS, Math.max(MIN_ITERATIONS, iterations));
+        this.upgrade = upgrade;
+    }
+
+    /**
+     * Are the stored hashes upgraded on login?
+     */
+    public boolean isUpgrade() {
+        return upgrade;
+    }
+
+    /**
+     * Set whether there are stored adaptive hashes.
+     *
+     * @param adaptiveHashes    Pass true if at least one user has an adaptive hash
+     */
+    public void setAdaptiveHashes(boolean adaptiveHashes) {
+        this.adaptiveHashes = adaptiveHashes;
+    }
+
+    /**
+     * Do the clients have to send the password hash along their login? This is the case if
+     * the stored hashes are upgraded, or if adaptive hashes were stored before, even if the
+     * upgrade is disabled now.
+     */
+    public boolean isPasswordHashNeeded() {
+        return upgrade || adaptiveHashes;
+    }
+
+    /**
+     * Get the iterations of new adaptive hashes.
+     */
+    public int getIterations() {
+        return iterations;
+    }
+
+    /**
+     * Measure the hashing speed and get the iterations which take about the given time.
+     *
+     * @param targetLatency Target latency in milliseconds
+     * @return              Calibrated iterations
+     */
+    public int calibrate(long targetLatency) {
+        byte[] salt = new byte[SALT_LENGTH];
+        long fastest = Long.MAX_VALUE;
+        for (int i = 0; i < CALIBRATION_ROUNDS; i++) {
+            long start = System.nanoTime();
+            if (deriveKey("calibration", salt, MIN_ITERATIONS) == null) {
+                return MIN_ITERATIONS;
+            }
+            fastest = Math.min(fastest, System.nanoTime() - start);
+        }
+        double calibrated = (double) TimeUnit.MILLISECONDS.toNanos(targetLatency) * MIN_ITERATIONS / Math.max(1L, fastest);
+        return (int) Math.min(MAX_ITERATIONS, Math.max(MIN_ITERATIONS, calibrated));
+    }
+
+    /**
+     * Check the password of a login on the worker pool and wait for the result.
+     *
+     * @param storedHash    Password hash stored for the user
+     * @param sessionId     Session ID the client has used for salting its response
+     * @param response      Client response, i.e. the password hash salted with the session ID and hashed again
+     * @param passwordHash  Password hash sent by the client, it is optional for legacy hashes
+     * @return              Result of the check
+     */
+    public Result checkLogin(String storedHash, String sessionId, String response, String passwordHash) {
+        Future<Result> result;
+        try {
+            result = executor.submit(() -> check(storedHash, sessionId, response, passwordHash));
+        }
+        catch (RejectedExecutionException ex) {
+            LOGGER.warn("Password check was rejected, the queue is full");
+            return new Result(Outcome.BUSY, null);
+        }
+        try {
+            return result.get(CHECK_TIMEOUT, TimeUnit.MILLISECONDS);
+        }
+        catch (TimeoutException ex) {
+            result.cancel(true);
+            LOGGER.warn("Password check timed out");
+            return new Result(Outcome.BUSY, null);
+        }
+        catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            result.cancel(true);
+            return new Result(Outcome.BUSY, null);
+        }
+        catch (ExecutionException ex) {
+            LOGGER.error("Password check failed, reason: {}", ex.getCause().getMessage());
+            return new Result(Outcome.DENIED, null);
+        }
+    }
+
+    /**
+     * Create an adaptive hash out of given password hash.
+     *
+     * @param passwordHash  Password hash as created by 'AuthorityConfig.createPassword'
+     * @return              Adaptive hash, null if something went wrong
+     */
+    public String createAdaptiveHash(String passwordHash) {
+        byte[] salt = new byte[SALT_LENGTH];
+        random.nextBytes(salt);
+        byte[] key = deriveKey(passwordHash, salt, iterations);
+        if (key == null) {
+            return null;
+        }
+        adaptiveHashes = true;
+        Base64.Encoder encoder = Base64.getEncoder();
+        return ADAPTIVE_PREFIX + iterations + "$" + encoder.encodeToString(salt) + "$" + encoder.encodeToString(key);
+    }
+
+    private Result check(String storedHash, String sessionId, String response, String passwordHash) {
+        boolean adaptive = storedHash.startsWith(ADAPTIVE_PREFIX);
+        if (passwordHash == null || passwordHash.isEmpty()) {
+            if (adaptive) {
+                LOGGER.debug("  Password check needs the password hash for adaptive hashes");
+                // the client was not asked for it, let it send the hash on the next attempt
+                adaptiveHashes = true;
+                return new Result(Outcome.DENIED, null);
+            }
+            return new Result(matchesResponse(storedHash, sessionId, response) ? Outcome.GRANTED : Outcome.DENIED, null);
+        }
+
+        if (!matchesResponse(passwordHash, sessionId, response)) {
+            return new Result(Outcome.DENIED, null);
+        }
+        int storedIterations;
+        if (adaptive) {
+            storedIterations = matchesAdaptiveHash(storedHash, passwordHash);
+            if (storedIterations < 0) {
+                return new Result(Outcome.DENIED, null);
+            }
+        }
+        else {
+            if (!MessageDigest.isEqual(bytesOf(storedHash), bytesOf(passwordHash))) {
+                return new Result(Outcome.DENIED, null);
+            }
+            storedIterations = 0;
+        }
+        String upgradedHash = (upgrade && (storedIterations < iterations)) ? createAdaptiveHash(passwordHash) : null;
+        return new Result(Outcome.GRANTED, upgradedHash);
+    }
+
+    /**
+     * Check if any user has an adaptive hash. If it cannot be determined then it is assumed, so
+     * the clients are asked for the password hash.
+     */
+    private boolean findAdaptiveHashes() {
+        if (users == null) {
+            return false;
+        }
+        try {
+            return users.getCountUsersWithPasswordPrefix(ADAPTIVE_PREFIX) > 0;
+        }
+        catch (RuntimeException ex) {
+            LOGGER.warn("Could not look for adaptive password hashes, reason: {}", ex.getLocalizedMessage());
+            return true;
+        }
+    }
+
+    private boolean matchesResponse(String passwordHash, String sessionId, String response) {
+        String expected = AuthorityConfig.getInstance().createPassword(passwordHash + sessionId);
+        return (expected != null) && MessageDigest.isEqual(bytesOf(expected), bytesOf(response));
+    }
+
+    /**
+     * Check the password hash against an adaptive hash.
+     *
+     * @return The iterations of the adaptive hash, -1 if the password hash does not match
+     */
+    private int matchesAdaptiveHash(String storedHash, String passwordHash) {
+        String[] parts = storedHash.substring(ADAPTIVE_PREFIX.length()).split("\\$");
+        if (parts.length != 3) {
+            LOGGER.warn("Invalid adaptive password hash");
+            return -1;
+        }
+        try {
+            int storedIterations = Integer.parseInt(parts[0]);
+            Base64.Decoder decoder = Base64.getDecoder();
+            byte[] key = deriveKey(passwordHash, decoder.decode(parts[1]), storedIterations);
+            return ((key != null) && MessageDigest.isEqual(key, decoder.decode(parts[2]))) ? storedIterations : -1;
+        }
+        catch (IllegalArgumentException ex) {
+            LOGGER.warn("Invalid adaptive password hash, reason: {}", ex.getMessage());
+            return -1;
+        }
+    }
+
+    private static byte[] deriveKey(String passwordHash, byte[] salt, int iterations) {
+        PBEKeySpec spec = new PBEKeySpec(passwordHash.toCharArray(), salt, iterations, KEY_LENGTH);
+        try {
+            return SecretKeyFactory.getInstance(KEY_ALGORITHM).generateSecret(spec).getEncoded();
+        }
+        catch (GeneralSecurityException ex) {
+            LOGGER.error("Problem occurred while deriving a password key, reason: {}", ex.getMessage());
+            return null;
+        }
+        finally {
+            spec.clearPassword();
+        }
+    }
+
+    private static byte[] bytesOf(String string) {
+        return (string != null) ? string.getBytes(StandardCharsets.UTF_8) : new byte[0];
+    }
+}
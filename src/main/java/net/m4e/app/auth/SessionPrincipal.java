@@ -0,0 +1,110 @@
+/*
+ * Copyright (c) 2017-2019 by Botorabi. All rights reserved.
+ * https://github.com/botorabi/Meet4Eat
+ *
+ * License: MIT License (MIT), read the LICENSE text in
+ *          main directory for more details.
+ */
+package net.m4e.app.auth;
+
+import net.m4e.app.user.business.UserEntity;
+
+import java.io.Serializable;
+import java.util.*;
+
+/**
+ * Authenticated user as held by the HTTP session and the WebSocket sessions. In contrast
+ * to the user entity it has no relations, so it is cheap to keep for many sessions and
+ * to replicate. Where the full user is needed it must be loaded given the user ID.
+ *
+ * Instances are immutable.
+ *
+ * @author boto
+ * Date of creation Oct 18, 2026
+ */
+public final class SessionPrincipal implements Serializable {
+
+    private static final long serialVersionUID = 1L;
+
+    private final long userId;
+
+    private final String name;
+
+    private final long roles;
+
+    /**
+     * Create a principal.
+     *
+     * @param userId    User ID
+     * @param name      User's display name
+     * @param roles     Role mask, see AppRoles
+     */
+    public SessionPrincipal(long userId, String name, long roles) {
+        this.userId = userId;
+        this.name = name;
+        this.roles = roles;
+    }
+
+    /**
+     * Create a principal for given user.
+     *
+     * @param user  User entity
+     * @return      The principal
+     */
+    public static SessionPrincipal fromUser(UserEntity user) {
+        return new SessionPrincipal(user.getId(), user.getName(), user.getRolesAsMask());
+    }
+
+    public long getUserId() {
+        return userId;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    /**
+     * Get the role mask, see AppRoles.
+     */
+    public long getRoles() {
+        return roles;
+    }
+
+    /**
+     * Check if the user has given role.
+     *
+     * @param role  Role name
+     * @return      Return true if the user has the role.
+     */
+    public boolean hasRole(String role) {
+        return (roles & AppRoles.bitOf(role)) != 0L;
+    }
+
+    /**
+     * Check if the user has at least one of given roles.
+     *
+     * @param roleNames Role names
+     * @return          Return true if one of the roles matches.
+     */
+    public boolean hasAnyRole(Collection<String> roleNames) {
+        return (roles & AppRoles.maskOf(roleNames)) != 0L;
+    }
+
+    /**
+     * Get the names of user's roles.
+     *
+     * @return Role names
+     */
+    public List<String> getRoleNames() {
+        return AppRoles.namesOf(roles);
+    }
+
+    @Override
+    public String toString() {
+        return "SessionPrincipal{" +
+                "userId=" + userId +
+                ", name='" + name + '\'' +
+                ", roles=" + getRoleNames() +
+                '}';
+    }
+}
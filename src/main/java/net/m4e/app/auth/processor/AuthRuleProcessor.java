@@ -0,0 +1,219 @@
+/*
+ * Copyright (c) 2017-2019 by Botorabi. All rights reserved.
+ * https://github.com/botorabi/Meet4Eat
+ *
+ * License: MIT License (MIT), read the LICENSE text in
+ *          main directory for more details.
+ */
+package net.m4e.app.auth.processor;
+
+import javax.annotation.processing.*;
+import javax.lang.model.SourceVersion;
+import javax.lang.model.element.*;
+import javax.lang.model.util.Elements;
+import javax.tools.Diagnostic;
+import javax.tools.JavaFileObject;
+import java.io.*;
+import java.util.*;
+
+/**
+ * Annotation processor creating the access rule table of all REST beans at build time.
+ * It collects all classes annotated with javax.ws.rs.Path and the roles granted by
+ * AuthRole annotations on their methods, and generates the class AuthRuleTable in
+ * package net.m4e.app.auth.
+ *
+ * The rules are built exactly as Annotations.getMethodsAuthRoles does it at runtime:
+ * only declared methods with an access method annotation (GET, POST, PUT, DELETE) and
+ * a non-empty list of granted roles are considered, the method path is appended to
+ * the class path.
+ *
+ * The processor is not registered as a service, the build names it explicitly for
+ * compiling the main sources.
+ *
+ * @author boto
+ * Date of creation Oct 18, 2026
+ */
+@SupportedAnnotationTypes(AuthRuleProcessor.ANNOTATION_PATH)
+public class AuthRuleProcessor extends AbstractProcessor {
+
+    static final String ANNOTATION_PATH = "javax.ws.rs.Path";
+
+    static final String ANNOTATION_AUTH_ROLE = "net.m4e.app.auth.AuthRole";
+
+    static final String TABLE_PACKAGE = "net.m4e.app.auth";
+
+    static final String TABLE_CLASS = "AuthRuleTable";
+
+    private static final String[] ACCESS_METHODS = {"GET", "POST", "PUT", "DELETE"};
+
+    private boolean tableCreated = false;
+
+    @Override
+    public SourceVersion getSupportedSourceVersion() {
+        return SourceVersion.latestSupported();
+    }
+
+    @Override
+    public boolean process(Set<? extends TypeElement> annotations, RoundEnvironment roundEnv) {
+        if (tableCreated || roundEnv.processingOver()) {
+            return false;
+        }
+        TypeElement pathAnnotation = processingEnv.getElementUtils().getTypeElement(ANNOTATION_PATH);
+        if (pathAnnotation == null) {
+            return false;
+        }
+
+        SortedSet<String> resourceClasses = new TreeSet<>();
+        SortedMap<String /*path*/, SortedMap<String /*access method*/, List<String /*roles*/>>> rules = new TreeMap<>();
+        for (Element element: roundEnv.getElementsAnnotatedWith(pathAnnotation)) {
+            if ((element.getKind() == ElementKind.CLASS) && element.getModifiers().contains(Modifier.PUBLIC)) {
+                TypeElement type = (TypeElement) element;
+                resourceClasses.add(type.getQualifiedName().toString());
+                collectRules(type, rules);
+            }
+        }
+
+        try {
+            writeTable(resourceClasses, rules);
+            tableCreated = true;
+        }
+        catch (IOException ex) {
+            processingEnv.getMessager().printMessage(Diagnostic.Kind.ERROR, "Could not create the access rule table: " + ex.getMessage());
+        }
+        return false;
+    }
+
+    private void collectRules(TypeElement type, Map<String, SortedMap<String, List<String>>> rules) {
+        String classPath = getStringValue(type, ANNOTATION_PATH, "value");
+        if (classPath == null) {
+            classPath = "";
+        }
+        for (Element member: type.getEnclosedElements()) {
+            if (member.getKind() != ElementKind.METHOD) {
+                continue;
+            }
+            String accessMethod = getAccessMethod(member);
+            List<String> roles = getStringValues(member, ANNOTATION_AUTH_ROLE, "grantRoles");
+            // catch empty role list (default value)
+            if ((accessMethod == null) || roles.isEmpty() || ((roles.size() == 1) && roles.get(0).isEmpty())) {
+                continue;
+            }
+            String path = getStringValue(member, ANNOTATION_PATH, "value");
+            String fullPath = classPath + (((path == null) || path.isEmpty()) ? "" : "/" + path);
+            rules.computeIfAbsent(fullPath, p -> new TreeMap<>())
+                 .computeIfAbsent(accessMethod, m -> new ArrayList<>())
+                 .addAll(roles);
+        }
+    }
+
+    private String getAccessMethod(Element method) {
+        for (String accessMethod: ACCESS_METHODS) {
+            if (findAnnotation(method, "javax.ws.rs." + accessMethod) != null) {
+                return accessMethod;
+            }
+        }
+        return null;
+    }
+
+    private AnnotationMirror findAnnotation(Element element, String annotationName) {
+        for (AnnotationMirror mirror: element.getAnnotationMirrors()) {
+            if (((TypeElement) mirror.getAnnotationType().asElement()).getQualifiedName().contentEquals(annotationName)) {
+                return mirror;
+            }
+        }
+        return null;
+    }
+
+    private AnnotationValue findValue(Element element, String annotationName, String valueName) {
+        AnnotationMirror mirror = findAnnotation(element, annotationName);
+        if (mirror == null) {
+            return null;
+        }
+        Elements elements = processingEnv.getElementUtils();
+        for (Map.Entry<? extends ExecutableElement, ? extends AnnotationValue> entry: elements.getElementValuesWithDefaults(mirror).entrySet()) {
+            if (entry.getKey().getSimpleName().contentEquals(valueName)) {
+                return entry.getValue();
+            }
+        }
+        return null;
+    }
+
+    private String getStringValue(Element element, String annotationName, String valueName) {
+        AnnotationValue value = findValue(element, annotationName, valueName);
+        return (value == null) ? null : value.getValue().toString();
+    }
+
+    private List<String> getStringValues(Element element, String annotationName, String valueName) {
+        List<String> strings = new ArrayList<>();
+        AnnotationValue value = findValue(element, annotationName, valueName);
+        if ((value != null) && (value.getValue() instanceof List)) {
+            for (Object entry: (List<?>) value.getValue()) {
+                strings.add(((AnnotationValue) entry).getValue().toString());
+            }
+        }
+        return strings;
+    }
+
+    private void writeTable(Set<String> resourceClasses, Map<String, SortedMap<String, List<String>>> rules) throws IOException {
+        JavaFileObject file = processingEnv.getFiler().createSourceFile(TABLE_PACKAGE + "." + TABLE_CLASS);
+        try (PrintWriter out = new PrintWriter(file.openWriter())) {
+            out.println("/*");
+            out.println(" * Copyright (c) 2017-2019 by Botorabi. All rights reserved.");
+            out.println(" * https://github.com/botorabi/Meet4Eat");
+            out.println(" *");
+            out.println(" * License: MIT License (MIT), read the LICENSE text in");
+            out.println(" *          main directory for more details.");
+            out.println(" */");
+            out.println("package " + TABLE_PACKAGE + ";");
+            out.println();
+            out.println("import java.util.*;");
+            out.println();
+            out.println("/**");
+            out.println(" * Access rules of all REST beans, generated at build time by " + getClass().getSimpleName() + ".");
+            out.println(" * Do not edit.");
+            out.println(" */");
+            out.println("@javax.annotation.Generated(\"" + getClass().getName() + "\")");
+            out.println("public final class " + TABLE_CLASS + " {");
+            out.println();
+            out.println("    private static final List<Class<?>> RESOURCE_CLASSES = Collections.unmodifiableList(Arrays.<Class<?>>asList(");
+            Iterator<String> classes = resourceClasses.iterator();
+            while (classes.hasNext()) {
+                out.println("            " + classes.next() + ".class" + (classes.hasNext() ? "," : ""));
+            }
+            out.println("    ));");
+            out.println();
+            out.println("    private static final String[][] RULES = {");
+            for (Map.Entry<String, SortedMap<String, List<String>>> rule: rules.entrySet()) {
+                for (Map.Entry<String, List<String>> access: rule.getValue().entrySet()) {
+                    StringBuilder row = new StringBuilder("            {").append(quote(rule.getKey())).append(", ").append(quote(access.getKey()));
+                    for (String role: access.getValue()) {
+                        row.append(", ").append(quote(role));
+                    }
+                    out.println(row.append("},"));
+                }
+            }
+            out.println("    };");
+            out.println();
+            out.println("    private " + TABLE_CLASS + "() {}");
+            out.println();
+            out.println("    /**");
+            out.println("     * Get all REST bean classes, they are the classes annotated with javax.ws.rs.Path.");
+            out.println("     */");
+            out.println("    public static List<Class<?>> getResourceClasses() {");
+            out.println("        return RESOURCE_CLASSES;");
+            out.println("    }");
+            out.println();
+            out.println("    /**");
+            out.println("     * Get the access rules. Each row holds the resource path, the access method and the granted roles.");
+            out.println("     */");
+            out.println("    static String[][] getRules() {");
+            out.println("        return RULES;");
+            out.println("    }");
+            out.println("}");
+        }
+    }
+
+    private static String quote(String value) {
+        return "\"" + value.replace("\\", "\\\\").replace("\"", "\\\"") + "\"";
+    }
+}
@@ -0,0 +1,394 @@
+/*
+ * Copyright (c) 2017-2019 by Botorabi. All rights reserved.
+ * https://github.com/botorabi/Meet4Eat
+ *
+ * License: MIT License (MIT), read the LICENSE text in
+ *          main directory for more details.
+ */
+package net.m4e.app.chat;
+
+import java.util.*;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.locks.ReentrantLock;
+
+import net.m4e.app.communication.*;
+
+
+/**
+ * Memory bounded history of recent chat messages, it lets a client fetch the messages
+ * it missed while being disconnected.
+ *
+ * Every event chat and every direct conversation between two users has a ring buffer
+ * holding its latest messages. All messages get a sequence number which is unique
+ * across conversations, so a client needs to remember only the sequence number of the
+ * last message it got.
+ *
+ * Besides the count of messages per conversation the total size of all messages is
+ * limited. If it is exceeded then the oldest messages of the least recently used
+ * conversations are dropped.
+ *
+ * The history is kept in memory only. Sequence numbers should start at the current
+ * time in milliseconds, so they keep increasing across server restarts. If a 'ChatLog'
+ * is set then all messages are appended to it, too. The log is written outside the history
+ * lock: messages are queued in sequence order while holding the lock, and one thread at a
+ * time drains the queue into the log afterwards.
+ *
+ * @author boto
+ * Date of creation Oct 18, 2026
+ */
+public class ChatHistory {
+
+    /**
+     * Default maximal count of messages per conversation
+     */
+    public final static int DEFAULT_MAX_MESSAGES = 100;
+
+    /**
+     * Default maximal total size of all messages in bytes
+     */
+    public final static long DEFAULT_MAX_BYTES = 8L * 1024L * 1024L;
+
+    /**
+     * Estimated memory overhead of a message besides its strings, in bytes
+     */
+    private final static int MESSAGE_OVERHEAD = 128;
+
+    /**
+     * Ring buffer of a conversation's latest messages
+     */
+    private static class Conversation {
+        private final String key;
+        private final long[] participants;
+        private final Packet<?>[] packets;
+        private final int[] sizes;
+        private int head = 0;
+        private int count = 0;
+        /**
+         * Sequence number of the latest message which was dropped from the buffer
+         */
+        private long lastDropped = 0L;
+
+        Conversation(String key, long[] participants, int capacity) {
+            this.key = key;
+            this.participants = participants;
+            this.packets = new Packet<?>[capacity];
+            this.sizes = new int[capacity];
+        }
+
+        @SuppressWarnings("unchecked")
+        Packet<ChatMessage> get(int index) {
+            return (Packet<ChatMessage>) packets[(head + index) % packets.length];
+        }
+
+        /**
+         * Add a message, the oldest one is dropped if the buffer is full.
+         *
+         * @return Size of the dropped message, or 0 if none was dropped
+         */
+        int add(Packet<ChatMessage> packet, int size) {
+            int dropped = (count == packets.length) ? removeOldest() : 0;
+            int index = (head + count) % packets.length;
+            packets[index] = packet;
+            sizes[index] = size;
+            count++;
+            return dropped;
+        }
+
+        /**
+         * Remove the oldest message.
+         *
+         * @return Size of the removed message
+         */
+        int removeOldest() {
+            lastDropped = get(0).getData().getSequence();
+            int size = sizes[head];
+            packets[head] = null;
+            head = (head + 1) % packets.length;
+            count--;
+            return size;
+        }
+    }
+
+    /**
+     * Message waiting for being appended to the log
+     */
+    private static class LogEntry {
+        private final ChatLog log;
+        private final Packet<ChatMessage> packet;
+        private final long eventId;
+        private final long receiverId;
+
+        LogEntry(ChatLog log, Packet<ChatMessage> packet, long eventId, long receiverId) {
+            this.log = log;
+            this.packet = packet;
+            this.eventId = eventId;
+            this.receiverId = receiverId;
+        }
+    }
+
+    private final int maxMessages;
+
+    private final long maxBytes;
+
+    /**
+     * Conversations in access order, the least recently used one comes first. Guarded by 'this'
+     */
+    private final LinkedHashMap<String, Conversation> conversations = new LinkedHashMap<>(16, 0.75f, true);
+
+    /**
+     * Keys of direct conversations by participant, guarded by 'this'
+     */
+    private final Map<Long, Set<String>> directConversations = new HashMap<>();
+
+    private long sequence;
+
+    /**
+     * Log persisting the messages, may be null
+     */
+    private ChatLog log;
+
+    /**
+     * Messages to append to the log, they are queued in sequence order while holding the lock
+     */
+    private final Queue<LogEntry> pendingLog = new ConcurrentLinkedQueue<>();
+
+    /**
+     * Held by the thread draining 'pendingLog', it keeps the appends in sequence order
+     */
+    private final ReentrantLock logWriter = new ReentrantLock();
+
+    /**
+     * Sequence number of the latest message dropped because of the total size limit
+     */
+    private long lastEvicted = 0L;
+
+    private long totalBytes = 0L;
+    private long totalMessages = 0L;
+    private long countEvicted = 0L;
+
+    /**
+     * Create a chat history.
+     *
+     * @param maxMessages   Maximal count of messages per conversation
+     * @param maxBytes      Maximal total size of all messages in bytes, 0 disables the history
+     * @param sequence      Sequence number preceding the first message
+     */
+    public ChatHistory(int maxMessages, long maxBytes, long sequence) {
+        this.maxMessages = Math.max(1, maxMessages);
+        this.maxBytes = Math.max(0L, maxBytes);
+        this.sequence = sequence;
+    }
+
+    /**
+     * Set the log which all messages are appended to. The sequence numbers continue after
+     * the last message in log.
+     *
+     * @param log   Chat log, pass null for not logging the messages
+     */
+    public synchronized void setLog(ChatLog log) {
+        this.log = log;
+        if (log != null) {
+            sequence = Math.max(sequence, log.getLastSequence());
+        }
+    }
+
+    /**
+     * Add a message sent to an event chat. The message's sequence number is set.
+     *
+     * @param eventId   Event ID
+     * @param packet    Chat packet, it must not be modified afterwards
+     */
+    public void addEventMessage(long eventId, Packet<ChatMessage> packet) {
+        synchronized (this) {
+            add("e" + eventId, null, packet);
+            if (log != null) {
+                pendingLog.add(new LogEntry(log, packet, eventId, 0L));
+            }
+        }
+        writeLog();
+    }
+
+    /**
+     * Add a message sent directly to a user. The message's sequence number is set.
+     *
+     * @param senderId      Sender ID
+     * @param receiverId    Receiver ID
+     * @param packet        Chat packet, it must not be modified afterwards
+     */
+    public void addUserMessage(long senderId, long receiverId, Packet<ChatMessage> packet) {
+        long first = Math.min(senderId, receiverId);
+        long second = Math.max(senderId, receiverId);
+        synchronized (this) {
+            add("u" + first + ":" + second, new long[]{first, second}, packet);
+            if (log != null) {
+                pendingLog.add(new LogEntry(log, packet, 0L, receiverId));
+            }
+        }
+        writeLog();
+    }
+
+    /**
+     * Get the messages of a user's conversations after given sequence number.
+     *
+     * @param userId    User ID, its direct conversations are searched
+     * @param eventIds  IDs of the events whose chats are searched
+     * @param since     Sequence number of the last message known by the client
+     * @param limit     Maximal count of messages to return, the oldest ones are left out
+     * @return          The messages
+     */
+    public synchronized ChatHistoryInfo getMessages(long userId, Collection<Long> eventIds, long since, int limit) {
+        List<Conversation> found = new ArrayList<>();
+        eventIds.forEach(eventId -> {
+            Conversation conversation = conversations.get("e" + eventId);
+            if (conversation != null) {
+                found.add(conversation);
+            }
+        });
+        directConversations.getOrDefault(userId, Collections.emptySet())
+                .forEach(key -> found.add(conversations.get(key)));
+
+        // the client may know messages from before a restart, or messages of a dropped conversation
+        boolean complete = (since <= sequence) && (lastEvicted <= since);
+        List<Packet<ChatMessage>> messages = new ArrayList<>();
+        for (Conversation conversation: found) {
+            if (conversation.lastDropped > since) {
+                complete = false;
+            }
+            for (int i = 0; i < conversation.count; i++) {
+                Packet<ChatMessage> packet = conversation.get(i);
+                if (packet.getData().getSequence() > since) {
+                    messages.add(packet);
+                }
+            }
+        }
+        messages.sort(Comparator.comparingLong(packet -> packet.getData().getSequence()));
+        if (messages.size() > limit) {
+            complete = false;
+            messages = new ArrayList<>(messages.subList(messages.size() - limit, messages.size()));
+        }
+        ChatHistoryInfo info = new ChatHistoryInfo();
+        info.setSequence(sequence);
+        info.setComplete(complete);
+        info.setMessages(messages);
+        return info;
+    }
+
+    public synchronized long getSequence() {
+        return sequence;
+    }
+
+    public synchronized int getConversationCount() {
+        return conversations.size();
+    }
+
+    public synchronized long getMessageCount() {
+        return totalMessages;
+    }
+
+    public synchronized long getTotalBytes() {
+        return totalBytes;
+    }
+
+    /**
+     * Get the count of messages dropped because the total size limit was exceeded.
+     */
+    public synchronized long getCountEvicted() {
+        return countEvicted;
+    }
+
+    /**
+     * Add a message. Must be called while holding the lock.
+     */
+    private void add(String key, long[] participants, Packet<ChatMessage> packet) {
+        packet.getData().setSequence(++sequence);
+        if (maxBytes == 0L) {
+            return;
+        }
+        Conversation conversation = conversations.get(key);
+        if (conversation == null) {
+            conversation = new Conversation(key, participants, maxMessages);
+            conversations.put(key, conversation);
+            if (participants != null) {
+                for (long participant: participants) {
+                    directConversations.computeIfAbsent(participant, id -> new HashSet<>()).add(key);
+                }
+            }
+        }
+        int size = estimateSize(packet);
+        int dropped = conversation.add(packet, size);
+        totalBytes += size - dropped;
+        if (dropped == 0) {
+            totalMessages++;
+        }
+        evictLeastRecentlyUsed();
+    }
+
+    /**
+     * Append the queued messages to the log. If another thread is already appending then it
+     * takes over the queued messages, too. Must be called without holding the lock.
+     */
+    private void writeLog() {
+        // check the queue again after unlocking, a message may have been queued meanwhile
+        while (!pendingLog.isEmpty() && logWriter.tryLock()) {
+            try {
+                LogEntry entry;
+                while ((entry = pendingLog.poll()) != null) {
+                    entry.log.append(entry.packet, entry.eventId, entry.receiverId);
+                }
+            }
+            finally {
+                logWriter.unlock();
+            }
+        }
+    }
+
+    /**
+     * Drop the oldest messages of the least recently used conversations until the total size
+     * fits the limit again. Must be called while holding the lock.
+     */
+    private void evictLeastRecentlyUsed() {
+        Iterator<Conversation> it = conversations.values().iterator();
+        while ((totalBytes > maxBytes) && it.hasNext()) {
+            Conversation conversation = it.next();
+            while ((totalBytes > maxBytes) && (conversation.count > 0)) {
+                totalBytes -= conversation.removeOldest();
+                lastEvicted = Math.max(lastEvicted, conversation.lastDropped);
+                totalMessages--;
+                countEvicted++;
+            }
+            if (conversation.count == 0) {
+                it.remove();
+                removeDirectConversation(conversation);
+            }
+        }
+    }
+
+    private void removeDirectConversation(Conversation conversation) {
+        if (conversation.participants == null) {
+            return;
+        }
+        for (long participant: conversation.participants) {
+            Set<String> keys = directConversations.get(participant);
+            if (keys != null) {
+                keys.remove(conversation.key);
+                if (keys.isEmpty()) {
+                    directConversations.remove(participant);
+                }
+            }
+        }
+    }
+
+    /**
+     * Estimate the memory used by a message.
+     */
+    private static int estimateSize(Packet<ChatMessage> packet) {
+        ChatMessage message = packet.getData();
+        int chars = length(message.getText()) + length(message.getReceiverUser()) + length(message.getReceiverEvent()) +
+                length(packet.getSource()) + length(packet.getSourceId()) + length(packet.getChannel());
+        return MESSAGE_OVERHEAD + 2 * chars;
+    }
+
+    private static int length(String value) {
+        return (value != null) ? value.length() : 0;
+    }
+}
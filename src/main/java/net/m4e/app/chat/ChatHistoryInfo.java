@@ -0,0 +1,71 @@
+/*
+ * Copyright (c) 2017-2019 by Botorabi. All rights reserved.
+ * https://github.com/botorabi/Meet4Eat
+ *
+ * License: MIT License (MIT), read the LICENSE text in
+ *          main directory for more details.
+ */
+package net.m4e.app.chat;
+
+import java.util.*;
+
+import net.m4e.app.communication.*;
+
+/**
+ * Chat messages found in 'ChatHistory' for exporting to clients.
+ *
+ * @author boto
+ * Date of creation Oct 18, 2026
+ */
+public class ChatHistoryInfo {
+
+    private String cmd = SystemCommand.CMD_CHAT_HISTORY;
+    private long sequence;
+    private boolean complete;
+    private List<Packet<ChatMessage>> messages = new ArrayList<>();
+
+    public ChatHistoryInfo() {
+    }
+
+    public String getCmd() {
+        return cmd;
+    }
+
+    public void setCmd(String cmd) {
+        this.cmd = cmd;
+    }
+
+    /**
+     * Get the sequence number of the latest message in history.
+     */
+    public long getSequence() {
+        return sequence;
+    }
+
+    public void setSequence(long sequence) {
+        this.sequence = sequence;
+    }
+
+    /**
+     * Are all messages since the requested sequence number contained? If not then some
+     * of them were dropped from history and the client has to fall back to the mailbox.
+     */
+    public boolean isComplete() {
+        return complete;
+    }
+
+    public void setComplete(boolean complete) {
+        this.complete = complete;
+    }
+
+    /**
+     * Get the messages ordered by their sequence numbers.
+     */
+    public List<Packet<ChatMessage>> getMessages() {
+        return messages;
+    }
+
+    public void setMessages(List<Packet<ChatMessage>> messages) {
+        this.messages = messages;
+    }
+}
@@ -0,0 +1,690 @@
+/*
+ * Copyright (c) 2017-2019 by Botorabi. All rights reserved.
+ * https://github.com/botorabi/Meet4Eat
+ *
+ * License: MIT License (MIT), read the LICENSE text in
+ *          main directory for more details.
+ */
+package net.m4e.app.chat;
+
+import java.io.*;
+import java.lang.invoke.MethodHandles;
+import java.nio.*;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.*;
+import java.time.*;
+import java.time.format.DateTimeFormatter;
+import java.util.*;
+import java.util.function.LongPredicate;
+import java.util.stream.*;
+
+import javax.json.*;
+import javax.json.spi.JsonProvider;
+
+import net.m4e.app.communication.*;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+
+/**
+ * Append-only log of chat messages on local disk, it keeps the chat out of the database.
+ *
+ * The log consists of one segment file per day (UTC). A segment is a sequence of records:
+ *
+ *   int     payload length
+ *   long    sequence number of the message
+ *   long    event ID, 0 for a direct message
+ *   long    receiver user ID, 0 for an event message
+ *   bytes   payload, the chat packet as UTF-8 encoded JSON
+ *
+ * Every segment has a sparse index file holding the sequence number and file offset of
+ * every INDEX_INTERVAL-th record. Reads look up the nearest indexed record and scan the
+ * segment from there through a memory mapped window, only the payloads of the wanted
+ * messages are copied to the heap.
+ *
+ * Segments older than the retention period are deleted. Compaction rewrites the closed
+ * segments without the messages of events which do not exist anymore.
+ *
+ * @author boto
+ * Date of creation Oct 18, 2026
+ */
+public class ChatLog implements Closeable {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(MethodHandles.lookup().lookupClass());
+
+    /**
+     * Default count of days the messages are kept
+     */
+    public final static int DEFAULT_RETENTION_DAYS = 30;
+
+    /**
+     * Every n-th record of a segment is indexed
+     */
+    final static int INDEX_INTERVAL = 64;
+
+    /**
+     * Size of a record header in bytes
+     */
+    private final static int HEADER_SIZE = 4 + 8 + 8 + 8;
+
+    /**
+     * Size of an index entry in bytes: sequence number and offset
+     */
+    private final static int INDEX_ENTRY_SIZE = 8 + 8;
+
+    /**
+     * Maximal size of a memory mapped window in bytes
+     */
+    private final static int MAX_WINDOW_SIZE = 64 * 1024 * 1024;
+
+    /**
+     * Limit protecting the reader against corrupt records
+     */
+    private final static int MAX_PAYLOAD_SIZE = 16 * 1024 * 1024;
+
+    private final static String SEGMENT_PREFIX = "chat-";
+    private final static String SEGMENT_SUFFIX = ".log";
+    private final static String INDEX_SUFFIX = ".idx";
+    private final static String TEMP_SUFFIX = ".tmp";
+
+    private final static DateTimeFormatter DAY_FORMAT = DateTimeFormatter.BASIC_ISO_DATE;
+
+    /**
+     * The provider is looked up only once, every lookup via 'Json' scans the class path.
+     */
+    private static final JsonProvider PROVIDER = JsonProvider.provider();
+
+    /**
+     * Visitor of records while scanning a segment
+     */
+    private interface RecordVisitor {
+        /**
+         * Visit a record.
+         *
+         * @param offset    Offset of record in segment
+         * @param sequence  Sequence number
+         * @param eventId   Event ID
+         * @param payload   Mapped buffer, its position is at the payload and its limit at the payload end
+         * @return          Return false for stopping the scan.
+         */
+        boolean visit(long offset, long sequence, long eventId, ByteBuffer payload) throws IOException;
+    }
+
+    /**
+     * A segment file, guarded by the log's lock
+     */
+    private static class Segment {
+        private final LocalDate day;
+        private final Path file;
+        private final Path indexFile;
+        private long size = 0L;
+        private long recordCount = 0L;
+        private long firstSequence = 0L;
+        private long lastSequence = 0L;
+        private long[] indexSequences = new long[16];
+        private long[] indexOffsets = new long[16];
+        private int indexSize = 0;
+
+        Segment(LocalDate day, Path file, Path indexFile) {
+            this.day = day;
+            this.file = file;
+            this.indexFile = indexFile;
+        }
+
+        void addIndexEntry(long sequence, long offset) {
+            if (indexSize == indexSequences.length) {
+                indexSequences = Arrays.copyOf(indexSequences, indexSize * 2);
+                indexOffsets = Arrays.copyOf(indexOffsets, indexSize * 2);
+            }
+            indexSequences[indexSize] = sequence;
+            indexOffsets[indexSize] = offset;
+            indexSize++;
+        }
+
+        /**
+         * Get the offset of the last indexed record with a sequence number not greater than given one.
+         */
+        long findOffset(long sequence) {
+            int index = Arrays.binarySearch(indexSequences, 0, indexSize, sequence);
+            if (index < 0) {
+                index = -(index + 1) - 1;
+            }
+            return (index < 0) ? 0L : indexOffsets[index];
+        }
+    }
+
+    private final Path directory;
+
+    private final int retentionDays;
+
+    private final Clock clock;
+
+    /**
+     * Segments ordered by day, guarded by 'this'
+     */
+    private final List<Segment> segments = new ArrayList<>();
+
+    /**
+     * The segment of the current day, guarded by 'this'
+     */
+    private Segment activeSegment;
+
+    private FileChannel activeChannel;
+
+    private FileChannel activeIndexChannel;
+
+    private long countAppended = 0L;
+    private long countFailed = 0L;
+
+    /**
+     * Create a chat log. Call 'open' before using it.
+     *
+     * @param directory     Directory containing the segment files, it is created if needed
+     * @param retentionDays Count of days the messages are kept, 0 keeps them forever
+     * @param clock         Clock used for determining the segment of a new message
+     */
+    public ChatLog(Path directory, int retentionDays, Clock clock) {
+        this.directory = directory;
+        this.retentionDays = Math.max(0, retentionDays);
+        this.clock = clock;
+    }
+
+    /**
+     * Open the log, existing segments are loaded.
+     *
+     * @throws IOException if the log directory cannot be accessed
+     */
+    public synchronized void open() throws IOException {
+        Files.createDirectories(directory);
+        List<Path> files;
+        try (Stream<Path> list = Files.list(directory)) {
+            files = list.filter(file -> isSegmentFile(file.getFileName().toString()))
+                    .sorted()
+                    .collect(Collectors.toList());
+        }
+        for (Path file: files) {
+            String name = file.getFileName().toString();
+            LocalDate day = LocalDate.parse(name.substring(SEGMENT_PREFIX.length(), name.length() - SEGMENT_SUFFIX.length()), DAY_FORMAT);
+            segments.add(loadSegment(day));
+        }
+        LOGGER.info("Chat log in {} contains {} segments, last sequence number: {}", directory, segments.size(), getLastSequence());
+    }
+
+    /**
+     * Close the log.
+     */
+    @Override
+    public synchronized void close() {
+        closeActiveSegment();
+    }
+
+    /**
+     * Append a chat message. The message's sequence number must be greater than the ones of all
+     * messages appended before.
+     *
+     * @param packet        Chat packet with sequence number
+     * @param eventId       Event ID, or 0 for a direct message
+     * @param receiverId    Receiver user ID for a direct message, otherwise 0
+     * @return              Return false if the message could not be written.
+     */
+    public synchronized boolean append(Packet<ChatMessage> packet, long eventId, long receiverId) {
+        long sequence = packet.getData().getSequence();
+        String json = Connection.JsonBEncoder.toJson(packet);
+        if (json == null) {
+            countFailed++;
+            return false;
+        }
+        if (sequence <= getLastSequence()) {
+            LOGGER.warn("chat message {} is out of order, it is not appended to log", sequence);
+            countFailed++;
+            return false;
+        }
+        try {
+            Segment segment = getActiveSegment();
+            byte[] payload = json.getBytes(StandardCharsets.UTF_8);
+            ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE);
+            header.putInt(payload.length).putLong(sequence).putLong(eventId).putLong(receiverId).flip();
+            ByteBuffer body = ByteBuffer.wrap(payload);
+            long offset = segment.size;
+            long position = offset;
+            while (header.hasRemaining()) {
+                position += activeChannel.write(header, position);
+            }
+            while (body.hasRemaining()) {
+                position += activeChannel.write(body, position);
+            }
+            if (segment.recordCount % INDEX_INTERVAL == 0) {
+                segment.addIndexEntry(sequence, offset);
+                ByteBuffer entry = ByteBuffer.allocate(INDEX_ENTRY_SIZE);
+                entry.putLong(sequence).putLong(offset).flip();
+                while (entry.hasRemaining()) {
+                    activeIndexChannel.write(entry, (long) (segment.indexSize - 1) * INDEX_ENTRY_SIZE + entry.position());
+                }
+            }
+            if (segment.recordCount == 0L) {
+                segment.firstSequence = sequence;
+            }
+            segment.size = position;
+            segment.recordCount++;
+            segment.lastSequence = sequence;
+            countAppended++;
+            return true;
+        }
+        catch (IOException ex) {
+            LOGGER.warn("could not append chat message {} to log, reason: {}", sequence, ex.getLocalizedMessage());
+            countFailed++;
+            // the segment is reloaded on next append, a partially written record is truncated then
+            closeActiveSegment();
+            return false;
+        }
+    }
+
+    /**
+     * Get a page of an event's chat messages.
+     *
+     * @param eventId   Event ID
+     * @param after     Only messages with a greater sequence number are returned
+     * @param count     Maximal count of messages
+     * @return          The messages ordered by their sequence numbers
+     */
+    public ChatLogPage getEventMessages(long eventId, long after, int count) {
+        ChatLogPage page = new ChatLogPage();
+        page.setEventId(String.valueOf(eventId));
+        page.setNextSequence(after);
+
+        // the files are opened while holding the lock, so they can be read even if they are
+        // compacted or deleted meanwhile; records appended later are not visited
+        List<Segment> candidates = new ArrayList<>();
+        List<FileChannel> channels = new ArrayList<>();
+        List<Long> starts = new ArrayList<>();
+        List<Long> ends = new ArrayList<>();
+        try {
+            synchronized (this) {
+                for (Segment segment: segments) {
+                    if (segment.lastSequence > after) {
+                        channels.add(FileChannel.open(segment.file, StandardOpenOption.READ));
+                        candidates.add(segment);
+                        starts.add(segment.findOffset(after));
+                        ends.add(segment.size);
+                    }
+                }
+            }
+            for (int i = 0; (i < candidates.size()) && !page.isMore(); i++) {
+                scan(channels.get(i), starts.get(i), ends.get(i), (offset, sequence, recordEventId, payload) -> {
+                    if ((sequence <= after) || (recordEventId != eventId)) {
+                        return true;
+                    }
+                    if (page.getMessages().size() == count) {
+                        page.setMore(true);
+                        return false;
+                    }
+                    page.getMessages().add(readPayload(payload));
+                    page.setNextSequence(sequence);
+                    return true;
+                });
+            }
+        }
+        catch (IOException | JsonException ex) {
+            LOGGER.warn("could not read chat log of event {}, reason: {}", eventId, ex.getLocalizedMessage());
+        }
+        finally {
+            channels.forEach(channel -> closeQuietly(channel, false));
+        }
+        return page;
+    }
+
+    /**
+     * Delete the segments which are older than the retention period. The segment of the
+     * current day is never deleted.
+     *
+     * @return Count of deleted segments
+     */
+    public synchronized int purgeExpiredSegments() {
+        if (retentionDays == 0) {
+            return 0;
+        }
+        LocalDate oldestDay = LocalDate.now(clock).minusDays(retentionDays);
+        int count = 0;
+        Iterator<Segment> it = segments.iterator();
+        while (it.hasNext()) {
+            Segment segment = it.next();
+            if (!segment.day.isBefore(oldestDay) || (segment == activeSegment)) {
+                continue;
+            }
+            try {
+                Files.deleteIfExists(segment.file);
+                Files.deleteIfExists(segment.indexFile);
+                it.remove();
+                count++;
+            }
+            catch (IOException ex) {
+                LOGGER.warn("could not delete chat log segment {}, reason: {}", segment.file, ex.getLocalizedMessage());
+            }
+        }
+        return count;
+    }
+
+    /**
+     * Rewrite the closed segments without the messages of events which are not wanted anymore,
+     * e.g. because they were deleted. Direct messages are kept. Segments which contain no such
+     * messages are left as they are.
+     *
+     * @param keepEvent     Given an event ID return true if its messages are kept
+     * @return              Count of removed messages
+     */
+    public synchronized long compact(LongPredicate keepEvent) {
+        // the predicate may be expensive, so it is evaluated only once per event
+        Map<Long, Boolean> decisions = new HashMap<>();
+        LongPredicate keep = eventId -> decisions.computeIfAbsent(eventId, keepEvent::test);
+        long countRemoved = 0L;
+        for (int i = 0; i < segments.size(); i++) {
+            Segment segment = segments.get(i);
+            if (segment == activeSegment) {
+                continue;
+            }
+            try {
+                long[] removable = {0L};
+                scanFile(segment.file, segment.size, (offset, sequence, eventId, payload) -> {
+                    if ((eventId != 0L) && !keep.test(eventId)) {
+                        removable[0]++;
+                    }
+                    return true;
+                });
+                if (removable[0] > 0L) {
+                    segments.set(i, rewriteSegment(segment, keep));
+                    countRemoved += removable[0];
+                }
+            }
+            catch (IOException ex) {
+                LOGGER.warn("could not compact chat log segment {}, reason: {}", segment.file, ex.getLocalizedMessage());
+            }
+        }
+        return countRemoved;
+    }
+
+    /**
+     * Get the sequence number of the latest message in log.
+     *
+     * @return Sequence number, 0 if the log is empty
+     */
+    public synchronized long getLastSequence() {
+        return segments.stream().mapToLong(segment -> segment.lastSequence).max().orElse(0L);
+    }
+
+    public synchronized int getSegmentCount() {
+        return segments.size();
+    }
+
+    public synchronized long getCountAppended() {
+        return countAppended;
+    }
+
+    public synchronized long getCountFailed() {
+        return countFailed;
+    }
+
+    /**
+     * Get the segment of the current day, it is created or opened if needed. Must be called
+     * while holding the lock.
+     */
+    private Segment getActiveSegment() throws IOException {
+        LocalDate today = LocalDate.now(clock);
+        if ((activeSegment != null) && !today.isAfter(activeSegment.day) && (activeChannel != null)) {
+            return activeSegment;
+        }
+        closeActiveSegment();
+
+        Segment segment = segments.isEmpty() ? null : segments.get(segments.size() - 1);
+        if ((segment != null) && segment.day.isAfter(today)) {
+            // the clock went backwards, keep appending to the latest segment
+            today = segment.day;
+        }
+        if ((segment == null) || !segment.day.equals(today)) {
+            segment = loadSegment(today);
+            segments.add(segment);
+        }
+        else {
+            // reload the segment, a partially written record may have to be truncated
+            segment = loadSegment(today);
+            segments.set(segments.size() - 1, segment);
+        }
+        activeChannel = FileChannel.open(segment.file, StandardOpenOption.CREATE, StandardOpenOption.WRITE);
+        activeIndexChannel = FileChannel.open(segment.indexFile, StandardOpenOption.CREATE, StandardOpenOption.WRITE);
+        activeSegment = segment;
+        return segment;
+    }
+
+    private void closeActiveSegment() {
+        closeQuietly(activeChannel, true);
+        closeQuietly(activeIndexChannel, true);
+        activeChannel = null;
+        activeIndexChannel = null;
+        activeSegment = null;
+    }
+
+    /**
+     * Load the segment of given day. If the segment file ends with an incomplete record then
+     * it is truncated. If the index file is missing or does not fit the segment then it is
+     * created again.
+     */
+    private Segment loadSegment(LocalDate day) throws IOException {
+        String name = SEGMENT_PREFIX + day.format(DAY_FORMAT);
+        Segment segment = new Segment(day, directory.resolve(name + SEGMENT_SUFFIX), directory.resolve(name + INDEX_SUFFIX));
+        if (!Files.exists(segment.file)) {
+            Files.deleteIfExists(segment.indexFile);
+            return segment;
+        }
+
+        long fileSize = Files.size(segment.file);
+        boolean indexChanged = !readIndex(segment, fileSize);
+        if (indexChanged) {
+            segment.indexSize = 0;
+        }
+        // only the records after the last indexed one need to be scanned
+        boolean indexed = (segment.indexSize > 0);
+        long start = indexed ? segment.indexOffsets[segment.indexSize - 1] : 0L;
+        long recordsBefore = indexed ? (long) (segment.indexSize - 1) * INDEX_INTERVAL : 0L;
+        long[] scanned = {0L, start, segment.indexSize};
+        try (FileChannel channel = FileChannel.open(segment.file, StandardOpenOption.READ)) {
+            scan(channel, start, fileSize, (offset, sequence, eventId, payload) -> {
+                long recordIndex = recordsBefore + scanned[0];
+                if ((recordIndex % INDEX_INTERVAL == 0) && (recordIndex / INDEX_INTERVAL >= segment.indexSize)) {
+                    segment.addIndexEntry(sequence, offset);
+                }
+                segment.lastSequence = sequence;
+                scanned[0]++;
+                scanned[1] = offset + HEADER_SIZE + payload.remaining();
+                return true;
+            });
+        }
+        if (indexed && (scanned[0] == 0L)) {
+            // the last indexed record is incomplete, build up the index again
+            LOGGER.warn("chat log segment {} ends with an incomplete record, rebuilding its index", segment.file);
+            truncate(segment.file, start);
+            Files.deleteIfExists(segment.indexFile);
+            return loadSegment(day);
+        }
+        segment.recordCount = recordsBefore + scanned[0];
+        segment.size = scanned[1];
+        segment.firstSequence = (segment.indexSize > 0) ? segment.indexSequences[0] : 0L;
+
+        if (segment.size < fileSize) {
+            LOGGER.warn("truncating incomplete record at end of chat log segment {}", segment.file);
+            truncate(segment.file, segment.size);
+        }
+        if (indexChanged || (segment.indexSize != scanned[2])) {
+            writeIndex(segment, segment.indexFile);
+        }
+        return segment;
+    }
+
+    private static void truncate(Path file, long size) throws IOException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.WRITE)) {
+            channel.truncate(size);
+        }
+    }
+
+    /**
+     * Read the index file of a segment.
+     *
+     * @return Return false if the index is missing or does not fit the segment.
+     */
+    private static boolean readIndex(Segment segment, long fileSize) throws IOException {
+        if (!Files.exists(segment.indexFile)) {
+            return false;
+        }
+        long indexFileSize = Files.size(segment.indexFile);
+        if ((indexFileSize % INDEX_ENTRY_SIZE) != 0L) {
+            return false;
+        }
+        ByteBuffer buffer = ByteBuffer.wrap(Files.readAllBytes(segment.indexFile));
+        long lastSequence = Long.MIN_VALUE;
+        long lastOffset = -1L;
+        while (buffer.remaining() >= INDEX_ENTRY_SIZE) {
+            long sequence = buffer.getLong();
+            long offset = buffer.getLong();
+            if ((sequence <= lastSequence) || (offset <= lastOffset) || (offset >= fileSize)) {
+                return false;
+            }
+            segment.addIndexEntry(sequence, offset);
+            lastSequence = sequence;
+            lastOffset = offset;
+        }
+        return true;
+    }
+
+    private static void writeIndex(Segment segment, Path indexFile) throws IOException {
+        ByteBuffer buffer = ByteBuffer.allocate(segment.indexSize * INDEX_ENTRY_SIZE);
+        for (int i = 0; i < segment.indexSize; i++) {
+            buffer.putLong(segment.indexSequences[i]).putLong(segment.indexOffsets[i]);
+        }
+        Files.write(indexFile, buffer.array());
+    }
+
+    /**
+     * Write a copy of the segment without the removed messages and replace the segment by it.
+     */
+    private Segment rewriteSegment(Segment segment, LongPredicate keepEvent) throws IOException {
+        Path tempFile = segment.file.resolveSibling(segment.file.getFileName() + TEMP_SUFFIX);
+        Path tempIndexFile = segment.indexFile.resolveSibling(segment.indexFile.getFileName() + TEMP_SUFFIX);
+        Segment compacted = new Segment(segment.day, segment.file, segment.indexFile);
+
+        try (FileChannel input = FileChannel.open(segment.file, StandardOpenOption.READ);
+             FileChannel output = FileChannel.open(tempFile, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                     StandardOpenOption.TRUNCATE_EXISTING)) {
+            scan(input, 0L, segment.size, (offset, sequence, eventId, payload) -> {
+                if ((eventId != 0L) && !keepEvent.test(eventId)) {
+                    return true;
+                }
+                if (compacted.recordCount % INDEX_INTERVAL == 0) {
+                    compacted.addIndexEntry(sequence, compacted.size);
+                }
+                if (compacted.recordCount == 0L) {
+                    compacted.firstSequence = sequence;
+                }
+                ByteBuffer record = payload.duplicate();
+                record.position(payload.position() - HEADER_SIZE);
+                long position = compacted.size;
+                while (record.hasRemaining()) {
+                    position += output.write(record, position);
+                }
+                compacted.size = position;
+                compacted.recordCount++;
+                compacted.lastSequence = sequence;
+                return true;
+            });
+            output.force(true);
+        }
+        writeIndex(compacted, tempIndexFile);
+
+        Files.move(tempFile, segment.file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        Files.move(tempIndexFile, segment.indexFile, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        LOGGER.info("compacted chat log segment {}, records: {} -> {}", segment.file, segment.recordCount, compacted.recordCount);
+        return compacted;
+    }
+
+    /**
+     * Scan the records of a segment file from its beginning.
+     */
+    private static void scanFile(Path file, long end, RecordVisitor visitor) throws IOException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            scan(channel, 0L, end, visitor);
+        }
+    }
+
+    /**
+     * Scan the records of a segment file through memory mapped windows. A trailing incomplete
+     * record ends the scan.
+     *
+     * @param channel   Segment file channel
+     * @param start     Offset of first record to visit
+     * @param end       Offset where the scan ends
+     * @param visitor   Record visitor
+     */
+    private static void scan(FileChannel channel, long start, long end, RecordVisitor visitor) throws IOException {
+        end = Math.min(end, channel.size());
+        long offset = start;
+        MappedByteBuffer window = null;
+        long windowStart = 0L;
+        while (offset + HEADER_SIZE <= end) {
+            if ((window == null) || (offset + HEADER_SIZE > windowStart + window.capacity())) {
+                windowStart = offset;
+                window = channel.map(FileChannel.MapMode.READ_ONLY, windowStart, Math.min(MAX_WINDOW_SIZE, end - windowStart));
+            }
+            int position = (int) (offset - windowStart);
+            int payloadSize = window.getInt(position);
+            if ((payloadSize < 0) || (payloadSize > MAX_PAYLOAD_SIZE)) {
+                throw new IOException("corrupt record at offset " + offset);
+            }
+            long recordEnd = offset + HEADER_SIZE + payloadSize;
+            if (recordEnd > end) {
+                return;
+            }
+            if (recordEnd > windowStart + window.capacity()) {
+                // the record crosses the window end, map a new window starting at the record
+                windowStart = offset;
+                window = channel.map(FileChannel.MapMode.READ_ONLY, windowStart,
+                        Math.min(Math.max(MAX_WINDOW_SIZE, HEADER_SIZE + payloadSize), end - windowStart));
+                position = 0;
+            }
+            long sequence = window.getLong(position + 4);
+            long eventId = window.getLong(position + 12);
+            ByteBuffer payload = window.duplicate();
+            payload.limit(position + HEADER_SIZE + payloadSize);
+            payload.position(position + HEADER_SIZE);
+            if (!visitor.visit(offset, sequence, eventId, payload)) {
+                return;
+            }
+            offset = recordEnd;
+        }
+    }
+
+    private static JsonObject readPayload(ByteBuffer payload) {
+        byte[] bytes = new byte[payload.remaining()];
+        payload.get(bytes);
+        try (JsonReader reader = PROVIDER.createReader(new ByteArrayInputStream(bytes))) {
+            return reader.readObject();
+        }
+    }
+
+    private static boolean isSegmentFile(String name) {
+        return name.startsWith(SEGMENT_PREFIX) && name.endsWith(SEGMENT_SUFFIX) &&
+                (name.length() == SEGMENT_PREFIX.length() + 8 + SEGMENT_SUFFIX.length());
+    }
+
+    private static void closeQuietly(FileChannel channel, boolean force) {
+        if (channel == null) {
+            return;
+        }
+        try {
+            if (force && channel.isOpen()) {
+                channel.force(true);
+            }
+            channel.close();
+        }
+        catch (IOException ex) {
+            LOGGER.debug("could not close chat log file, reason: {}", ex.getLocalizedMessage());
+        }
+    }
+}
@@ -0,0 +1,71 @@
+/*
+ * Copyright (c) 2017-2019 by Botorabi. All rights reserved.
+ * https://github.com/botorabi/Meet4Eat
+ *
+ * License: MIT License (MIT), read the LICENSE text in
+ *          main directory for more details.
+ */
+package net.m4e.app.chat;
+
+import java.util.*;
+
+import javax.json.JsonObject;
+
+/**
+ * A page of an event's chat messages read from 'ChatLog'.
+ *
+ * @author boto
+ * Date of creation Oct 18, 2026
+ */
+public class ChatLogPage {
+
+    private String eventId;
+    private long nextSequence;
+    private boolean more;
+    private List<JsonObject> messages = new ArrayList<>();
+
+    public ChatLogPage() {
+    }
+
+    public String getEventId() {
+        return eventId;
+    }
+
+    public void setEventId(String eventId) {
+        this.eventId = eventId;
+    }
+
+    /**
+     * Get the sequence number to pass for fetching the next page, it is the sequence
+     * number of the last message in this page.
+     */
+    public long getNextSequence() {
+        return nextSequence;
+    }
+
+    public void setNextSequence(long nextSequence) {
+        this.nextSequence = nextSequence;
+    }
+
+    /**
+     * Are there more messages after this page?
+     */
+    public boolean isMore() {
+        return more;
+    }
+
+    public void setMore(boolean more) {
+        this.more = more;
+    }
+
+    /**
+     * Get the chat packets ordered by their sequence numbers.
+     */
+    public List<JsonObject> getMessages() {
+        return messages;
+    }
+
+    public void setMessages(List<JsonObject> messages) {
+        this.messages = messages;
+    }
+}
@@ -7,19 +7,24 @@
  */
 package net.m4e.app.chat;
 
+import java.io.IOException;
 import java.lang.invoke.MethodHandles;
+import java.nio.file.Paths;
+import java.time.Clock;
 import java.util.*;
 
 import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
 import javax.ejb.Singleton;
 import javax.enterprise.context.ApplicationScoped;
 import javax.enterprise.event.ObservesAsync;
 import javax.inject.Inject;
 
+import net.m4e.app.auth.SessionPrincipal;
 import net.m4e.app.communication.*;
-import net.m4e.app.event.business.EventEntity;
+import net.m4e.app.event.business.EventMemberships;
 import net.m4e.app.event.business.Events;
-import net.m4e.app.user.business.UserEntity;
+import net.m4e.system.core.AppConfiguration;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -27,6 +32,13 @@ import org.slf4j.LoggerFactory;
 /**
  * Central chat functionality providing real-time messaging.
  * 
+ * Recent messages are held in 'ChatHistory', a client can fetch the messages it missed
+ * while being disconnected via system command 'chathistory':
+ * 
+ *   {"channel":"system", "data":{"cmd":"chathistory", "since":1234}}
+ * 
+ * If a chat log directory is configured then all messages are appended to 'ChatLog', too.
+ * 
  * @author boto
  * Date of creation Oct 07, 2017
  */
@@ -39,30 +51,47 @@ public class ChatSystem {
      */
     private static final Logger LOGGER = LoggerFactory.getLogger(MethodHandles.lookup().lookupClass());
 
+    /**
+     * Maximal count of messages sent on a chat history request
+     */
+    private final static int MAX_HISTORY_MESSAGES = 500;
+
     private final Events events;
 
+    private final EventMemberships eventMemberships;
+
     /**
      * Central place to hold all client connections
      */
     @Inject
     ConnectedClients connections;
 
-    
+    private ChatHistory history = new ChatHistory(ChatHistory.DEFAULT_MAX_MESSAGES, ChatHistory.DEFAULT_MAX_BYTES,
+            System.currentTimeMillis());
+
+    /**
+     * Log of all chat messages, null if the log is not enabled
+     */
+    private ChatLog chatLog;
+
     /**
      * EJB's default constructor
      */
     protected ChatSystem() {
         events = null;
+        eventMemberships = null;
     }
 
     /**
      * Construct the chat system.
      * 
-     * @param events The Events instance
+     * @param events            The Events instance
+     * @param eventMemberships  Event memberships, used for finding the chats of a user
      */
     @Inject
-    public ChatSystem(Events events) {
+    public ChatSystem(Events events, EventMemberships eventMemberships) {
         this.events = events;
+        this.eventMemberships = eventMemberships;
     }
 
     /**
@@ -71,6 +100,81 @@ public class ChatSystem {
     @PostConstruct
     public void chatSystemInit() {
         LOGGER.info("Starting the chat system");
+
+        AppConfiguration config = AppConfiguration.getInstance();
+        int maxMessages = (int) config.getConfigNumber(AppConfiguration.TOKEN_CHAT_HISTORY_MESSAGES, ChatHistory.DEFAULT_MAX_MESSAGES);
+        long maxBytes = config.getConfigNumber(AppConfiguration.TOKEN_CHAT_HISTORY_BYTES, ChatHistory.DEFAULT_MAX_BYTES);
+        setHistory(new ChatHistory(maxMessages, maxBytes, System.currentTimeMillis()));
+        LOGGER.info("Chat history messages per conversation: {}, total bytes: {}", maxMessages, maxBytes);
+
+        String logDirectory = config.getConfigValue(AppConfiguration.TOKEN_CHAT_LOG_DIRECTORY);
+        if ((logDirectory != null) && !logDirectory.trim().isEmpty()) {
+            int retentionDays = (int) config.getConfigNumber(AppConfiguration.TOKEN_CHAT_LOG_RETENTION_DAYS, ChatLog.DEFAULT_RETENTION_DAYS);
+            ChatLog log = new ChatLog(Paths.get(logDirectory.trim()), retentionDays, Clock.systemUTC());
+            try {
+                log.open();
+                setChatLog(log);
+            }
+            catch (IOException ex) {
+                LOGGER.error("could not open the chat log in {}, chat messages are not logged, reason: {}", logDirectory, ex.getLocalizedMessage());
+            }
+        }
+    }
+
+    /**
+     * Close the chat log.
+     */
+    @PreDestroy
+    public void chatSystemShutdown() {
+        if (chatLog != null) {
+            chatLog.close();
+        }
+    }
+
+    /**
+     * Set the history holding recent chat messages.
+     *
+     * @param history   Chat history
+     */
+    public void setHistory(ChatHistory history) {
+        this.history = history;
+        history.setLog(chatLog);
+    }
+
+    public ChatHistory getHistory() {
+        return history;
+    }
+
+    /**
+     * Set the log all chat messages are appended to.
+     *
+     * @param chatLog   Chat log, pass null for not logging the messages
+     */
+    public void setChatLog(ChatLog chatLog) {
+        this.chatLog = chatLog;
+        history.setLog(chatLog);
+    }
+
+    /**
+     * Get the log of all chat messages.
+     *
+     * @return Chat log, or null if the messages are not logged
+     */
+    public ChatLog getChatLog() {
+        return chatLog;
+    }
+
+    /**
+     * Delete the expired chat log segments and remove the messages of events which do not
+     * exist anymore. This method is meant to be called periodically by the maintenance module.
+     */
+    public void maintainChatLog() {
+        if (chatLog == null) {
+            return;
+        }
+        int countSegments = chatLog.purgeExpiredSegments();
+        long countMessages = chatLog.compact(eventId -> eventMemberships.getMembership(eventId) != null);
+        LOGGER.info("chat log maintenance, purged segments: {}, removed messages of deleted events: {}", countSegments, countMessages);
     }
 
     /**
@@ -80,16 +184,20 @@ public class ChatSystem {
      */
     public void dispatchMessage(@ObservesAsync ChannelChatEvent event) {
         Long senderid = event.getSenderId();
-        UserEntity user = connections.getConnectedUser(senderid);
+        SessionPrincipal user = connections.getConnectedUser(senderid);
         if (user == null) {
             LOGGER.warn("invalid sender id detected: " + senderid);
             return;
         }
 
-        Packet<Map<String, Object>> packet = event.getPacket();
-        Map<String, Object> data = packet.getData();
-        String receiveuser = (String) data.getOrDefault("receiverUser", "");
-        String receiveevent = (String) data.getOrDefault("receiverEvent", "");
+        Packet<ChatMessage> packet = event.getPacket();
+        ChatMessage message = packet.getData();
+        if (message == null) {
+            LOGGER.warn("got invalid chat message from user " + senderid);
+            return;
+        }
+        String receiveuser = message.getReceiverUser();
+        String receiveevent = message.getReceiverEvent();
         if (receiveuser.isEmpty() && receiveevent.isEmpty()) {
             LOGGER.warn("got invalid receiver from user " + senderid);
             return;
@@ -109,6 +217,30 @@ public class ChatSystem {
         }
     }
 
+    /**
+     * Answer chat history requests, other system commands are handled by 'MessageDistribution'.
+     * 
+     * @param event System event
+     */
+    public void dispatchCommand(@ObservesAsync ChannelEventSystem event) {
+        SystemCommand command = event.getPacket().getData();
+        if ((command == null) || !SystemCommand.CMD_CHAT_HISTORY.equals(command.getCmd())) {
+            return;
+        }
+        Long senderid = event.getSenderId();
+        if (connections.getConnectedUser(senderid) == null) {
+            LOGGER.warn("invalid sender id detected: " + senderid);
+            return;
+        }
+        ChatHistoryInfo info = history.getMessages(senderid, eventMemberships.getEventIds(senderid),
+                command.getSince(), MAX_HISTORY_MESSAGES);
+
+        Packet<ChatHistoryInfo> response = new Packet<>();
+        response.setChannel(Packet.CHANNEL_SYSTEM);
+        response.setData(info);
+        connections.sendPacket(response, senderid, event.getSessionId());
+    }
+
     /**
      * Send a chat message to all event members. The sender must be a member of the event, otherwise the request is ignored.
      * 
@@ -116,38 +248,48 @@ public class ChatSystem {
      * @param receiverId    Recipient ID (event ID)
      * @param packet        Chat packet to send
      */
-    private void sendMessageEvent(UserEntity sender, Long receiverId, Packet packet) {
+    private void sendMessageEvent(SessionPrincipal sender, Long receiverId, Packet<ChatMessage> packet) {
+        // the members are taken from the membership index, the database is not involved
         Set<Long> receiverids = events.getMembers(receiverId);
-        EventEntity event = events.findEvent(receiverId);
-        if ((event == null) || !events.getUserIsEventOwnerOrMember(sender, event)) {
-            LOGGER.warn("user " + sender.getId() + " tries to send to an event chat without being a member of the event, or the event is invalid!");
+        if (!receiverids.contains(sender.getUserId())) {
+            LOGGER.warn("user " + sender.getUserId() + " tries to send to an event chat without being a member of the event, or the event is invalid!");
             return;
         }
-        receiverids.add(sender.getId());
-        packet.setSourceId(sender.getId().toString());
+        receiverids.add(sender.getUserId());
+        packet.setSourceId(Long.toString(sender.getUserId()));
         packet.setSource(sender.getName());
         packet.setTime((new Date()).getTime());
+        history.addEventMessage(receiverId, packet);
         connections.sendPacket(packet, new ArrayList<>(receiverids));
     }
 
     /**
-     * Send a chat message to given user. This can be used for private messages.
+     * Send a chat message to given user. This can be used for private messages. The recipient
+     * must be connected or be a relative of the sender, otherwise the request is ignored.
      * 
      * @param sender        Message sender
      * @param receiverId    Recipient ID (user ID)
      * @param packet        Chat packet to send
      */
-    private void sendMessageUser(UserEntity sender, Long receiverId, Packet packet) {
-        UserEntity recipient = connections.getConnectedUser(receiverId);
-        if (recipient == null) {
+    private void sendMessageUser(SessionPrincipal sender, Long receiverId, Packet<ChatMessage> packet) {
+        // the recipient may be connected to another cluster node
+        boolean connected = connections.isUserConnected(receiverId);
+        if (!connected && !eventMemberships.getRelatives(sender.getUserId()).contains(receiverId)) {
+            LOGGER.warn("user " + sender.getUserId() + " tries to send to a user who is neither connected nor a relative: " + receiverId);
             return;
         }
-        List<Long> receiverids = new ArrayList<>();
-        receiverids.add(sender.getId());
-        receiverids.add(recipient.getId());
-        packet.setSourceId(sender.getId().toString());
+        packet.setSourceId(Long.toString(sender.getUserId()));
         packet.setSource(sender.getName());
         packet.setTime((new Date()).getTime());
+        // an offline relative can still fetch the message from history after reconnecting
+        history.addUserMessage(sender.getUserId(), receiverId, packet);
+
+        if (!connected) {
+            return;
+        }
+        List<Long> receiverids = new ArrayList<>();
+        receiverids.add(sender.getUserId());
+        receiverids.add(receiverId);
         connections.sendPacket(packet, receiverids);
     }
 }
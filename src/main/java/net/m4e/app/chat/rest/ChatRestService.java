@@ -0,0 +1,103 @@
+/*
+ * Copyright (c) 2017-2019 by Botorabi. All rights reserved.
+ * https://github.com/botorabi/Meet4Eat
+ *
+ * License: MIT License (MIT), read the LICENSE text in
+ *          main directory for more details.
+ */
+package net.m4e.app.chat.rest;
+
+import java.lang.invoke.MethodHandles;
+
+import javax.ejb.Stateless;
+import javax.inject.Inject;
+import javax.servlet.http.HttpServletRequest;
+import javax.ws.rs.*;
+import javax.ws.rs.core.Context;
+import javax.ws.rs.core.MediaType;
+
+import io.swagger.annotations.*;
+import net.m4e.app.auth.AuthRole;
+import net.m4e.app.auth.AuthorityConfig;
+import net.m4e.app.auth.SessionPrincipal;
+import net.m4e.app.chat.*;
+import net.m4e.app.event.business.EventMemberships;
+import net.m4e.common.GenericResponseResult;
+import org.jetbrains.annotations.NotNull;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * REST services for the chat log
+ *
+ * @author boto
+ * Date of creation Oct 18, 2026
+ */
+@Stateless
+@Path("/rest/chat")
+@Api(value = "Chat service")
+public class ChatRestService {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(MethodHandles.lookup().lookupClass());
+
+    /**
+     * Maximal count of messages in a page
+     */
+    public final static int MAX_PAGE_SIZE = 200;
+
+    private final ChatSystem chatSystem;
+
+    private final EventMemberships eventMemberships;
+
+    /**
+     * EJB's default constructor.
+     */
+    protected ChatRestService() {
+        chatSystem = null;
+        eventMemberships = null;
+    }
+
+    @Inject
+    public ChatRestService(@NotNull ChatSystem chatSystem, @NotNull EventMemberships eventMemberships) {
+        this.chatSystem = chatSystem;
+        this.eventMemberships = eventMemberships;
+    }
+
+    /**
+     * Get a page of an event's chat messages. The messages are ordered by their sequence numbers.
+     *
+     * @param eventId   Event ID
+     * @param after     Only messages with a greater sequence number are returned, pass 0 for starting at the oldest message
+     * @param count     Maximal count of messages
+     * @param request   HTTP request
+     * @return          JSON response
+     */
+    @GET
+    @Path("event/{eventId}/{after}/{count}")
+    @Produces(MediaType.APPLICATION_JSON)
+    @net.m4e.app.auth.AuthRole(grantRoles={AuthRole.VIRT_ROLE_USER})
+    @ApiOperation(value = "Get a page of an event's chat messages", notes = "Pass the 'nextSequence' of a page as 'after' for getting the next page")
+    public GenericResponseResult<ChatLogPage> getEventMessages(@PathParam("eventId") Long eventId,
+                                                               @PathParam("after") Long after,
+                                                               @PathParam("count") Integer count,
+                                                               @Context HttpServletRequest request) {
+        SessionPrincipal principal = AuthorityConfig.getInstance().getSessionPrincipal(request);
+        if ((eventId == null) || (after == null) || (count == null) || (count <= 0)) {
+            return GenericResponseResult.badRequest("Failed to get chat messages, invalid input.");
+        }
+
+        boolean privilegedUser = principal.hasRole(AuthRole.USER_ROLE_ADMIN);
+        if (!privilegedUser && !eventMemberships.isOwnerOrMember(eventId, principal.getUserId())) {
+            LOGGER.warn("*** User was attempting to get the chat messages of an event without being a member!");
+            return GenericResponseResult.unauthorized("Failed to get chat messages, insufficient privilege.");
+        }
+
+        ChatLog chatLog = chatSystem.getChatLog();
+        if (chatLog == null) {
+            return GenericResponseResult.notFound("Chat messages are not logged.");
+        }
+
+        ChatLogPage page = chatLog.getEventMessages(eventId, after, Math.min(count, MAX_PAGE_SIZE));
+        return GenericResponseResult.ok("Chat messages were successfully retrieved.", page);
+    }
+}
@@ -0,0 +1,190 @@
+/*
+ * Copyright (c) 2017-2019 by Botorabi. All rights reserved.
+ * https://github.com/botorabi/Meet4Eat
+ *
+ * License: MIT License (MIT), read the LICENSE text in
+ *          main directory for more details.
+ */
+package net.m4e.app.communication;
+
+import java.lang.invoke.MethodHandles;
+import java.math.BigDecimal;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.charset.*;
+import java.util.*;
+
+import javax.json.*;
+import javax.json.spi.JsonProvider;
+import javax.websocket.DecodeException;
+import javax.websocket.Decoder;
+import javax.websocket.EndpointConfig;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import static net.m4e.app.communication.BinaryProtocol.*;
+
+/**
+ * Decodes a frame of the binary protocol into a packet, see 'BinaryProtocol'.
+ * The packet data is decoded into the same types as done by 'PacketDecoder'
+ * for JSON frames.
+ *
+ * @author boto
+ * Date of creation Oct 18, 2026
+ */
+public class BinaryPacketDecoder implements Decoder.Binary<Packet<?>> {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(MethodHandles.lookup().lookupClass());
+
+    /**
+     * The provider is looked up only once, every lookup via 'Json' scans the class path.
+     */
+    private static final JsonProvider PROVIDER = JsonProvider.provider();
+
+    private static final JsonBuilderFactory BUILDER_FACTORY = PROVIDER.createBuilderFactory(null);
+
+    private final PacketDecoder jsonDecoder = new PacketDecoder();
+
+    @Override
+    public Packet<?> decode(final ByteBuffer bytes) {
+        try {
+            return readPacket(bytes.slice());
+        }
+        catch (DecodeException | BufferUnderflowException | IndexOutOfBoundsException | IllegalArgumentException ex) {
+            LOGGER.debug("Could not read binary packet, reason: {}", ex.getMessage());
+        }
+        return null;
+    }
+
+    @Override
+    public boolean willDecode(final ByteBuffer bytes) {
+        return bytes.remaining() > 0;
+    }
+
+    @Override
+    public void init(final EndpointConfig config) {
+    }
+
+    @Override
+    public void destroy() {
+    }
+
+    private Packet<?> readPacket(ByteBuffer buffer) throws DecodeException {
+        byte version = buffer.get();
+        if (version != VERSION) {
+            throw new DecodeException(buffer, "unsupported binary protocol version " + version);
+        }
+        List<String> strings = new ArrayList<>();
+
+        Packet<Object> packet = new Packet<>();
+        int channelIndex = buffer.get() & 0xFF;
+        if (channelIndex == CHANNEL_CUSTOM) {
+            packet.setChannel(readString(buffer, strings, 0));
+        }
+        else {
+            packet.setChannel(CHANNELS.get(channelIndex));
+        }
+        packet.setTime(readVarLong(buffer));
+        packet.setSourceId(readString(buffer, strings, 0));
+        packet.setSource(readString(buffer, strings, 0));
+
+        JsonValue data = readValue(buffer, strings, 0);
+        if (data instanceof JsonObject) {
+            packet.setData(jsonDecoder.decodeData(packet.getChannel(), (JsonObject) data));
+        }
+        return packet;
+    }
+
+    private String readString(ByteBuffer buffer, List<String> strings, int depth) throws DecodeException {
+        JsonValue value = readValue(buffer, strings, depth);
+        if (value.getValueType() == JsonValue.ValueType.NULL) {
+            return null;
+        }
+        if (value.getValueType() != JsonValue.ValueType.STRING) {
+            throw new DecodeException(buffer, "string expected");
+        }
+        return ((JsonString) value).getString();
+    }
+
+    private JsonValue readValue(ByteBuffer buffer, List<String> strings, int depth) throws DecodeException {
+        byte tag = buffer.get();
+        if (((tag == TAG_ARRAY) || (tag == TAG_OBJECT)) && (depth >= MAX_DEPTH)) {
+            throw new DecodeException(buffer, "values are nested deeper than " + MAX_DEPTH);
+        }
+        switch (tag) {
+            case TAG_NULL:
+                return JsonValue.NULL;
+            case TAG_TRUE:
+                return JsonValue.TRUE;
+            case TAG_FALSE:
+                return JsonValue.FALSE;
+            case TAG_LONG:
+                return PROVIDER.createValue(readVarLong(buffer));
+            case TAG_DOUBLE:
+                return PROVIDER.createValue(Double.longBitsToDouble(buffer.getLong()));
+            case TAG_DECIMAL:
+                return PROVIDER.createValue(new BigDecimal(readUtf8(buffer, StandardCharsets.US_ASCII)));
+            case TAG_STRING: {
+                String string = readUtf8(buffer, StandardCharsets.UTF_8);
+                strings.add(string);
+                return PROVIDER.createValue(string);
+            }
+            case TAG_STRING_REF:
+                return PROVIDER.createValue(strings.get(readVarInt(buffer)));
+            case TAG_ARRAY: {
+                int count = readVarInt(buffer);
+                JsonArrayBuilder array = BUILDER_FACTORY.createArrayBuilder();
+                for (int i = 0; i < count; i++) {
+                    array.add(readValue(buffer, strings, depth + 1));
+                }
+                return array.build();
+            }
+            case TAG_OBJECT: {
+                int count = readVarInt(buffer);
+                JsonObjectBuilder object = BUILDER_FACTORY.createObjectBuilder();
+                for (int i = 0; i < count; i++) {
+                    String key = readString(buffer, strings, depth + 1);
+                    if (key == null) {
+                        throw new DecodeException(buffer, "object key must not be null");
+                    }
+                    object.add(key, readValue(buffer, strings, depth + 1));
+                }
+                return object.build();
+            }
+            default:
+                throw new DecodeException(buffer, "invalid value tag " + tag);
+        }
+    }
+
+    private String readUtf8(ByteBuffer buffer, Charset charset) {
+        int length = readVarInt(buffer);
+        if ((length < 0) || (length > buffer.remaining())) {
+            throw new IllegalArgumentException("invalid string length " + length);
+        }
+        byte[] bytes = new byte[length];
+        buffer.get(bytes);
+        return new String(bytes, charset);
+    }
+
+    private int readVarInt(ByteBuffer buffer) {
+        return (int) readVarUnsigned(buffer);
+    }
+
+    private long readVarLong(ByteBuffer buffer) {
+        long value = readVarUnsigned(buffer);
+        return (value >>> 1) ^ -(value & 1);
+    }
+
+    private long readVarUnsigned(ByteBuffer buffer) {
+        long value = 0L;
+        for (int shift = 0; shift < 64; shift += 7) {
+            byte b = buffer.get();
+            value |= (long) (b & 0x7F) << shift;
+            if ((b & 0x80) == 0) {
+                return value;
+            }
+        }
+        throw new IllegalArgumentException("invalid varint");
+    }
+}
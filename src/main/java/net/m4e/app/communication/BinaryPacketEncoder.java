@@ -0,0 +1,319 @@
+/*
+ * Copyright (c) 2017-2019 by Botorabi. All rights reserved.
+ * https://github.com/botorabi/Meet4Eat
+ *
+ * License: MIT License (MIT), read the LICENSE text in
+ *          main directory for more details.
+ */
+package net.m4e.app.communication;
+
+import java.beans.*;
+import java.lang.invoke.MethodHandles;
+import java.lang.reflect.*;
+import java.math.*;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.time.temporal.TemporalAccessor;
+import java.util.*;
+import java.util.concurrent.*;
+
+import javax.json.*;
+import javax.json.bind.annotation.*;
+import javax.websocket.Encoder;
+import javax.websocket.EndpointConfig;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import static net.m4e.app.communication.BinaryProtocol.*;
+
+/**
+ * Encodes a packet into a frame of the binary protocol, see 'BinaryProtocol'.
+ *
+ * Packet data can be maps, collections, arrays, scalars, JSON values or beans. Bean properties are
+ * discovered once per class via their public getters, properties with value null and
+ * getters annotated with @JsonbTransient are skipped just like in JSON.
+ *
+ * @author boto
+ * Date of creation Oct 18, 2026
+ */
+public class BinaryPacketEncoder implements Encoder.Binary<Packet<?>> {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(MethodHandles.lookup().lookupClass());
+
+    /**
+     * Maximal nesting depth of data, it protects against cyclic references.
+     */
+    private static final int MAX_DEPTH = 32;
+
+    /**
+     * Bean properties by class
+     */
+    private static final ConcurrentMap<Class<?>, BeanProperty[]> BEAN_PROPERTIES = new ConcurrentHashMap<>();
+
+    /**
+     * A readable bean property
+     */
+    private static class BeanProperty {
+        private final String name;
+        private final Method getter;
+
+        BeanProperty(String name, Method getter) {
+            this.name = name;
+            this.getter = getter;
+        }
+    }
+
+    @Override
+    public ByteBuffer encode(final Packet<?> packet) {
+        byte[] bytes = toBytes(packet);
+        return (bytes != null) ? ByteBuffer.wrap(bytes) : null;
+    }
+
+    @Override
+    public void init(final EndpointConfig config) {
+    }
+
+    @Override
+    public void destroy() {
+    }
+
+    /**
+     * Encode given packet.
+     *
+     * @param packet    Packet to encode
+     * @return          The binary frame, or null if the packet could not be encoded
+     */
+    public static byte[] toBytes(final Packet<?> packet) {
+        try {
+            FrameWriter writer = new FrameWriter();
+            writer.writeByte(VERSION);
+            int channelIndex = CHANNELS.indexOf(packet.getChannel());
+            if (channelIndex < 0) {
+                writer.writeByte(CHANNEL_CUSTOM);
+                writer.writeValue(packet.getChannel(), 0);
+            }
+            else {
+                writer.writeByte(channelIndex);
+            }
+            writer.writeVarLong(packet.getTime());
+            writer.writeValue(packet.getSourceId(), 0);
+            writer.writeValue(packet.getSource(), 0);
+            writer.writeValue(packet.getData(), 0);
+            return writer.toByteArray();
+        }
+        catch (IllegalArgumentException | ReflectiveOperationException | IntrospectionException ex) {
+            LOGGER.debug("Could not create binary packet, reason: {}", ex.getMessage(), ex);
+        }
+        return null;
+    }
+
+    /**
+     * Growable frame buffer with a frame local string table.
+     */
+    private static class FrameWriter {
+        private byte[] buffer = new byte[256];
+        private int size = 0;
+        private final Map<String, Integer> strings = new HashMap<>();
+
+        byte[] toByteArray() {
+            return Arrays.copyOf(buffer, size);
+        }
+
+        void writeByte(int value) {
+            ensureCapacity(1);
+            buffer[size++] = (byte) value;
+        }
+
+        void writeBytes(byte[] bytes) {
+            ensureCapacity(bytes.length);
+            System.arraycopy(bytes, 0, buffer, size, bytes.length);
+            size += bytes.length;
+        }
+
+        void writeVarInt(int value) {
+            writeVarUnsigned(value & 0xFFFFFFFFL);
+        }
+
+        void writeVarLong(long value) {
+            // zig-zag encoding keeps small negative numbers short
+            writeVarUnsigned((value << 1) ^ (value >> 63));
+        }
+
+        private void writeVarUnsigned(long value) {
+            while ((value & ~0x7FL) != 0L) {
+                writeByte((int) ((value & 0x7F) | 0x80));
+                value >>>= 7;
+            }
+            writeByte((int) value);
+        }
+
+        void writeString(String value) {
+            Integer index = strings.get(value);
+            if (index != null) {
+                writeByte(TAG_STRING_REF);
+                writeVarInt(index);
+                return;
+            }
+            strings.put(value, strings.size());
+            byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+            writeByte(TAG_STRING);
+            writeVarInt(bytes.length);
+            writeBytes(bytes);
+        }
+
+        void writeValue(Object value, int depth) throws ReflectiveOperationException, IntrospectionException {
+            if (depth > MAX_DEPTH) {
+                throw new IllegalArgumentException("packet data is nested too deep");
+            }
+            if (value == null) {
+                writeByte(TAG_NULL);
+            }
+            else if ((value instanceof JsonValue) && !(value instanceof JsonStructure)) {
+                writeJsonScalar((JsonValue) value, depth);
+            }
+            else if (value instanceof String) {
+                writeString((String) value);
+            }
+            else if (value instanceof Boolean) {
+                writeByte((Boolean) value ? TAG_TRUE : TAG_FALSE);
+            }
+            else if ((value instanceof Long) || (value instanceof Integer) || (value instanceof Short) || (value instanceof Byte)) {
+                writeByte(TAG_LONG);
+                writeVarLong(((Number) value).longValue());
+            }
+            else if ((value instanceof Double) || (value instanceof Float)) {
+                writeByte(TAG_DOUBLE);
+                long bits = Double.doubleToLongBits(((Number) value).doubleValue());
+                for (int shift = 56; shift >= 0; shift -= 8) {
+                    writeByte((int) (bits >>> shift));
+                }
+            }
+            else if ((value instanceof BigDecimal) || (value instanceof BigInteger)) {
+                byte[] bytes = value.toString().getBytes(StandardCharsets.US_ASCII);
+                writeByte(TAG_DECIMAL);
+                writeVarInt(bytes.length);
+                writeBytes(bytes);
+            }
+            else if ((value instanceof Character) || (value instanceof TemporalAccessor) || (value instanceof Date)) {
+                writeString(value.toString());
+            }
+            else if (value instanceof Enum) {
+                writeString(((Enum<?>) value).name());
+            }
+            else if (value instanceof Map) {
+                writeMap((Map<?, ?>) value, depth);
+            }
+            else if (value instanceof Collection) {
+                Collection<?> collection = (Collection<?>) value;
+                writeByte(TAG_ARRAY);
+                writeVarInt(collection.size());
+                for (Object element: collection) {
+                    writeValue(element, depth + 1);
+                }
+            }
+            else if (value.getClass().isArray()) {
+                int length = Array.getLength(value);
+                writeByte(TAG_ARRAY);
+                writeVarInt(length);
+                for (int i = 0; i < length; i++) {
+                    writeValue(Array.get(value, i), depth + 1);
+                }
+            }
+            else {
+                writeBean(value, depth);
+            }
+        }
+
+        /**
+         * Write a scalar JSON value, as found in packets received from other cluster nodes.
+         */
+        private void writeJsonScalar(JsonValue value, int depth) throws ReflectiveOperationException, IntrospectionException {
+            switch (value.getValueType()) {
+                case STRING:
+                    writeString(((JsonString) value).getString());
+                    break;
+                case NUMBER:
+                    JsonNumber number = (JsonNumber) value;
+                    Object numberValue;
+                    try {
+                        numberValue = number.longValueExact();
+                    }
+                    catch (ArithmeticException ex) {
+                        numberValue = number.bigDecimalValue();
+                    }
+                    writeValue(numberValue, depth);
+                    break;
+                case TRUE:
+                    writeByte(TAG_TRUE);
+                    break;
+                case FALSE:
+                    writeByte(TAG_FALSE);
+                    break;
+                default:
+                    writeByte(TAG_NULL);
+            }
+        }
+
+        private void writeMap(Map<?, ?> map, int depth) throws ReflectiveOperationException, IntrospectionException {
+            writeByte(TAG_OBJECT);
+            writeVarInt(map.size());
+            for (Map.Entry<?, ?> entry: map.entrySet()) {
+                writeString(String.valueOf(entry.getKey()));
+                writeValue(entry.getValue(), depth + 1);
+            }
+        }
+
+        private void writeBean(Object bean, int depth) throws ReflectiveOperationException, IntrospectionException {
+            BeanProperty[] properties = getBeanProperties(bean.getClass());
+            Object[] values = new Object[properties.length];
+            int count = 0;
+            for (int i = 0; i < properties.length; i++) {
+                values[i] = properties[i].getter.invoke(bean);
+                if (values[i] != null) {
+                    count++;
+                }
+            }
+            writeByte(TAG_OBJECT);
+            writeVarInt(count);
+            for (int i = 0; i < properties.length; i++) {
+                if (values[i] != null) {
+                    writeString(properties[i].name);
+                    writeValue(values[i], depth + 1);
+                }
+            }
+        }
+
+        private void ensureCapacity(int count) {
+            if (size + count > buffer.length) {
+                buffer = Arrays.copyOf(buffer, Math.max(buffer.length * 2, size + count));
+            }
+        }
+    }
+
+    /**
+     * Get the readable properties of given bean class.
+     *
+     * @param beanClass Bean class
+     * @return          Bean properties
+     */
+    private static BeanProperty[] getBeanProperties(Class<?> beanClass) throws IntrospectionException {
+        BeanProperty[] properties = BEAN_PROPERTIES.get(beanClass);
+        if (properties == null) {
+            List<BeanProperty> found = new ArrayList<>();
+            for (PropertyDescriptor descriptor: Introspector.getBeanInfo(beanClass, Object.class).getPropertyDescriptors()) {
+                Method getter = descriptor.getReadMethod();
+                if ((getter == null) || !Modifier.isPublic(getter.getDeclaringClass().getModifiers()) ||
+                        getter.isAnnotationPresent(JsonbTransient.class)) {
+                    continue;
+                }
+                JsonbProperty rename = getter.getAnnotation(JsonbProperty.class);
+                String name = ((rename != null) && !rename.value().isEmpty()) ? rename.value() : descriptor.getName();
+                found.add(new BeanProperty(name, getter));
+            }
+            properties = found.toArray(new BeanProperty[0]);
+            BEAN_PROPERTIES.putIfAbsent(beanClass, properties);
+        }
+        return properties;
+    }
+}
@@ -0,0 +1,101 @@
+/*
+ * Copyright (c) 2017-2019 by Botorabi. All rights reserved.
+ * https://github.com/botorabi/Meet4Eat
+ *
+ * License: MIT License (MIT), read the LICENSE text in
+ *          main directory for more details.
+ */
+package net.m4e.app.communication;
+
+import java.util.*;
+
+/**
+ * Definitions of the compact binary WebSocket protocol. Clients negotiate it
+ * during the handshake by requesting the sub-protocol SUBPROTOCOL_BINARY; all
+ * other clients use JSON text frames.
+ *
+ * A binary frame has following layout:
+ *
+ *   u8      protocol version
+ *   u8      channel index in CHANNELS, or CHANNEL_CUSTOM followed by a string value
+ *   varint  time (zig-zag encoded)
+ *   value   source ID
+ *   value   source
+ *   value   data
+ *
+ * A value starts with one of the TAG_xxx bytes. Strings, arrays and objects are
+ * length-prefixed. Every string (including object keys) is entered into a frame
+ * local string table on its first occurrence, further occurrences are written as
+ * a reference into that table.
+ *
+ * @author boto
+ * Date of creation Oct 18, 2026
+ */
+public final class BinaryProtocol {
+
+    /**
+     * Sub-protocol name for the binary protocol
+     */
+    public final static String SUBPROTOCOL_BINARY = "m4e.binary.1";
+
+    /**
+     * Sub-protocol name for the JSON protocol, this is the default if a client requests none.
+     */
+    public final static String SUBPROTOCOL_JSON = "m4e.json.1";
+
+    /**
+     * Binary protocol version written into every frame
+     */
+    public final static byte VERSION = 1;
+
+    /**
+     * Well-known channels, a channel is written as index into this list.
+     */
+    public final static List<String> CHANNELS = Collections.unmodifiableList(Arrays.asList(
+            Packet.CHANNEL_SYSTEM, Packet.CHANNEL_NOTIFY, Packet.CHANNEL_CHAT, Packet.CHANNEL_EVENT));
+
+    /**
+     * Channel index used for a channel which is not in CHANNELS
+     */
+    public final static int CHANNEL_CUSTOM = 0xFF;
+
+    public final static byte TAG_NULL = 0;
+    public final static byte TAG_TRUE = 1;
+    public final static byte TAG_FALSE = 2;
+    /**
+     * Integral number, zig-zag varint
+     */
+    public final static byte TAG_LONG = 3;
+    /**
+     * Floating point number, 8 bytes IEEE 754
+     */
+    public final static byte TAG_DOUBLE = 4;
+    /**
+     * New string: varint byte length followed by UTF-8 bytes
+     */
+    public final static byte TAG_STRING = 5;
+    /**
+     * Reference to a string in string table: varint index
+     */
+    public final static byte TAG_STRING_REF = 6;
+    /**
+     * Array: varint count followed by values
+     */
+    public final static byte TAG_ARRAY = 7;
+    /**
+     * Object: varint count followed by pairs of string key and value
+     */
+    public final static byte TAG_OBJECT = 8;
+    /**
+     * Arbitrary precision number written as string
+     */
+    public final static byte TAG_DECIMAL = 9;
+
+    /**
+     * Maximal nesting depth of arrays and objects, frames with deeper values are rejected.
+     */
+    public final static int MAX_DEPTH = 64;
+
+    private BinaryProtocol() {
+    }
+}
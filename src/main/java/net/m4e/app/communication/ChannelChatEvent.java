@@ -8,13 +8,11 @@
 package net.m4e.app.communication;
 
 
-import java.util.Map;
-
 /**
  * Event used for handling a chat message
  * 
  * @author boto
  * Date of creation Oct 9, 2017
  */
-public class ChannelChatEvent extends ChannelEvent<Map<String, Object>> {
+public class ChannelChatEvent extends ChannelEvent<ChatMessage> {
 }
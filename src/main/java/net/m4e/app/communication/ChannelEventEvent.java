@@ -8,8 +8,6 @@
 package net.m4e.app.communication;
 
 
-import java.util.Map;
-
 /**
  * Event used for handling an event channel event
  * 
@@ -19,5 +17,5 @@ import java.util.Map;
  * @author boto
  * Date of creation Oct 29, 2017
  */
-public class ChannelEventEvent extends ChannelEvent<Map<String, Object>> {
+public class ChannelEventEvent extends ChannelEvent<EventMessage> {
 }
@@ -8,8 +8,6 @@
 package net.m4e.app.communication;
 
 
-import java.util.Map;
-
 /**
  * Event used for handling a system channel event
  * 
@@ -17,5 +15,5 @@ import java.util.Map;
  * @author boto
  * Date of creation Nov 27, 2017
  */
-public class ChannelEventSystem extends ChannelEvent<Map<String,Object>> {
+public class ChannelEventSystem extends ChannelEvent<SystemCommand> {
 }
@@ -0,0 +1,61 @@
+/*
+ * Copyright (c) 2017-2019 by Botorabi. All rights reserved.
+ * https://github.com/botorabi/Meet4Eat
+ *
+ * License: MIT License (MIT), read the LICENSE text in
+ *          main directory for more details.
+ */
+package net.m4e.app.communication;
+
+/**
+ * Data of a packet in channel 'chat'. Either the receiver user or the receiver
+ * event is set.
+ *
+ * The sequence number is assigned by the server when the message is distributed,
+ * it is used for requesting the chat history after a reconnect.
+ *
+ * @author boto
+ * Date of creation Oct 18, 2026
+ */
+public class ChatMessage {
+
+    private String receiverUser = "";
+    private String receiverEvent = "";
+    private String text = "";
+    private long sequence = 0L;
+
+    public ChatMessage() {
+    }
+
+    public String getReceiverUser() {
+        return receiverUser;
+    }
+
+    public void setReceiverUser(String receiverUser) {
+        this.receiverUser = receiverUser;
+    }
+
+    public String getReceiverEvent() {
+        return receiverEvent;
+    }
+
+    public void setReceiverEvent(String receiverEvent) {
+        this.receiverEvent = receiverEvent;
+    }
+
+    public String getText() {
+        return text;
+    }
+
+    public void setText(String text) {
+        this.text = text;
+    }
+
+    public long getSequence() {
+        return sequence;
+    }
+
+    public void setSequence(long sequence) {
+        this.sequence = sequence;
+    }
+}
@@ -9,17 +9,23 @@ package net.m4e.app.communication;
 
 import java.io.IOException;
 import java.lang.invoke.MethodHandles;
+import java.nio.ByteBuffer;
 import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.BiConsumer;
+import java.util.function.LongSupplier;
 
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
 import javax.enterprise.context.ApplicationScoped;
-import javax.enterprise.event.Event;
 import javax.inject.Inject;
-import javax.websocket.EncodeException;
+import javax.websocket.CloseReason;
 import javax.websocket.Session;
 
-import net.m4e.app.event.business.EventNotifications;
-import net.m4e.app.notification.NotifyUserRelativesEvent;
-import net.m4e.app.user.business.UserEntity;
+import net.m4e.app.auth.SessionPrincipal;
+import net.m4e.app.communication.cluster.*;
+import net.m4e.system.core.AppConfiguration;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -28,6 +34,18 @@ import org.slf4j.LoggerFactory;
  * This resource tracks all connected (via WebSocket) clients. It provides functionality
  * to retrieve connected users and send packets to them.
  * 
+ * All operations are thread-safe: connections are opened and closed by the WebSocket
+ * container while packets are sent from asynchronous event observers.
+ * Packets are sent asynchronously through a bounded outbound queue per session,
+ * see 'OutboundQueue'. Notifications can be batched per session, see 'NotificationBatcher'.
+ * 
+ * Clients can narrow down the notifications they get per session, see 'Subscription'.
+ * 
+ * Sessions without incoming messages for a configurable time are evicted, see 'IdleSessionWheel'.
+ * 
+ * If a cluster message bus is configured then packets for users connected to other
+ * nodes are forwarded to these nodes, see 'ClusterRouter'.
+ * 
  * See 'Connection' class for WebSocket handling.
  * 
  * @author boto
@@ -39,43 +57,343 @@ public class ConnectedClients {
     private static final Logger LOGGER = LoggerFactory.getLogger(MethodHandles.lookup().lookupClass());
 
     /**
-     * Event used for notifying other users
+     * Online status of users, it is informed about first connects and last disconnects
      */
     @Inject
-    Event<NotifyUserRelativesEvent> notifyUserRelativesEvent;
+    Presence presence;
 
     /**
-     * Class used for a user entry
+     * Class used for a user entry. The session set is copy-on-write, so senders can iterate
+     * it without locking while connections are added or removed concurrently.
      */
-    private class UserEntry {
-        private UserEntity user;
-        private List<Session /*WebSocket session*/> sessions = new ArrayList<>();
+    private static class UserEntry {
+        private final SessionPrincipal user;
+        private final Set<Session /*WebSocket session*/> sessions = new CopyOnWriteArraySet<>();
 
-        public UserEntity getUser() {
-            return user;
+        UserEntry(SessionPrincipal user) {
+            this.user = user;
         }
 
-        public void setUser(UserEntity user) {
-            this.user = user;
+        public SessionPrincipal getUser() {
+            return user;
         }
 
-        public List<Session> getSessions() {
+        public Set<Session> getSessions() {
             return sessions;
         }
     }
 
     /**
-     * Map containing user IDs and associated WebSocket sessions
+     * Result of a connection add/remove operation on a user entry.
+     */
+    private enum Transition {
+        /**
+         * Nothing changed, e.g. the session was already added or was never added.
+         */
+        NONE,
+        /**
+         * A session was added or removed, but the online state of the user did not change.
+         */
+        CHANGED,
+        /**
+         * The first session of the user was added.
+         */
+        FIRST_CONNECT,
+        /**
+         * The last session of the user was removed.
+         */
+        LAST_DISCONNECT
+    }
+
+    /**
+     * Map containing user IDs and associated WebSocket sessions.
+     * All modifications of an entry are done by compute operations, which are serialized per map bin.
+     */
+    private final ConcurrentMap<Long /*user ID*/, UserEntry> connections = new ConcurrentHashMap<>();
+
+    /**
+     * Count of locks serializing the online state announcements of users, must be a power of two
+     */
+    private final static int ANNOUNCE_LOCKS = 64;
+
+    /**
+     * Announce locks, a user is mapped to a lock by its ID, see 'announceOnlineState'.
+     */
+    private final Object[] announceLocks = new Object[ANNOUNCE_LOCKS];
+    {
+        Arrays.setAll(announceLocks, i -> new Object());
+    }
+
+    /**
+     * IDs of users announced as connected, an ID is only added or removed while holding its announce lock.
+     */
+    private final Set<Long> announcedUsers = ConcurrentHashMap.newKeySet();
+
+    /**
+     * Index of the outbound queues of all WebSocket sessions by their session ID.
+     */
+    private final ConcurrentMap<String /*session ID*/, OutboundQueue> sessions = new ConcurrentHashMap<>();
+
+    /**
+     * Maximal count of queued outgoing messages per session
+     */
+    private int outboundQueueSize = OutboundQueue.DEFAULT_CAPACITY;
+
+    /**
+     * Policy used when the outbound queue of a session is full
+     */
+    private OutboundQueue.OverflowPolicy overflowPolicy = OutboundQueue.OverflowPolicy.COLLAPSE;
+
+    /**
+     * Batcher for notifications, null if batching is disabled
      */
-    private final Map<Long /*user ID*/, UserEntry >  connections = new HashMap<>();
+    private NotificationBatcher notificationBatcher;
 
     /**
-     * Given an user ID return its user entity if it is currently connected.
+     * Scheduler used by the notification batcher
+     */
+    private ScheduledExecutorService batchScheduler;
+
+    /**
+     * Router for users connected to other cluster nodes, null if clustering is disabled
+     */
+    private volatile ClusterRouter clusterRouter;
+
+    /**
+     * Detects idle sessions, null if idle session eviction is disabled
+     */
+    private volatile IdleSessionWheel idleSessions;
+
+    private ScheduledExecutorService idleScheduler;
+
+    /**
+     * Notification subscriptions by session ID, sessions without entry get all notifications
+     */
+    private final ConcurrentMap<String /*session ID*/, Subscription> subscriptions = new ConcurrentHashMap<>();
+
+    private final AtomicLong countNotificationsFiltered = new AtomicLong();
+
+    /**
+     * Count of pings answered by 'respondToPing'
+     */
+    private final AtomicLong countPings = new AtomicLong();
+
+    /**
+     * Rate limits of incoming messages, null if the messages are not limited
+     */
+    private volatile RateLimiter.Limits rateLimits;
+
+    private final AtomicLong countRateLimitDropped = new AtomicLong();
+    private final AtomicLong countRateLimitWarned = new AtomicLong();
+    private final AtomicLong countRateLimitDisconnected = new AtomicLong();
+
+    /**
+     * Setup the outbound queue and notification batching configuration.
+     */
+    @PostConstruct
+    public void connectedClientsInit() {
+        AppConfiguration config = AppConfiguration.getInstance();
+        outboundQueueSize = (int) config.getConfigNumber(AppConfiguration.TOKEN_WS_OUTBOUND_QUEUE_SIZE, outboundQueueSize);
+        overflowPolicy = OutboundQueue.OverflowPolicy.fromString(
+                config.getConfigValue(AppConfiguration.TOKEN_WS_OUTBOUND_OVERFLOW_POLICY), overflowPolicy);
+
+        LOGGER.info("WebSocket outbound queue size: {}, overflow policy: {}", outboundQueueSize, overflowPolicy);
+
+        long batchWindow = config.getConfigNumber(AppConfiguration.TOKEN_WS_NOTIFICATION_BATCH_WINDOW, NotificationBatcher.DEFAULT_WINDOW);
+        int batchSize = (int) config.getConfigNumber(AppConfiguration.TOKEN_WS_NOTIFICATION_BATCH_SIZE, NotificationBatcher.DEFAULT_MAX_SIZE);
+        if (batchWindow > 0L) {
+            batchScheduler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+                Thread thread = new Thread(runnable, "m4e-notification-batcher");
+                thread.setDaemon(true);
+                return thread;
+            });
+            setNotificationBatcher(new NotificationBatcher(batchScheduler, batchWindow, batchSize));
+        }
+        LOGGER.info("WebSocket notification batch window: {} ms, batch size: {}", batchWindow, batchSize);
+
+        long idleTimeout = config.getConfigNumber(AppConfiguration.TOKEN_WS_IDLE_TIMEOUT, IdleSessionWheel.DEFAULT_IDLE_TIMEOUT);
+        if (idleTimeout > 0L) {
+            idleScheduler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+                Thread thread = new Thread(runnable, "m4e-idle-sessions");
+                thread.setDaemon(true);
+                return thread;
+            });
+            enableIdleSessionEviction(idleTimeout, IdleSessionWheel.DEFAULT_TICK_DURATION,
+                    IdleSessionWheel::monotonicClock)
+                    .start(idleScheduler);
+        }
+        LOGGER.info("WebSocket idle timeout: {} ms", idleTimeout);
+
+        RateLimiter.Limits limits = RateLimiter.Limits.create(
+                (int) config.getConfigNumber(AppConfiguration.TOKEN_WS_RATE_LIMIT_WARN_AFTER, RateLimiter.DEFAULT_WARN_AFTER),
+                (int) config.getConfigNumber(AppConfiguration.TOKEN_WS_RATE_LIMIT_DISCONNECT_AFTER, RateLimiter.DEFAULT_DISCONNECT_AFTER),
+                RateLimiter.DEFAULT_COOL_DOWN)
+                .withChannel(Packet.CHANNEL_CHAT, config.getConfigValue(AppConfiguration.TOKEN_WS_RATE_LIMIT_CHAT), 5.0, 10)
+                .withChannel(Packet.CHANNEL_EVENT, config.getConfigValue(AppConfiguration.TOKEN_WS_RATE_LIMIT_EVENT), 5.0, 10)
+                .withChannel(Packet.CHANNEL_SYSTEM, config.getConfigValue(AppConfiguration.TOKEN_WS_RATE_LIMIT_SYSTEM), 10.0, 20);
+        setRateLimits(limits);
+        LOGGER.info("WebSocket rate limits enabled: {}", limits.isEnabled());
+
+        ClusterMessageBus bus = createClusterMessageBus(config);
+        if (bus != null) {
+            setClusterMessageBus(bus);
+        }
+    }
+
+    /**
+     * Send out pending notifications and stop the batch scheduler.
+     */
+    @PreDestroy
+    public void connectedClientsShutdown() {
+        if (notificationBatcher != null) {
+            notificationBatcher.flushAll();
+        }
+        if (batchScheduler != null) {
+            batchScheduler.shutdownNow();
+        }
+        if (idleScheduler != null) {
+            idleScheduler.shutdownNow();
+        }
+        if (clusterRouter != null) {
+            clusterRouter.stop();
+        }
+    }
+
+    /**
+     * Enable the eviction of idle sessions. The returned wheel must be started by the caller.
+     * Sessions connected before are not tracked.
+     *
+     * @param idleTimeout   Time in milliseconds without incoming messages after which a session is evicted
+     * @param tickDuration  Tick duration of the wheel in milliseconds
+     * @param clock         Provides the current time in milliseconds, it must be monotonic
+     * @return              The wheel tracking the sessions
+     */
+    public IdleSessionWheel enableIdleSessionEviction(long idleTimeout, long tickDuration, LongSupplier clock) {
+        IdleSessionWheel wheel = new IdleSessionWheel(idleTimeout, tickDuration, new IdleSessionWheel.Listener() {
+            @Override
+            public void probe(Session session) {
+                OutboundQueue queue = sessions.get(session.getId());
+                if (queue != null) {
+                    sendPingFrame(session);
+                }
+            }
+
+            @Override
+            public void evict(Session session) {
+                evictIdleSession(session);
+            }
+        }, clock);
+        idleSessions = wheel;
+        return wheel;
+    }
+
+    /**
+     * Refresh the heartbeat of a session, it is called on every incoming message.
+     *
+     * @param session   WebSocket session
+     */
+    public void touch(Session session) {
+        IdleSessionWheel wheel = idleSessions;
+        if (wheel != null) {
+            wheel.touch(session.getId());
+        }
+    }
+
+    /**
+     * Join a cluster using given message bus. The bus is started.
+     *
+     * @param bus   Cluster message bus
+     */
+    public void setClusterMessageBus(ClusterMessageBus bus) {
+        ClusterRouter router = new ClusterRouter(bus, this::deliverFromCluster, () -> new ArrayList<>(connections.keySet()));
+        router.start();
+        clusterRouter = router;
+    }
+
+    /**
+     * Set the batcher used for notifications.
+     *
+     * @param notificationBatcher   Notification batcher, pass null for disabling batching
+     */
+    public void setNotificationBatcher(NotificationBatcher notificationBatcher) {
+        this.notificationBatcher = notificationBatcher;
+    }
+
+    /**
+     * Set the outbound queue configuration. It is used for new sessions.
+     *
+     * @param queueSize         Maximal count of queued outgoing messages per session
+     * @param policy            Policy used when the outbound queue of a session is full
+     */
+    public void setOutboundQueueConfig(int queueSize, OutboundQueue.OverflowPolicy policy) {
+        outboundQueueSize = queueSize;
+        overflowPolicy = policy;
+    }
+
+    /**
+     * Set the rate limits of incoming messages. They are used for new sessions.
+     *
+     * @param limits    Rate limits, pass null for not limiting the messages
+     */
+    public void setRateLimits(RateLimiter.Limits limits) {
+        rateLimits = ((limits != null) && limits.isEnabled()) ? limits : null;
+    }
+
+    /**
+     * Check the rate limit of a session for an incoming message on given channel. The outcome
+     * is counted, acting on it is up to the caller.
+     *
+     * @param session   WebSocket session
+     * @param channel   Channel of the incoming message
+     * @return          The outcome
+     */
+    public RateLimiter.Outcome checkRateLimit(Session session, String channel) {
+        OutboundQueue queue = sessions.get(session.getId());
+        RateLimiter rateLimiter = (queue != null) ? queue.getRateLimiter() : null;
+        if (rateLimiter == null) {
+            return RateLimiter.Outcome.ALLOW;
+        }
+        RateLimiter.Outcome outcome = rateLimiter.acquire(channel, System.nanoTime());
+        switch (outcome) {
+            case DROP:
+                countRateLimitDropped.incrementAndGet();
+                break;
+            case WARN:
+                countRateLimitWarned.incrementAndGet();
+                break;
+            case DISCONNECT:
+                countRateLimitDisconnected.incrementAndGet();
+                break;
+            default:
+                break;
+        }
+        return outcome;
+    }
+
+    /**
+     * Remove a session right away, so it gets no further packets and its user may go offline,
+     * then close it.
+     *
+     * @param session   WebSocket session
+     * @param reason    Close reason sent to the client
+     */
+    public void closeSession(Session session, CloseReason reason) {
+        removeConnection(getUser(session), session);
+        try {
+            session.close(reason);
+        }
+        catch (IOException | IllegalStateException ex) {
+            LOGGER.debug("could not close WebSocket session {}, reason: {}", session.getId(), ex.getLocalizedMessage());
+        }
+    }
+
+    /**
+     * Given an user ID return its principal if it is currently connected.
      * 
      * @param userId        User ID
-     * @return              User entity or null if there is no sessions for given user.
+     * @return              User principal or null if there is no sessions for given user.
      */
-    public UserEntity getConnectedUser(Long userId) {
+    public SessionPrincipal getConnectedUser(Long userId) {
         UserEntry entry = connections.get(userId);
         if (entry != null) {
             return entry.getUser();
@@ -83,27 +401,107 @@ public class ConnectedClients {
         return null;
     }
 
+    /**
+     * Get the count of currently connected users.
+     *
+     * @return Count of users having at least one WebSocket connection
+     */
+    public int getConnectedUserCount() {
+        return connections.size();
+    }
+
+    /**
+     * Get the count of all WebSocket sessions.
+     *
+     * @return Count of WebSocket sessions
+     */
+    public int getSessionCount() {
+        return sessions.size();
+    }
+
+    /**
+     * Export the statistics of all connections.
+     *
+     * @return Connections info
+     */
+    public ConnectionsInfo exportInfo() {
+        ConnectionsInfo info = new ConnectionsInfo();
+        info.setCountUsers(connections.size());
+        List<SessionInfo> sessionInfos = new ArrayList<>();
+        sessions.values().forEach(queue -> sessionInfos.add(SessionInfo.fromOutboundQueue(getUserId(queue.getSession()), queue)));
+        info.setSessions(sessionInfos);
+        info.setCountSessions(sessionInfos.size());
+        info.setCountPings(countPings.get());
+        info.setCountSubscriptions(subscriptions.size());
+        info.setCountNotificationsFiltered(countNotificationsFiltered.get());
+        info.setCountRateLimitDropped(countRateLimitDropped.get());
+        info.setCountRateLimitWarned(countRateLimitWarned.get());
+        info.setCountRateLimitDisconnected(countRateLimitDisconnected.get());
+        IdleSessionWheel wheel = idleSessions;
+        if (wheel != null) {
+            info.setCountIdleProbed(wheel.getCountProbed());
+            info.setCountIdleEvicted(wheel.getCountEvicted());
+        }
+        ClusterRouter router = clusterRouter;
+        if (router != null) {
+            info.setClusterNode(router.getNodeId());
+            info.setCountRemoteUsers(router.getRemoteUserCount());
+            info.setCountClusterForwarded(router.getCountForwarded());
+            info.setCountClusterReceived(router.getCountReceived());
+        }
+        if (notificationBatcher != null) {
+            info.setCountNotifications(notificationBatcher.getCountNotifications());
+            info.setCountNotificationsCollapsed(notificationBatcher.getCountCollapsed());
+            info.setCountNotificationFrames(notificationBatcher.getCountFrames());
+        }
+        return info;
+    }
+
+    /**
+     * Is the user connected to this node or, in a cluster, to any other node?
+     *
+     * @param userId    User ID
+     * @return          Return true if the user is connected.
+     */
+    public boolean isUserConnected(Long userId) {
+        ClusterRouter router = clusterRouter;
+        return connections.containsKey(userId) || ((router != null) && router.isConnectedRemotely(userId));
+    }
+
     /**
      * Send a packet to given recipients. The packet is sent to all connections of
-     * recipients.
+     * recipients, also to the ones on other cluster nodes.
+     * 
+     * NOTE: the packet is sent asynchronously, so it must not be modified after passing it
+     * to this method.
      * 
      * @param packet        Packet to send
      * @param recipientIds  List of recipients containing user IDs
      */
     public void sendPacket(Packet<?> packet, List<Long> recipientIds) {
-        recipientIds.forEach(id -> {
-            UserEntry receiverEntry = connections.get(id);
-            if (receiverEntry != null) {
-                receiverEntry.getSessions().forEach(session -> {
-                    try {
-                        session.getBasicRemote().sendObject(packet);
-                    }
-                    catch(IOException | EncodeException ex) {
-                        LOGGER.warn("problem occurred while sending notification to user ({}), reason: {}" , id, ex.getLocalizedMessage());
-                    }
-                });
-            }
-        });
+        // the packet is serialized only once for all recipients
+        EncodedPacket encodedPacket = new EncodedPacket(packet);
+        String collapseKey = getCollapseKey(packet);
+        sendLocal(encodedPacket, recipientIds, collapseKey);
+        forwardToCluster(encodedPacket, recipientIds, collapseKey, false);
+    }
+
+    /**
+     * Send a notification packet to given recipients. Unlike 'sendPacket' the notification
+     * may be delayed for a short time and sent together with further notifications, if
+     * batching is enabled.
+     *
+     * NOTE: the packet is sent asynchronously, so it must not be modified after passing it
+     * to this method.
+     *
+     * @param packet        Notification packet to send
+     * @param recipientIds  List of recipients containing user IDs
+     */
+    public void sendNotification(Packet<?> packet, List<Long> recipientIds) {
+        EncodedPacket encodedPacket = new EncodedPacket(packet);
+        String collapseKey = getCollapseKey(packet);
+        notifyLocal(encodedPacket, recipientIds, collapseKey);
+        forwardToCluster(encodedPacket, recipientIds, collapseKey, true);
     }
 
     /**
@@ -115,19 +513,77 @@ public class ConnectedClients {
      * @param sessionId     Session ID of a WebSocket connection
      */
     public void sendPacket(Packet<?> packet, Long userId, String sessionId) {
-        UserEntry receiverEntry = connections.get(userId);
-        if (receiverEntry != null) {
-            receiverEntry.getSessions().stream().
-                    filter(session -> (session.getId().equals(sessionId))).
-                    forEach(session -> {
-                        try {
-                            session.getBasicRemote().sendObject(packet);
-                        }
-                        catch(IOException | EncodeException ex) {
-                            LOGGER.warn("problem occurred while sending notification to user ({}/{}), reason: {}",
-                                    userId, sessionId, ex.getLocalizedMessage());
-                        }
-                    });
+        OutboundQueue queue = sessions.get(sessionId);
+        if ((queue == null) || !userId.equals(getUserId(queue.getSession()))) {
+            return;
+        }
+        if (!queue.enqueue(new EncodedPacket(packet), getCollapseKey(packet))) {
+            LOGGER.debug("could not send notification to user ({}/{}), session is closed", userId, sessionId);
+        }
+    }
+
+    /**
+     * Set the notification subscription of a session.
+     *
+     * @param userId        User ID
+     * @param sessionId     Session ID, the session must belong to the user
+     * @param subscription  The subscription
+     * @return              Return false if the user has no such session.
+     */
+    public boolean subscribe(Long userId, String sessionId, Subscription subscription) {
+        OutboundQueue queue = sessions.get(sessionId);
+        if ((queue == null) || !userId.equals(getUserId(queue.getSession()))) {
+            return false;
+        }
+        if (subscription.isUnfiltered()) {
+            subscriptions.remove(sessionId);
+        }
+        else {
+            subscriptions.put(sessionId, subscription);
+            // the session may have been closed meanwhile
+            if (!sessions.containsKey(sessionId)) {
+                subscriptions.remove(sessionId);
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Answer a ping of a client right away on the session it arrived. From time to time
+     * a WebSocket ping frame is sent in addition for measuring the round trip time of the
+     * session, see 'recordRoundTrip'.
+     *
+     * @param session       WebSocket session
+     * @param clientTime    The time sent by the client, it is echoed back
+     * @return              Return false if the session is not connected.
+     */
+    public boolean respondToPing(Session session, long clientTime) {
+        OutboundQueue queue = sessions.get(session.getId());
+        if (queue == null) {
+            return false;
+        }
+        countPings.incrementAndGet();
+        queue.enqueue(PingResponder.createResponse(clientTime, System.currentTimeMillis()), null);
+
+        if (queue.startRoundTripProbe(System.nanoTime())) {
+            sendPingFrame(session);
+        }
+        return true;
+    }
+
+    /**
+     * Record the round trip time of a session when a pong frame arrived.
+     *
+     * @param session   WebSocket session
+     * @param payload   Pong payload, it is the send time of the ping frame
+     */
+    public void recordRoundTrip(Session session, ByteBuffer payload) {
+        if ((payload == null) || (payload.remaining() != Long.BYTES)) {
+            return;
+        }
+        OutboundQueue queue = sessions.get(session.getId());
+        if (queue != null) {
+            queue.recordRoundTrip(System.nanoTime() - payload.getLong(payload.position()));
         }
     }
 
@@ -135,10 +591,21 @@ public class ConnectedClients {
      * Given a WebSocket session return its user.
      * 
      * @param session   WebSocket session
-     * @return          User entity using this session
+     * @return          Principal of user using this session
      */
-    public UserEntity getUser(Session session) {
-        return (UserEntity)session.getUserProperties().get("user");
+    public SessionPrincipal getUser(Session session) {
+        return (SessionPrincipal)session.getUserProperties().get("user");
+    }
+
+    /**
+     * Given a WebSocket session ID return the session.
+     *
+     * @param sessionId Session ID
+     * @return          The WebSocket session or null if no session with given ID exists
+     */
+    public Session getSession(String sessionId) {
+        OutboundQueue queue = sessions.get(sessionId);
+        return (queue != null) ? queue.getSession() : null;
     }
 
     /**
@@ -151,25 +618,34 @@ public class ConnectedClients {
      * @param session   WebSocket session
      * @return          Return false if the session was already added before, otherwise return true.
      */
-    protected boolean addConnection(UserEntity user, Session session) {
-        UserEntry entry = connections.get(user.getId());
-        if (entry == null) {
-            entry = new UserEntry();
-            entry.setUser(user);
-            connections.put(user.getId(), entry);
-        }
-        if (entry.getSessions().contains(session)) {
-            LOGGER.warn("session for user {} already exists!", user.getId());
-            return false;
-        }
+    protected boolean addConnection(SessionPrincipal user, Session session) {
         // store the user in session, we need it later while handling incoming messages
         session.getUserProperties().put("user", user);
-        entry.getSessions().add(session);
 
-        // send a notification to user's relatives about going online
-        // note that a user can be logged in multiple times, we send this notification only for the first login
-        if (entry.getSessions().size() == 1) {
-            sendNotificationToRelatives(user, true);
+        Transition[] transition = {Transition.NONE};
+        connections.compute(user.getUserId(), (id, entry) -> {
+            UserEntry userEntry = (entry != null) ? entry : new UserEntry(user);
+            if (userEntry.getSessions().add(session)) {
+                transition[0] = (userEntry.getSessions().size() == 1) ? Transition.FIRST_CONNECT : Transition.CHANGED;
+            }
+            return userEntry;
+        });
+
+        if (transition[0] == Transition.NONE) {
+            LOGGER.warn("session for user {} already exists!", user.getUserId());
+            return false;
+        }
+        RateLimiter.Limits limits = rateLimits;
+        RateLimiter rateLimiter = (limits != null) ? new RateLimiter(limits, System.nanoTime()) : null;
+        sessions.put(session.getId(), new OutboundQueue(session, outboundQueueSize, overflowPolicy, rateLimiter));
+        IdleSessionWheel wheel = idleSessions;
+        if (wheel != null) {
+            wheel.add(session);
+        }
+
+        // note that a user can be logged in multiple times, the presence is informed only on first login
+        if (transition[0] == Transition.FIRST_CONNECT) {
+            announceOnlineState(user);
         }
 
         return true;
@@ -183,33 +659,248 @@ public class ConnectedClients {
      * @param session   The session to remove
      * @return          Return true if successful.
      */
-    protected boolean removeConnection(UserEntity user, Session session) {
-        UserEntry entry = connections.get(user.getId());
-        if (entry == null) {
+    protected boolean removeConnection(SessionPrincipal user, Session session) {
+        if (user == null) {
             return false;
         }
-        if (!entry.getSessions().remove(session)) {
+
+        Transition[] transition = {Transition.NONE};
+        connections.computeIfPresent(user.getUserId(), (id, entry) -> {
+            if (!entry.getSessions().remove(session)) {
+                return entry;
+            }
+            // If there are no further connections then remove the user entry.
+            if (entry.getSessions().isEmpty()) {
+                transition[0] = Transition.LAST_DISCONNECT;
+                return null;
+            }
+            transition[0] = Transition.CHANGED;
+            return entry;
+        });
+
+        if (transition[0] == Transition.NONE) {
             return false;
         }
-        // If there are no further connections then remove the user entry.
-        // Send also a notification to user's relatives about going offline.
-        // Note that a user can be logged in multiple times, we send this notification only if the user is completely logged out.
-        if (entry.getSessions().isEmpty()) {
-            connections.remove(user.getId());
-            sendNotificationToRelatives(user, false);
+        OutboundQueue queue = sessions.get(session.getId());
+        if ((queue != null) && (queue.getSession() == session) && sessions.remove(session.getId(), queue)) {
+            queue.close();
+            subscriptions.remove(session.getId());
+            IdleSessionWheel wheel = idleSessions;
+            if (wheel != null) {
+                wheel.remove(session.getId());
+            }
+        }
+
+        // Note that a user can be logged in multiple times, the presence is informed only if the user is completely logged out.
+        if (transition[0] == Transition.LAST_DISCONNECT) {
+            announceOnlineState(user);
         }
 
         return true;
     }
 
     /**
-     * Send a notification to user's relatives and let them know about user going on/off.
-     * 
-     * @param user      The user
-     * @param online    Pass true for notifying about going online, otherwise offline
+     * Announce the online state of a user to the presence and the cluster router. The state is
+     * taken from the registry while holding the user's announce lock, and only a change against
+     * the last announced state is passed on. So concurrent connects and disconnects of a user
+     * cannot reach the presence or router out of order, the last announcement always matches
+     * the registry.
+     *
+     * @param user  The user
+     */
+    private void announceOnlineState(SessionPrincipal user) {
+        Long userId = user.getUserId();
+        synchronized (announceLocks[Long.hashCode(userId) & (ANNOUNCE_LOCKS - 1)]) {
+            boolean connected = connections.containsKey(userId);
+            if (connected && announcedUsers.add(userId)) {
+                presence.userConnected(user);
+                if (clusterRouter != null) {
+                    clusterRouter.localUserConnected(userId);
+                }
+            }
+            else if (!connected && announcedUsers.remove(userId)) {
+                presence.userDisconnected(user);
+                if (clusterRouter != null) {
+                    clusterRouter.localUserDisconnected(userId);
+                }
+            }
+        }
+    }
+
+    /**
+     * Get the collapse key of a packet. Packets with equal collapse keys carry a state
+     * where only the latest one is relevant for the client, so older ones can be
+     * dropped if the client cannot keep up.
+     *
+     * @param packet    The packet
+     * @return          Collapse key, or null if the packet cannot be collapsed
+     */
+    static String getCollapseKey(Packet<?> packet) {
+        if (!Packet.CHANNEL_NOTIFY.equals(packet.getChannel()) || !(packet.getData() instanceof Map)) {
+            return null;
+        }
+        Map<?, ?> data = (Map<?, ?>) packet.getData();
+        Object type = data.get("type");
+        if ("onlinestatus".equals(type)) {
+            return "onlinestatus/" + packet.getSourceId();
+        }
+        if ("modifyevent".equals(type) && (data.get("data") instanceof Map)) {
+            return "modifyevent/" + ((Map<?, ?>) data.get("data")).get("eventId");
+        }
+        return null;
+    }
+
+    /**
+     * Send a WebSocket ping frame carrying the current time, its pong is used for measuring the
+     * round trip time, see 'recordRoundTrip'.
+     */
+    private void sendPingFrame(Session session) {
+        ByteBuffer payload = ByteBuffer.allocate(Long.BYTES);
+        payload.putLong(0, System.nanoTime());
+        try {
+            session.getAsyncRemote().sendPing(payload);
+        }
+        catch (IOException | IllegalStateException | IllegalArgumentException ex) {
+            LOGGER.debug("could not send ping frame to session {}, reason: {}", session.getId(), ex.getLocalizedMessage());
+        }
+    }
+
+    /**
+     * Remove an idle session right away, so it gets no further packets and its user may go
+     * offline, then close it.
+     */
+    private void evictIdleSession(Session session) {
+        LOGGER.info("evicting idle WebSocket session {} of user {}", session.getId(), getUserId(session));
+        closeSession(session, new CloseReason(CloseReason.CloseCodes.GOING_AWAY, "Idle timeout"));
+    }
+
+    /**
+     * Send a packet to the local sessions of given users.
+     */
+    private void sendLocal(EncodedPacket encodedPacket, List<Long> recipientIds, String collapseKey) {
+        forEachQueue(recipientIds, (id, queue) -> {
+            if (!queue.enqueue(encodedPacket, collapseKey)) {
+                LOGGER.debug("could not send packet to user ({}), session {} is closed", id, queue.getSession().getId());
+            }
+        });
+    }
+
+    /**
+     * Send a notification to the local sessions of given users, it is batched if batching is enabled.
+     * Sessions which did not subscribe the notification are skipped, so the notification is not
+     * even encoded if no session wants it.
+     */
+    private void notifyLocal(EncodedPacket encodedPacket, List<Long> recipientIds, String collapseKey) {
+        NotificationBatcher batcher = notificationBatcher;
+        boolean filtered = !subscriptions.isEmpty();
+        Packet<?> packet = ((batcher != null) || filtered) ? encodedPacket.getPacket() : null;
+        if (packet == null) {
+            sendLocal(encodedPacket, recipientIds, collapseKey);
+            return;
+        }
+        String type = filtered ? Subscription.getNotificationType(packet) : null;
+        Long eventId = filtered ? Subscription.getNotificationEventId(packet) : null;
+
+        forEachQueue(recipientIds, (id, queue) -> {
+            if (filtered) {
+                Subscription subscription = subscriptions.get(queue.getSession().getId());
+                if ((subscription != null) && !subscription.accepts(type, eventId)) {
+                    countNotificationsFiltered.incrementAndGet();
+                    return;
+                }
+            }
+            if (batcher != null) {
+                batcher.add(queue, packet, encodedPacket, collapseKey);
+            }
+            else if (!queue.enqueue(encodedPacket, collapseKey)) {
+                LOGGER.debug("could not send notification to user ({}), session {} is closed", id, queue.getSession().getId());
+            }
+        });
+    }
+
+    /**
+     * Forward a packet to the recipients connected to other cluster nodes.
+     */
+    private void forwardToCluster(EncodedPacket encodedPacket, List<Long> recipientIds, String collapseKey, boolean notification) {
+        ClusterRouter router = clusterRouter;
+        if (router == null) {
+            return;
+        }
+        String text = encodedPacket.getText();
+        if (text != null) {
+            router.forward(text, recipientIds, collapseKey, notification);
+        }
+    }
+
+    /**
+     * Deliver a packet received from another cluster node to the local sessions.
+     */
+    private void deliverFromCluster(String payload, List<Long> recipientIds, String collapseKey, boolean notification) {
+        EncodedPacket encodedPacket = EncodedPacket.fromText(payload);
+        if (notification) {
+            notifyLocal(encodedPacket, recipientIds, collapseKey);
+        }
+        else {
+            sendLocal(encodedPacket, recipientIds, collapseKey);
+        }
+    }
+
+    /**
+     * Create the cluster message bus configured in app configuration.
+     *
+     * @param config    App configuration
+     * @return          The bus, or null if clustering is disabled
+     */
+    private ClusterMessageBus createClusterMessageBus(AppConfiguration config) {
+        String type = config.getConfigValue(AppConfiguration.TOKEN_CLUSTER_BUS);
+        String nodeAddress = config.getConfigValue(AppConfiguration.TOKEN_CLUSTER_NODE_ADDRESS);
+        String peers = config.getConfigValue(AppConfiguration.TOKEN_CLUSTER_PEER_ADDRESSES);
+        if ((type == null) || type.trim().isEmpty() || "none".equalsIgnoreCase(type.trim())) {
+            return null;
+        }
+        if ((nodeAddress == null) || nodeAddress.trim().isEmpty()) {
+            LOGGER.warn("no cluster node address configured, clustering is disabled");
+            return null;
+        }
+        if ("loopback".equalsIgnoreCase(type.trim())) {
+            return new LoopbackClusterMessageBus(LoopbackClusterMessageBus.Hub.DEFAULT, nodeAddress.trim());
+        }
+        if ("tcp".equalsIgnoreCase(type.trim())) {
+            List<String> peerAddresses = (peers != null) ? Arrays.asList(peers.split(",")) : Collections.emptyList();
+            return new TcpClusterMessageBus(nodeAddress.trim(), peerAddresses);
+        }
+        LOGGER.warn("unsupported cluster message bus type configured: {}, clustering is disabled", type);
+        return null;
+    }
+
+    /**
+     * Call the consumer for the outbound queue of every session of given users.
+     *
+     * @param userIds   User IDs
+     * @param consumer  Consumer getting the user ID and outbound queue
+     */
+    private void forEachQueue(List<Long> userIds, BiConsumer<Long, OutboundQueue> consumer) {
+        userIds.forEach(id -> {
+            UserEntry entry = connections.get(id);
+            if (entry != null) {
+                entry.getSessions().forEach(session -> {
+                    OutboundQueue queue = sessions.get(session.getId());
+                    if (queue != null) {
+                        consumer.accept(id, queue);
+                    }
+                });
+            }
+        });
+    }
+
+    /**
+     * Get the ID of user owning given session.
+     *
+     * @param session   WebSocket session
+     * @return          User ID, or null if the session has no user
      */
-    private void sendNotificationToRelatives(UserEntity user, boolean online) {
-        EventNotifications notifications = new EventNotifications(null, notifyUserRelativesEvent);
-        notifications.sendNotifyOnlineStatusChanged(user, online);
+    private Long getUserId(Session session) {
+        SessionPrincipal user = getUser(session);
+        return (user != null) ? user.getUserId() : null;
     }
 }
@@ -9,7 +9,7 @@ package net.m4e.app.communication;
 
 import java.io.IOException;
 import java.lang.invoke.MethodHandles;
-import java.util.Map;
+import java.nio.ByteBuffer;
 
 import javax.inject.Inject;
 import javax.json.bind.*;
@@ -18,8 +18,7 @@ import javax.servlet.http.HttpSession;
 import javax.websocket.*;
 import javax.websocket.server.ServerEndpoint;
 
-import net.m4e.app.auth.AuthorityConfig;
-import net.m4e.app.user.business.UserEntity;
+import net.m4e.app.auth.*;
 import net.m4e.system.core.AppConfiguration;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -30,7 +29,9 @@ import org.slf4j.LoggerFactory;
  * @author boto
  * Date of creation Oct 03, 2017
  */
-@ServerEndpoint(value = AppConfiguration.WEBSOCKET_URL, configurator = ConnectionConfigurator.class, decoders = Connection.PacketMapDecoder.class, encoders = Connection.JsonBEncoder.class)
+@ServerEndpoint(value = AppConfiguration.WEBSOCKET_URL, configurator = ConnectionConfigurator.class,
+        subprotocols = {BinaryProtocol.SUBPROTOCOL_BINARY, BinaryProtocol.SUBPROTOCOL_JSON},
+        decoders = PacketDecoder.class, encoders = Connection.JsonBEncoder.class)
 public class Connection {
 
     /**
@@ -44,10 +45,15 @@ public class Connection {
      */
     private static final Logger LOGGER = LoggerFactory.getLogger(MethodHandles.lookup().lookupClass());
 
+    /**
+     * Decoder for binary frames, it is stateless and can be shared.
+     */
+    private static final BinaryPacketDecoder BINARY_DECODER = new BinaryPacketDecoder();
+
     /**
      * User communicating by this connection.
      */
-    UserEntity user;
+    SessionPrincipal user;
 
     /**
      * Central place to hold all client connections
@@ -62,7 +68,7 @@ public class Connection {
     MessageDistribution msgHandler;
 
     @OnOpen
-    public void open(Session session, EndpointConfig config) throws IOException, EncodeException {
+    public void open(Session session, EndpointConfig config) throws IOException {
         LOGGER.trace("new client connected, id: {}", session.getId());
         HttpSession httpSession = (HttpSession) config.getUserProperties().get(ConnectionConfigurator.KEY_HTTP_SESSION);
         if (httpSession == null) {
@@ -72,7 +78,7 @@ public class Connection {
             session.close(reason);
             return;
         }
-        user = AuthorityConfig.getInstance().getSessionUser(httpSession);
+        user = AuthorityConfig.getInstance().getSessionPrincipal(httpSession);
         if (user == null) {
             // close the connection, user is not authorized
             LOGGER.debug("closing websocket connection, user was not authenticated before");
@@ -87,7 +93,7 @@ public class Connection {
         }
 
         Packet<WSConnectionStatus> response = createResponse("ok", "User " + user.getName() + " established a connection");
-        session.getBasicRemote().sendObject(response);
+        connections.sendPacket(response, user.getUserId(), session.getId());
     }
 
     /**
@@ -109,7 +115,8 @@ public class Connection {
     public void close(Session session) {
         LOGGER.trace("client connection closed, id: {}", session.getId());
         if (!connections.removeConnection(user, session)) {
-            LOGGER.warn("could not remove user's connection");
+            // an idle session is removed already when it gets evicted
+            LOGGER.debug("user's connection was already removed, session: {}", session.getId());
         }
     }
 
@@ -119,14 +126,38 @@ public class Connection {
     }
 
     @OnMessage
-    public void handleMessage(Packet<Map<String, Object>> packet, Session session) {
+    public void handleMessage(Packet<?> packet, Session session) {
         if (packet == null) {
             LOGGER.debug("invalid message format received from client, ignoring it");
             return;
         }
+        connections.touch(session);
         msgHandler.dispatchMessage(packet, session);
     }
 
+    /**
+     * Handle a pong frame, it answers a ping frame sent for measuring the round trip time.
+     *
+     * @param pong      Pong message
+     * @param session   WebSocket session
+     */
+    @OnMessage
+    public void handlePong(PongMessage pong, Session session) {
+        connections.touch(session);
+        connections.recordRoundTrip(session, pong.getApplicationData());
+    }
+
+    /**
+     * Handle a binary frame, it is sent by clients which negotiated the binary protocol.
+     * 
+     * @param frame     Binary frame
+     * @param session   WebSocket session
+     */
+    @OnMessage
+    public void handleBinaryMessage(ByteBuffer frame, Session session) {
+        handleMessage(BINARY_DECODER.decode(frame), session);
+    }
+
     /**
      * Used for transferring the web socket connection status to client.
      */
@@ -156,43 +187,30 @@ public class Connection {
         }
     }
 
-    /**
-     * Decoder for Text-Messages. Parses Json to Packet.
-     */
-    public static class PacketMapDecoder implements Decoder.Text<Packet<Map<String, Object>>> {
-
-        @Override
-        public Packet<Map<String, Object>> decode(final String string) {
-            try (Jsonb jsonb = JsonbBuilder.create()) {
-                return jsonb.fromJson(string, Packet.class);
-            } catch (Exception ex) {
-                LOGGER.debug("Could not read JSON string, reason: {}", ex.getMessage(), ex);
-            }
-            return null;
-        }
-
-        @Override
-        public boolean willDecode(final String s) {
-            return true;
-        }
-
-        @Override
-        public void init(final EndpointConfig config) {
-        }
-
-        @Override
-        public void destroy() {
-        }
-    }
-
     /**
      * Encodes the given Object as Json.
      */
     public static class JsonBEncoder implements Encoder.Text<Object> {
+
+        /**
+         * Jsonb instances are thread-safe and expensive to create, so all encoders share one.
+         */
+        private static final Jsonb JSONB = JsonbBuilder.create();
+
         @Override
         public String encode(final Object object) {
-            try (Jsonb jsonb = JsonbBuilder.create()) {
-                return jsonb.toJson(object);
+            return toJson(object);
+        }
+
+        /**
+         * Serialize given object to JSON.
+         *
+         * @param object    Object to serialize
+         * @return          JSON string, or null if the object could not be serialized
+         */
+        public static String toJson(final Object object) {
+            try {
+                return JSONB.toJson(object);
             } catch (Exception ex) {
                 LOGGER.debug("Could not create JSON string, reason: {}", ex.getMessage(), ex);
             }
@@ -7,13 +7,16 @@
  */
 package net.m4e.app.communication;
 
+import java.util.List;
+
 import javax.websocket.HandshakeResponse;
 import javax.websocket.server.HandshakeRequest;
 import javax.websocket.server.ServerEndpointConfig;
 
 /**
  * This configurator is used for making the HTTP session available to the WebSocket
- * endpoint Connection.
+ * endpoint Connection. It also negotiates the protocol used on the connection: JSON
+ * text frames or compact binary frames, see 'BinaryProtocol'.
  * 
  * @author boto
  * Date of creation Oct 3, 2017
@@ -36,4 +39,33 @@ public class ConnectionConfigurator extends ServerEndpointConfig.Configurator {
     public void modifyHandshake(ServerEndpointConfig endpointConfig, HandshakeRequest request, HandshakeResponse response) {
         endpointConfig.getUserProperties().put(KEY_HTTP_SESSION, request.getHttpSession());
     }
+
+    /**
+     * Select the first sub-protocol requested by client which is supported. If the client
+     * requests none of the supported protocols then no sub-protocol is selected and the
+     * connection uses JSON.
+     * 
+     * @param supported Sub-protocols supported by the endpoint
+     * @param requested Sub-protocols requested by the client in order of preference
+     * @return          The selected sub-protocol, or an empty string if none was selected
+     */
+    @Override
+    public String getNegotiatedSubprotocol(List<String> supported, List<String> requested) {
+        for (String protocol: requested) {
+            if (supported.contains(protocol)) {
+                return protocol;
+            }
+        }
+        return "";
+    }
+
+    /**
+     * Check if given session uses the binary protocol.
+     * 
+     * @param subprotocol   The negotiated sub-protocol of a WebSocket session
+     * @return              Return true if the binary protocol was negotiated.
+     */
+    public static boolean isBinaryProtocol(String subprotocol) {
+        return BinaryProtocol.SUBPROTOCOL_BINARY.equals(subprotocol);
+    }
 }
@@ -0,0 +1,200 @@
+/*
+ * Copyright (c) 2017-2019 by Botorabi. All rights reserved.
+ * https://github.com/botorabi/Meet4Eat
+ *
+ * License: MIT License (MIT), read the LICENSE text in
+ *          main directory for more details.
+ */
+package net.m4e.app.communication;
+
+import java.util.*;
+
+/**
+ * Statistics of all WebSocket connections for exporting to clients.
+ *
+ * @author boto
+ * Date of creation Oct 18, 2026
+ */
+public class ConnectionsInfo {
+
+    private int countUsers;
+    private int countSessions;
+    private List<SessionInfo> sessions = new ArrayList<>();
+    private long countNotifications;
+    private long countNotificationsCollapsed;
+    private long countNotificationFrames;
+    private String clusterNode;
+    private int countRemoteUsers;
+    private long countClusterForwarded;
+    private long countClusterReceived;
+    private List<DispatchLaneInfo> dispatchLanes = new ArrayList<>();
+    private long countPings;
+    private long countIdleProbed;
+    private int countSubscriptions;
+    private long countNotificationsFiltered;
+    private long countIdleEvicted;
+    private long countRateLimitDropped;
+    private long countRateLimitWarned;
+    private long countRateLimitDisconnected;
+
+    public ConnectionsInfo() {
+    }
+
+    public int getCountUsers() {
+        return countUsers;
+    }
+
+    public void setCountUsers(int countUsers) {
+        this.countUsers = countUsers;
+    }
+
+    public int getCountSessions() {
+        return countSessions;
+    }
+
+    public void setCountSessions(int countSessions) {
+        this.countSessions = countSessions;
+    }
+
+    public List<SessionInfo> getSessions() {
+        return sessions;
+    }
+
+    public void setSessions(List<SessionInfo> sessions) {
+        this.sessions = sessions;
+    }
+
+    public long getCountNotifications() {
+        return countNotifications;
+    }
+
+    public void setCountNotifications(long countNotifications) {
+        this.countNotifications = countNotifications;
+    }
+
+    public long getCountNotificationsCollapsed() {
+        return countNotificationsCollapsed;
+    }
+
+    public void setCountNotificationsCollapsed(long countNotificationsCollapsed) {
+        this.countNotificationsCollapsed = countNotificationsCollapsed;
+    }
+
+    public long getCountNotificationFrames() {
+        return countNotificationFrames;
+    }
+
+    public void setCountNotificationFrames(long countNotificationFrames) {
+        this.countNotificationFrames = countNotificationFrames;
+    }
+
+    public String getClusterNode() {
+        return clusterNode;
+    }
+
+    public void setClusterNode(String clusterNode) {
+        this.clusterNode = clusterNode;
+    }
+
+    public int getCountRemoteUsers() {
+        return countRemoteUsers;
+    }
+
+    public void setCountRemoteUsers(int countRemoteUsers) {
+        this.countRemoteUsers = countRemoteUsers;
+    }
+
+    public long getCountClusterForwarded() {
+        return countClusterForwarded;
+    }
+
+    public void setCountClusterForwarded(long countClusterForwarded) {
+        this.countClusterForwarded = countClusterForwarded;
+    }
+
+    public long getCountClusterReceived() {
+        return countClusterReceived;
+    }
+
+    public void setCountClusterReceived(long countClusterReceived) {
+        this.countClusterReceived = countClusterReceived;
+    }
+
+    public long getCountPings() {
+        return countPings;
+    }
+
+    public void setCountPings(long countPings) {
+        this.countPings = countPings;
+    }
+
+    /**
+     * Get the count of sessions with a notification subscription.
+     */
+    public int getCountSubscriptions() {
+        return countSubscriptions;
+    }
+
+    public void setCountSubscriptions(int countSubscriptions) {
+        this.countSubscriptions = countSubscriptions;
+    }
+
+    /**
+     * Get the count of notifications not sent to a session because it did not subscribe them.
+     */
+    public long getCountNotificationsFiltered() {
+        return countNotificationsFiltered;
+    }
+
+    public void setCountNotificationsFiltered(long countNotificationsFiltered) {
+        this.countNotificationsFiltered = countNotificationsFiltered;
+    }
+
+    public long getCountIdleProbed() {
+        return countIdleProbed;
+    }
+
+    public void setCountIdleProbed(long countIdleProbed) {
+        this.countIdleProbed = countIdleProbed;
+    }
+
+    public long getCountIdleEvicted() {
+        return countIdleEvicted;
+    }
+
+    public void setCountIdleEvicted(long countIdleEvicted) {
+        this.countIdleEvicted = countIdleEvicted;
+    }
+
+    public long getCountRateLimitDropped() {
+        return countRateLimitDropped;
+    }
+
+    public void setCountRateLimitDropped(long countRateLimitDropped) {
+        this.countRateLimitDropped = countRateLimitDropped;
+    }
+
+    public long getCountRateLimitWarned() {
+        return countRateLimitWarned;
+    }
+
+    public void setCountRateLimitWarned(long countRateLimitWarned) {
+        this.countRateLimitWarned = countRateLimitWarned;
+    }
+
+    public long getCountRateLimitDisconnected() {
+        return countRateLimitDisconnected;
+    }
+
+    public void setCountRateLimitDisconnected(long countRateLimitDisconnected) {
+        this.countRateLimitDisconnected = countRateLimitDisconnected;
+    }
+
+    public List<DispatchLaneInfo> getDispatchLanes() {
+        return dispatchLanes;
+    }
+
+    public void setDispatchLanes(List<DispatchLaneInfo> dispatchLanes) {
+        this.dispatchLanes = dispatchLanes;
+    }
+}
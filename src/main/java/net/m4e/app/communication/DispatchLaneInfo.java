@@ -0,0 +1,93 @@
+/*
+ * Copyright (c) 2017-2019 by Botorabi. All rights reserved.
+ * https://github.com/botorabi/Meet4Eat
+ *
+ * License: MIT License (MIT), read the LICENSE text in
+ *          main directory for more details.
+ */
+package net.m4e.app.communication;
+
+/**
+ * Statistics of a dispatch lane for exporting to clients.
+ *
+ * @author boto
+ * Date of creation Oct 18, 2026
+ */
+public class DispatchLaneInfo {
+
+    private String name;
+    private int partitions;
+    private int queueSize;
+    private int queueDepth;
+    private int maxQueueDepth;
+    private long countSubmitted;
+    private long countCompleted;
+    private long countRejected;
+
+    public DispatchLaneInfo() {
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public void setName(String name) {
+        this.name = name;
+    }
+
+    public int getPartitions() {
+        return partitions;
+    }
+
+    public void setPartitions(int partitions) {
+        this.partitions = partitions;
+    }
+
+    public int getQueueSize() {
+        return queueSize;
+    }
+
+    public void setQueueSize(int queueSize) {
+        this.queueSize = queueSize;
+    }
+
+    public int getQueueDepth() {
+        return queueDepth;
+    }
+
+    public void setQueueDepth(int queueDepth) {
+        this.queueDepth = queueDepth;
+    }
+
+    public int getMaxQueueDepth() {
+        return maxQueueDepth;
+    }
+
+    public void setMaxQueueDepth(int maxQueueDepth) {
+        this.maxQueueDepth = maxQueueDepth;
+    }
+
+    public long getCountSubmitted() {
+        return countSubmitted;
+    }
+
+    public void setCountSubmitted(long countSubmitted) {
+        this.countSubmitted = countSubmitted;
+    }
+
+    public long getCountCompleted() {
+        return countCompleted;
+    }
+
+    public void setCountCompleted(long countCompleted) {
+        this.countCompleted = countCompleted;
+    }
+
+    public long getCountRejected() {
+        return countRejected;
+    }
+
+    public void setCountRejected(long countRejected) {
+        this.countRejected = countRejected;
+    }
+}
@@ -0,0 +1,213 @@
+/*
+ * Copyright (c) 2017-2019 by Botorabi. All rights reserved.
+ * https://github.com/botorabi/Meet4Eat
+ *
+ * License: MIT License (MIT), read the LICENSE text in
+ *          main directory for more details.
+ */
+package net.m4e.app.communication;
+
+import java.io.StringReader;
+import java.util.*;
+
+import javax.json.*;
+
+import org.jetbrains.annotations.NotNull;
+
+/**
+ * A packet ready for sending to many WebSocket sessions. The packet is serialized
+ * only once per protocol on first use, all sessions then get the very same text
+ * or binary frame.
+ *
+ * An instance can also be created out of an already JSON encoded packet, e.g. one
+ * received from another cluster node. The packet is then only parsed if needed.
+ * A packet whose data is a list of packets can reuse the text frames of the list
+ * elements, see 'ofList'.
+ *
+ * NOTE: the packet must not be modified after creating this instance.
+ *
+ * @author boto
+ * Date of creation Oct 18, 2026
+ */
+public final class EncodedPacket {
+
+    /**
+     * Data of the envelope serialized for joining list elements, see 'joinElements'
+     */
+    private static final String DATA_PLACEHOLDER = "m4e-list-elements-" + UUID.randomUUID();
+
+    private static final String QUOTED_DATA_PLACEHOLDER = '"' + DATA_PLACEHOLDER + '"';
+
+    private volatile Packet<?> packet;
+
+    /**
+     * Encoded list elements, their text frames are joined into the text frame of this packet.
+     */
+    private final List<EncodedPacket> elements;
+
+    private volatile String text;
+
+    private volatile byte[] binary;
+
+    /**
+     * Create an encoded packet.
+     *
+     * @param packet The packet
+     */
+    public EncodedPacket(@NotNull Packet<?> packet) {
+        this.packet = packet;
+        this.elements = null;
+    }
+
+    private EncodedPacket(@NotNull String text) {
+        this.text = text;
+        this.elements = null;
+    }
+
+    private EncodedPacket(@NotNull Packet<?> packet, @NotNull String text) {
+        this.packet = packet;
+        this.text = text;
+        this.elements = null;
+    }
+
+    private EncodedPacket(@NotNull Packet<? extends List<?>> packet, @NotNull List<EncodedPacket> elements) {
+        this.packet = packet;
+        this.elements = elements;
+    }
+
+    /**
+     * Create an encoded packet whose JSON text frame was already created, e.g. out of a template.
+     *
+     * @param packet    The packet, it is used for creating the binary frame
+     * @param text      The JSON text frame of the packet
+     * @return          Encoded packet
+     */
+    public static EncodedPacket withText(@NotNull Packet<?> packet, @NotNull String text) {
+        return new EncodedPacket(packet, text);
+    }
+
+    /**
+     * Create an encoded packet whose data is a list of packets. Its JSON text frame is
+     * joined out of the text frames of the list elements, so the elements are serialized
+     * only once, no matter how many lists contain them.
+     *
+     * @param packet    The packet, its data must be the packets of the elements in same order
+     * @param elements  The encoded list elements
+     * @return          Encoded packet
+     */
+    public static EncodedPacket ofList(@NotNull Packet<? extends List<?>> packet, @NotNull List<EncodedPacket> elements) {
+        return new EncodedPacket(packet, elements);
+    }
+
+    /**
+     * Create an encoded packet out of a JSON encoded packet.
+     *
+     * @param text  The JSON text frame
+     * @return      Encoded packet
+     */
+    public static EncodedPacket fromText(@NotNull String text) {
+        return new EncodedPacket(text);
+    }
+
+    /**
+     * Get the packet. If the instance was created out of a JSON text then the packet
+     * is parsed on first call, its data is then a JSON value.
+     *
+     * @return Packet, or null if the JSON text is not a valid packet
+     */
+    public Packet<?> getPacket() {
+        Packet<?> result = packet;
+        if (result == null) {
+            synchronized (this) {
+                result = packet;
+                if (result == null) {
+                    result = parsePacket(text);
+                    packet = result;
+                }
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Get the packet serialized as JSON text frame. The serialization happens only
+     * on first call.
+     *
+     * @return The text frame, or null if the packet could not be serialized
+     */
+    public String getText() {
+        String result = text;
+        if (result == null) {
+            synchronized (this) {
+                result = text;
+                if (result == null) {
+                    result = (elements != null) ? joinElements() : Connection.JsonBEncoder.toJson(packet);
+                    text = result;
+                }
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Get the packet serialized as binary frame, see 'BinaryProtocol'. The serialization
+     * happens only on first call.
+     *
+     * NOTE: the returned array is shared, it must not be modified.
+     *
+     * @return The binary frame, or null if the packet could not be serialized
+     */
+    public byte[] getBinary() {
+        byte[] result = binary;
+        if (result == null) {
+            synchronized (this) {
+                result = binary;
+                if (result == null) {
+                    Packet<?> binaryPacket = getPacket();
+                    result = (binaryPacket != null) ? BinaryPacketEncoder.toBytes(binaryPacket) : null;
+                    binary = result;
+                }
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Create the JSON text frame out of the list elements. The envelope is serialized by
+     * JSON-B with a placeholder as data, which is then replaced by the element frames.
+     */
+    private String joinElements() {
+        Packet<String> envelope = new Packet<>(packet.getChannel(), packet.getSourceId(), packet.getSource(), DATA_PLACEHOLDER);
+        envelope.setTime(packet.getTime());
+        String json = Connection.JsonBEncoder.toJson(envelope);
+        int position = (json != null) ? json.indexOf(QUOTED_DATA_PLACEHOLDER) : -1;
+        if (position < 0) {
+            return null;
+        }
+        StringBuilder joined = new StringBuilder(json.length() + 64 * elements.size());
+        joined.append(json, 0, position).append('[');
+        for (int i = 0; i < elements.size(); i++) {
+            String element = elements.get(i).getText();
+            if (element == null) {
+                return null;
+            }
+            joined.append((i > 0) ? "," : "").append(element);
+        }
+        joined.append(']').append(json, position + QUOTED_DATA_PLACEHOLDER.length(), json.length());
+        return joined.toString();
+    }
+
+    private static Packet<?> parsePacket(String text) {
+        try (JsonReader reader = Json.createReader(new StringReader(text))) {
+            JsonObject object = reader.readObject();
+            Packet<JsonValue> packet = new Packet<>(object.getString("channel", ""), object.getString("sourceId", ""),
+                    object.getString("source", ""), object.get("data"));
+            JsonValue time = object.get("time");
+            packet.setTime((time instanceof JsonNumber) ? ((JsonNumber) time).longValue() : 0L);
+            return packet;
+        }
+        catch (JsonException | IllegalStateException | ClassCastException ex) {
+            return null;
+        }
+    }
+}
@@ -0,0 +1,88 @@
+/*
+ * Copyright (c) 2017-2019 by Botorabi. All rights reserved.
+ * https://github.com/botorabi/Meet4Eat
+ *
+ * License: MIT License (MIT), read the LICENSE text in
+ *          main directory for more details.
+ */
+package net.m4e.app.communication;
+
+/**
+ * Data of a packet in channel 'event'. The message is distributed to all
+ * members of the event given in 'data'.
+ *
+ * @author boto
+ * Date of creation Oct 18, 2026
+ */
+public class EventMessage {
+
+    private String type = "";
+    private String subject = "";
+    private String text = "";
+    private Data data;
+
+    /**
+     * Event message data
+     */
+    public static class Data {
+        private String eventId = "";
+        private long revision = 0L;
+
+        public Data() {
+        }
+
+        public String getEventId() {
+            return eventId;
+        }
+
+        public void setEventId(String eventId) {
+            this.eventId = eventId;
+        }
+
+        /**
+         * Get the last event revision known by the sender, it is used for resync requests.
+         */
+        public long getRevision() {
+            return revision;
+        }
+
+        public void setRevision(long revision) {
+            this.revision = revision;
+        }
+    }
+
+    public EventMessage() {
+    }
+
+    public String getType() {
+        return type;
+    }
+
+    public void setType(String type) {
+        this.type = type;
+    }
+
+    public String getSubject() {
+        return subject;
+    }
+
+    public void setSubject(String subject) {
+        this.subject = subject;
+    }
+
+    public String getText() {
+        return text;
+    }
+
+    public void setText(String text) {
+        this.text = text;
+    }
+
+    public Data getData() {
+        return data;
+    }
+
+    public void setData(Data data) {
+        this.data = data;
+    }
+}
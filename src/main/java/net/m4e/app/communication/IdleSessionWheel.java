@@ -0,0 +1,286 @@
+/*
+ * Copyright (c) 2017-2019 by Botorabi. All rights reserved.
+ * https://github.com/botorabi/Meet4Eat
+ *
+ * License: MIT License (MIT), read the LICENSE text in
+ *          main directory for more details.
+ */
+package net.m4e.app.communication;
+
+import java.lang.invoke.MethodHandles;
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.LongSupplier;
+
+import javax.websocket.Session;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Detects idle WebSocket sessions using a hashed timing wheel. Every incoming message
+ * refreshes the heartbeat of its session, which only stores the current time. The wheel
+ * advances one slot per tick and checks only the sessions in that slot:
+ *
+ *   - a session idle for half the timeout is probed, i.e. a WebSocket ping frame is sent,
+ *     its pong refreshes the heartbeat again
+ *   - a session idle for the full timeout is evicted
+ *   - any other session is put into the slot of its next deadline
+ *
+ * So there is neither a scheduled task per session nor any rescheduling on incoming
+ * messages. A deadline beyond one wheel revolution stays in its slot until it is due.
+ *
+ * @author boto
+ * Date of creation Oct 18, 2026
+ */
+public class IdleSessionWheel {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(MethodHandles.lookup().lookupClass());
+
+    /**
+     * Default idle timeout in milliseconds
+     */
+    public final static long DEFAULT_IDLE_TIMEOUT = 90000L;
+
+    /**
+     * Default tick duration in milliseconds
+     */
+    public final static long DEFAULT_TICK_DURATION = 1000L;
+
+    private final static int MAX_WHEEL_SIZE = 4096;
+
+    /**
+     * Handles the sessions found by the wheel.
+     */
+    public interface Listener {
+        /**
+         * Probe a session which has been idle for half the timeout.
+         *
+         * @param session   WebSocket session
+         */
+        void probe(Session session);
+
+        /**
+         * Evict a session which has been idle for the timeout.
+         *
+         * @param session   WebSocket session
+         */
+        void evict(Session session);
+    }
+
+    /**
+     * Heartbeat of a session
+     */
+    private static class Heartbeat {
+        private final Session session;
+        private volatile long lastSeen;
+        private volatile boolean probed = false;
+        private volatile boolean removed = false;
+        /**
+         * Tick when the heartbeat needs the next check
+         */
+        private long deadlineTick;
+
+        Heartbeat(Session session, long lastSeen) {
+            this.session = session;
+            this.lastSeen = lastSeen;
+        }
+    }
+
+    private final long idleTimeout;
+
+    private final long tickDuration;
+
+    private final Listener listener;
+
+    private final LongSupplier clock;
+
+    private final long startTime;
+
+    private final Queue<Heartbeat>[] slots;
+
+    private final int mask;
+
+    private final ConcurrentMap<String /*session ID*/, Heartbeat> heartbeats = new ConcurrentHashMap<>();
+
+    /**
+     * Last processed tick, it is advanced only by 'tick'
+     */
+    private volatile long currentTick = 0L;
+
+    private final AtomicLong countProbed = new AtomicLong();
+    private final AtomicLong countEvicted = new AtomicLong();
+
+    /**
+     * Get the current time of a monotonic clock in milliseconds. Unlike the wall-clock time it
+     * does not jump on clock corrections, which would otherwise evict all sessions at once.
+     *
+     * @return Time in milliseconds, it is only meaningful relative to other values of this clock
+     */
+    public static long monotonicClock() {
+        return TimeUnit.NANOSECONDS.toMillis(System.nanoTime());
+    }
+
+    /**
+     * Create a wheel.
+     *
+     * @param idleTimeout   Time in milliseconds without incoming messages after which a session is evicted
+     * @param tickDuration  Duration of a tick in milliseconds
+     * @param listener      Listener probing and evicting sessions
+     * @param clock         Provides the current time in milliseconds, it must be monotonic, see 'monotonicClock'
+     */
+    @SuppressWarnings("unchecked")
+    public IdleSessionWheel(long idleTimeout, long tickDuration, Listener listener, LongSupplier clock) {
+        this.idleTimeout = idleTimeout;
+        this.tickDuration = Math.max(1L, tickDuration);
+        this.listener = listener;
+        this.clock = clock;
+        this.startTime = clock.getAsLong();
+
+        // one revolution covers the timeout, so usually a heartbeat is checked only when it is due
+        long ticksPerTimeout = idleTimeout / this.tickDuration + 1;
+        int size = 1;
+        while ((size < ticksPerTimeout) && (size < MAX_WHEEL_SIZE)) {
+            size <<= 1;
+        }
+        slots = new Queue[size];
+        for (int i = 0; i < size; i++) {
+            slots[i] = new ConcurrentLinkedQueue<>();
+        }
+        mask = size - 1;
+    }
+
+    /**
+     * Start ticking on given scheduler.
+     *
+     * @param scheduler Scheduler
+     * @return          The scheduled tick task
+     */
+    public ScheduledFuture<?> start(ScheduledExecutorService scheduler) {
+        return scheduler.scheduleAtFixedRate(() -> {
+            try {
+                tick(clock.getAsLong());
+            }
+            catch (RuntimeException ex) {
+                LOGGER.warn("problem occurred while checking idle sessions, reason: {}", ex.getLocalizedMessage());
+            }
+        }, tickDuration, tickDuration, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Start tracking a session.
+     *
+     * @param session   WebSocket session
+     */
+    public void add(Session session) {
+        Heartbeat heartbeat = new Heartbeat(session, clock.getAsLong());
+        Heartbeat previous = heartbeats.put(session.getId(), heartbeat);
+        if (previous != null) {
+            previous.removed = true;
+        }
+        schedule(heartbeat, heartbeat.lastSeen + idleTimeout / 2);
+    }
+
+    /**
+     * Stop tracking a session.
+     *
+     * @param sessionId Session ID
+     */
+    public void remove(String sessionId) {
+        Heartbeat heartbeat = heartbeats.remove(sessionId);
+        if (heartbeat != null) {
+            // it is dropped from its slot when the wheel gets there
+            heartbeat.removed = true;
+        }
+    }
+
+    /**
+     * Refresh the heartbeat of a session.
+     *
+     * @param sessionId Session ID
+     */
+    public void touch(String sessionId) {
+        Heartbeat heartbeat = heartbeats.get(sessionId);
+        if (heartbeat != null) {
+            heartbeat.lastSeen = clock.getAsLong();
+            if (heartbeat.probed) {
+                heartbeat.probed = false;
+            }
+        }
+    }
+
+    /**
+     * Advance the wheel up to given time and handle all due heartbeats.
+     *
+     * @param now   Current time in milliseconds
+     */
+    void tick(long now) {
+        long targetTick = (now - startTime) / tickDuration;
+        while (currentTick < targetTick) {
+            long tick = currentTick + 1;
+            currentTick = tick;
+            Queue<Heartbeat> slot = slots[(int) (tick & mask)];
+            List<Heartbeat> entries = new ArrayList<>();
+            Heartbeat heartbeat;
+            while ((heartbeat = slot.poll()) != null) {
+                entries.add(heartbeat);
+            }
+            entries.forEach(entry -> check(entry, tick, now));
+        }
+    }
+
+    public int getSessionCount() {
+        return heartbeats.size();
+    }
+
+    public long getCountProbed() {
+        return countProbed.get();
+    }
+
+    public long getCountEvicted() {
+        return countEvicted.get();
+    }
+
+    private void check(Heartbeat heartbeat, long tick, long now) {
+        if (heartbeat.removed) {
+            return;
+        }
+        if (heartbeat.deadlineTick > tick) {
+            // not due before a further revolution
+            slots[(int) (heartbeat.deadlineTick & mask)].add(heartbeat);
+            return;
+        }
+        long idle = now - heartbeat.lastSeen;
+        if (idle >= idleTimeout) {
+            remove(heartbeat.session.getId(), heartbeat);
+            countEvicted.incrementAndGet();
+            listener.evict(heartbeat.session);
+        }
+        else if ((idle >= idleTimeout / 2) && !heartbeat.probed) {
+            heartbeat.probed = true;
+            countProbed.incrementAndGet();
+            listener.probe(heartbeat.session);
+            schedule(heartbeat, heartbeat.lastSeen + idleTimeout);
+        }
+        else {
+            long deadline = heartbeat.probed ? (heartbeat.lastSeen + idleTimeout) : (heartbeat.lastSeen + idleTimeout / 2);
+            schedule(heartbeat, deadline);
+        }
+    }
+
+    private void remove(String sessionId, Heartbeat heartbeat) {
+        heartbeat.removed = true;
+        heartbeats.remove(sessionId, heartbeat);
+    }
+
+    /**
+     * Put a heartbeat into the slot of given deadline. If the tick of the deadline has been
+     * passed meanwhile then the heartbeat is checked on the next tick.
+     */
+    private void schedule(Heartbeat heartbeat, long deadline) {
+        long tick = Math.max(currentTick + 1, (deadline - startTime + tickDuration - 1) / tickDuration);
+        heartbeat.deadlineTick = tick;
+        slots[(int) (tick & mask)].add(heartbeat);
+    }
+}
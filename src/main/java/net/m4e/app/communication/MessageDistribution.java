@@ -8,15 +8,21 @@
 package net.m4e.app.communication;
 
 import java.lang.invoke.MethodHandles;
-import java.util.Map;
+import java.util.*;
+import java.util.concurrent.RejectedExecutionException;
 
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
 import javax.enterprise.context.ApplicationScoped;
 import javax.enterprise.event.Event;
+import javax.enterprise.event.NotificationOptions;
 import javax.enterprise.event.ObservesAsync;
 import javax.inject.Inject;
+import javax.websocket.CloseReason;
 import javax.websocket.Session;
 
-import net.m4e.app.user.business.UserEntity;
+import net.m4e.app.auth.SessionPrincipal;
+import net.m4e.system.core.AppConfiguration;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -24,6 +30,15 @@ import org.slf4j.LoggerFactory;
  * All incoming messages are dispatched and distributed via proper events.
  * The actual handling of messages is up to event listener.
  * 
+ * Every channel has its own dispatch lane, see 'PartitionedExecutor'. The events of a channel
+ * are delivered to the listeners on the lane's partition of the sender, so the messages of
+ * a user are handled in the order they arrived. If a lane is congested then the message is
+ * dropped.
+ * 
+ * Before dispatching, every message has to pass the rate limit of its session and channel,
+ * see 'RateLimiter'. A flooding client gets its messages dropped, then it is warned and
+ * finally disconnected.
+ * 
  * @author boto
  * Date of creation Oct 7, 2017
  */
@@ -56,26 +71,137 @@ public class MessageDistribution {
     @Inject
     ConnectedClients connections;
 
+    @Inject
+    Presence presence;
+
+    /**
+     * Wait time in milliseconds for pending messages on shutdown
+     */
+    private final static long SHUTDOWN_TIMEOUT = 5000L;
+
+    /**
+     * Dispatch lanes by channel name. If a channel has no lane then its events are fired
+     * on the container's default executor.
+     */
+    private final Map<String, PartitionedExecutor> lanes = new LinkedHashMap<>();
+
     /**
      * Construct the resource.
      */
     public MessageDistribution() {}
 
     /**
-     * Handle incoming message.
+     * Create the dispatch lanes.
+     */
+    @PostConstruct
+    public void messageDistributionInit() {
+        AppConfiguration config = AppConfiguration.getInstance();
+        int partitions = (int) config.getConfigNumber(AppConfiguration.TOKEN_WS_DISPATCH_PARTITIONS,
+                Runtime.getRuntime().availableProcessors());
+        int queueSize = (int) config.getConfigNumber(AppConfiguration.TOKEN_WS_DISPATCH_QUEUE_SIZE,
+                PartitionedExecutor.DEFAULT_QUEUE_SIZE);
+        String threadType = config.getConfigValue(AppConfiguration.TOKEN_WS_DISPATCH_THREADS);
+
+        for (String channel: Arrays.asList(Packet.CHANNEL_CHAT, Packet.CHANNEL_EVENT, Packet.CHANNEL_SYSTEM)) {
+            setDispatchLane(channel, new PartitionedExecutor(channel, partitions, queueSize,
+                    PartitionedExecutor.createThreadFactory(threadType, "m4e-dispatch-" + channel + "-")));
+        }
+        LOGGER.info("WebSocket dispatch partitions: {}, queue size: {}, threads: {}", partitions, queueSize,
+                (threadType != null) ? threadType : PartitionedExecutor.THREADS_PLATFORM);
+    }
+
+    /**
+     * Let the dispatch lanes complete their pending messages.
+     */
+    @PreDestroy
+    public void messageDistributionShutdown() {
+        lanes.values().forEach(lane -> lane.shutdown(SHUTDOWN_TIMEOUT));
+    }
+
+    /**
+     * Set the dispatch lane of a channel.
+     *
+     * @param channel   Channel name
+     * @param lane      Executor used for dispatching the channel's messages
+     */
+    public void setDispatchLane(String channel, PartitionedExecutor lane) {
+        lanes.put(channel, lane);
+    }
+
+    /**
+     * Export the statistics of all dispatch lanes.
+     *
+     * @return Lane statistics
+     */
+    public List<DispatchLaneInfo> exportDispatchInfo() {
+        List<DispatchLaneInfo> info = new ArrayList<>();
+        lanes.values().forEach(lane -> info.add(lane.exportInfo()));
+        return info;
+    }
+
+    /**
+     * Handle incoming message. The packet data type depends on the channel, see 'PacketDecoder'.
+     * Pings are answered right away, they need no dispatching.
      * 
      * @param packet        Incoming network packet
      * @param session       WebSocket session the message was arrived
      */
-    protected void dispatchMessage(Packet<Map<String,Object>> packet, Session session) {
-        if (packet.getChannel().equals(Packet.CHANNEL_CHAT)) {
-            distributeToChannelChat(packet, session);
+    @SuppressWarnings("unchecked")
+    protected void dispatchMessage(Packet<?> packet, Session session) {
+        if (!checkRateLimit(packet.getChannel(), session)) {
+            return;
+        }
+        if (PingResponder.isPing(packet) && connections.respondToPing(session, packet.getTime())) {
+            return;
+        }
+        if (Packet.CHANNEL_CHAT.equals(packet.getChannel())) {
+            distributeToChannelChat((Packet<ChatMessage>) packet, session);
+        }
+        else if (Packet.CHANNEL_EVENT.equals(packet.getChannel())) {
+            distributeToChannelEvent((Packet<EventMessage>) packet, session);
+        }
+        else if (Packet.CHANNEL_SYSTEM.equals(packet.getChannel())) {
+            distributeToChannelSystem((Packet<SystemCommand>) packet, session);
+        }
+    }
+
+    /**
+     * Check the rate limit of the session and escalate if it was exceeded.
+     *
+     * @param channel   Channel of the incoming message
+     * @param session   WebSocket session the message was arrived
+     * @return          Return true if the message can be dispatched.
+     */
+    private boolean checkRateLimit(String channel, Session session) {
+        RateLimiter.Outcome outcome = connections.checkRateLimit(session, channel);
+        if (outcome == RateLimiter.Outcome.ALLOW) {
+            return true;
         }
-        else if (packet.getChannel().equals(Packet.CHANNEL_EVENT)) {
-            distributeToChannelEvent(packet, session);
+        SessionPrincipal user = connections.getUser(session);
+        if (user == null) {
+            // the session was closed or evicted meanwhile
+            return false;
         }
-        else if (packet.getChannel().equals(Packet.CHANNEL_SYSTEM)) {
-            distributeToChannelSystem(packet, session);
+        switch (outcome) {
+            case WARN: {
+                LOGGER.info("user {} exceeds the rate limit of channel '{}', warning the client", user.getUserId(), channel);
+                Packet<RateLimitWarning> warning = new Packet<>();
+                warning.setChannel(Packet.CHANNEL_SYSTEM);
+                warning.setData(new RateLimitWarning(SystemCommand.CMD_RATE_LIMIT, channel));
+                connections.sendPacket(warning, user.getUserId(), session.getId());
+                return false;
+            }
+
+            case DISCONNECT: {
+                LOGGER.warn("user {} keeps exceeding the rate limit of channel '{}', closing session {}",
+                        user.getUserId(), channel, session.getId());
+                connections.closeSession(session, new CloseReason(CloseReason.CloseCodes.VIOLATED_POLICY, "Rate limit exceeded"));
+                return false;
+            }
+
+            case DROP:
+            default:
+                return false;
         }
     }
 
@@ -85,9 +211,9 @@ public class MessageDistribution {
      * @param packet    Incoming chat packet
      * @param session   WebSocket session receiving the packet
      */
-    private void distributeToChannelChat(Packet<Map<String,Object>> packet, Session session) {
-        ChannelChatEvent event = new ChannelChatEvent();
-        channelChatEvent.fireAsync(distributeToChannel(event, packet, session));
+    private void distributeToChannelChat(Packet<ChatMessage> packet, Session session) {
+        ChannelChatEvent event = distributeToChannel(new ChannelChatEvent(), packet, session);
+        fireOnLane(channelChatEvent, event, packet.getChannel());
     }
 
     /**
@@ -96,9 +222,9 @@ public class MessageDistribution {
      * @param packet    Incoming event packet
      * @param session   WebSocket session receiving the packet
      */
-    private void distributeToChannelEvent(Packet<Map<String,Object>> packet, Session session) {
-        ChannelEventEvent event = new ChannelEventEvent();
-        channelEventEvent.fireAsync(distributeToChannel(event, packet, session));
+    private void distributeToChannelEvent(Packet<EventMessage> packet, Session session) {
+        ChannelEventEvent event = distributeToChannel(new ChannelEventEvent(), packet, session);
+        fireOnLane(channelEventEvent, event, packet.getChannel());
     }
 
     /**
@@ -107,14 +233,35 @@ public class MessageDistribution {
      * @param packet    Incoming event packet
      * @param session   WebSocket session receiving the packet
      */
-    private void distributeToChannelSystem(Packet<Map<String, Object>> packet, Session session) {
-        ChannelEventSystem event = new ChannelEventSystem();
-        channelEventSystem.fireAsync(distributeToChannel(event, packet, session));
+    private void distributeToChannelSystem(Packet<SystemCommand> packet, Session session) {
+        ChannelEventSystem event = distributeToChannel(new ChannelEventSystem(), packet, session);
+        fireOnLane(channelEventSystem, event, packet.getChannel());
+    }
+
+    /**
+     * Fire an asynchronous event on the sender's partition of the channel lane.
+     *
+     * @param firer     Event firer
+     * @param event     The event
+     * @param channel   Channel name
+     */
+    private <T extends ChannelEvent<?>> void fireOnLane(Event<T> firer, T event, String channel) {
+        PartitionedExecutor lane = lanes.get(channel);
+        if (lane == null) {
+            firer.fireAsync(event);
+            return;
+        }
+        try {
+            firer.fireAsync(event, NotificationOptions.ofExecutor(lane.forKey(event.getSenderId())));
+        }
+        catch (RejectedExecutionException ex) {
+            LOGGER.debug("dispatch lane '{}' is congested, dropping message of user {}", channel, event.getSenderId());
+        }
     }
 
-    private <T extends ChannelEvent<Map<String, Object>>> T distributeToChannel(T event, Packet<Map<String, Object>> packet, Session session) {
-        UserEntity user = connections.getUser(session);
-        event.setSenderId(user.getId());
+    private <D, T extends ChannelEvent<D>> T distributeToChannel(T event, Packet<D> packet, Session session) {
+        SessionPrincipal user = connections.getUser(session);
+        event.setSenderId(user.getUserId());
         event.setPacket(packet);
         event.setSessionId(session.getId());
         return event;
@@ -127,27 +274,43 @@ public class MessageDistribution {
      */
     public void dispatchMessage(@ObservesAsync ChannelEventSystem event) {
         Long senderid = event.getSenderId();
-        UserEntity user = connections.getConnectedUser(senderid);
+        SessionPrincipal user = connections.getConnectedUser(senderid);
         if (user == null) {
             LOGGER.warn("invalid sender id detected: " + senderid);
             return;
         }
 
-        Packet<Map<String, Object>> packet = event.getPacket();
-        Map<String, Object> data = packet.getData();
-        if (data == null) {
+        Packet<SystemCommand> packet = event.getPacket();
+        SystemCommand command = packet.getData();
+        if (command == null) {
             LOGGER.warn("invalid system command received from user: " + senderid);
             return;
         }
 
-        //! NOTE currently we support only the ping command.
-        String cmd = (String) data.getOrDefault("cmd", "");
-        if ("ping".equals(cmd)) {
-            Packet<PingResponse> response = new Packet<>();
-            response.setChannel(Packet.CHANNEL_EVENT);
-            response.setData(new PingResponse("ping", packet.getTime()));
+        String cmd = command.getCmd();
+        if (SystemCommand.CMD_PING.equals(cmd)) {
+            // pings are usually answered by 'dispatchMessage' already, see 'ConnectedClients.respondToPing'
+            Packet<PingResponse> response = PingResponder.createPacket(packet.getTime(), System.currentTimeMillis());
             connections.sendPacket(response, senderid, event.getSessionId());
         }
+        else if (SystemCommand.CMD_PRESENCE.equals(cmd)) {
+            Packet<PresenceInfo> response = new Packet<>();
+            response.setChannel(Packet.CHANNEL_SYSTEM);
+            response.setData(presence.getPresence(senderid, command.getSince()));
+            connections.sendPacket(response, senderid, event.getSessionId());
+        }
+        else if (SystemCommand.CMD_SUBSCRIBE.equals(cmd)) {
+            Subscription subscription = Subscription.of(command.getEventIds(), command.getTypes());
+            if (connections.subscribe(senderid, event.getSessionId(), subscription)) {
+                Packet<SubscriptionInfo> response = new Packet<>();
+                response.setChannel(Packet.CHANNEL_SYSTEM);
+                response.setData(SubscriptionInfo.fromSubscription(subscription));
+                connections.sendPacket(response, senderid, event.getSessionId());
+            }
+        }
+        else if (SystemCommand.CMD_CHAT_HISTORY.equals(cmd)) {
+            // handled by 'ChatSystem'
+        }
         else {
             LOGGER.warn("unsupported system command '" + cmd + "' received from user: " + senderid);
         }
@@ -170,4 +333,22 @@ public class MessageDistribution {
             return pong;
         }
     }
+
+    public static class RateLimitWarning {
+        private final String cmd;
+        private final String channel;
+
+        public RateLimitWarning(final String cmd, final String channel) {
+            this.cmd = cmd;
+            this.channel = channel;
+        }
+
+        public String getCmd() {
+            return cmd;
+        }
+
+        public String getChannel() {
+            return channel;
+        }
+    }
 }
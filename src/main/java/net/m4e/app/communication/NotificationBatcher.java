@@ -0,0 +1,234 @@
+/*
+ * Copyright (c) 2017-2019 by Botorabi. All rights reserved.
+ * https://github.com/botorabi/Meet4Eat
+ *
+ * License: MIT License (MIT), read the LICENSE text in
+ *          main directory for more details.
+ */
+package net.m4e.app.communication;
+
+import java.lang.invoke.MethodHandles;
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Gathers notifications per WebSocket session over a short time window and sends
+ * them as one packet. A burst of notifications (e.g. editing an event, uploading its
+ * photo and changing its locations) then results in a single frame per session.
+ *
+ * A batch is sent when the window has elapsed since its first notification, or when
+ * it reached the maximal size. A notification with a collapse key replaces an older
+ * one with the same key in the batch. If a batch contains only one notification then
+ * it is sent as it is, otherwise a notify packet with the list of notification packets
+ * as data is sent:
+ *
+ *   {"channel":"notify", "data":[{"channel":"notify", "sourceId":"1", ..., "data":{...}}, ...]}
+ *
+ * The text frame of such a packet is joined out of the already encoded notifications.
+ * Sessions which get the same notifications in the same order, e.g. all members of an
+ * event receiving a burst of its changes, share the encoded packet of their batch.
+ *
+ * @author boto
+ * Date of creation Oct 18, 2026
+ */
+public class NotificationBatcher {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(MethodHandles.lookup().lookupClass());
+
+    /**
+     * Default batch window in milliseconds
+     */
+    public final static long DEFAULT_WINDOW = 30L;
+
+    /**
+     * Default maximal count of notifications in a batch
+     */
+    public final static int DEFAULT_MAX_SIZE = 32;
+
+    /**
+     * Maximal count of recently sent batch packets kept for sharing them with further sessions
+     */
+    private final static int MAX_SHARED_BATCHES = 256;
+
+    /**
+     * A notification in batch
+     */
+    private static class Entry {
+        private final Packet<?> packet;
+        private final EncodedPacket message;
+        private final String collapseKey;
+
+        Entry(Packet<?> packet, EncodedPacket message, String collapseKey) {
+            this.packet = packet;
+            this.message = message;
+            this.collapseKey = collapseKey;
+        }
+    }
+
+    /**
+     * Pending notifications of a session. A batch is modified only within the compute
+     * operations of the batches map, so it needs no further locking.
+     */
+    private static class Batch {
+        private final List<Entry> entries = new ArrayList<>();
+    }
+
+    private final ScheduledExecutorService scheduler;
+
+    private final long window;
+
+    private final int maxSize;
+
+    /**
+     * Pending batches by their session outbound queue
+     */
+    private final ConcurrentMap<OutboundQueue, Batch> batches = new ConcurrentHashMap<>();
+
+    /**
+     * Recently sent batch packets by their encoded notifications. The notifications are compared
+     * by identity, so only batches made of the very same notifications share their packet.
+     */
+    private final Map<List<EncodedPacket>, EncodedPacket> sharedBatches = new LinkedHashMap<List<EncodedPacket>, EncodedPacket>(16, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<List<EncodedPacket>, EncodedPacket> eldest) {
+            return size() > MAX_SHARED_BATCHES;
+        }
+    };
+
+    private final AtomicLong countNotifications = new AtomicLong();
+    private final AtomicLong countCollapsed = new AtomicLong();
+    private final AtomicLong countFrames = new AtomicLong();
+
+    /**
+     * Create a batcher.
+     *
+     * @param scheduler     Scheduler used for sending a batch when its window has elapsed
+     * @param window        Batch window in milliseconds
+     * @param maxSize       Maximal count of notifications in a batch
+     */
+    public NotificationBatcher(ScheduledExecutorService scheduler, long window, int maxSize) {
+        this.scheduler = scheduler;
+        this.window = window;
+        this.maxSize = Math.max(1, maxSize);
+    }
+
+    /**
+     * Add a notification to the batch of given session.
+     *
+     * @param queue         Outbound queue of the session
+     * @param packet        Notification packet, it must not be modified afterwards
+     * @param message       The encoded notification packet, it can be shared by many sessions
+     * @param collapseKey   Notifications with equal collapse keys supersede each other, may be null
+     */
+    public void add(OutboundQueue queue, Packet<?> packet, EncodedPacket message, String collapseKey) {
+        countNotifications.incrementAndGet();
+        Entry entry = new Entry(packet, message, collapseKey);
+        boolean[] newBatch = {false};
+        Batch[] fullBatch = {null};
+
+        Batch batch = batches.compute(queue, (key, current) -> {
+            Batch pending = current;
+            if (pending == null) {
+                pending = new Batch();
+                newBatch[0] = true;
+            }
+            else if ((collapseKey != null) && pending.entries.removeIf(e -> collapseKey.equals(e.collapseKey))) {
+                countCollapsed.incrementAndGet();
+            }
+            pending.entries.add(entry);
+            if (pending.entries.size() >= maxSize) {
+                fullBatch[0] = pending;
+                return null;
+            }
+            return pending;
+        });
+
+        if (fullBatch[0] != null) {
+            send(queue, fullBatch[0]);
+        }
+        else if (newBatch[0]) {
+            scheduleFlush(queue, batch);
+        }
+    }
+
+    /**
+     * Send the pending notifications of all sessions immediately.
+     */
+    public void flushAll() {
+        new ArrayList<>(batches.keySet()).forEach(queue -> {
+            Batch batch = batches.remove(queue);
+            if (batch != null) {
+                send(queue, batch);
+            }
+        });
+    }
+
+    /**
+     * Get the count of notifications passed to the batcher.
+     */
+    public long getCountNotifications() {
+        return countNotifications.get();
+    }
+
+    /**
+     * Get the count of notifications dropped because a newer one with the same collapse key arrived.
+     */
+    public long getCountCollapsed() {
+        return countCollapsed.get();
+    }
+
+    /**
+     * Get the count of frames sent out.
+     */
+    public long getCountFrames() {
+        return countFrames.get();
+    }
+
+    private void scheduleFlush(OutboundQueue queue, Batch batch) {
+        try {
+            scheduler.schedule(() -> {
+                // the batch may have been sent meanwhile because it got full
+                if (batches.remove(queue, batch)) {
+                    send(queue, batch);
+                }
+            }, window, TimeUnit.MILLISECONDS);
+        }
+        catch (RejectedExecutionException ex) {
+            LOGGER.debug("could not schedule notification batch, sending it now, reason: {}", ex.getLocalizedMessage());
+            if (batches.remove(queue, batch)) {
+                send(queue, batch);
+            }
+        }
+    }
+
+    private void send(OutboundQueue queue, Batch batch) {
+        countFrames.incrementAndGet();
+        if (batch.entries.size() == 1) {
+            Entry entry = batch.entries.get(0);
+            queue.enqueue(entry.message, entry.collapseKey);
+            return;
+        }
+        List<EncodedPacket> messages = new ArrayList<>(batch.entries.size());
+        batch.entries.forEach(entry -> messages.add(entry.message));
+        EncodedPacket message;
+        synchronized (sharedBatches) {
+            message = sharedBatches.computeIfAbsent(messages, key -> createBatchPacket(batch));
+        }
+        queue.enqueue(message, null);
+    }
+
+    private EncodedPacket createBatchPacket(Batch batch) {
+        List<Packet<?>> notifications = new ArrayList<>(batch.entries.size());
+        List<EncodedPacket> messages = new ArrayList<>(batch.entries.size());
+        batch.entries.forEach(entry -> {
+            notifications.add(entry.packet);
+            messages.add(entry.message);
+        });
+        Packet<List<Packet<?>>> packet = new Packet<>(Packet.CHANNEL_NOTIFY, "", "", notifications);
+        return EncodedPacket.ofList(packet, messages);
+    }
+}
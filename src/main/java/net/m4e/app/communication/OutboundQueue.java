@@ -0,0 +1,485 @@
+/*
+ * Copyright (c) 2017-2019 by Botorabi. All rights reserved.
+ * https://github.com/botorabi/Meet4Eat
+ *
+ * License: MIT License (MIT), read the LICENSE text in
+ *          main directory for more details.
+ */
+package net.m4e.app.communication;
+
+import java.io.IOException;
+import java.lang.invoke.MethodHandles;
+import java.nio.ByteBuffer;
+import java.util.*;
+import java.util.concurrent.TimeUnit;
+
+import javax.websocket.CloseReason;
+import javax.websocket.SendResult;
+import javax.websocket.Session;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Bounded queue of outgoing messages for one WebSocket session. Messages are
+ * sent asynchronously one after another, so a slow client never blocks the
+ * thread which is sending out a packet to many recipients.
+ *
+ * If the queue is full then the configured overflow policy decides what happens.
+ *
+ * The queue also holds the round trip times of the session, they are measured with
+ * WebSocket ping frames, and the rate limiter of its incoming messages.
+ *
+ * @author boto
+ * Date of creation Oct 18, 2026
+ */
+public class OutboundQueue {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(MethodHandles.lookup().lookupClass());
+
+    /**
+     * Default count of messages which can be queued for a session.
+     */
+    public final static int DEFAULT_CAPACITY = 64;
+
+    /**
+     * Minimal time in nanoseconds between two round trip measurements
+     */
+    private final static long ROUND_TRIP_PROBE_INTERVAL = TimeUnit.SECONDS.toNanos(5);
+
+    /**
+     * Policy applied when a message is enqueued into a full queue.
+     */
+    public enum OverflowPolicy {
+        /**
+         * Drop the oldest message in queue.
+         */
+        DROP_OLDEST,
+        /**
+         * Replace a queued message with the same collapse key, if there is
+         * no such message then drop the oldest message.
+         */
+        COLLAPSE,
+        /**
+         * Close the session of the slow client.
+         */
+        DISCONNECT;
+
+        /**
+         * Given a policy name return the policy. If the name is invalid then
+         * the given default is returned.
+         *
+         * @param name          Policy name, case insensitive
+         * @param defaultPolicy Policy to return if the name is not valid
+         * @return              The policy
+         */
+        public static OverflowPolicy fromString(String name, OverflowPolicy defaultPolicy) {
+            if (name != null) {
+                for (OverflowPolicy policy: values()) {
+                    if (policy.name().equalsIgnoreCase(name.trim())) {
+                        return policy;
+                    }
+                }
+            }
+            return defaultPolicy;
+        }
+    }
+
+    /**
+     * A queued message
+     */
+    private static class Entry {
+        private final EncodedPacket message;
+        private final String collapseKey;
+        private final long timeEnqueued;
+        /**
+         * Guarded by the queue's lock
+         */
+        private boolean dispatching = false;
+        private boolean completed = false;
+
+        Entry(EncodedPacket message, String collapseKey) {
+            this.message = message;
+            this.collapseKey = collapseKey;
+            this.timeEnqueued = System.nanoTime();
+        }
+    }
+
+    private final Session session;
+
+    private final int capacity;
+
+    private final OverflowPolicy overflowPolicy;
+
+    /**
+     * Does the session use the binary protocol?
+     */
+    private final boolean binary;
+
+    /**
+     * Rate limiter of incoming messages, may be null
+     */
+    private final RateLimiter rateLimiter;
+
+    /**
+     * Queued messages, guarded by 'this'
+     */
+    private final Deque<Entry> queue = new ArrayDeque<>();
+
+    /**
+     * Is there a message currently in flight? Guarded by 'this'
+     */
+    private boolean sending = false;
+
+    /**
+     * Once closed no further messages are accepted. Guarded by 'this'
+     */
+    private boolean closed = false;
+
+    private long countSent = 0L;
+    private long countDropped = 0L;
+    private long countFailed = 0L;
+    private long lastLatency = 0L;
+    private long maxLatency = 0L;
+    private long totalLatency = 0L;
+
+    private boolean probed = false;
+    private long lastProbe = 0L;
+    private long countRoundTrips = 0L;
+    private long lastRoundTrip = 0L;
+    private long maxRoundTrip = 0L;
+    private long totalRoundTrip = 0L;
+
+    /**
+     * Create a queue for given session.
+     *
+     * @param session           WebSocket session
+     * @param capacity          Maximal count of queued messages
+     * @param overflowPolicy    Policy used when the queue is full
+     */
+    public OutboundQueue(Session session, int capacity, OverflowPolicy overflowPolicy) {
+        this(session, capacity, overflowPolicy, null);
+    }
+
+    /**
+     * Create a queue for given session.
+     *
+     * @param session           WebSocket session
+     * @param capacity          Maximal count of queued messages
+     * @param overflowPolicy    Policy used when the queue is full
+     * @param rateLimiter       Rate limiter of the session's incoming messages, pass null for no limit
+     */
+    public OutboundQueue(Session session, int capacity, OverflowPolicy overflowPolicy, RateLimiter rateLimiter) {
+        this.session = session;
+        this.capacity = Math.max(1, capacity);
+        this.overflowPolicy = overflowPolicy;
+        this.binary = ConnectionConfigurator.isBinaryProtocol(session.getNegotiatedSubprotocol());
+        this.rateLimiter = rateLimiter;
+    }
+
+    /**
+     * Get the WebSocket session.
+     *
+     * @return Session
+     */
+    public Session getSession() {
+        return session;
+    }
+
+    /**
+     * Get the rate limiter of the session's incoming messages.
+     *
+     * @return Rate limiter, or null if the messages are not limited
+     */
+    public RateLimiter getRateLimiter() {
+        return rateLimiter;
+    }
+
+    /**
+     * Enqueue a message for sending.
+     *
+     * @param message       Message to send, the same instance can be enqueued to many sessions
+     * @param collapseKey   Messages with equal collapse keys supersede each other. Pass null if the
+     *                       message cannot be collapsed.
+     * @return              Return false if the message was not accepted.
+     */
+    public boolean enqueue(EncodedPacket message, String collapseKey) {
+        Entry entry = new Entry(message, collapseKey);
+        boolean startSending;
+        boolean disconnect = false;
+        synchronized (this) {
+            if (closed) {
+                return false;
+            }
+            if (queue.size() >= capacity) {
+                disconnect = !handleOverflow(entry);
+            }
+            else {
+                queue.add(entry);
+            }
+            startSending = !disconnect && !sending;
+            if (startSending) {
+                sending = true;
+            }
+        }
+
+        if (disconnect) {
+            disconnectSlowConsumer();
+            return false;
+        }
+        if (startSending) {
+            sendNext();
+        }
+        return true;
+    }
+
+    /**
+     * Close the queue, all pending messages are discarded.
+     */
+    public synchronized void close() {
+        closed = true;
+        queue.clear();
+    }
+
+    /**
+     * Get the current count of queued messages.
+     *
+     * @return Queue depth
+     */
+    public synchronized int getQueueDepth() {
+        return queue.size();
+    }
+
+    public synchronized long getCountSent() {
+        return countSent;
+    }
+
+    public synchronized long getCountDropped() {
+        return countDropped;
+    }
+
+    public synchronized long getCountFailed() {
+        return countFailed;
+    }
+
+    /**
+     * Get the latency of the last sent message in milliseconds. The latency is
+     * the time from enqueuing the message until it was sent.
+     *
+     * @return Latency in milliseconds
+     */
+    public synchronized long getLastLatency() {
+        return TimeUnit.NANOSECONDS.toMillis(lastLatency);
+    }
+
+    /**
+     * Get the maximal latency of all sent messages in milliseconds.
+     *
+     * @return Latency in milliseconds
+     */
+    public synchronized long getMaxLatency() {
+        return TimeUnit.NANOSECONDS.toMillis(maxLatency);
+    }
+
+    /**
+     * Get the average latency of all sent messages in milliseconds.
+     *
+     * @return Latency in milliseconds
+     */
+    public synchronized long getAverageLatency() {
+        long count = countSent + countFailed;
+        return (count == 0L) ? 0L : TimeUnit.NANOSECONDS.toMillis(totalLatency / count);
+    }
+
+    /**
+     * Check if it is time for a new round trip measurement. If so then the caller is
+     * expected to send a ping frame.
+     *
+     * @param now   Current time in nanoseconds, see System.nanoTime
+     * @return      Return true if a ping frame should be sent.
+     */
+    public synchronized boolean startRoundTripProbe(long now) {
+        if (probed && (now - lastProbe < ROUND_TRIP_PROBE_INTERVAL)) {
+            return false;
+        }
+        probed = true;
+        lastProbe = now;
+        return true;
+    }
+
+    /**
+     * Record a measured round trip time.
+     *
+     * @param roundTrip Round trip time in nanoseconds
+     */
+    public synchronized void recordRoundTrip(long roundTrip) {
+        if (roundTrip < 0L) {
+            return;
+        }
+        countRoundTrips++;
+        lastRoundTrip = roundTrip;
+        maxRoundTrip = Math.max(maxRoundTrip, roundTrip);
+        totalRoundTrip += roundTrip;
+    }
+
+    /**
+     * Get the last measured round trip time in microseconds.
+     *
+     * @return Round trip time in microseconds
+     */
+    public synchronized long getLastRoundTrip() {
+        return TimeUnit.NANOSECONDS.toMicros(lastRoundTrip);
+    }
+
+    /**
+     * Get the maximal round trip time in microseconds.
+     *
+     * @return Round trip time in microseconds
+     */
+    public synchronized long getMaxRoundTrip() {
+        return TimeUnit.NANOSECONDS.toMicros(maxRoundTrip);
+    }
+
+    /**
+     * Get the average round trip time in microseconds.
+     *
+     * @return Round trip time in microseconds
+     */
+    public synchronized long getAverageRoundTrip() {
+        return (countRoundTrips == 0L) ? 0L : TimeUnit.NANOSECONDS.toMicros(totalRoundTrip / countRoundTrips);
+    }
+
+    /**
+     * Handle a full queue. Must be called while holding the lock.
+     *
+     * @param entry     The new entry
+     * @return          Return false if the slow consumer must be disconnected.
+     */
+    private boolean handleOverflow(Entry entry) {
+        switch (overflowPolicy) {
+            case DISCONNECT:
+                closed = true;
+                countDropped += queue.size() + 1;
+                queue.clear();
+                return false;
+
+            case COLLAPSE:
+                if (entry.collapseKey != null) {
+                    Iterator<Entry> it = queue.iterator();
+                    while (it.hasNext()) {
+                        if (entry.collapseKey.equals(it.next().collapseKey)) {
+                            it.remove();
+                            countDropped++;
+                            queue.add(entry);
+                            return true;
+                        }
+                    }
+                }
+                // no collapsible message found, fall back to dropping the oldest one
+                queue.poll();
+                countDropped++;
+                queue.add(entry);
+                return true;
+
+            case DROP_OLDEST:
+            default:
+                queue.poll();
+                countDropped++;
+                queue.add(entry);
+                return true;
+        }
+    }
+
+    /**
+     * Send the next messages in queue, if any. If a send completes already while
+     * dispatching it (i.e. synchronously), then the loop continues with the next message
+     * instead of recursing from the completion handler.
+     */
+    private void sendNext() {
+        while (true) {
+            Entry next;
+            synchronized (this) {
+                next = queue.poll();
+                if (next == null) {
+                    sending = false;
+                    return;
+                }
+                next.dispatching = true;
+            }
+
+            try {
+                if (binary) {
+                    byte[] frame = next.message.getBinary();
+                    if (frame == null) {
+                        throw new IllegalArgumentException("packet could not be encoded");
+                    }
+                    session.getAsyncRemote().sendBinary(ByteBuffer.wrap(frame), result -> onSendResult(next, result));
+                }
+                else {
+                    String text = next.message.getText();
+                    if (text == null) {
+                        throw new IllegalArgumentException("packet could not be encoded");
+                    }
+                    session.getAsyncRemote().sendText(text, result -> onSendResult(next, result));
+                }
+            }
+            catch (IllegalStateException | IllegalArgumentException ex) {
+                LOGGER.debug("could not send message to session {}, reason: {}", session.getId(), ex.getLocalizedMessage());
+                onSendResult(next, new SendResult(ex));
+            }
+
+            synchronized (this) {
+                next.dispatching = false;
+                if (!next.completed) {
+                    // the completion handler continues with sending
+                    return;
+                }
+            }
+        }
+    }
+
+    /**
+     * Called when a message was sent.
+     *
+     * @param entry     Sent entry
+     * @param result    Send result
+     */
+    private void onSendResult(Entry entry, SendResult result) {
+        long latency = System.nanoTime() - entry.timeEnqueued;
+        boolean continueSending;
+        synchronized (this) {
+            if (result.isOK()) {
+                countSent++;
+            }
+            else {
+                countFailed++;
+            }
+            lastLatency = latency;
+            maxLatency = Math.max(maxLatency, latency);
+            totalLatency += latency;
+
+            entry.completed = true;
+            continueSending = !entry.dispatching;
+        }
+        if (!result.isOK() && (result.getException() != null)) {
+            LOGGER.debug("problem occurred while sending message to session {}, reason: {}",
+                    session.getId(), result.getException().getLocalizedMessage());
+        }
+        if (continueSending) {
+            sendNext();
+        }
+    }
+
+    /**
+     * Close the session of a client which cannot keep up with its messages.
+     */
+    private void disconnectSlowConsumer() {
+        LOGGER.info("closing slow WebSocket session {}, outbound queue is full", session.getId());
+        try {
+            session.close(new CloseReason(CloseReason.CloseCodes.TRY_AGAIN_LATER, "Slow consumer"));
+        }
+        catch (IOException | IllegalStateException ex) {
+            LOGGER.debug("could not close slow WebSocket session {}, reason: {}", session.getId(), ex.getLocalizedMessage());
+        }
+    }
+}
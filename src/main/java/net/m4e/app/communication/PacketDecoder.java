@@ -0,0 +1,354 @@
+/*
+ * Copyright (c) 2017-2019 by Botorabi. All rights reserved.
+ * https://github.com/botorabi/Meet4Eat
+ *
+ * License: MIT License (MIT), read the LICENSE text in
+ *          main directory for more details.
+ */
+package net.m4e.app.communication;
+
+import java.io.StringReader;
+import java.lang.invoke.MethodHandles;
+import java.util.*;
+
+import javax.json.*;
+import javax.json.stream.*;
+import javax.websocket.Decoder;
+import javax.websocket.EndpointConfig;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Streaming decoder for incoming text messages. The packet is read with a JSON parser
+ * and its data is directly decoded into the type of the packet channel:
+ *
+ *   chat    ChatMessage
+ *   event   EventMessage
+ *   system  SystemCommand
+ *
+ * The data of packets with any other channel is ignored. Unknown fields are skipped.
+ *
+ * @author boto
+ * Date of creation Oct 18, 2026
+ */
+public class PacketDecoder implements Decoder.Text<Packet<?>> {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(MethodHandles.lookup().lookupClass());
+
+    /**
+     * Parser factories are thread-safe, so all decoders share one.
+     */
+    private static final JsonParserFactory PARSER_FACTORY = Json.createParserFactory(null);
+
+    @Override
+    public Packet<?> decode(final String string) {
+        try (JsonParser parser = PARSER_FACTORY.createParser(new StringReader(string))) {
+            return readPacket(parser);
+        }
+        catch (JsonException | IllegalStateException | NoSuchElementException ex) {
+            LOGGER.debug("Could not read JSON string, reason: {}", ex.getMessage());
+        }
+        return null;
+    }
+
+    @Override
+    public boolean willDecode(final String s) {
+        return true;
+    }
+
+    @Override
+    public void init(final EndpointConfig config) {
+    }
+
+    @Override
+    public void destroy() {
+    }
+
+    /**
+     * Read a packet. Usually the channel comes first, so the data can be decoded while
+     * streaming. Otherwise the data is read into a JSON object and decoded at the end.
+     *
+     * @param parser    JSON parser
+     * @return          The packet
+     */
+    private Packet<?> readPacket(JsonParser parser) {
+        if (parser.next() != JsonParser.Event.START_OBJECT) {
+            throw new JsonException("packet is not a JSON object");
+        }
+        Packet<Object> packet = new Packet<>();
+        JsonObject pendingData = null;
+        boolean channelRead = false;
+
+        while (parser.next() == JsonParser.Event.KEY_NAME) {
+            String key = parser.getString();
+            if ("channel".equalsIgnoreCase(key)) {
+                packet.setChannel(readString(parser));
+                channelRead = true;
+            }
+            else if ("sourceId".equalsIgnoreCase(key)) {
+                packet.setSourceId(readString(parser));
+            }
+            else if ("source".equalsIgnoreCase(key)) {
+                packet.setSource(readString(parser));
+            }
+            else if ("time".equalsIgnoreCase(key)) {
+                packet.setTime(readLong(parser));
+            }
+            else if ("data".equalsIgnoreCase(key)) {
+                if (channelRead) {
+                    packet.setData(readData(packet.getChannel(), parser));
+                }
+                else {
+                    pendingData = readPendingData(parser);
+                }
+            }
+            else {
+                skipValue(parser);
+            }
+        }
+
+        if (pendingData != null) {
+            packet.setData(decodeData(packet.getChannel(), pendingData));
+        }
+        return packet;
+    }
+
+    /**
+     * Decode the packet data of given channel out of a JSON object.
+     *
+     * @param channel   Packet channel
+     * @param data      Packet data
+     * @return          The data, or null if the channel has no data type
+     */
+    Object decodeData(String channel, JsonObject data) {
+        try (JsonParser dataParser = PARSER_FACTORY.createParser(data)) {
+            return readData(channel, dataParser);
+        }
+    }
+
+    /**
+     * Read the packet data which comes before the channel.
+     *
+     * @param parser    JSON parser
+     * @return          The data object or null if it is not an object
+     */
+    private JsonObject readPendingData(JsonParser parser) {
+        JsonParser.Event event = parser.next();
+        if (event != JsonParser.Event.START_OBJECT) {
+            skip(parser, event);
+            return null;
+        }
+        return parser.getObject();
+    }
+
+    /**
+     * Read the packet data of given channel.
+     *
+     * @param channel   Packet channel
+     * @param parser    JSON parser, the next event is the data value
+     * @return          The data, or null if the channel has no data type
+     */
+    private Object readData(String channel, JsonParser parser) {
+        JsonParser.Event event = parser.next();
+        if (event != JsonParser.Event.START_OBJECT) {
+            skip(parser, event);
+            return null;
+        }
+        if (Packet.CHANNEL_CHAT.equals(channel)) {
+            return readChatMessage(parser);
+        }
+        else if (Packet.CHANNEL_EVENT.equals(channel)) {
+            return readEventMessage(parser);
+        }
+        else if (Packet.CHANNEL_SYSTEM.equals(channel)) {
+            return readSystemCommand(parser);
+        }
+        parser.skipObject();
+        return null;
+    }
+
+    private ChatMessage readChatMessage(JsonParser parser) {
+        ChatMessage message = new ChatMessage();
+        while (parser.next() == JsonParser.Event.KEY_NAME) {
+            String key = parser.getString();
+            if ("receiverUser".equals(key)) {
+                message.setReceiverUser(readString(parser, ""));
+            }
+            else if ("receiverEvent".equals(key)) {
+                message.setReceiverEvent(readString(parser, ""));
+            }
+            else if ("text".equals(key)) {
+                message.setText(readString(parser, ""));
+            }
+            else {
+                skipValue(parser);
+            }
+        }
+        return message;
+    }
+
+    private EventMessage readEventMessage(JsonParser parser) {
+        EventMessage message = new EventMessage();
+        while (parser.next() == JsonParser.Event.KEY_NAME) {
+            String key = parser.getString();
+            if ("type".equals(key)) {
+                message.setType(readString(parser, ""));
+            }
+            else if ("subject".equals(key)) {
+                message.setSubject(readString(parser, ""));
+            }
+            else if ("text".equals(key)) {
+                message.setText(readString(parser, ""));
+            }
+            else if ("data".equals(key)) {
+                message.setData(readEventMessageData(parser));
+            }
+            else {
+                skipValue(parser);
+            }
+        }
+        return message;
+    }
+
+    private EventMessage.Data readEventMessageData(JsonParser parser) {
+        JsonParser.Event event = parser.next();
+        if (event != JsonParser.Event.START_OBJECT) {
+            skip(parser, event);
+            return null;
+        }
+        EventMessage.Data data = new EventMessage.Data();
+        while (parser.next() == JsonParser.Event.KEY_NAME) {
+            String key = parser.getString();
+            if ("eventId".equals(key)) {
+                data.setEventId(readString(parser, ""));
+            }
+            else if ("revision".equals(key)) {
+                data.setRevision(readLong(parser));
+            }
+            else {
+                skipValue(parser);
+            }
+        }
+        return data;
+    }
+
+    private SystemCommand readSystemCommand(JsonParser parser) {
+        SystemCommand command = new SystemCommand();
+        while (parser.next() == JsonParser.Event.KEY_NAME) {
+            String key = parser.getString();
+            if ("cmd".equals(key)) {
+                command.setCmd(readString(parser, ""));
+            }
+            else if ("since".equals(key)) {
+                command.setSince(readLong(parser));
+            }
+            else if ("eventIds".equals(key)) {
+                command.setEventIds(readStringList(parser));
+            }
+            else if ("types".equals(key)) {
+                command.setTypes(readStringList(parser));
+            }
+            else {
+                skipValue(parser);
+            }
+        }
+        return command;
+    }
+
+    private String readString(JsonParser parser) {
+        return readString(parser, null);
+    }
+
+    /**
+     * Read a scalar value as string. Numbers are accepted, too.
+     *
+     * @param parser        JSON parser, the next event is the value
+     * @param defaultValue  Value returned for null, objects and arrays
+     * @return              The string
+     */
+    private String readString(JsonParser parser, String defaultValue) {
+        JsonParser.Event event = parser.next();
+        switch (event) {
+            case VALUE_STRING:
+            case VALUE_NUMBER:
+                return parser.getString();
+            case VALUE_TRUE:
+                return "true";
+            case VALUE_FALSE:
+                return "false";
+            default:
+                skip(parser, event);
+                return defaultValue;
+        }
+    }
+
+    /**
+     * Read an array of scalar values as strings, other array elements are skipped.
+     *
+     * @param parser    JSON parser, the next event is the value
+     * @return          The strings, or null if the value is not an array
+     */
+    private List<String> readStringList(JsonParser parser) {
+        JsonParser.Event event = parser.next();
+        if (event != JsonParser.Event.START_ARRAY) {
+            skip(parser, event);
+            return null;
+        }
+        List<String> values = new ArrayList<>();
+        while ((event = parser.next()) != JsonParser.Event.END_ARRAY) {
+            if ((event == JsonParser.Event.VALUE_STRING) || (event == JsonParser.Event.VALUE_NUMBER)) {
+                values.add(parser.getString());
+            }
+            else {
+                skip(parser, event);
+            }
+        }
+        return values;
+    }
+
+    private long readLong(JsonParser parser) {
+        JsonParser.Event event = parser.next();
+        if (event == JsonParser.Event.VALUE_NUMBER) {
+            return parser.getLong();
+        }
+        if (event == JsonParser.Event.VALUE_STRING) {
+            try {
+                return Long.parseLong(parser.getString());
+            }
+            catch (NumberFormatException ex) {
+                return 0L;
+            }
+        }
+        skip(parser, event);
+        return 0L;
+    }
+
+    /**
+     * Skip the next value.
+     *
+     * @param parser JSON parser
+     */
+    private void skipValue(JsonParser parser) {
+        skip(parser, parser.next());
+    }
+
+    /**
+     * If the given event starts an object or array then skip it.
+     *
+     * @param parser JSON parser
+     * @param event  The current parser event
+     */
+    private void skip(JsonParser parser, JsonParser.Event event) {
+        switch (event) {
+            case START_OBJECT:
+                parser.skipObject();
+                break;
+            case START_ARRAY:
+                parser.skipArray();
+                break;
+            default:
+                break;
+        }
+    }
+}
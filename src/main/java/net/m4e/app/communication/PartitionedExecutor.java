@@ -0,0 +1,242 @@
+/*
+ * Copyright (c) 2017-2019 by Botorabi. All rights reserved.
+ * https://github.com/botorabi/Meet4Eat
+ *
+ * License: MIT License (MIT), read the LICENSE text in
+ *          main directory for more details.
+ */
+package net.m4e.app.communication;
+
+import java.lang.invoke.MethodHandles;
+import java.lang.reflect.Method;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.*;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Executor with a fixed count of partitions, every partition runs its tasks one after
+ * another on its own thread. Tasks are assigned to partitions by a key (e.g. the sender ID),
+ * so all tasks with the same key are executed in submission order while tasks with
+ * different keys run in parallel.
+ *
+ * The queue of every partition is bounded. A task submitted to a full partition is
+ * rejected with a 'RejectedExecutionException' and counted.
+ *
+ * The threads are created by a pluggable thread factory, see 'createThreadFactory'.
+ *
+ * @author boto
+ * Date of creation Oct 18, 2026
+ */
+public class PartitionedExecutor {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(MethodHandles.lookup().lookupClass());
+
+    /**
+     * Default count of tasks which can be queued per partition
+     */
+    public final static int DEFAULT_QUEUE_SIZE = 1024;
+
+    /**
+     * Thread type for platform threads
+     */
+    public final static String THREADS_PLATFORM = "platform";
+
+    /**
+     * Thread type for virtual threads, they are available on Java 21 and later
+     */
+    public final static String THREADS_VIRTUAL = "virtual";
+
+    private final String name;
+
+    private final ThreadPoolExecutor[] partitions;
+
+    private final int queueSize;
+
+    private final AtomicLong countSubmitted = new AtomicLong();
+    private final AtomicLong countCompleted = new AtomicLong();
+    private final AtomicLong countRejected = new AtomicLong();
+    private final AtomicInteger maxQueueDepth = new AtomicInteger();
+
+    /**
+     * Create the executor.
+     *
+     * @param name              Name used for logging and statistics
+     * @param partitionCount    Count of partitions
+     * @param queueSize         Maximal count of queued tasks per partition
+     * @param threadFactory     Factory for the partition threads
+     */
+    public PartitionedExecutor(String name, int partitionCount, int queueSize, ThreadFactory threadFactory) {
+        this.name = name;
+        this.queueSize = Math.max(1, queueSize);
+        partitions = new ThreadPoolExecutor[Math.max(1, partitionCount)];
+        for (int i = 0; i < partitions.length; i++) {
+            partitions[i] = new ThreadPoolExecutor(1, 1, 0L, TimeUnit.MILLISECONDS,
+                    new ArrayBlockingQueue<>(this.queueSize), threadFactory, new ThreadPoolExecutor.AbortPolicy());
+        }
+    }
+
+    /**
+     * Get an executor running its tasks in the partition of given key.
+     *
+     * @param key   Partition key
+     * @return      Executor
+     */
+    public Executor forKey(long key) {
+        return task -> execute(key, task);
+    }
+
+    /**
+     * Execute a task in the partition of given key.
+     *
+     * @param key   Partition key
+     * @param task  Task
+     * @throws RejectedExecutionException if the partition's queue is full or the executor was shut down
+     */
+    public void execute(long key, Runnable task) {
+        ThreadPoolExecutor partition = partitions[getPartition(key)];
+        try {
+            partition.execute(() -> {
+                try {
+                    task.run();
+                }
+                catch (RuntimeException ex) {
+                    LOGGER.warn("problem occurred while executing a task in {}, reason: {}", name, ex.getLocalizedMessage());
+                }
+                finally {
+                    countCompleted.incrementAndGet();
+                }
+            });
+        }
+        catch (RejectedExecutionException ex) {
+            countRejected.incrementAndGet();
+            throw ex;
+        }
+        countSubmitted.incrementAndGet();
+        int depth = partition.getQueue().size();
+        maxQueueDepth.accumulateAndGet(depth, Math::max);
+    }
+
+    /**
+     * Stop accepting tasks and wait for the queued ones to complete.
+     *
+     * @param timeout   Maximal time to wait in milliseconds, the remaining tasks are discarded afterwards
+     */
+    public void shutdown(long timeout) {
+        for (ThreadPoolExecutor partition: partitions) {
+            partition.shutdown();
+        }
+        long deadline = System.currentTimeMillis() + timeout;
+        try {
+            for (ThreadPoolExecutor partition: partitions) {
+                long remaining = Math.max(0L, deadline - System.currentTimeMillis());
+                if (!partition.awaitTermination(remaining, TimeUnit.MILLISECONDS)) {
+                    partition.shutdownNow();
+                }
+            }
+        }
+        catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            for (ThreadPoolExecutor partition: partitions) {
+                partition.shutdownNow();
+            }
+        }
+    }
+
+    /**
+     * Get the partition index of given key.
+     *
+     * @param key   Partition key
+     * @return      Partition index
+     */
+    int getPartition(long key) {
+        // spread the bits, sequential IDs would otherwise map to neighbouring partitions only
+        int hash = Long.hashCode(key) * 0x9E3779B9;
+        return Math.floorMod(hash ^ (hash >>> 16), partitions.length);
+    }
+
+    /**
+     * Get the current count of queued tasks in all partitions.
+     */
+    public int getQueueDepth() {
+        int depth = 0;
+        for (ThreadPoolExecutor partition: partitions) {
+            depth += partition.getQueue().size();
+        }
+        return depth;
+    }
+
+    public long getCountSubmitted() {
+        return countSubmitted.get();
+    }
+
+    public long getCountCompleted() {
+        return countCompleted.get();
+    }
+
+    public long getCountRejected() {
+        return countRejected.get();
+    }
+
+    /**
+     * Export the statistics.
+     *
+     * @return Executor statistics
+     */
+    public DispatchLaneInfo exportInfo() {
+        DispatchLaneInfo info = new DispatchLaneInfo();
+        info.setName(name);
+        info.setPartitions(partitions.length);
+        info.setQueueSize(queueSize);
+        info.setQueueDepth(getQueueDepth());
+        info.setMaxQueueDepth(maxQueueDepth.get());
+        info.setCountSubmitted(countSubmitted.get());
+        info.setCountCompleted(countCompleted.get());
+        info.setCountRejected(countRejected.get());
+        return info;
+    }
+
+    /**
+     * Create a thread factory for given thread type. If virtual threads are requested but
+     * not supported by the runtime then platform threads are used.
+     *
+     * @param threadType    One of THREADS_PLATFORM or THREADS_VIRTUAL
+     * @param namePrefix    Prefix of the thread names
+     * @return              Thread factory
+     */
+    public static ThreadFactory createThreadFactory(String threadType, String namePrefix) {
+        if (THREADS_VIRTUAL.equalsIgnoreCase(threadType)) {
+            ThreadFactory factory = createVirtualThreadFactory(namePrefix);
+            if (factory != null) {
+                return factory;
+            }
+            LOGGER.warn("virtual threads are not supported by this runtime, using platform threads");
+        }
+        AtomicInteger threadNumber = new AtomicInteger();
+        return runnable -> {
+            Thread thread = new Thread(runnable, namePrefix + threadNumber.getAndIncrement());
+            thread.setDaemon(true);
+            return thread;
+        };
+    }
+
+    /**
+     * The virtual thread API is accessed by reflection as the application is built for Java 8.
+     *
+     * @return Factory for virtual threads, or null if they are not supported
+     */
+    private static ThreadFactory createVirtualThreadFactory(String namePrefix) {
+        try {
+            Class<?> builderType = Class.forName("java.lang.Thread$Builder");
+            Object builder = Thread.class.getMethod("ofVirtual").invoke(null);
+            builder = builderType.getMethod("name", String.class, long.class).invoke(builder, namePrefix, 0L);
+            Method factory = builderType.getMethod("factory");
+            return (ThreadFactory) factory.invoke(builder);
+        }
+        catch (ReflectiveOperationException | RuntimeException ex) {
+            LOGGER.debug("could not create virtual thread factory, reason: {}", ex.toString());
+            return null;
+        }
+    }
+}
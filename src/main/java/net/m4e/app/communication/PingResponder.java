@@ -0,0 +1,108 @@
+/*
+ * Copyright (c) 2017-2019 by Botorabi. All rights reserved.
+ * https://github.com/botorabi/Meet4Eat
+ *
+ * License: MIT License (MIT), read the LICENSE text in
+ *          main directory for more details.
+ */
+package net.m4e.app.communication;
+
+import java.lang.invoke.MethodHandles;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Creates the responses to system command 'ping'. Pings are the most frequent client
+ * messages, so the JSON text of a response is not serialized each time but assembled
+ * from a template which is created once. Only the client's time and the server time
+ * differ from response to response.
+ *
+ * @author boto
+ * Date of creation Oct 18, 2026
+ */
+final class PingResponder {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(MethodHandles.lookup().lookupClass());
+
+    /**
+     * Values marking the variable parts in the serialized template
+     */
+    private static final long MARKER_PONG = 7_070_707_070_707_070_701L;
+    private static final long MARKER_TIME = 7_070_707_070_707_070_702L;
+
+    /**
+     * Template parts surrounding the pong and the time, or null if no template could be created
+     */
+    private static final String[] TEMPLATE = createTemplate();
+
+    private PingResponder() {
+    }
+
+    /**
+     * Is the packet a system command 'ping'?
+     *
+     * @param packet    Incoming packet
+     * @return          Return true if the packet is a ping.
+     */
+    static boolean isPing(Packet<?> packet) {
+        if (!Packet.CHANNEL_SYSTEM.equals(packet.getChannel()) || !(packet.getData() instanceof SystemCommand)) {
+            return false;
+        }
+        return SystemCommand.CMD_PING.equals(((SystemCommand) packet.getData()).getCmd());
+    }
+
+    /**
+     * Create a ping response packet.
+     *
+     * @param pong  The time sent by the client, it is echoed back
+     * @param time  Server time
+     * @return      Response packet
+     */
+    static Packet<MessageDistribution.PingResponse> createPacket(long pong, long time) {
+        Packet<MessageDistribution.PingResponse> response = new Packet<>();
+        response.setChannel(Packet.CHANNEL_EVENT);
+        response.setData(new MessageDistribution.PingResponse(SystemCommand.CMD_PING, pong));
+        response.setTime(time);
+        return response;
+    }
+
+    /**
+     * Create an encoded ping response. The JSON text is assembled out of the template.
+     *
+     * @param pong  The time sent by the client, it is echoed back
+     * @param time  Server time
+     * @return      Encoded response
+     */
+    static EncodedPacket createResponse(long pong, long time) {
+        Packet<MessageDistribution.PingResponse> packet = createPacket(pong, time);
+        if (TEMPLATE == null) {
+            return new EncodedPacket(packet);
+        }
+        String text = new StringBuilder(TEMPLATE[0].length() + TEMPLATE[1].length() + TEMPLATE[2].length() + 40)
+                .append(TEMPLATE[0]).append(pong)
+                .append(TEMPLATE[1]).append(time)
+                .append(TEMPLATE[2]).toString();
+        return EncodedPacket.withText(packet, text);
+    }
+
+    private static String[] createTemplate() {
+        String json = Connection.JsonBEncoder.toJson(createPacket(MARKER_PONG, MARKER_TIME));
+        if (json == null) {
+            LOGGER.warn("could not create ping response template");
+            return null;
+        }
+        String pong = Long.toString(MARKER_PONG);
+        String time = Long.toString(MARKER_TIME);
+        int pongIndex = json.indexOf(pong);
+        int timeIndex = json.indexOf(time);
+        // the serializer orders properties alphabetically, so the data containing the pong comes before the time
+        if ((pongIndex < 0) || (timeIndex < pongIndex)) {
+            LOGGER.warn("unexpected ping response layout, no template is used");
+            return null;
+        }
+        return new String[]{json.substring(0, pongIndex),
+                json.substring(pongIndex + pong.length(), timeIndex),
+                json.substring(timeIndex + time.length())};
+    }
+}
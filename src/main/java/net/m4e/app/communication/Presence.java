@@ -0,0 +1,334 @@
+/*
+ * Copyright (c) 2017-2019 by Botorabi. All rights reserved.
+ * https://github.com/botorabi/Meet4Eat
+ *
+ * License: MIT License (MIT), read the LICENSE text in
+ *          main directory for more details.
+ */
+package net.m4e.app.communication;
+
+import java.lang.invoke.MethodHandles;
+import java.util.*;
+import java.util.concurrent.*;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import javax.enterprise.context.ApplicationScoped;
+import javax.inject.Inject;
+
+import net.m4e.app.auth.SessionPrincipal;
+import net.m4e.app.event.business.EventMemberships;
+import net.m4e.system.core.AppConfiguration;
+import org.jetbrains.annotations.NotNull;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+
+/**
+ * Tracks the online status of users and notifies their relatives about changes.
+ *
+ * Going offline is debounced: after the last WebSocket connection of a user was closed
+ * the user is still considered online for a grace period. If the user reconnects within
+ * this period (e.g. on a flaky network) then nobody gets notified.
+ *
+ * Every change increments the presence version. Clients can fetch a snapshot of their
+ * online relatives via system command 'presence' and afterwards apply only the changes
+ * which are sent as 'onlinestatus' notifications, each carrying its version. Passing the
+ * last known version in the command returns only the changes since then, as long as
+ * they are still held in the change log.
+ *
+ * Relatives are taken from the in-memory 'EventMemberships'.
+ *
+ * Notifications are handed to the session queues while holding the lock which assigns their
+ * version. Queues keep only the latest 'onlinestatus' notification of a user, so they must
+ * get a user's notifications in version order.
+ *
+ * @author boto
+ * Date of creation Oct 18, 2026
+ */
+@ApplicationScoped
+public class Presence {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(MethodHandles.lookup().lookupClass());
+
+    /**
+     * Default grace period in milliseconds before a disconnected user goes offline
+     */
+    public final static long DEFAULT_GRACE_PERIOD = 5000L;
+
+    /**
+     * Maximal count of changes held in change log
+     */
+    private final static int MAX_CHANGE_LOG = 1024;
+
+    /**
+     * A change of the online status
+     */
+    private static class Change {
+        private final long version;
+        private final long userId;
+        private final boolean online;
+
+        Change(long version, long userId, boolean online) {
+            this.version = version;
+            this.userId = userId;
+            this.online = online;
+        }
+    }
+
+    private final ConnectedClients connections;
+
+    private final EventMemberships eventMemberships;
+
+    /**
+     * IDs of all online users, guarded by 'this'
+     */
+    private final Set<Long> onlineUsers = new HashSet<>();
+
+    /**
+     * Users going offline when their grace period has elapsed. A user's entry is removed
+     * when the user reconnects, the pending timer then has no effect. Guarded by 'this'
+     */
+    private final Map<Long, Object> pendingOffline = new HashMap<>();
+
+    /**
+     * Recent changes, guarded by 'this'
+     */
+    private final Deque<Change> changeLog = new ArrayDeque<>();
+
+    /**
+     * Presence version, guarded by 'this'
+     */
+    private long version = 0L;
+
+    private long countChanges = 0L;
+    private long countDebounced = 0L;
+
+    private long gracePeriod = DEFAULT_GRACE_PERIOD;
+
+    private ScheduledExecutorService scheduler;
+
+    /**
+     * Default constructor needed by the container.
+     */
+    protected Presence() {
+        connections = null;
+        eventMemberships = null;
+    }
+
+    /**
+     * Create the presence.
+     *
+     * @param connections       Connected clients
+     * @param eventMemberships  Event memberships
+     */
+    @Inject
+    public Presence(@NotNull ConnectedClients connections, @NotNull EventMemberships eventMemberships) {
+        this.connections = connections;
+        this.eventMemberships = eventMemberships;
+    }
+
+    /**
+     * Setup the grace period and the timer used for it.
+     */
+    @PostConstruct
+    public void presenceInit() {
+        gracePeriod = AppConfiguration.getInstance().getConfigNumber(AppConfiguration.TOKEN_WS_PRESENCE_GRACE_PERIOD, DEFAULT_GRACE_PERIOD);
+        setScheduler(Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "m4e-presence");
+            thread.setDaemon(true);
+            return thread;
+        }), gracePeriod);
+
+        LOGGER.info("Presence grace period: {} ms", gracePeriod);
+    }
+
+    /**
+     * Stop the timer.
+     */
+    @PreDestroy
+    public void presenceShutdown() {
+        if (scheduler != null) {
+            scheduler.shutdownNow();
+        }
+    }
+
+    /**
+     * Set the scheduler used for going offline after the grace period.
+     *
+     * @param scheduler     Scheduler, if null then users go offline immediately
+     * @param gracePeriod   Grace period in milliseconds
+     */
+    public void setScheduler(ScheduledExecutorService scheduler, long gracePeriod) {
+        this.scheduler = scheduler;
+        this.gracePeriod = gracePeriod;
+    }
+
+    /**
+     * Called when the first WebSocket connection of a user was opened.
+     *
+     * @param user  The user
+     */
+    public void userConnected(SessionPrincipal user) {
+        synchronized (this) {
+            if (pendingOffline.remove(user.getUserId()) != null) {
+                // reconnected within the grace period
+                countDebounced++;
+                return;
+            }
+            if (onlineUsers.add(user.getUserId())) {
+                notifyRelatives(user, true, recordChange(user.getUserId(), true));
+            }
+        }
+    }
+
+    /**
+     * Called when the last WebSocket connection of a user was closed.
+     *
+     * @param user  The user
+     */
+    public void userDisconnected(SessionPrincipal user) {
+        Object token = new Object();
+        boolean debounce;
+        synchronized (this) {
+            if (!onlineUsers.contains(user.getUserId())) {
+                return;
+            }
+            debounce = (scheduler != null) && (gracePeriod > 0L);
+            if (debounce) {
+                pendingOffline.put(user.getUserId(), token);
+            }
+        }
+        if (!debounce) {
+            goOffline(user, null);
+            return;
+        }
+        try {
+            scheduler.schedule(() -> goOffline(user, token), gracePeriod, TimeUnit.MILLISECONDS);
+        }
+        catch (RejectedExecutionException ex) {
+            goOffline(user, token);
+        }
+    }
+
+    /**
+     * Is the user online? A user within the grace period is still online.
+     *
+     * @param userId    User ID
+     * @return          Return true if the user is online.
+     */
+    public synchronized boolean isOnline(Long userId) {
+        return onlineUsers.contains(userId);
+    }
+
+    /**
+     * Get the online status of a user's relatives.
+     *
+     * @param userId        User ID
+     * @param sinceVersion  Last presence version known by the client. Pass 0 for getting
+     *                       a full snapshot.
+     * @return              The online relatives, or the relatives whose status changed since
+     *                       given version. If the changes are not available anymore then a
+     *                       full snapshot is returned.
+     */
+    public PresenceInfo getPresence(Long userId, long sinceVersion) {
+        Set<Long> relatives = new HashSet<>(eventMemberships.getRelatives(userId));
+        PresenceInfo info = new PresenceInfo();
+        synchronized (this) {
+            info.setVersion(version);
+            boolean changesAvailable = (sinceVersion > 0L) && (sinceVersion <= version) &&
+                    (changeLog.isEmpty() || (changeLog.peekFirst().version <= sinceVersion + 1));
+
+            if (changesAvailable) {
+                info.setFull(false);
+                // the latest change of every user wins
+                Map<Long, Boolean> changes = new LinkedHashMap<>();
+                changeLog.stream()
+                        .filter(change -> (change.version > sinceVersion) && relatives.contains(change.userId))
+                        .forEach(change -> changes.put(change.userId, change.online));
+                changes.forEach((id, online) -> (online ? info.getOnline() : info.getOffline()).add(id));
+            }
+            else {
+                info.setFull(true);
+                relatives.stream().filter(onlineUsers::contains).forEach(info.getOnline()::add);
+            }
+        }
+        return info;
+    }
+
+    public synchronized long getVersion() {
+        return version;
+    }
+
+    public synchronized int getOnlineCount() {
+        return onlineUsers.size();
+    }
+
+    public synchronized long getCountChanges() {
+        return countChanges;
+    }
+
+    /**
+     * Get the count of disconnects which were not published because the user reconnected
+     * within the grace period.
+     */
+    public synchronized long getCountDebounced() {
+        return countDebounced;
+    }
+
+    /**
+     * Let the user go offline.
+     *
+     * @param user  The user
+     * @param token Token of the pending grace period, or null if there is none
+     */
+    private void goOffline(SessionPrincipal user, Object token) {
+        synchronized (this) {
+            if ((token != null) && !pendingOffline.remove(user.getUserId(), token)) {
+                // the user reconnected meanwhile
+                return;
+            }
+            if (onlineUsers.remove(user.getUserId())) {
+                notifyRelatives(user, false, recordChange(user.getUserId(), false));
+            }
+        }
+    }
+
+    /**
+     * Record a status change. Must be called while holding the lock.
+     *
+     * @return The new version
+     */
+    private long recordChange(Long userId, boolean online) {
+        version++;
+        countChanges++;
+        changeLog.addLast(new Change(version, userId, online));
+        if (changeLog.size() > MAX_CHANGE_LOG) {
+            changeLog.removeFirst();
+        }
+        return version;
+    }
+
+    /**
+     * Send an 'onlinestatus' notification to all relatives of given user. Must be called while
+     * holding the lock.
+     */
+    private void notifyRelatives(SessionPrincipal user, boolean online, long changeVersion) {
+        List<Long> relatives = eventMemberships.getRelatives(user.getUserId());
+        if (relatives.isEmpty()) {
+            return;
+        }
+        Map<String, Object> statusData = new HashMap<>();
+        statusData.put("onlineStatus", online ? "online" : "offline");
+        statusData.put("version", changeVersion);
+
+        Map<String, Object> data = new HashMap<>();
+        data.put("type", "onlinestatus");
+        data.put("subject", "Event Member");
+        data.put("text", "User went " + (online ? "online" : "offline") + ".");
+        data.put("data", statusData);
+
+        Packet<Map<String, Object>> packet = new Packet<>(Packet.CHANNEL_NOTIFY, Long.toString(user.getUserId()), user.getName(), data);
+        connections.sendNotification(packet, relatives);
+    }
+}
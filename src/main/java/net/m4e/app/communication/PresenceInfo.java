@@ -0,0 +1,75 @@
+/*
+ * Copyright (c) 2017-2019 by Botorabi. All rights reserved.
+ * https://github.com/botorabi/Meet4Eat
+ *
+ * License: MIT License (MIT), read the LICENSE text in
+ *          main directory for more details.
+ */
+package net.m4e.app.communication;
+
+import java.util.*;
+
+/**
+ * Online status of a user's relatives for exporting to clients, see 'Presence'.
+ *
+ * @author boto
+ * Date of creation Oct 18, 2026
+ */
+public class PresenceInfo {
+
+    private String cmd = SystemCommand.CMD_PRESENCE;
+    private long version;
+    private boolean full;
+    private List<Long> online = new ArrayList<>();
+    private List<Long> offline = new ArrayList<>();
+
+    public PresenceInfo() {
+    }
+
+    public String getCmd() {
+        return cmd;
+    }
+
+    public void setCmd(String cmd) {
+        this.cmd = cmd;
+    }
+
+    /**
+     * Get the presence version this info is up to date with.
+     */
+    public long getVersion() {
+        return version;
+    }
+
+    public void setVersion(long version) {
+        this.version = version;
+    }
+
+    /**
+     * Is this a full snapshot? Otherwise it contains only the changes since the version
+     * requested by the client.
+     */
+    public boolean getFull() {
+        return full;
+    }
+
+    public void setFull(boolean full) {
+        this.full = full;
+    }
+
+    public List<Long> getOnline() {
+        return online;
+    }
+
+    public void setOnline(List<Long> online) {
+        this.online = online;
+    }
+
+    public List<Long> getOffline() {
+        return offline;
+    }
+
+    public void setOffline(List<Long> offline) {
+        this.offline = offline;
+    }
+}
@@ -0,0 +1,246 @@
+/*
+ * Copyright (c) 2017-2019 by Botorabi. All rights reserved.
+ * https://github.com/botorabi/Meet4Eat
+ *
+ * License: MIT License (MIT), read the LICENSE text in
+ *          main directory for more details.
+ */
+package net.m4e.app.communication;
+
+import java.util.Arrays;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Token bucket rate limiter for the incoming messages of one WebSocket session. Every
+ * channel has its own bucket which is refilled at a constant rate up to its burst size;
+ * a message takes one token, if there is none then the message is rejected.
+ *
+ * Rejected messages are counted as violations. The first violations let the message be
+ * dropped silently, reaching the warn threshold the client is warned once, and reaching
+ * the disconnect threshold the session is closed. Violations are forgotten after a cool
+ * down period without any violation.
+ *
+ * The buckets are held in primitive arrays, acquiring a token allocates no objects.
+ *
+ * @author boto
+ * Date of creation Oct 18, 2026
+ */
+public class RateLimiter {
+
+    /**
+     * Default count of violations after which the client is warned
+     */
+    public final static int DEFAULT_WARN_AFTER = 10;
+
+    /**
+     * Default count of violations after which the session is closed
+     */
+    public final static int DEFAULT_DISCONNECT_AFTER = 50;
+
+    /**
+     * Default time in milliseconds without violations after which the violations are forgotten
+     */
+    public final static long DEFAULT_COOL_DOWN = 10000L;
+
+    /**
+     * Outcome of acquiring a token
+     */
+    public enum Outcome {
+        /**
+         * The message can be dispatched.
+         */
+        ALLOW,
+        /**
+         * Drop the message.
+         */
+        DROP,
+        /**
+         * Drop the message and warn the client.
+         */
+        WARN,
+        /**
+         * Drop the message and close the session.
+         */
+        DISCONNECT
+    }
+
+    /**
+     * Limits shared by all sessions. Instances are immutable.
+     */
+    public static final class Limits {
+        private final String[] channels;
+        private final double[] ratesPerNano;
+        private final double[] bursts;
+        private final int warnAfter;
+        private final int disconnectAfter;
+        private final long coolDown;
+
+        private Limits(String[] channels, double[] ratesPerNano, double[] bursts, int warnAfter, int disconnectAfter, long coolDown) {
+            this.channels = channels;
+            this.ratesPerNano = ratesPerNano;
+            this.bursts = bursts;
+            this.warnAfter = warnAfter;
+            this.disconnectAfter = disconnectAfter;
+            this.coolDown = coolDown;
+        }
+
+        /**
+         * Create limits without any channel limit.
+         *
+         * @param warnAfter         Count of violations after which the client is warned, 0 for never
+         * @param disconnectAfter   Count of violations after which the session is closed, 0 for never
+         * @param coolDown          Time in milliseconds without violations after which they are forgotten
+         * @return                  The limits
+         */
+        public static Limits create(int warnAfter, int disconnectAfter, long coolDown) {
+            return new Limits(new String[0], new double[0], new double[0], Math.max(0, warnAfter),
+                    Math.max(0, disconnectAfter), TimeUnit.MILLISECONDS.toNanos(Math.max(0L, coolDown)));
+        }
+
+        /**
+         * Return a copy of the limits with a channel limit added. Channels without limit are not limited.
+         *
+         * @param channel           Channel name
+         * @param messagesPerSecond Rate the channel's bucket is refilled with
+         * @param burst             Maximal count of messages which can be sent at once
+         * @return                  The new limits
+         */
+        public Limits withChannel(String channel, double messagesPerSecond, int burst) {
+            if ((messagesPerSecond <= 0.0) || (burst <= 0)) {
+                return this;
+            }
+            int count = channels.length;
+            String[] newChannels = Arrays.copyOf(channels, count + 1);
+            double[] newRates = Arrays.copyOf(ratesPerNano, count + 1);
+            double[] newBursts = Arrays.copyOf(bursts, count + 1);
+            newChannels[count] = channel;
+            newRates[count] = messagesPerSecond / TimeUnit.SECONDS.toNanos(1);
+            newBursts[count] = burst;
+            return new Limits(newChannels, newRates, newBursts, warnAfter, disconnectAfter, coolDown);
+        }
+
+        /**
+         * Given a configuration value of format "messages per second, burst" return a copy of
+         * the limits with the channel limit added. If the value is missing or invalid then
+         * the given defaults are used.
+         *
+         * @param channel           Channel name
+         * @param value             Configuration value, e.g. "5,10"
+         * @param messagesPerSecond Default rate
+         * @param burst             Default burst
+         * @return                  The new limits
+         */
+        public Limits withChannel(String channel, String value, double messagesPerSecond, int burst) {
+            if (value != null) {
+                String[] parts = value.split(",");
+                try {
+                    messagesPerSecond = Double.parseDouble(parts[0].trim());
+                    burst = (parts.length > 1) ? Integer.parseInt(parts[1].trim()) : (int) Math.ceil(messagesPerSecond);
+                }
+                catch (NumberFormatException ex) {
+                    // keep the defaults
+                }
+            }
+            return withChannel(channel, messagesPerSecond, burst);
+        }
+
+        /**
+         * Does any channel have a limit?
+         */
+        public boolean isEnabled() {
+            return channels.length > 0;
+        }
+
+        private int indexOf(String channel) {
+            for (int i = 0; i < channels.length; i++) {
+                if (channels[i].equals(channel)) {
+                    return i;
+                }
+            }
+            return -1;
+        }
+    }
+
+    private final Limits limits;
+
+    /**
+     * Available tokens and time of last refill per channel, guarded by 'this'
+     */
+    private final double[] tokens;
+    private final long[] lastRefill;
+
+    private int violations = 0;
+    private long lastViolation = 0L;
+
+    private long countAllowed = 0L;
+    private long countDropped = 0L;
+    private long countWarned = 0L;
+
+    /**
+     * Create a rate limiter with full buckets.
+     *
+     * @param limits    Limits
+     * @param now       Current time in nanoseconds, see System.nanoTime
+     */
+    public RateLimiter(Limits limits, long now) {
+        this.limits = limits;
+        this.tokens = limits.bursts.clone();
+        this.lastRefill = new long[limits.channels.length];
+        Arrays.fill(lastRefill, now);
+    }
+
+    /**
+     * Take a token for a message on given channel.
+     *
+     * @param channel   Channel name
+     * @param now       Current time in nanoseconds, see System.nanoTime
+     * @return          The outcome
+     */
+    public synchronized Outcome acquire(String channel, long now) {
+        int index = limits.indexOf(channel);
+        if (index < 0) {
+            countAllowed++;
+            return Outcome.ALLOW;
+        }
+        long elapsed = now - lastRefill[index];
+        if (elapsed > 0L) {
+            tokens[index] = Math.min(limits.bursts[index], tokens[index] + elapsed * limits.ratesPerNano[index]);
+            lastRefill[index] = now;
+        }
+        if (tokens[index] >= 1.0) {
+            tokens[index] -= 1.0;
+            countAllowed++;
+            return Outcome.ALLOW;
+        }
+
+        if ((violations > 0) && (now - lastViolation > limits.coolDown)) {
+            violations = 0;
+        }
+        violations++;
+        lastViolation = now;
+        countDropped++;
+        if ((limits.disconnectAfter > 0) && (violations >= limits.disconnectAfter)) {
+            return Outcome.DISCONNECT;
+        }
+        if (violations == limits.warnAfter) {
+            countWarned++;
+            return Outcome.WARN;
+        }
+        return Outcome.DROP;
+    }
+
+    public synchronized long getCountAllowed() {
+        return countAllowed;
+    }
+
+    /**
+     * Get the count of rejected messages, including the ones which caused a warning or disconnect.
+     */
+    public synchronized long getCountDropped() {
+        return countDropped;
+    }
+
+    public synchronized long getCountWarned() {
+        return countWarned;
+    }
+}
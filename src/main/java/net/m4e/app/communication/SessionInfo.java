@@ -0,0 +1,170 @@
+/*
+ * Copyright (c) 2017-2019 by Botorabi. All rights reserved.
+ * https://github.com/botorabi/Meet4Eat
+ *
+ * License: MIT License (MIT), read the LICENSE text in
+ *          main directory for more details.
+ */
+package net.m4e.app.communication;
+
+import org.jetbrains.annotations.NotNull;
+
+import javax.json.bind.annotation.JsonbTransient;
+
+/**
+ * Statistics of a WebSocket session for exporting to clients.
+ *
+ * @author boto
+ * Date of creation Oct 18, 2026
+ */
+public class SessionInfo {
+
+    private String sessionId;
+    private Long userId;
+    private int queueDepth;
+    private long countSent;
+    private long countDropped;
+    private long countFailed;
+    private long lastLatency;
+    private long averageLatency;
+    private long maxLatency;
+    private long lastRoundTripMicros;
+    private long averageRoundTripMicros;
+    private long maxRoundTripMicros;
+    private long countRateLimited;
+
+    public SessionInfo() {
+    }
+
+    public String getSessionId() {
+        return sessionId;
+    }
+
+    public void setSessionId(String sessionId) {
+        this.sessionId = sessionId;
+    }
+
+    public Long getUserId() {
+        return userId;
+    }
+
+    public void setUserId(Long userId) {
+        this.userId = userId;
+    }
+
+    public int getQueueDepth() {
+        return queueDepth;
+    }
+
+    public void setQueueDepth(int queueDepth) {
+        this.queueDepth = queueDepth;
+    }
+
+    public long getCountSent() {
+        return countSent;
+    }
+
+    public void setCountSent(long countSent) {
+        this.countSent = countSent;
+    }
+
+    public long getCountDropped() {
+        return countDropped;
+    }
+
+    public void setCountDropped(long countDropped) {
+        this.countDropped = countDropped;
+    }
+
+    public long getCountFailed() {
+        return countFailed;
+    }
+
+    public void setCountFailed(long countFailed) {
+        this.countFailed = countFailed;
+    }
+
+    public long getLastLatency() {
+        return lastLatency;
+    }
+
+    public void setLastLatency(long lastLatency) {
+        this.lastLatency = lastLatency;
+    }
+
+    public long getAverageLatency() {
+        return averageLatency;
+    }
+
+    public void setAverageLatency(long averageLatency) {
+        this.averageLatency = averageLatency;
+    }
+
+    public long getMaxLatency() {
+        return maxLatency;
+    }
+
+    public void setMaxLatency(long maxLatency) {
+        this.maxLatency = maxLatency;
+    }
+
+    public long getLastRoundTripMicros() {
+        return lastRoundTripMicros;
+    }
+
+    public void setLastRoundTripMicros(long lastRoundTripMicros) {
+        this.lastRoundTripMicros = lastRoundTripMicros;
+    }
+
+    public long getAverageRoundTripMicros() {
+        return averageRoundTripMicros;
+    }
+
+    public void setAverageRoundTripMicros(long averageRoundTripMicros) {
+        this.averageRoundTripMicros = averageRoundTripMicros;
+    }
+
+    public long getMaxRoundTripMicros() {
+        return maxRoundTripMicros;
+    }
+
+    public void setMaxRoundTripMicros(long maxRoundTripMicros) {
+        this.maxRoundTripMicros = maxRoundTripMicros;
+    }
+
+    public long getCountRateLimited() {
+        return countRateLimited;
+    }
+
+    public void setCountRateLimited(long countRateLimited) {
+        this.countRateLimited = countRateLimited;
+    }
+
+    /**
+     * Create the session info out of given outbound queue.
+     *
+     * @param userId    ID of user owning the session
+     * @param queue     Outbound queue of the session
+     * @return          Session info
+     */
+    @JsonbTransient
+    public static SessionInfo fromOutboundQueue(Long userId, @NotNull final OutboundQueue queue) {
+        SessionInfo info = new SessionInfo();
+        info.setSessionId(queue.getSession().getId());
+        info.setUserId(userId);
+        info.setQueueDepth(queue.getQueueDepth());
+        info.setCountSent(queue.getCountSent());
+        info.setCountDropped(queue.getCountDropped());
+        info.setCountFailed(queue.getCountFailed());
+        info.setLastLatency(queue.getLastLatency());
+        info.setAverageLatency(queue.getAverageLatency());
+        info.setMaxLatency(queue.getMaxLatency());
+        info.setLastRoundTripMicros(queue.getLastRoundTrip());
+        info.setAverageRoundTripMicros(queue.getAverageRoundTrip());
+        info.setMaxRoundTripMicros(queue.getMaxRoundTrip());
+        if (queue.getRateLimiter() != null) {
+            info.setCountRateLimited(queue.getRateLimiter().getCountDropped());
+        }
+        return info;
+    }
+}
@@ -0,0 +1,178 @@
+/*
+ * Copyright (c) 2017-2019 by Botorabi. All rights reserved.
+ * https://github.com/botorabi/Meet4Eat
+ *
+ * License: MIT License (MIT), read the LICENSE text in
+ *          main directory for more details.
+ */
+package net.m4e.app.communication;
+
+import java.util.*;
+
+import javax.json.JsonObject;
+import javax.json.JsonString;
+import javax.json.JsonValue;
+
+/**
+ * The notifications a WebSocket session wants to get, declared by the client with the
+ * system command 'subscribe':
+ *
+ *   {"channel":"system", "data":{"cmd":"subscribe", "eventIds":["12", "34"], "types":["addvote", "onlinestatus"]}}
+ *
+ * A missing list does not filter, i.e. all events or all types are wanted. Notifications
+ * which do not refer to an event (e.g. 'onlinestatus') are filtered only by type. A session
+ * without subscription gets all notifications.
+ *
+ * Instances are immutable.
+ *
+ * @author boto
+ * Date of creation Oct 18, 2026
+ */
+public final class Subscription {
+
+    /**
+     * Sorted event IDs, null for all events
+     */
+    private final long[] eventIds;
+
+    /**
+     * Notification types, null for all types
+     */
+    private final Set<String> types;
+
+    private Subscription(long[] eventIds, Set<String> types) {
+        this.eventIds = eventIds;
+        this.types = types;
+    }
+
+    /**
+     * Create a subscription. Invalid event IDs are ignored.
+     *
+     * @param eventIds  Event IDs, null for all events
+     * @param types     Notification types, null for all types
+     * @return          The subscription
+     */
+    public static Subscription of(Collection<String> eventIds, Collection<String> types) {
+        long[] ids = null;
+        if (eventIds != null) {
+            ids = eventIds.stream()
+                    .map(Subscription::parseId)
+                    .filter(Objects::nonNull)
+                    .mapToLong(Long::longValue)
+                    .sorted()
+                    .distinct()
+                    .toArray();
+        }
+        return new Subscription(ids, (types != null) ? Collections.unmodifiableSet(new HashSet<>(types)) : null);
+    }
+
+    /**
+     * Does the subscription filter anything?
+     *
+     * @return Return true if all notifications are wanted.
+     */
+    public boolean isUnfiltered() {
+        return (eventIds == null) && (types == null);
+    }
+
+    /**
+     * Check if a notification is wanted.
+     *
+     * @param type      Notification type, may be null
+     * @param eventId   ID of the event the notification refers to, null if it refers to no event
+     * @return          Return true if the notification is wanted.
+     */
+    public boolean accepts(String type, Long eventId) {
+        if ((types != null) && ((type == null) || !types.contains(type))) {
+            return false;
+        }
+        return (eventId == null) || (eventIds == null) || (Arrays.binarySearch(eventIds, eventId) >= 0);
+    }
+
+    /**
+     * Get the subscribed event IDs.
+     *
+     * @return Event IDs, or null if all events are subscribed
+     */
+    public List<String> getEventIds() {
+        if (eventIds == null) {
+            return null;
+        }
+        List<String> ids = new ArrayList<>(eventIds.length);
+        for (long id: eventIds) {
+            ids.add(Long.toString(id));
+        }
+        return ids;
+    }
+
+    /**
+     * Get the subscribed notification types.
+     *
+     * @return Types, or null if all types are subscribed
+     */
+    public List<String> getTypes() {
+        return (types != null) ? new ArrayList<>(types) : null;
+    }
+
+    /**
+     * Get the type of a notification packet.
+     *
+     * @param packet    Notification packet
+     * @return          The type, or null if the packet has none
+     */
+    static String getNotificationType(Packet<?> packet) {
+        Object data = packet.getData();
+        // a JSON object is a map, too
+        if (data instanceof JsonObject) {
+            JsonValue type = ((JsonObject) data).get("type");
+            return (type instanceof JsonString) ? ((JsonString) type).getString() : null;
+        }
+        if (data instanceof Map) {
+            Object type = ((Map<?, ?>) data).get("type");
+            return (type != null) ? type.toString() : null;
+        }
+        return null;
+    }
+
+    /**
+     * Get the ID of the event a notification packet refers to. It is found in the notification's
+     * data, see 'EventNotifications'.
+     *
+     * @param packet    Notification packet
+     * @return          The event ID, or null if the notification refers to no event
+     */
+    static Long getNotificationEventId(Packet<?> packet) {
+        Object data = packet.getData();
+        // a JSON object is a map, too
+        if (data instanceof JsonObject) {
+            JsonValue notificationData = ((JsonObject) data).get("data");
+            if (notificationData instanceof JsonObject) {
+                JsonValue eventId = ((JsonObject) notificationData).get("eventId");
+                if (eventId instanceof JsonString) {
+                    return parseId(((JsonString) eventId).getString());
+                }
+                return (eventId != null) && (eventId.getValueType() == JsonValue.ValueType.NUMBER) ? parseId(eventId.toString()) : null;
+            }
+        }
+        else if (data instanceof Map) {
+            Object notificationData = ((Map<?, ?>) data).get("data");
+            if (notificationData instanceof Map) {
+                Object eventId = ((Map<?, ?>) notificationData).get("eventId");
+                return (eventId != null) ? parseId(eventId.toString()) : null;
+            }
+        }
+        return null;
+    }
+
+    private static Long parseId(String id) {
+        if (id == null) {
+            return null;
+        }
+        try {
+            return Long.parseLong(id.trim());
+        }
+        catch (NumberFormatException ex) {
+            return null;
+        }
+    }
+}
@@ -0,0 +1,63 @@
+/*
+ * Copyright (c) 2017-2019 by Botorabi. All rights reserved.
+ * https://github.com/botorabi/Meet4Eat
+ *
+ * License: MIT License (MIT), read the LICENSE text in
+ *          main directory for more details.
+ */
+package net.m4e.app.communication;
+
+import java.util.*;
+
+/**
+ * Accepted notification subscription of a session for exporting to clients, see 'Subscription'.
+ *
+ * @author boto
+ * Date of creation Oct 18, 2026
+ */
+public class SubscriptionInfo {
+
+    private String cmd = SystemCommand.CMD_SUBSCRIBE;
+    private List<String> eventIds;
+    private List<String> types;
+
+    public SubscriptionInfo() {
+    }
+
+    public static SubscriptionInfo fromSubscription(Subscription subscription) {
+        SubscriptionInfo info = new SubscriptionInfo();
+        info.setEventIds(subscription.getEventIds());
+        info.setTypes(subscription.getTypes());
+        return info;
+    }
+
+    public String getCmd() {
+        return cmd;
+    }
+
+    public void setCmd(String cmd) {
+        this.cmd = cmd;
+    }
+
+    /**
+     * Get the subscribed event IDs, null if all events are subscribed.
+     */
+    public List<String> getEventIds() {
+        return eventIds;
+    }
+
+    public void setEventIds(List<String> eventIds) {
+        this.eventIds = eventIds;
+    }
+
+    /**
+     * Get the subscribed notification types, null if all types are subscribed.
+     */
+    public List<String> getTypes() {
+        return types;
+    }
+
+    public void setTypes(List<String> types) {
+        this.types = types;
+    }
+}
@@ -0,0 +1,98 @@
+/*
+ * Copyright (c) 2017-2019 by Botorabi. All rights reserved.
+ * https://github.com/botorabi/Meet4Eat
+ *
+ * License: MIT License (MIT), read the LICENSE text in
+ *          main directory for more details.
+ */
+package net.m4e.app.communication;
+
+import java.util.List;
+
+/**
+ * Data of a packet in channel 'system'.
+ *
+ * @author boto
+ * Date of creation Oct 18, 2026
+ */
+public class SystemCommand {
+
+    /**
+     * Command for checking the connection
+     */
+    public final static String CMD_PING = "ping";
+
+    /**
+     * Command for requesting the online status of user's relatives, see 'Presence'
+     */
+    public final static String CMD_PRESENCE = "presence";
+
+    /**
+     * Command for declaring the notifications a session wants to get, see 'Subscription'
+     */
+    public final static String CMD_SUBSCRIBE = "subscribe";
+
+    /**
+     * Command for requesting the chat messages after a sequence number, see 'ChatHistory'
+     */
+    public final static String CMD_CHAT_HISTORY = "chathistory";
+
+    /**
+     * Server sent warning that the client's messages were dropped because of the rate limit, see 'RateLimiter'
+     */
+    public final static String CMD_RATE_LIMIT = "ratelimit";
+
+    private String cmd = "";
+
+    /**
+     * Last presence version known by the client, used by command 'presence'. For command
+     * 'chathistory' it is the sequence number of the last chat message known by the client.
+     */
+    private long since = 0L;
+
+    /**
+     * IDs of events whose notifications are wanted, used by command 'subscribe'.
+     * Null means all events.
+     */
+    private List<String> eventIds;
+
+    /**
+     * Types of wanted notifications, used by command 'subscribe'. Null means all types.
+     */
+    private List<String> types;
+
+    public SystemCommand() {
+    }
+
+    public String getCmd() {
+        return cmd;
+    }
+
+    public void setCmd(String cmd) {
+        this.cmd = cmd;
+    }
+
+    public long getSince() {
+        return since;
+    }
+
+    public void setSince(long since) {
+        this.since = since;
+    }
+
+    public List<String> getEventIds() {
+        return eventIds;
+    }
+
+    public void setEventIds(List<String> eventIds) {
+        this.eventIds = eventIds;
+    }
+
+    public List<String> getTypes() {
+        return types;
+    }
+
+    public void setTypes(List<String> types) {
+        this.types = types;
+    }
+}
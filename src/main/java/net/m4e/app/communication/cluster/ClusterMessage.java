@@ -0,0 +1,126 @@
+/*
+ * Copyright (c) 2017-2019 by Botorabi. All rights reserved.
+ * https://github.com/botorabi/Meet4Eat
+ *
+ * License: MIT License (MIT), read the LICENSE text in
+ *          main directory for more details.
+ */
+package net.m4e.app.communication.cluster;
+
+import java.util.Arrays;
+
+/**
+ * A message exchanged between cluster nodes. Instances are immutable.
+ *
+ * @author boto
+ * Date of creation Oct 18, 2026
+ */
+public final class ClusterMessage {
+
+    /**
+     * Message types
+     */
+    public enum Type {
+        /**
+         * The users got their first connection on the source node
+         */
+        ROUTE_ADD,
+        /**
+         * The users lost their last connection on the source node
+         */
+        ROUTE_REMOVE,
+        /**
+         * A new node asks all other nodes for their connected users
+         */
+        SYNC_REQUEST,
+        /**
+         * A packet to deliver to the given users, the payload is the JSON encoded packet
+         */
+        PACKET,
+        /**
+         * Like PACKET, but the packet is a notification which can be batched by the receiving node
+         */
+        NOTIFICATION
+    }
+
+    private static final long[] NO_USERS = new long[0];
+
+    private final Type type;
+    private final String sourceNode;
+    private final long[] userIds;
+    private final String payload;
+    private final String collapseKey;
+
+    private ClusterMessage(Type type, String sourceNode, long[] userIds, String payload, String collapseKey) {
+        this.type = type;
+        this.sourceNode = sourceNode;
+        this.userIds = (userIds != null) ? userIds : NO_USERS;
+        this.payload = payload;
+        this.collapseKey = collapseKey;
+    }
+
+    /**
+     * Create a routing message.
+     *
+     * @param type          One of ROUTE_ADD, ROUTE_REMOVE or SYNC_REQUEST
+     * @param sourceNode    Node sending the message
+     * @param userIds       Users which were connected or disconnected
+     * @return              The message
+     */
+    public static ClusterMessage route(Type type, String sourceNode, long[] userIds) {
+        return new ClusterMessage(type, sourceNode, userIds, null, null);
+    }
+
+    /**
+     * Create a message carrying a packet.
+     *
+     * @param notification  Pass true if the packet is a notification
+     * @param sourceNode    Node sending the message
+     * @param userIds       Recipients connected to the target node
+     * @param payload       JSON encoded packet
+     * @param collapseKey   Collapse key of the packet, may be null
+     * @return              The message
+     */
+    public static ClusterMessage packet(boolean notification, String sourceNode, long[] userIds, String payload, String collapseKey) {
+        return new ClusterMessage(notification ? Type.NOTIFICATION : Type.PACKET, sourceNode, userIds, payload, collapseKey);
+    }
+
+    /**
+     * Create a message with all fields, used when reading messages from network.
+     */
+    static ClusterMessage create(Type type, String sourceNode, long[] userIds, String payload, String collapseKey) {
+        return new ClusterMessage(type, sourceNode, userIds, payload, collapseKey);
+    }
+
+    public Type getType() {
+        return type;
+    }
+
+    public String getSourceNode() {
+        return sourceNode;
+    }
+
+    /**
+     * Get the user IDs.
+     *
+     * NOTE: the returned array must not be modified.
+     *
+     * @return User IDs
+     */
+    public long[] getUserIds() {
+        return userIds;
+    }
+
+    public String getPayload() {
+        return payload;
+    }
+
+    public String getCollapseKey() {
+        return collapseKey;
+    }
+
+    @Override
+    public String toString() {
+        return type + " from " + sourceNode + " for users " + Arrays.toString(userIds);
+    }
+}
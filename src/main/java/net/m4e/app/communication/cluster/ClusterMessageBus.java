@@ -0,0 +1,57 @@
+/*
+ * Copyright (c) 2017-2019 by Botorabi. All rights reserved.
+ * https://github.com/botorabi/Meet4Eat
+ *
+ * License: MIT License (MIT), read the LICENSE text in
+ *          main directory for more details.
+ */
+package net.m4e.app.communication.cluster;
+
+/**
+ * Transport for messages between the nodes of a Meet4Eat cluster. Every node
+ * holds the WebSocket connections of a part of the users; packets for users
+ * connected to other nodes are forwarded via the bus, see 'ClusterRouter'.
+ *
+ * Implementations are expected to send messages asynchronously and may combine
+ * several messages to the same node into one transfer. Messages to the same node
+ * must be delivered in the order they were sent.
+ *
+ * @author boto
+ * Date of creation Oct 18, 2026
+ */
+public interface ClusterMessageBus {
+
+    /**
+     * Get the unique ID of the local node.
+     *
+     * @return Node ID
+     */
+    String getNodeId();
+
+    /**
+     * Start the bus, from now on received messages are passed to the listener.
+     *
+     * @param listener  Listener for messages coming from other nodes
+     */
+    void start(ClusterMessageListener listener);
+
+    /**
+     * Stop the bus, pending messages may be dropped.
+     */
+    void stop();
+
+    /**
+     * Send a message to all other nodes.
+     *
+     * @param message   Message to send
+     */
+    void broadcast(ClusterMessage message);
+
+    /**
+     * Send a message to the given node.
+     *
+     * @param nodeId    Target node ID
+     * @param message   Message to send
+     */
+    void send(String nodeId, ClusterMessage message);
+}
@@ -0,0 +1,26 @@
+/*
+ * Copyright (c) 2017-2019 by Botorabi. All rights reserved.
+ * https://github.com/botorabi/Meet4Eat
+ *
+ * License: MIT License (MIT), read the LICENSE text in
+ *          main directory for more details.
+ */
+package net.m4e.app.communication.cluster;
+
+/**
+ * Receiver of messages coming from other cluster nodes.
+ *
+ * @author boto
+ * Date of creation Oct 18, 2026
+ */
+@FunctionalInterface
+public interface ClusterMessageListener {
+
+    /**
+     * Called for every message received from another node. It may be called from
+     * any thread, also concurrently.
+     *
+     * @param message   Received message
+     */
+    void onMessage(ClusterMessage message);
+}
@@ -0,0 +1,238 @@
+/*
+ * Copyright (c) 2017-2019 by Botorabi. All rights reserved.
+ * https://github.com/botorabi/Meet4Eat
+ *
+ * License: MIT License (MIT), read the LICENSE text in
+ *          main directory for more details.
+ */
+package net.m4e.app.communication.cluster;
+
+import java.lang.invoke.MethodHandles;
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Routes packets to users connected to other cluster nodes. Every node announces
+ * its users going online and offline on the bus, so all nodes hold a routing table
+ * with the nodes each user is connected to. A packet for many recipients results in
+ * only one message per node, which carries the recipients connected to that node.
+ *
+ * When a node starts it asks all other nodes for their connected users. The request
+ * also tells the other nodes to forget all stale routes to the starting node.
+ *
+ * @author boto
+ * Date of creation Oct 18, 2026
+ */
+public class ClusterRouter implements ClusterMessageListener {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(MethodHandles.lookup().lookupClass());
+
+    /**
+     * Delivers packets received from other nodes to the local WebSocket sessions.
+     */
+    @FunctionalInterface
+    public interface LocalDelivery {
+        /**
+         * Deliver a packet.
+         *
+         * @param payload       JSON encoded packet
+         * @param userIds       Recipients
+         * @param collapseKey   Collapse key of the packet, may be null
+         * @param notification  True if the packet is a notification
+         */
+        void deliver(String payload, List<Long> userIds, String collapseKey, boolean notification);
+    }
+
+    private final ClusterMessageBus bus;
+
+    private final LocalDelivery localDelivery;
+
+    private final Supplier<Collection<Long>> localUsers;
+
+    /**
+     * IDs of nodes a user is connected to, by user ID. The node sets are never modified
+     * once published.
+     */
+    private final ConcurrentMap<Long, Set<String>> routes = new ConcurrentHashMap<>();
+
+    private final AtomicLong countForwarded = new AtomicLong();
+    private final AtomicLong countReceived = new AtomicLong();
+
+    /**
+     * Create a router.
+     *
+     * @param bus           Cluster message bus
+     * @param localDelivery Delivery of packets received from other nodes
+     * @param localUsers    Provides the IDs of all users connected to the local node
+     */
+    public ClusterRouter(ClusterMessageBus bus, LocalDelivery localDelivery, Supplier<Collection<Long>> localUsers) {
+        this.bus = bus;
+        this.localDelivery = localDelivery;
+        this.localUsers = localUsers;
+    }
+
+    /**
+     * Start the bus and fetch the routes of other nodes.
+     */
+    public void start() {
+        bus.start(this);
+        bus.broadcast(ClusterMessage.route(ClusterMessage.Type.SYNC_REQUEST, bus.getNodeId(), null));
+        LOGGER.info("Cluster node {} started", bus.getNodeId());
+    }
+
+    /**
+     * Stop the bus.
+     */
+    public void stop() {
+        bus.stop();
+    }
+
+    /**
+     * Get the local node ID.
+     *
+     * @return Node ID
+     */
+    public String getNodeId() {
+        return bus.getNodeId();
+    }
+
+    /**
+     * Announce a user who got the first connection to the local node.
+     *
+     * @param userId    User ID
+     */
+    public void localUserConnected(Long userId) {
+        bus.broadcast(ClusterMessage.route(ClusterMessage.Type.ROUTE_ADD, bus.getNodeId(), new long[]{userId}));
+    }
+
+    /**
+     * Announce a user who lost the last connection to the local node.
+     *
+     * @param userId    User ID
+     */
+    public void localUserDisconnected(Long userId) {
+        bus.broadcast(ClusterMessage.route(ClusterMessage.Type.ROUTE_REMOVE, bus.getNodeId(), new long[]{userId}));
+    }
+
+    /**
+     * Is the user connected to any other node?
+     *
+     * @param userId    User ID
+     * @return          Return true if the user is connected to another node.
+     */
+    public boolean isConnectedRemotely(Long userId) {
+        return routes.containsKey(userId);
+    }
+
+    /**
+     * Forward a packet to all recipients connected to other nodes.
+     *
+     * @param payload       JSON encoded packet
+     * @param recipientIds  Recipients, the ones not connected to other nodes are ignored
+     * @param collapseKey   Collapse key of the packet, may be null
+     * @param notification  True if the packet is a notification
+     */
+    public void forward(String payload, List<Long> recipientIds, String collapseKey, boolean notification) {
+        Map<String, List<Long>> recipientsByNode = new HashMap<>();
+        recipientIds.forEach(id -> {
+            Set<String> nodes = routes.get(id);
+            if (nodes != null) {
+                nodes.forEach(node -> recipientsByNode.computeIfAbsent(node, n -> new ArrayList<>()).add(id));
+            }
+        });
+        recipientsByNode.forEach((node, ids) -> {
+            long[] userIds = ids.stream().mapToLong(Long::longValue).toArray();
+            bus.send(node, ClusterMessage.packet(notification, bus.getNodeId(), userIds, payload, collapseKey));
+            countForwarded.incrementAndGet();
+        });
+    }
+
+    /**
+     * Get the count of messages forwarded to other nodes.
+     */
+    public long getCountForwarded() {
+        return countForwarded.get();
+    }
+
+    /**
+     * Get the count of messages received from other nodes.
+     */
+    public long getCountReceived() {
+        return countReceived.get();
+    }
+
+    /**
+     * Get the count of users connected to other nodes.
+     */
+    public int getRemoteUserCount() {
+        return routes.size();
+    }
+
+    @Override
+    public void onMessage(ClusterMessage message) {
+        countReceived.incrementAndGet();
+        String node = message.getSourceNode();
+        switch (message.getType()) {
+            case ROUTE_ADD:
+                for (long userId: message.getUserIds()) {
+                    addRoute(userId, node);
+                }
+                break;
+
+            case ROUTE_REMOVE:
+                for (long userId: message.getUserIds()) {
+                    removeRoute(userId, node);
+                }
+                break;
+
+            case SYNC_REQUEST:
+                // the node was (re-)started, so all known routes to it are stale
+                new ArrayList<>(routes.keySet()).forEach(userId -> removeRoute(userId, node));
+                long[] userIds = localUsers.get().stream().mapToLong(Long::longValue).toArray();
+                if (userIds.length > 0) {
+                    bus.send(node, ClusterMessage.route(ClusterMessage.Type.ROUTE_ADD, bus.getNodeId(), userIds));
+                }
+                break;
+
+            case PACKET:
+            case NOTIFICATION:
+                List<Long> recipients = new ArrayList<>(message.getUserIds().length);
+                for (long userId: message.getUserIds()) {
+                    recipients.add(userId);
+                }
+                localDelivery.deliver(message.getPayload(), recipients, message.getCollapseKey(),
+                        message.getType() == ClusterMessage.Type.NOTIFICATION);
+                break;
+
+            default:
+                LOGGER.warn("unsupported cluster message: {}", message);
+        }
+    }
+
+    private void addRoute(Long userId, String node) {
+        routes.compute(userId, (id, nodes) -> {
+            if (nodes == null) {
+                return Collections.singleton(node);
+            }
+            Set<String> newNodes = new HashSet<>(nodes);
+            newNodes.add(node);
+            return Collections.unmodifiableSet(newNodes);
+        });
+    }
+
+    private void removeRoute(Long userId, String node) {
+        routes.computeIfPresent(userId, (id, nodes) -> {
+            if (!nodes.contains(node)) {
+                return nodes;
+            }
+            Set<String> newNodes = new HashSet<>(nodes);
+            newNodes.remove(node);
+            return newNodes.isEmpty() ? null : Collections.unmodifiableSet(newNodes);
+        });
+    }
+}
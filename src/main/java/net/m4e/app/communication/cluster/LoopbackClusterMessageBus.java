@@ -0,0 +1,88 @@
+/*
+ * Copyright (c) 2017-2019 by Botorabi. All rights reserved.
+ * https://github.com/botorabi/Meet4Eat
+ *
+ * License: MIT License (MIT), read the LICENSE text in
+ *          main directory for more details.
+ */
+package net.m4e.app.communication.cluster;
+
+import java.util.concurrent.*;
+
+/**
+ * Cluster message bus connecting nodes running in the same JVM, it is meant for
+ * testing multi-node behaviour. All nodes of a cluster share a hub. Messages are
+ * delivered synchronously on the sending thread.
+ *
+ * @author boto
+ * Date of creation Oct 18, 2026
+ */
+public class LoopbackClusterMessageBus implements ClusterMessageBus {
+
+    /**
+     * Nodes connected via loopback buses
+     */
+    public static class Hub {
+        /**
+         * Hub used by default
+         */
+        public static final Hub DEFAULT = new Hub();
+
+        private final ConcurrentMap<String, ClusterMessageListener> nodes = new ConcurrentHashMap<>();
+
+        void deliver(String nodeId, ClusterMessage message) {
+            ClusterMessageListener listener = nodes.get(nodeId);
+            if (listener != null) {
+                listener.onMessage(message);
+            }
+        }
+
+        void broadcast(String senderNodeId, ClusterMessage message) {
+            nodes.forEach((nodeId, listener) -> {
+                if (!nodeId.equals(senderNodeId)) {
+                    listener.onMessage(message);
+                }
+            });
+        }
+    }
+
+    private final Hub hub;
+
+    private final String nodeId;
+
+    /**
+     * Create a bus for a node.
+     *
+     * @param hub       Hub shared by all nodes of the cluster
+     * @param nodeId    Unique node ID
+     */
+    public LoopbackClusterMessageBus(Hub hub, String nodeId) {
+        this.hub = hub;
+        this.nodeId = nodeId;
+    }
+
+    @Override
+    public String getNodeId() {
+        return nodeId;
+    }
+
+    @Override
+    public void start(ClusterMessageListener listener) {
+        hub.nodes.put(nodeId, listener);
+    }
+
+    @Override
+    public void stop() {
+        hub.nodes.remove(nodeId);
+    }
+
+    @Override
+    public void broadcast(ClusterMessage message) {
+        hub.broadcast(nodeId, message);
+    }
+
+    @Override
+    public void send(String targetNodeId, ClusterMessage message) {
+        hub.deliver(targetNodeId, message);
+    }
+}
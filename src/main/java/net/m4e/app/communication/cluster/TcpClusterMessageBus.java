@@ -0,0 +1,402 @@
+/*
+ * Copyright (c) 2017-2019 by Botorabi. All rights reserved.
+ * https://github.com/botorabi/Meet4Eat
+ *
+ * License: MIT License (MIT), read the LICENSE text in
+ *          main directory for more details.
+ */
+package net.m4e.app.communication.cluster;
+
+import java.io.*;
+import java.lang.invoke.MethodHandles;
+import java.net.*;
+import java.nio.charset.StandardCharsets;
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Cluster message bus using plain TCP connections between a fixed set of nodes.
+ * Every node listens on its own address, which is also its node ID, and connects
+ * to the addresses of all peers. Several nodes can run on one machine by using
+ * different ports.
+ *
+ * Messages to a peer are queued and sent by a writer thread; all messages which are
+ * queued while a transfer is in progress are sent together in the next frame.
+ * A frame contains the count of messages followed by the messages:
+ *
+ *   int     message count
+ *   byte    type
+ *   string  source node
+ *   int     user count, followed by the user IDs as longs
+ *   string  payload
+ *   string  collapse key
+ *
+ * Strings are written as int byte length (-1 for null) followed by UTF-8 bytes.
+ *
+ * If a peer is not reachable then the messages for it are dropped.
+ *
+ * @author boto
+ * Date of creation Oct 18, 2026
+ */
+public class TcpClusterMessageBus implements ClusterMessageBus {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(MethodHandles.lookup().lookupClass());
+
+    /**
+     * Maximal count of messages queued for a peer
+     */
+    private static final int MAX_QUEUED_MESSAGES = 10000;
+
+    /**
+     * Maximal count of messages sent in one frame
+     */
+    private static final int MAX_FRAME_MESSAGES = 256;
+
+    /**
+     * Limits protecting the reader against corrupt frames
+     */
+    private static final int MAX_STRING_LENGTH = 16 * 1024 * 1024;
+    private static final int MAX_USER_COUNT = 1024 * 1024;
+
+    private static final long RECONNECT_DELAY = 1000L;
+
+    private static final int CONNECT_TIMEOUT = 2000;
+
+    /**
+     * Connection to a peer node
+     */
+    private class Peer implements Runnable {
+        private final String address;
+        private final BlockingQueue<ClusterMessage> queue = new LinkedBlockingQueue<>(MAX_QUEUED_MESSAGES);
+        private Socket socket;
+        private DataOutputStream output;
+        private long lastConnectAttempt = 0L;
+
+        Peer(String address) {
+            this.address = address;
+        }
+
+        void enqueue(ClusterMessage message) {
+            if (!queue.offer(message)) {
+                countDropped.incrementAndGet();
+            }
+        }
+
+        @Override
+        public void run() {
+            List<ClusterMessage> frame = new ArrayList<>();
+            while (running) {
+                try {
+                    frame.add(queue.take());
+                    queue.drainTo(frame, MAX_FRAME_MESSAGES - 1);
+                    if (ensureConnected()) {
+                        writeFrame(output, frame);
+                        output.flush();
+                        countFrames.incrementAndGet();
+                        countSent.addAndGet(frame.size());
+                    }
+                    else {
+                        countDropped.addAndGet(frame.size());
+                    }
+                }
+                catch (InterruptedException ex) {
+                    Thread.currentThread().interrupt();
+                    break;
+                }
+                catch (IOException ex) {
+                    LOGGER.debug("could not send to cluster node {}, reason: {}", address, ex.getLocalizedMessage());
+                    countDropped.addAndGet(frame.size());
+                    disconnect();
+                }
+                frame.clear();
+            }
+            disconnect();
+        }
+
+        private boolean ensureConnected() {
+            if (socket != null) {
+                return true;
+            }
+            long now = System.currentTimeMillis();
+            if (now - lastConnectAttempt < RECONNECT_DELAY) {
+                return false;
+            }
+            lastConnectAttempt = now;
+            try {
+                Socket newSocket = new Socket();
+                newSocket.setTcpNoDelay(true);
+                newSocket.connect(toSocketAddress(address), CONNECT_TIMEOUT);
+                socket = newSocket;
+                output = new DataOutputStream(new BufferedOutputStream(socket.getOutputStream()));
+                LOGGER.info("connected to cluster node {}", address);
+                return true;
+            }
+            catch (IOException ex) {
+                LOGGER.debug("could not connect to cluster node {}, reason: {}", address, ex.getLocalizedMessage());
+                return false;
+            }
+        }
+
+        private void disconnect() {
+            closeQuietly(socket);
+            socket = null;
+            output = null;
+        }
+    }
+
+    private final String nodeId;
+
+    private final Map<String, Peer> peers = new LinkedHashMap<>();
+
+    private final List<Thread> threads = new CopyOnWriteArrayList<>();
+
+    private final Set<Socket> inboundSockets = ConcurrentHashMap.newKeySet();
+
+    private volatile boolean running = false;
+
+    private ServerSocket serverSocket;
+
+    private ClusterMessageListener listener;
+
+    private final AtomicLong countSent = new AtomicLong();
+    private final AtomicLong countFrames = new AtomicLong();
+    private final AtomicLong countDropped = new AtomicLong();
+
+    /**
+     * Create the bus.
+     *
+     * @param listenAddress     Address of the local node as host:port, it is also the node ID
+     * @param peerAddresses     Addresses of all other nodes as host:port, the local address is ignored
+     */
+    public TcpClusterMessageBus(String listenAddress, Collection<String> peerAddresses) {
+        this.nodeId = listenAddress;
+        peerAddresses.stream()
+                .map(String::trim)
+                .filter(address -> !address.isEmpty() && !address.equals(listenAddress))
+                .forEach(address -> peers.put(address, new Peer(address)));
+    }
+
+    @Override
+    public String getNodeId() {
+        return nodeId;
+    }
+
+    @Override
+    public synchronized void start(ClusterMessageListener listener) {
+        if (running) {
+            return;
+        }
+        this.listener = listener;
+        try {
+            serverSocket = new ServerSocket();
+            serverSocket.setReuseAddress(true);
+            serverSocket.bind(toSocketAddress(nodeId));
+        }
+        catch (IOException ex) {
+            throw new IllegalStateException("could not listen on cluster address " + nodeId, ex);
+        }
+        running = true;
+        startThread("m4e-cluster-acceptor", this::acceptConnections);
+        peers.values().forEach(peer -> startThread("m4e-cluster-writer-" + peer.address, peer));
+    }
+
+    @Override
+    public synchronized void stop() {
+        running = false;
+        closeQuietly(serverSocket);
+        inboundSockets.forEach(TcpClusterMessageBus::closeQuietly);
+        threads.forEach(Thread::interrupt);
+        threads.clear();
+    }
+
+    @Override
+    public void broadcast(ClusterMessage message) {
+        peers.values().forEach(peer -> peer.enqueue(message));
+    }
+
+    @Override
+    public void send(String targetNodeId, ClusterMessage message) {
+        Peer peer = peers.get(targetNodeId);
+        if (peer != null) {
+            peer.enqueue(message);
+        }
+        else {
+            LOGGER.debug("cannot send message to unknown cluster node {}", targetNodeId);
+            countDropped.incrementAndGet();
+        }
+    }
+
+    /**
+     * Get the count of messages sent to other nodes.
+     */
+    public long getCountSent() {
+        return countSent.get();
+    }
+
+    /**
+     * Get the count of frames sent to other nodes, a frame can contain many messages.
+     */
+    public long getCountFrames() {
+        return countFrames.get();
+    }
+
+    /**
+     * Get the count of messages dropped because a node was not reachable or its queue was full.
+     */
+    public long getCountDropped() {
+        return countDropped.get();
+    }
+
+    private void acceptConnections() {
+        while (running) {
+            try {
+                Socket socket = serverSocket.accept();
+                socket.setTcpNoDelay(true);
+                inboundSockets.add(socket);
+                startThread("m4e-cluster-reader-" + socket.getRemoteSocketAddress(), () -> readConnection(socket));
+            }
+            catch (IOException ex) {
+                if (running) {
+                    LOGGER.warn("problem occurred while accepting cluster connections, reason: {}", ex.getLocalizedMessage());
+                }
+            }
+        }
+    }
+
+    private void readConnection(Socket socket) {
+        try (DataInputStream input = new DataInputStream(new BufferedInputStream(socket.getInputStream()))) {
+            while (running) {
+                readFrame(input).forEach(message -> {
+                    try {
+                        listener.onMessage(message);
+                    }
+                    catch (RuntimeException ex) {
+                        LOGGER.warn("problem occurred while handling cluster message {}, reason: {}", message, ex.getLocalizedMessage());
+                    }
+                });
+            }
+        }
+        catch (EOFException ex) {
+            LOGGER.debug("cluster connection closed by {}", socket.getRemoteSocketAddress());
+        }
+        catch (IOException ex) {
+            if (running) {
+                LOGGER.debug("cluster connection to {} lost, reason: {}", socket.getRemoteSocketAddress(), ex.getLocalizedMessage());
+            }
+        }
+        finally {
+            inboundSockets.remove(socket);
+            closeQuietly(socket);
+        }
+    }
+
+    private void startThread(String name, Runnable runnable) {
+        Thread thread = new Thread(runnable, name);
+        thread.setDaemon(true);
+        threads.add(thread);
+        thread.start();
+    }
+
+    /**
+     * Write a frame containing the given messages.
+     *
+     * @param output    Output stream
+     * @param messages  Messages
+     * @throws IOException if the frame could not be written
+     */
+    static void writeFrame(DataOutputStream output, List<ClusterMessage> messages) throws IOException {
+        output.writeInt(messages.size());
+        for (ClusterMessage message: messages) {
+            output.writeByte(message.getType().ordinal());
+            writeString(output, message.getSourceNode());
+            output.writeInt(message.getUserIds().length);
+            for (long userId: message.getUserIds()) {
+                output.writeLong(userId);
+            }
+            writeString(output, message.getPayload());
+            writeString(output, message.getCollapseKey());
+        }
+    }
+
+    /**
+     * Read a frame.
+     *
+     * @param input     Input stream
+     * @return          The messages in frame
+     * @throws IOException if the frame could not be read or is corrupt
+     */
+    static List<ClusterMessage> readFrame(DataInputStream input) throws IOException {
+        int count = input.readInt();
+        if ((count < 0) || (count > MAX_FRAME_MESSAGES)) {
+            throw new IOException("invalid message count in frame: " + count);
+        }
+        List<ClusterMessage> messages = new ArrayList<>(count);
+        ClusterMessage.Type[] types = ClusterMessage.Type.values();
+        for (int i = 0; i < count; i++) {
+            int type = input.readUnsignedByte();
+            if (type >= types.length) {
+                throw new IOException("invalid message type: " + type);
+            }
+            String sourceNode = readString(input);
+            int userCount = input.readInt();
+            if ((userCount < 0) || (userCount > MAX_USER_COUNT)) {
+                throw new IOException("invalid user count: " + userCount);
+            }
+            long[] userIds = new long[userCount];
+            for (int u = 0; u < userCount; u++) {
+                userIds[u] = input.readLong();
+            }
+            String payload = readString(input);
+            String collapseKey = readString(input);
+            messages.add(ClusterMessage.create(types[type], sourceNode, userIds, payload, collapseKey));
+        }
+        return messages;
+    }
+
+    private static void writeString(DataOutputStream output, String value) throws IOException {
+        if (value == null) {
+            output.writeInt(-1);
+            return;
+        }
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        output.writeInt(bytes.length);
+        output.write(bytes);
+    }
+
+    private static String readString(DataInputStream input) throws IOException {
+        int length = input.readInt();
+        if (length == -1) {
+            return null;
+        }
+        if ((length < 0) || (length > MAX_STRING_LENGTH)) {
+            throw new IOException("invalid string length: " + length);
+        }
+        byte[] bytes = new byte[length];
+        input.readFully(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    private static InetSocketAddress toSocketAddress(String address) {
+        int separator = address.lastIndexOf(':');
+        if (separator < 0) {
+            throw new IllegalArgumentException("invalid cluster node address, expected host:port: " + address);
+        }
+        return new InetSocketAddress(address.substring(0, separator), Integer.parseInt(address.substring(separator + 1)));
+    }
+
+    private static void closeQuietly(Closeable closeable) {
+        if (closeable == null) {
+            return;
+        }
+        try {
+            closeable.close();
+        }
+        catch (IOException ex) {
+            LOGGER.trace("could not close cluster connection, reason: {}", ex.getLocalizedMessage());
+        }
+    }
+}
@@ -0,0 +1,103 @@
+/*
+ * Copyright (c) 2017-2019 by Botorabi. All rights reserved.
+ * https://github.com/botorabi/Meet4Eat
+ *
+ * License: MIT License (MIT), read the LICENSE text in
+ *          main directory for more details.
+ */
+package net.m4e.app.event.business;
+
+import javax.json.JsonValue;
+import java.util.*;
+
+/**
+ * Field-level changes of an 'EventInfo' for pushing to clients on the event channel,
+ * see 'EventRevisions'.
+ *
+ * The changes are keyed by the JSON property names of 'EventInfo'. A client can apply
+ * the changes only if its own revision of the event equals 'baseRevision', otherwise
+ * it has to request a resync. A full delta contains all fields and can be applied to
+ * any revision.
+ *
+ * @author boto
+ * Date of creation Oct 18, 2026
+ */
+public class EventDelta {
+
+    /**
+     * Type of an event channel message containing a delta
+     */
+    public final static String TYPE_DELTA = "eventdelta";
+
+    /**
+     * Type of an event channel message requesting a resync
+     */
+    public final static String TYPE_RESYNC = "resync";
+
+    private String type = TYPE_DELTA;
+    private String eventId;
+    private long revision;
+    private long baseRevision;
+    private boolean full;
+    private Map<String, JsonValue> changes = new LinkedHashMap<>();
+
+    public EventDelta() {
+    }
+
+    public String getType() {
+        return type;
+    }
+
+    public void setType(String type) {
+        this.type = type;
+    }
+
+    public String getEventId() {
+        return eventId;
+    }
+
+    public void setEventId(String eventId) {
+        this.eventId = eventId;
+    }
+
+    /**
+     * Get the event revision after applying the changes.
+     */
+    public long getRevision() {
+        return revision;
+    }
+
+    public void setRevision(long revision) {
+        this.revision = revision;
+    }
+
+    /**
+     * Get the event revision the changes are based on.
+     */
+    public long getBaseRevision() {
+        return baseRevision;
+    }
+
+    public void setBaseRevision(long baseRevision) {
+        this.baseRevision = baseRevision;
+    }
+
+    /**
+     * Does the delta contain all fields of the event?
+     */
+    public boolean isFull() {
+        return full;
+    }
+
+    public void setFull(boolean full) {
+        this.full = full;
+    }
+
+    public Map<String, JsonValue> getChanges() {
+        return changes;
+    }
+
+    public void setChanges(Map<String, JsonValue> changes) {
+        this.changes = changes;
+    }
+}
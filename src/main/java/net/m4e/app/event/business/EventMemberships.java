@@ -0,0 +1,473 @@
+/*
+ * Copyright (c) 2017-2019 by Botorabi. All rights reserved.
+ * https://github.com/botorabi/Meet4Eat
+ *
+ * License: MIT License (MIT), read the LICENSE text in
+ *          main directory for more details.
+ */
+package net.m4e.app.event.business;
+
+import net.m4e.app.user.business.UserEntity;
+import net.m4e.common.Entities;
+import org.jetbrains.annotations.NotNull;
+import org.slf4j.*;
+
+import javax.annotation.Resource;
+import javax.enterprise.context.ApplicationScoped;
+import javax.inject.Inject;
+import javax.transaction.*;
+import java.lang.invoke.MethodHandles;
+import java.util.*;
+import java.util.concurrent.*;
+
+
+/**
+ * In-memory index of the owner and members of all active events. It allows routing
+ * event messages, checking event membership and finding user relatives without
+ * touching the database.
+ *
+ * The index is warmed up on application start and kept up to date by 'Events' whenever
+ * an event is created, updated, deleted or its members change. An event which is not
+ * in the index yet is loaded from database on first access. IDs of events which do not
+ * exist or are not active are remembered, too, so invalid event IDs sent by clients do
+ * not cause a database access each time.
+ *
+ * Changes made within a transaction are applied to the index only after the transaction
+ * was committed, so a rollback never leaves uncommitted memberships in the index. The
+ * memberships are taken from the entities when the change is made, and the changes of a
+ * transaction are applied in the order they were made.
+ *
+ * Member and event IDs are held in sorted primitive long arrays. The arrays are never
+ * modified once published, so reads need no locking.
+ *
+ * @author boto
+ * Date of creation Oct 18, 2026
+ */
+@ApplicationScoped
+public class EventMemberships {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(MethodHandles.lookup().lookupClass());
+
+    private static final long[] NO_IDS = new long[0];
+
+    /**
+     * Maximal count of remembered absent events, the set is cleared when exceeding it
+     */
+    private static final int MAX_ABSENT_EVENTS = 10000;
+
+    /**
+     * Owner and members of an event. Instances are immutable.
+     */
+    public static final class Membership {
+        private final long eventId;
+        private final long ownerId;
+        private final long[] memberIds;
+
+        Membership(long eventId, long ownerId, long[] memberIds) {
+            this.eventId = eventId;
+            this.ownerId = ownerId;
+            this.memberIds = memberIds;
+        }
+
+        public long getEventId() {
+            return eventId;
+        }
+
+        public long getOwnerId() {
+            return ownerId;
+        }
+
+        /**
+         * Get the count of members, the owner is not counted unless being a member, too.
+         */
+        public int getMemberCount() {
+            return memberIds.length;
+        }
+
+        /**
+         * Check if the given user is owner or member of the event.
+         *
+         * @param userId    User ID
+         * @return          Return true if the user is owner or member.
+         */
+        public boolean isOwnerOrMember(long userId) {
+            return (ownerId == userId) || contains(memberIds, userId);
+        }
+
+        /**
+         * Get the IDs of owner and all members.
+         *
+         * @return Owner and member IDs, every ID is contained only once
+         */
+        public List<Long> getOwnerAndMemberIds() {
+            List<Long> ids = new ArrayList<>(memberIds.length + 1);
+            ids.add(ownerId);
+            for (long id: memberIds) {
+                if (id != ownerId) {
+                    ids.add(id);
+                }
+            }
+            return ids;
+        }
+    }
+
+    private final Entities entities;
+
+    /**
+     * Memberships by event ID
+     */
+    private final ConcurrentMap<Long, Membership> memberships = new ConcurrentHashMap<>();
+
+    /**
+     * Sorted IDs of events with a user as owner or member, by user ID
+     */
+    private final ConcurrentMap<Long, long[]> userEvents = new ConcurrentHashMap<>();
+
+    /**
+     * IDs of events which were looked up but do not exist or are not active. An ID is removed
+     * when the event is indexed, updated or removed.
+     */
+    private final Set<Long> absentEvents = ConcurrentHashMap.newKeySet();
+
+    /**
+     * Modifications of the index are serialized by this lock
+     */
+    private final Object updateLock = new Object();
+
+    /**
+     * Key of the pending changes stored as resource of the current transaction
+     */
+    private final Object pendingChangesKey = new Object();
+
+    /**
+     * Used for deferring index changes until commit, without it the changes are applied immediately.
+     */
+    @Resource
+    TransactionSynchronizationRegistry transactions;
+
+    /**
+     * Default constructor needed by the container.
+     */
+    protected EventMemberships() {
+        entities = null;
+    }
+
+    /**
+     * Create the index.
+     *
+     * @param entities  The Entities instance
+     */
+    @Inject
+    public EventMemberships(@NotNull Entities entities) {
+        this.entities = entities;
+    }
+
+    /**
+     * Build up the index of all active events.
+     */
+    public void warmUp() {
+        List<EventEntity> events = entities.findAll(EventEntity.class);
+        synchronized (updateLock) {
+            memberships.clear();
+            userEvents.clear();
+            absentEvents.clear();
+            events.forEach(this::index);
+        }
+        LOGGER.info("Event membership index contains {} active events", memberships.size());
+    }
+
+    /**
+     * Get the membership of an event. If the event is not indexed yet then it is
+     * loaded from database.
+     *
+     * @param eventId   Event ID
+     * @return          The membership, or null if the event does not exist or is not active
+     */
+    public Membership getMembership(Long eventId) {
+        if (eventId == null) {
+            return null;
+        }
+        Membership membership = memberships.get(eventId);
+        if ((membership != null) || absentEvents.contains(eventId)) {
+            return membership;
+        }
+        EventEntity event = entities.find(EventEntity.class, eventId);
+        if ((event != null) && isTransactionActive()) {
+            // the event may carry uncommitted changes of the current transaction
+            return createMembership(event);
+        }
+        synchronized (updateLock) {
+            // the event may have been indexed meanwhile
+            membership = memberships.get(eventId);
+            if (membership == null) {
+                membership = (event != null) ? index(event) : null;
+                // a pending removal of the current transaction may be rolled back
+                if ((membership == null) && !hasPendingChanges()) {
+                    if (absentEvents.size() >= MAX_ABSENT_EVENTS) {
+                        absentEvents.clear();
+                    }
+                    absentEvents.add(eventId);
+                }
+            }
+        }
+        return membership;
+    }
+
+    /**
+     * Check if the given user is owner or member of an active event.
+     *
+     * @param eventId   Event ID
+     * @param userId    User ID
+     * @return          Return true if the user is owner or member of the event.
+     */
+    public boolean isOwnerOrMember(Long eventId, Long userId) {
+        Membership membership = getMembership(eventId);
+        return (membership != null) && (userId != null) && membership.isOwnerOrMember(userId);
+    }
+
+    /**
+     * Get the IDs of all active events with given user as owner or member.
+     *
+     * @param userId    User ID
+     * @return          Event IDs
+     */
+    public List<Long> getEventIds(Long userId) {
+        long[] eventIds = userEvents.getOrDefault(userId, NO_IDS);
+        List<Long> ids = new ArrayList<>(eventIds.length);
+        for (long id: eventIds) {
+            ids.add(id);
+        }
+        return ids;
+    }
+
+    /**
+     * Get the relatives of a user: the owners and members of all active events the user is
+     * owner or member of. The user itself is not included.
+     *
+     * @param userId    User ID
+     * @return          IDs of user's relatives
+     */
+    public List<Long> getRelatives(Long userId) {
+        Set<Long> relatives = new HashSet<>();
+        for (long eventId: userEvents.getOrDefault(userId, NO_IDS)) {
+            Membership membership = memberships.get(eventId);
+            if (membership != null) {
+                relatives.add(membership.ownerId);
+                for (long memberId: membership.memberIds) {
+                    relatives.add(memberId);
+                }
+            }
+        }
+        relatives.remove(userId);
+        return new ArrayList<>(relatives);
+    }
+
+    /**
+     * Get the count of indexed events.
+     *
+     * @return Count of events
+     */
+    public int getEventCount() {
+        return memberships.size();
+    }
+
+    /**
+     * Update the index after given event was created or modified. If the event
+     * is not active anymore then it is removed from the index.
+     *
+     * @param event     Event entity
+     */
+    public void update(EventEntity event) {
+        Long eventId = event.getId();
+        if (eventId == null) {
+            return;
+        }
+        Membership membership = createMembership(event);
+        applyAfterCommit(() -> replace(eventId, membership));
+    }
+
+    /**
+     * Remove an event from the index.
+     *
+     * @param eventId   Event ID
+     */
+    public void remove(Long eventId) {
+        if (eventId == null) {
+            return;
+        }
+        applyAfterCommit(() -> replace(eventId, null));
+    }
+
+    /**
+     * Apply an index change once the current transaction was committed. If there is no
+     * active transaction then the change is applied immediately.
+     *
+     * @param change    Index change
+     */
+    @SuppressWarnings("unchecked")
+    private void applyAfterCommit(Runnable change) {
+        if (!isTransactionActive()) {
+            change.run();
+            return;
+        }
+        List<Runnable> pendingChanges = (List<Runnable>) transactions.getResource(pendingChangesKey);
+        if (pendingChanges == null) {
+            List<Runnable> changes = new ArrayList<>();
+            transactions.putResource(pendingChangesKey, changes);
+            transactions.registerInterposedSynchronization(new Synchronization() {
+                @Override
+                public void beforeCompletion() {
+                }
+
+                @Override
+                public void afterCompletion(int status) {
+                    if (status == Status.STATUS_COMMITTED) {
+                        changes.forEach(Runnable::run);
+                    }
+                }
+            });
+            pendingChanges = changes;
+        }
+        pendingChanges.add(change);
+    }
+
+    private boolean isTransactionActive() {
+        return (transactions != null) && (transactions.getTransactionStatus() == Status.STATUS_ACTIVE);
+    }
+
+    private boolean hasPendingChanges() {
+        return isTransactionActive() && (transactions.getResource(pendingChangesKey) != null);
+    }
+
+    /**
+     * Replace the index entry of an event.
+     *
+     * @param eventId       Event ID
+     * @param membership    New membership, null for removing the event from index
+     */
+    private void replace(Long eventId, Membership membership) {
+        synchronized (updateLock) {
+            absentEvents.remove(eventId);
+            unindex(memberships.remove(eventId));
+            if (membership != null) {
+                add(membership);
+            }
+        }
+    }
+
+    /**
+     * Replace the index entry of given event. Must be called while holding the update lock.
+     *
+     * @param event     Event entity
+     * @return          The new membership, or null if the event is not active
+     */
+    private Membership index(EventEntity event) {
+        unindex(memberships.remove(event.getId()));
+        Membership membership = createMembership(event);
+        if (membership != null) {
+            add(membership);
+        }
+        return membership;
+    }
+
+    /**
+     * Create the membership of given event.
+     *
+     * @param event     Event entity
+     * @return          The membership, or null if the event is not active
+     */
+    private static Membership createMembership(EventEntity event) {
+        if ((event.getStatus() == null) || !event.getStatus().getIsActive() || (event.getStatus().getIdOwner() == null)) {
+            return null;
+        }
+
+        long[] memberIds = NO_IDS;
+        Collection<UserEntity> members = event.getMembers();
+        if (members != null) {
+            memberIds = members.stream()
+                    .map(UserEntity::getId)
+                    .filter(Objects::nonNull)
+                    .mapToLong(Long::longValue)
+                    .sorted()
+                    .distinct()
+                    .toArray();
+        }
+        return new Membership(event.getId(), event.getStatus().getIdOwner(), memberIds);
+    }
+
+    /**
+     * Add a membership to the index. Must be called while holding the update lock.
+     *
+     * @param membership    Membership
+     */
+    private void add(Membership membership) {
+        memberships.put(membership.eventId, membership);
+        addUserEvent(membership.ownerId, membership.eventId);
+        for (long memberId: membership.memberIds) {
+            addUserEvent(memberId, membership.eventId);
+        }
+    }
+
+    /**
+     * Remove the user to event references of given membership. Must be called while holding the update lock.
+     *
+     * @param membership    Membership, may be null
+     */
+    private void unindex(Membership membership) {
+        if (membership == null) {
+            return;
+        }
+        removeUserEvent(membership.ownerId, membership.eventId);
+        for (long memberId: membership.memberIds) {
+            removeUserEvent(memberId, membership.eventId);
+        }
+    }
+
+    private void addUserEvent(long userId, long eventId) {
+        userEvents.put(userId, add(userEvents.getOrDefault(userId, NO_IDS), eventId));
+    }
+
+    private void removeUserEvent(long userId, long eventId) {
+        long[] eventIds = remove(userEvents.getOrDefault(userId, NO_IDS), eventId);
+        if (eventIds.length == 0) {
+            userEvents.remove(userId);
+        }
+        else {
+            userEvents.put(userId, eventIds);
+        }
+    }
+
+    private static boolean contains(long[] sortedIds, long id) {
+        return Arrays.binarySearch(sortedIds, id) >= 0;
+    }
+
+    /**
+     * Return a sorted copy of given array with the ID added, or the array itself if it contains the ID already.
+     */
+    private static long[] add(long[] sortedIds, long id) {
+        int index = Arrays.binarySearch(sortedIds, id);
+        if (index >= 0) {
+            return sortedIds;
+        }
+        index = -(index + 1);
+        long[] ids = new long[sortedIds.length + 1];
+        System.arraycopy(sortedIds, 0, ids, 0, index);
+        ids[index] = id;
+        System.arraycopy(sortedIds, index, ids, index + 1, sortedIds.length - index);
+        return ids;
+    }
+
+    /**
+     * Return a copy of given array without the ID, or the array itself if it does not contain the ID.
+     */
+    private static long[] remove(long[] sortedIds, long id) {
+        int index = Arrays.binarySearch(sortedIds, id);
+        if (index < 0) {
+            return sortedIds;
+        }
+        long[] ids = new long[sortedIds.length - 1];
+        System.arraycopy(sortedIds, 0, ids, 0, index);
+        System.arraycopy(sortedIds, index + 1, ids, index, sortedIds.length - index - 1);
+        return ids;
+    }
+}
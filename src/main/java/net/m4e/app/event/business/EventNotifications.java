@@ -34,6 +34,11 @@ public class EventNotifications {
      */
     private final Event<NotifyUserRelativesEvent> notifyUserRelativesEvent;
 
+    /**
+     * Used for pushing the changes of an event to its members
+     */
+    private final EventRevisions eventRevisions;
+
     /**
      * Used to characterize the change type in a notification
      */
@@ -89,15 +94,20 @@ public class EventNotifications {
      * 
      * @param notifyUsersEvent          Event used for user related notifications
      * @param notifyUserRelativesEvent  Event used for user relatives notifications
+     * @param eventRevisions            Event revisions used for pushing event deltas
      */
     @Inject
-    public EventNotifications(Event<NotifyUsersEvent> notifyUsersEvent, Event<NotifyUserRelativesEvent> notifyUserRelativesEvent) {
+    public EventNotifications(Event<NotifyUsersEvent> notifyUsersEvent,
+                              Event<NotifyUserRelativesEvent> notifyUserRelativesEvent,
+                              EventRevisions eventRevisions) {
         this.notifyUsersEvent = notifyUsersEvent;
         this.notifyUserRelativesEvent = notifyUserRelativesEvent;
+        this.eventRevisions = eventRevisions;
     }
 
     /**
-     * Notify about adding/removing an event.
+     * Notify about adding/removing an event. The changed fields of an added or modified
+     * event are pushed to the members, too.
      * 
      * @param changeType    Change type
      * @param event         The event which was added or removed
@@ -106,6 +116,12 @@ public class EventNotifications {
     public void sendNotifyEventChanged(ChangeType changeType, UserEntity user, EventEntity event) {
         Map<String, Object> data = new HashMap<>();
         data.put("eventId", event.getId().toString());
+        if (changeType == ChangeType.Remove) {
+            eventRevisions.remove(event.getId());
+        }
+        else {
+            data.put("revision", eventRevisions.publish(user, event));
+        }
 
         Notification notification = new Notification("Event",
                 "Event was " + changeType.pastForm() + ".",
@@ -116,7 +132,8 @@ public class EventNotifications {
     }
 
     /**
-     * Notify event members about adding/removing a location.
+     * Notify event members about adding/removing a location. The changed event fields
+     * are pushed to the members, too.
      * 
      * @param changeType    Change type
      * @param user          User sending the notification
@@ -127,6 +144,7 @@ public class EventNotifications {
         Map<String, Object> data = new HashMap<>();
         data.put("eventId", event.getId().toString());
         data.put("locationId", locationId.toString());
+        data.put("revision", eventRevisions.publish(user, event));
 
         Notification notification = new Notification("Event Location",
                 "Location was " + changeType.pastForm() + ".",
@@ -161,7 +179,8 @@ public class EventNotifications {
     }
 
     /**
-     * Notify event members about adding/removing a member.
+     * Notify event members about adding/removing a member. The changed event fields
+     * are pushed to the members, too.
      * 
      * @param changeType    Change type
      * @param user          User sending the notification
@@ -172,6 +191,7 @@ public class EventNotifications {
         Map<String, Object> data = new HashMap<>();
         data.put("eventId", event.getId().toString());
         data.put("memberId", memberId.toString());
+        data.put("revision", eventRevisions.publish(user, event));
 
         Notification notification = new Notification("Event Member",
                 "Member was " + changeType.pastForm() + ".", changeType.value() + "member", data);
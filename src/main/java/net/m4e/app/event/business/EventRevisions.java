@@ -0,0 +1,325 @@
+/*
+ * Copyright (c) 2017-2019 by Botorabi. All rights reserved.
+ * https://github.com/botorabi/Meet4Eat
+ *
+ * License: MIT License (MIT), read the LICENSE text in
+ *          main directory for more details.
+ */
+package net.m4e.app.event.business;
+
+import net.m4e.app.communication.*;
+import net.m4e.app.user.business.UserEntity;
+import org.jetbrains.annotations.NotNull;
+import org.slf4j.*;
+
+import javax.enterprise.context.ApplicationScoped;
+import javax.inject.Inject;
+import javax.json.*;
+import javax.json.spi.JsonProvider;
+import java.io.StringReader;
+import java.lang.invoke.MethodHandles;
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.LongSupplier;
+
+
+/**
+ * Keeps a revision of every changed event and pushes field-level deltas of its 'EventInfo'
+ * to the owner and members on the event channel. Clients then need not fetch the whole
+ * event via REST after every change notification.
+ *
+ * Every change increments the event revision. A delta carries the revision it is based on,
+ * a client which missed a delta can send an event message of type 'resync' with its last
+ * known revision:
+ *
+ *   {"channel":"event", "data":{"type":"resync", "data":{"eventId":"42", "revision":"1234"}}}
+ *
+ * It then gets all changes since that revision merged into one delta, or a full delta
+ * if the changes are not held in the change log anymore.
+ *
+ * Revisions are kept in memory only. The first revision of an event is taken from the
+ * clock in milliseconds, so revisions keep increasing across server restarts. Revisions
+ * are node local in a cluster.
+ *
+ * @author boto
+ * Date of creation Oct 18, 2026
+ */
+@ApplicationScoped
+public class EventRevisions {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(MethodHandles.lookup().lookupClass());
+
+    /**
+     * Maximal count of deltas held per event
+     */
+    private final static int MAX_CHANGE_LOG = 32;
+
+    /**
+     * The provider is looked up only once, every lookup via 'Json' scans the class path.
+     */
+    private static final JsonProvider PROVIDER = JsonProvider.provider();
+
+    /**
+     * A recorded change of an event
+     */
+    private static class Change {
+        private final long baseRevision;
+        private final long revision;
+        private final Map<String, JsonValue> fields;
+
+        Change(long baseRevision, long revision, Map<String, JsonValue> fields) {
+            this.baseRevision = baseRevision;
+            this.revision = revision;
+            this.fields = fields;
+        }
+    }
+
+    /**
+     * Revision, latest snapshot and recent changes of an event, guarded by the instance
+     */
+    private static class History {
+        private long revision = 0L;
+        private Map<String, JsonValue> snapshot;
+        private final Deque<Change> changeLog = new ArrayDeque<>();
+    }
+
+    private final Events events;
+
+    private final EventMemberships eventMemberships;
+
+    private final ConnectedClients connections;
+
+    /**
+     * Histories by event ID
+     */
+    private final ConcurrentMap<Long, History> histories = new ConcurrentHashMap<>();
+
+    private LongSupplier clock = System::currentTimeMillis;
+
+    private final AtomicLong countDeltas = new AtomicLong();
+    private final AtomicLong countResyncs = new AtomicLong();
+    private final AtomicLong countFullResyncs = new AtomicLong();
+
+    /**
+     * Default constructor needed by the container.
+     */
+    protected EventRevisions() {
+        events = null;
+        eventMemberships = null;
+        connections = null;
+    }
+
+    /**
+     * Create the revisions.
+     *
+     * @param events            Events
+     * @param eventMemberships  Event memberships, used for finding the delta recipients
+     * @param connections       Connected clients
+     */
+    @Inject
+    public EventRevisions(@NotNull Events events, @NotNull EventMemberships eventMemberships, @NotNull ConnectedClients connections) {
+        this.events = events;
+        this.eventMemberships = eventMemberships;
+        this.connections = connections;
+    }
+
+    /**
+     * Set the clock used for the first revision of an event.
+     *
+     * @param clock     Clock returning the current time in milliseconds
+     */
+    public void setClock(LongSupplier clock) {
+        this.clock = clock;
+    }
+
+    /**
+     * Record the current state of given event and push the changed fields to its
+     * owner and members. Nothing is pushed if no field has changed.
+     *
+     * @param sender    User who changed the event, may be null
+     * @param event     The changed event
+     * @return          The event revision, 0 if the event could not be exported
+     */
+    public long publish(UserEntity sender, @NotNull EventEntity event) {
+        Map<String, JsonValue> fields = exportFields(event);
+        if (fields == null) {
+            return 0L;
+        }
+        History history = histories.computeIfAbsent(event.getId(), id -> new History());
+        EventDelta delta;
+        synchronized (history) {
+            delta = record(history, fields);
+            if (delta == null) {
+                return history.revision;
+            }
+        }
+        delta.setEventId(event.getId().toString());
+        countDeltas.incrementAndGet();
+
+        EventMemberships.Membership membership = eventMemberships.getMembership(event.getId());
+        if (membership != null) {
+            String senderId = (sender != null) ? sender.getId().toString() : "0";
+            String senderName = (sender != null) ? sender.getName() : "";
+            Packet<EventDelta> packet = new Packet<>(Packet.CHANNEL_EVENT, senderId, senderName, delta);
+            packet.setTime((new Date()).getTime());
+            connections.sendPacket(packet, membership.getOwnerAndMemberIds());
+        }
+        return delta.getRevision();
+    }
+
+    /**
+     * Get the changes of an event since given revision.
+     *
+     * @param eventId       Event ID
+     * @param sinceRevision Last revision known by the client, pass 0 for getting a full delta
+     * @return              The changes since given revision merged into one delta, a full delta if
+     *                       they are not available anymore, or null if the event does not exist.
+     */
+    public EventDelta resync(@NotNull Long eventId, long sinceRevision) {
+        countResyncs.incrementAndGet();
+        History history = histories.get(eventId);
+        if (history == null) {
+            EventEntity event = events.findEvent(eventId);
+            if ((event == null) || !event.getStatus().getIsActive()) {
+                return null;
+            }
+            Map<String, JsonValue> fields = exportFields(event);
+            if (fields == null) {
+                return null;
+            }
+            history = histories.computeIfAbsent(eventId, id -> new History());
+            synchronized (history) {
+                // the history may have been created by a change meanwhile
+                if (history.snapshot == null) {
+                    record(history, fields);
+                }
+            }
+        }
+
+        EventDelta delta = new EventDelta();
+        delta.setEventId(eventId.toString());
+        synchronized (history) {
+            delta.setRevision(history.revision);
+            Change oldest = history.changeLog.peekFirst();
+            if ((sinceRevision > 0L) && (sinceRevision <= history.revision) &&
+                    ((sinceRevision == history.revision) || ((oldest != null) && (oldest.baseRevision <= sinceRevision)))) {
+                delta.setBaseRevision(sinceRevision);
+                // the latest value of every field wins
+                history.changeLog.stream()
+                        .filter(change -> change.revision > sinceRevision)
+                        .forEach(change -> delta.getChanges().putAll(change.fields));
+            }
+            else {
+                countFullResyncs.incrementAndGet();
+                delta.setFull(true);
+                delta.getChanges().putAll(history.snapshot);
+            }
+        }
+        return delta;
+    }
+
+    /**
+     * Forget the revisions of an event, e.g. after it was deleted.
+     *
+     * @param eventId   Event ID
+     */
+    public void remove(Long eventId) {
+        if (eventId != null) {
+            histories.remove(eventId);
+        }
+    }
+
+    /**
+     * Get the current revision of an event.
+     *
+     * @param eventId   Event ID
+     * @return          The revision, 0 if the event has no revision yet
+     */
+    public long getRevision(Long eventId) {
+        History history = histories.get(eventId);
+        if (history == null) {
+            return 0L;
+        }
+        synchronized (history) {
+            return history.revision;
+        }
+    }
+
+    /**
+     * Get the count of deltas pushed to clients.
+     */
+    public long getCountDeltas() {
+        return countDeltas.get();
+    }
+
+    /**
+     * Get the count of resync requests.
+     */
+    public long getCountResyncs() {
+        return countResyncs.get();
+    }
+
+    /**
+     * Get the count of resync requests which were answered with a full delta.
+     */
+    public long getCountFullResyncs() {
+        return countFullResyncs.get();
+    }
+
+    /**
+     * Record a new snapshot. Must be called while holding the history's lock.
+     *
+     * @param history   Event history
+     * @param fields    Current fields of the event
+     * @return          The delta to the previous snapshot, or null if nothing has changed
+     */
+    private EventDelta record(History history, Map<String, JsonValue> fields) {
+        EventDelta delta = new EventDelta();
+        if (history.snapshot == null) {
+            history.revision = Math.max(history.revision + 1L, clock.getAsLong());
+            delta.setFull(true);
+            delta.getChanges().putAll(fields);
+        }
+        else {
+            fields.forEach((name, value) -> {
+                if (!Objects.equals(history.snapshot.get(name), value)) {
+                    delta.getChanges().put(name, value);
+                }
+            });
+            if (delta.getChanges().isEmpty()) {
+                return null;
+            }
+            delta.setBaseRevision(history.revision);
+            history.revision++;
+            history.changeLog.addLast(new Change(history.revision - 1L, history.revision, new HashMap<>(delta.getChanges())));
+            if (history.changeLog.size() > MAX_CHANGE_LOG) {
+                history.changeLog.removeFirst();
+            }
+        }
+        history.snapshot = fields;
+        delta.setRevision(history.revision);
+        return delta;
+    }
+
+    /**
+     * Export the event and return its JSON properties.
+     *
+     * @param event     Event entity
+     * @return          The properties, or null if the event could not be exported
+     */
+    private Map<String, JsonValue> exportFields(EventEntity event) {
+        String json = Connection.JsonBEncoder.toJson(events.exportEvent(event));
+        if (json == null) {
+            LOGGER.warn("could not export event {} for creating a delta", event.getId());
+            return null;
+        }
+        try (JsonReader reader = PROVIDER.createReader(new StringReader(json))) {
+            return new LinkedHashMap<>(reader.readObject());
+        }
+        catch (JsonException | IllegalStateException ex) {
+            LOGGER.warn("could not read exported event {}, reason: {}", event.getId(), ex.getLocalizedMessage());
+            return null;
+        }
+    }
+}
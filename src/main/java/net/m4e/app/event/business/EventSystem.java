@@ -7,8 +7,8 @@
  */
 package net.m4e.app.event.business;
 
+import net.m4e.app.auth.SessionPrincipal;
 import net.m4e.app.communication.*;
-import net.m4e.app.user.business.UserEntity;
 import org.jetbrains.annotations.NotNull;
 import org.slf4j.*;
 
@@ -38,23 +38,29 @@ public class EventSystem {
 
     private final ConnectedClients connections;
 
+    private final EventRevisions eventRevisions;
+
     /**
      * Default constructor for making the container happy.
      */
     protected EventSystem() {
         events = null;
         connections = null;
+        eventRevisions = null;
     }
 
     /**
      * Create the bean and inject the necessary resources.
      * 
-     * @param events    The Events instance
+     * @param events            The Events instance
+     * @param connections       Connected clients
+     * @param eventRevisions    Event revisions used for answering resync requests
      */
     @Inject
-    public EventSystem(@NotNull Events events, @NotNull ConnectedClients connections) {
+    public EventSystem(@NotNull Events events, @NotNull ConnectedClients connections, @NotNull EventRevisions eventRevisions) {
         this.events = events;
         this.connections = connections;
+        this.eventRevisions = eventRevisions;
     }
 
     /**
@@ -72,7 +78,7 @@ public class EventSystem {
      */
     public void dispatchMessage(@ObservesAsync ChannelEventEvent event) {
         Long senderId = event.getSenderId();
-        UserEntity user = connections.getConnectedUser(senderId);
+        SessionPrincipal user = connections.getConnectedUser(senderId);
         if (user == null) {
             LOGGER.warn("invalid sender id detected: " + senderId);
             return;
@@ -81,16 +87,24 @@ public class EventSystem {
         //TODO: we may introduce some sort of package validation in future.
         //       for instance the type of the event notification could be validated.
 
-        Packet<Map<String, Object>> packet = event.getPacket();
-        Map<String, Object> packetData = packet.getData();
-        Map<String, Object> eventData = (Map<String, Object>) packetData.get("data");
-        //TODO does this really work this way? {"data":{"data":{"eventId":"42"}}}
-        String maybeEventId = (String) eventData.getOrDefault("eventId", "");
+        Packet<EventMessage> packet = event.getPacket();
+        EventMessage message = packet.getData();
+        if ((message == null) || (message.getData() == null)) {
+            LOGGER.warn("invalid event message received from user " + senderId + ", ignoring it!");
+            return;
+        }
+        // the packet looks like this: {"channel":"event", "data":{"data":{"eventId":"42"}}}
+        String maybeEventId = message.getData().getEventId();
 
         try {
             if (!maybeEventId.isEmpty()) {
                 Long eventId = Long.parseLong(maybeEventId);
-                sendMessageEvent(user, eventId, packet);
+                if (EventDelta.TYPE_RESYNC.equals(message.getType())) {
+                    sendResync(user, event.getSessionId(), eventId, message.getData().getRevision());
+                }
+                else {
+                    sendMessageEvent(user, eventId, packet);
+                }
             }
             else {
                 LOGGER.warn("invalid receiver event ID detected, ignoring the event message!");
@@ -108,12 +122,36 @@ public class EventSystem {
      * @param eventId       Event ID receiving the message
      * @param packet        Chat packet to send
      */
-    private void sendMessageEvent(UserEntity sender, Long eventId, Packet<Map<String, Object>> packet) {
+    private void sendMessageEvent(SessionPrincipal sender, Long eventId, Packet<EventMessage> packet) {
+        // the members are taken from the membership index, the database is not involved
         Set<Long> receiverIds = events.getMembers(eventId);
-        receiverIds.add(sender.getId());
-        packet.setSourceId(sender.getId().toString());
+        receiverIds.add(sender.getUserId());
+        packet.setSourceId(Long.toString(sender.getUserId()));
         packet.setSource(sender.getName());
         packet.setTime((new Date()).getTime());
         connections.sendPacket(packet, new ArrayList<>(receiverIds));
     }
+
+    /**
+     * Send the changes of an event since given revision to the requesting session. The other
+     * sessions of the user keep their own revision, so they do not get the reply.
+     *
+     * @param user          User requesting the resync
+     * @param sessionId     WebSocket session requesting the resync
+     * @param eventId       Event ID
+     * @param sinceRevision Last event revision known by the session
+     */
+    private void sendResync(SessionPrincipal user, String sessionId, Long eventId, long sinceRevision) {
+        if (!events.getMembers(eventId).contains(user.getUserId())) {
+            LOGGER.warn("user {} requested a resync of event {} without being a member, ignoring it!", user.getUserId(), eventId);
+            return;
+        }
+        EventDelta delta = eventRevisions.resync(eventId, sinceRevision);
+        if (delta == null) {
+            return;
+        }
+        Packet<EventDelta> packet = new Packet<>(Packet.CHANNEL_EVENT, "0", "", delta);
+        packet.setTime((new Date()).getTime());
+        connections.sendPacket(packet, user.getUserId(), sessionId);
+    }
 }
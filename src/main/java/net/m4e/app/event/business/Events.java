@@ -46,6 +46,8 @@ public class Events {
 
     private final ConnectedClients connectedClients;
 
+    private final EventMemberships eventMemberships;
+
     /**
      * Default constructor needed by the container.
      */
@@ -56,6 +58,7 @@ public class Events {
         mails = null;
         documentPool = null;
         connectedClients = null;
+        eventMemberships = null;
     }
 
     /**
@@ -67,13 +70,15 @@ public class Events {
                   @NotNull AppInfos appInfos,
                   @NotNull Mails mails,
                   @NotNull DocumentPool documentPool,
-                  @NotNull ConnectedClients connectedClients) {
+                  @NotNull ConnectedClients connectedClients,
+                  @NotNull EventMemberships eventMemberships) {
         this.entities = entities;
         this.users = users;
         this.appInfos = appInfos;
         this.mails = mails;
         this.documentPool = documentPool;
         this.connectedClients = connectedClients;
+        this.eventMemberships = eventMemberships;
     }
 
     /**
@@ -130,6 +135,7 @@ public class Events {
         event.setMembers(members);
 
         entities.update(event);
+        eventMemberships.update(event);
     }
 
     /**
@@ -139,6 +145,7 @@ public class Events {
      */
     public void deleteEvent(EventEntity event) {
         entities.delete(event);
+        eventMemberships.remove(event.getId());
     }
 
     /**
@@ -148,6 +155,7 @@ public class Events {
      */
     public void updateEvent(EventEntity event) {
         entities.update(event);
+        eventMemberships.update(event);
     }
 
     /**
@@ -218,27 +226,17 @@ public class Events {
 
     /**
      * Given an event ID return the IDs of all of its members (including the owner). If the event was not
-     * found then an empty set is returned.
+     * found or is not active then an empty set is returned. The members are taken from the membership index.
      * 
      * @param eventId   Event ID
      * @return          A set with member IDs
      */
     public Set<Long> getMembers(Long eventId) {
-        Set<Long> memberids = new HashSet();
-        EventEntity event = findEvent(eventId);
-        if ((event == null) || !event.getStatus().getIsActive()) {
-            return memberids;
-        }
-
-        Collection<UserEntity> members = event.getMembers();
-        // avoid duplicate IDs by using a set (the sender can be also the owner or part of the members)
-        memberids.add(event.getStatus().getIdOwner());
-        if (members != null) {
-            members.forEach((m) -> {
-                memberids.add(m.getId());
-            });
+        EventMemberships.Membership membership = eventMemberships.getMembership(eventId);
+        if (membership == null) {
+            return new HashSet<>();
         }
-        return memberids;
+        return new HashSet<>(membership.getOwnerAndMemberIds());
     }
 
     /**
@@ -314,6 +312,7 @@ public class Events {
         }
         status.setDateDeletion((new Date().getTime()));
         entities.update(event);
+        eventMemberships.remove(event.getId());
 
         // update the app stats
         AppInfoEntity appinfo = appInfos.getAppInfoEntity();
@@ -13,7 +13,7 @@ import net.m4e.app.auth.AuthorityConfig;
 import net.m4e.app.event.business.*;
 import net.m4e.app.event.rest.comm.LocationVote;
 import net.m4e.app.notification.NotifyUsersEvent;
-import net.m4e.app.user.business.UserEntity;
+import net.m4e.app.user.business.*;
 import net.m4e.common.*;
 import org.jetbrains.annotations.NotNull;
 import org.slf4j.Logger;
@@ -49,6 +49,8 @@ public class EventLocationVoteRestService {
 
     private final Entities entities;
 
+    private final Users users;
+
     private final EventLocations eventLocations;
 
     private final EventNotifications eventNotifications;
@@ -59,6 +61,7 @@ public class EventLocationVoteRestService {
     protected EventLocationVoteRestService() {
         events = null;
         entities = null;
+        users = null;
         eventLocations = null;
         eventNotifications = null;
     }
@@ -69,10 +72,12 @@ public class EventLocationVoteRestService {
     @Inject
     public EventLocationVoteRestService(@NotNull Events events,
                                         @NotNull Entities entities,
+                                        @NotNull Users users,
                                         @NotNull EventLocations eventLocations,
                                         @NotNull EventNotifications eventNotifications) {
         this.events = events;
         this.entities = entities;
+        this.users = users;
         this.eventLocations = eventLocations;
         this.eventNotifications = eventNotifications;
     }
@@ -86,7 +91,7 @@ public class EventLocationVoteRestService {
     @net.m4e.app.auth.AuthRole(grantRoles={AuthRole.VIRT_ROLE_USER})
     @ApiOperation(value = "Vote/unvote for an event location")
     public GenericResponseResult<LocationVote> setVote(@PathParam("eventId") Long eventId, @PathParam("locationId") Long locationId, @PathParam("vote") Boolean vote, @Context HttpServletRequest request) {
-        UserEntity sessionUser = AuthorityConfig.getInstance().getSessionUser(request);
+        UserEntity sessionUser = users.findSessionUser(AuthorityConfig.getInstance().getSessionPrincipal(request));
         EventEntity event = entities.find(EventEntity.class, eventId);
         if ((event == null) || !event.getStatus().getIsActive()) {
             LOGGER.warn("*** Cannot update event location vote, event does not exit!");
@@ -124,7 +129,7 @@ public class EventLocationVoteRestService {
     @net.m4e.app.auth.AuthRole(grantRoles={AuthRole.VIRT_ROLE_USER})
     @ApiOperation(value = "Get all location votes for a given time range")
     public GenericResponseResult<List<LocationVoteInfo>> getVotesByTime(@PathParam("eventId") Long eventId, @PathParam("timeBegin") Long timeBegin, @PathParam("timeEnd") Long timeEnd, @Context HttpServletRequest request) {
-        UserEntity sessionUser = AuthorityConfig.getInstance().getSessionUser(request);
+        UserEntity sessionUser = users.findSessionUser(AuthorityConfig.getInstance().getSessionPrincipal(request));
         EventEntity event = entities.find(EventEntity.class, eventId);
         if ((event == null) || !event.getStatus().getIsActive()) {
             LOGGER.warn("*** Cannot get event location votes, event does not exit!");
@@ -149,7 +154,7 @@ public class EventLocationVoteRestService {
     @net.m4e.app.auth.AuthRole(grantRoles={AuthRole.VIRT_ROLE_USER})
     @ApiOperation(value = "Get location votes given its ID")
     public GenericResponseResult<LocationVoteInfo> getVotesById(@PathParam("votesId") Long votesId, @Context HttpServletRequest request) {
-        UserEntity sessionUser = AuthorityConfig.getInstance().getSessionUser(request);
+        UserEntity sessionUser = users.findSessionUser(AuthorityConfig.getInstance().getSessionPrincipal(request));
 
         EventLocationVoteEntity locationVotes = entities.find(EventLocationVoteEntity.class, votesId);
         if (locationVotes == null) {
@@ -100,7 +100,7 @@ public class EventRestService {
     @net.m4e.app.auth.AuthRole(grantRoles={AuthRole.VIRT_ROLE_USER})
     @ApiOperation(value = "Create an event")
     public GenericResponseResult<EventId> createEvent(EventCmd eventCmd, @Context HttpServletRequest request) {
-        UserEntity sessionUser = AuthorityConfig.getInstance().getSessionUser(request);
+        UserEntity sessionUser = users.findSessionUser(AuthorityConfig.getInstance().getSessionPrincipal(request));
         EventEntity eventEntity;
         try {
             eventEntity = validator.validateNewEntityInput(eventCmd);
@@ -129,7 +129,7 @@ public class EventRestService {
     @net.m4e.app.auth.AuthRole(grantRoles={AuthRole.VIRT_ROLE_USER})
     @ApiOperation(value = "Modify an event")
     public GenericResponseResult<EventId> edit(@PathParam("id") Long eventId, EventCmd eventCmd, @Context HttpServletRequest request) {
-        UserEntity sessionUser = AuthorityConfig.getInstance().getSessionUser(request);
+        UserEntity sessionUser = users.findSessionUser(AuthorityConfig.getInstance().getSessionPrincipal(request));
         EventId response = new EventId(eventId.toString());
 
         EventEntity updateEvent;
@@ -189,7 +189,7 @@ public class EventRestService {
     @net.m4e.app.auth.AuthRole(grantRoles={AuthRole.VIRT_ROLE_USER})
     @ApiOperation(value = "Delete an event")
     public GenericResponseResult<EventId> remove(@PathParam("id") Long id, @Context HttpServletRequest request) {
-        UserEntity sessionUser = AuthorityConfig.getInstance().getSessionUser(request);
+        UserEntity sessionUser = users.findSessionUser(AuthorityConfig.getInstance().getSessionPrincipal(request));
         EventId response = new EventId(id.toString());
 
         EventEntity event = events.findEvent(id);
@@ -225,7 +225,7 @@ public class EventRestService {
     @net.m4e.app.auth.AuthRole(grantRoles={AuthRole.VIRT_ROLE_USER})
     @ApiOperation(value = "Find an event")
     public GenericResponseResult<EventInfo> find(@PathParam("id") Long eventId, @Context HttpServletRequest request) {
-        UserEntity sessionUser = AuthorityConfig.getInstance().getSessionUser(request);
+        UserEntity sessionUser = users.findSessionUser(AuthorityConfig.getInstance().getSessionPrincipal(request));
         EventInfo response = new EventInfo();
         response.setId(eventId.toString());
 
@@ -251,7 +251,7 @@ public class EventRestService {
     @net.m4e.app.auth.AuthRole(grantRoles={AuthRole.VIRT_ROLE_USER})
     @ApiOperation(value = "Find all events accessible by user")
     public GenericResponseResult<List<EventInfo>> findAllEvents(@Context HttpServletRequest request) {
-        UserEntity sessionUser = AuthorityConfig.getInstance().getSessionUser(request);
+        UserEntity sessionUser = users.findSessionUser(AuthorityConfig.getInstance().getSessionPrincipal(request));
         List<EventEntity> foundEvents = entities.findAll(EventEntity.class);
 
         return createEventsResponse(sessionUser, foundEvents);
@@ -266,7 +266,7 @@ public class EventRestService {
     @net.m4e.app.auth.AuthRole(grantRoles={AuthRole.VIRT_ROLE_USER})
     @ApiOperation(value = "Find all events accessible by user in given range")
     public GenericResponseResult<List<EventInfo>> findRange(@PathParam("from") Integer from, @PathParam("to") Integer to, @Context HttpServletRequest request) {
-        UserEntity sessionUser = AuthorityConfig.getInstance().getSessionUser(request);
+        UserEntity sessionUser = users.findSessionUser(AuthorityConfig.getInstance().getSessionPrincipal(request));
         List<EventEntity> foundEvents = entities.findRange(EventEntity.class, from, to);
 
         return createEventsResponse(sessionUser, foundEvents);
@@ -311,7 +311,7 @@ public class EventRestService {
             return GenericResponseResult.notAcceptable("Failed to add member to event, invalid input.");
         }
 
-        UserEntity sessionUser = AuthorityConfig.getInstance().getSessionUser(request);
+        UserEntity sessionUser = users.findSessionUser(AuthorityConfig.getInstance().getSessionPrincipal(request));
 
         AddRemoveEventMember response = new AddRemoveEventMember(eventId.toString(), memberId.toString());
 
@@ -367,7 +367,7 @@ public class EventRestService {
             return GenericResponseResult.notAcceptable("Failed to remove member from event, invalid input.");
         }
 
-        UserEntity sessionUser = AuthorityConfig.getInstance().getSessionUser(request);
+        UserEntity sessionUser = users.findSessionUser(AuthorityConfig.getInstance().getSessionPrincipal(request));
 
         AddRemoveEventMember response = new AddRemoveEventMember(eventId.toString(), memberId.toString());
 
@@ -435,7 +435,7 @@ public class EventRestService {
 
         Notification notification = JsonbBuilder.create().fromJson(notificationJson, Notification.class);
 
-        eventNotifications.notifyEventMembers(AuthorityConfig.getInstance().getSessionUser(request), event, notification);
+        eventNotifications.notifyEventMembers(users.findSessionUser(AuthorityConfig.getInstance().getSessionPrincipal(request)), event, notification);
 
         return GenericResponseResult.ok("Event members were notified.", response);
     }
@@ -460,7 +460,7 @@ public class EventRestService {
             return GenericResponseResult.notFound("Failed to get event location. Event does not exist.");
         }
 
-        UserEntity sessionUser = AuthorityConfig.getInstance().getSessionUser(request);
+        UserEntity sessionUser = users.findSessionUser(AuthorityConfig.getInstance().getSessionPrincipal(request));
 
         if (!event.getIsPublic() && !users.userIsOwnerOrAdmin(sessionUser, event.getStatus())) {
             LOGGER.warn("*** User was attempting to get event information without proper privilege!");
@@ -499,7 +499,7 @@ public class EventRestService {
             return GenericResponseResult.notFound("Failed to add/update member from event.");
         }
 
-        UserEntity sessionUser = AuthorityConfig.getInstance().getSessionUser(request);
+        UserEntity sessionUser = users.findSessionUser(AuthorityConfig.getInstance().getSessionPrincipal(request));
 
         if (!users.userIsOwnerOrAdmin(sessionUser, event.getStatus())) {
             LOGGER.warn("*** User was attempting to update an event without proper privilege!");
@@ -562,7 +562,7 @@ public class EventRestService {
             return GenericResponseResult.notAcceptable("Failed to remove location from event, invalid input.");
         }
 
-        UserEntity sessionUser = AuthorityConfig.getInstance().getSessionUser(request);
+        UserEntity sessionUser = users.findSessionUser(AuthorityConfig.getInstance().getSessionPrincipal(request));
 
         return checkAndRemoveLocation(eventId, locationId, sessionUser);
     }
@@ -7,7 +7,6 @@
  */
 package net.m4e.app.mailbox.business;
 
-import net.m4e.app.user.business.UserEntity;
 import net.m4e.common.Entities;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -119,39 +118,39 @@ public class Mails {
     /**
      * Get the total count of user's mails.
      * 
-     * @param user  The user
-     * @return      Total count of mails
+     * @param userId  User ID
+     * @return          Total count of mails
      */
-    public long getCountTotalMails(UserEntity user) {
+    public long getCountTotalMails(Long userId) {
         Query query = entityManager.createNamedQuery("MailUserEntity.countMails");
-        query.setParameter(QUERY_PARAM_USER_ID, user.getId());
+        query.setParameter(QUERY_PARAM_USER_ID, userId);
         return (long)query.getSingleResult();
     }
 
     /**
      * Get the count of user's unread mails.
      * 
-     * @param user  The user
-     * @return      The count of unread mails
+     * @param userId  User ID
+     * @return          The count of unread mails
      */
-    public long getCountUnreadMails(UserEntity user) {
+    public long getCountUnreadMails(Long userId) {
         Query query = entityManager.createNamedQuery("MailUserEntity.countUnreadMails");
-        query.setParameter(QUERY_PARAM_USER_ID, user.getId());
+        query.setParameter(QUERY_PARAM_USER_ID, userId);
         return (long)query.getSingleResult();
     }
 
     /**
      * Get user's mails in given range. Pass 0/0 as range in order to get all user mails (limited to 100 mails).
      * 
-     * @param user  User entity
-     * @param from  Range begin
-     * @param to    Range end
-     * @return      User mails in given range
+     * @param userId  User ID
+     * @param from    Range begin
+     * @param to      Range end
+     * @return        User mails in given range
      */
-    public List<Mail> getMails(UserEntity user, int from, int to) {
+    public List<Mail> getMails(Long userId, int from, int to) {
         final int MAX_RANGE = 100;
         TypedQuery<Object[]> query = entityManager.createNamedQuery("MailUserEntity.findMails", Object[].class);
-        query.setParameter(QUERY_PARAM_USER_ID, user.getId());
+        query.setParameter(QUERY_PARAM_USER_ID, userId);
         List<Object[]> results;
         // limit the max range
         if (to > 0 && from >= 0) {
@@ -20,9 +20,9 @@ import javax.ws.rs.core.MediaType;
 import io.swagger.annotations.*;
 import net.m4e.app.auth.AuthRole;
 import net.m4e.app.auth.AuthorityConfig;
+import net.m4e.app.auth.SessionPrincipal;
 import net.m4e.app.mailbox.business.*;
 import net.m4e.app.mailbox.rest.comm.*;
-import net.m4e.app.user.business.UserEntity;
 import net.m4e.common.GenericResponseResult;
 import org.jetbrains.annotations.NotNull;
 import org.slf4j.Logger;
@@ -67,13 +67,13 @@ public class MailRestService {
     @net.m4e.app.auth.AuthRole(grantRoles={AuthRole.VIRT_ROLE_USER})
     @ApiOperation(value = "Get user mails in given range", notes = "Pass 0/0 in order to get all mails")
     public GenericResponseResult<List<Mail>> getMails(@PathParam("from") Integer from, @PathParam("to") Integer to, @Context HttpServletRequest request) {
-        UserEntity sessionUser = AuthorityConfig.getInstance().getSessionUser(request);
-        if (sessionUser == null) {
+        SessionPrincipal principal = AuthorityConfig.getInstance().getSessionPrincipal(request);
+        if (principal == null) {
             LOGGER.error("Cannot retrieve user mails, no user in session found!");
             return GenericResponseResult.unauthorized("Failed to retrieve user mails, no authentication.");
         }
 
-        List<Mail> userMails = mails.getMails(sessionUser, from, to);
+        List<Mail> userMails = mails.getMails(principal.getUserId(), from, to);
 
         return GenericResponseResult.ok("User mails were successfully retrieved.", userMails);
     }
@@ -90,14 +90,14 @@ public class MailRestService {
     @net.m4e.app.auth.AuthRole(grantRoles={AuthRole.VIRT_ROLE_USER})
     @ApiOperation(value = "Get the count of total and unread mails")
     public GenericResponseResult<MailCount> getCount(@Context HttpServletRequest request) {
-        UserEntity sessionUser = AuthorityConfig.getInstance().getSessionUser(request);
-        if (sessionUser == null) {
+        SessionPrincipal principal = AuthorityConfig.getInstance().getSessionPrincipal(request);
+        if (principal == null) {
             LOGGER.error("Cannot retrieve count of mails, no user in session found!");
             return GenericResponseResult.unauthorized("Failed to retrieve count of mails, no authentication.");
         }
 
-        long total  = mails.getCountTotalMails(sessionUser);
-        long unread = mails.getCountUnreadMails(sessionUser);
+        long total  = mails.getCountTotalMails(principal.getUserId());
+        long unread = mails.getCountUnreadMails(principal.getUserId());
         MailCount mailCount = new MailCount(total, unread);
         return GenericResponseResult.ok("Count of mails was successfully retrieved.", mailCount);
     }
@@ -114,13 +114,13 @@ public class MailRestService {
     @net.m4e.app.auth.AuthRole(grantRoles={AuthRole.VIRT_ROLE_USER})
     @ApiOperation(value = "Get the count of unread mails")
     public GenericResponseResult<UnreadMailCount> getCountUnread(@Context HttpServletRequest request) {
-        UserEntity sessionUser = AuthorityConfig.getInstance().getSessionUser(request);
-        if (sessionUser == null) {
+        SessionPrincipal principal = AuthorityConfig.getInstance().getSessionPrincipal(request);
+        if (principal == null) {
             LOGGER.error("Cannot retrieve count of unread mails, no user in session found!");
             return GenericResponseResult.unauthorized("Failed to retrieve count of unread mails, no authentication.");
         }
 
-        long unread = mails.getCountUnreadMails(sessionUser);
+        long unread = mails.getCountUnreadMails(principal.getUserId());
         UnreadMailCount unreadMailCount = new UnreadMailCount(unread);
         return GenericResponseResult.ok("Count of unread mails was successfully retrieved.", unreadMailCount);
     }
@@ -139,15 +139,15 @@ public class MailRestService {
     @net.m4e.app.auth.AuthRole(grantRoles={AuthRole.VIRT_ROLE_USER})
     @ApiOperation(value = "Send a mail to another user")
     public GenericResponseResult<Void> send(NewMailCmd newMail, @Context HttpServletRequest request) {
-        UserEntity sessionUser = AuthorityConfig.getInstance().getSessionUser(request);
-        if (sessionUser == null) {
+        SessionPrincipal principal = AuthorityConfig.getInstance().getSessionPrincipal(request);
+        if (principal == null) {
             LOGGER.error("Cannot create mail, no user in session found!");
             return GenericResponseResult.unauthorized("Failed to create a mail, no authentication.");
         }
 
         MailEntity mail;
         try {
-            mail = validator.validateNewEntityInput(newMail, sessionUser);
+            mail = validator.validateNewEntityInput(newMail, principal);
         }
         catch (Exception ex) {
             LOGGER.warn("Could not send mail, validation failed, reason: {}", ex.getMessage());
@@ -192,14 +192,14 @@ public class MailRestService {
                                                                  MailOperationCmd operation,
                                                                  @Context HttpServletRequest request) {
 
-        final UserEntity sessionUser = AuthorityConfig.getInstance().getSessionUser(request);
-        if (sessionUser == null) {
+        final SessionPrincipal principal = AuthorityConfig.getInstance().getSessionPrincipal(request);
+        if (principal == null) {
             LOGGER.error("Cannot delete user mail, no user in session found!");
             return GenericResponseResult.unauthorized("Failed to delete the mail, no authentication.");
         }
 
         try {
-            final ExcecutedMailOperation excecutedMailOperation = mails.performMailOperation(sessionUser.getId(), id, operation.getOperation());
+            final ExcecutedMailOperation excecutedMailOperation = mails.performMailOperation(principal.getUserId(), id, operation.getOperation());
             return GenericResponseResult.ok("User mails were successfully retrieved.", excecutedMailOperation);
         } catch (Exception ex) {
             LOGGER.warn("Could not perform mail operation {} on {}, reason: {}", operation.getOperation(), id, ex.getMessage());
@@ -7,6 +7,7 @@
  */
 package net.m4e.app.mailbox.rest;
 
+import net.m4e.app.auth.SessionPrincipal;
 import net.m4e.app.mailbox.business.MailEntity;
 import net.m4e.app.mailbox.rest.comm.NewMailCmd;
 import net.m4e.app.user.business.UserEntity;
@@ -60,7 +61,7 @@ public class NewMailValidator {
      * @return               A MailEntity created out of given input
      * @throws Exception     Throws an exception if the validation fails.
      */
-    public MailEntity validateNewEntityInput(NewMailCmd mail, UserEntity sender) throws Exception {
+    public MailEntity validateNewEntityInput(NewMailCmd mail, SessionPrincipal sender) throws Exception {
         if (mail == null) {
             throw new Exception("Failed to send mail, invalid input.");
         }
@@ -89,7 +90,7 @@ public class NewMailValidator {
         mailentity.setSubject(mail.getSubject());
         mailentity.setContent(mail.getContent());
         mailentity.setSendDate((new Date()).getTime());
-        mailentity.setSenderId(sender.getId());
+        mailentity.setSenderId(sender.getUserId());
         mailentity.setSenderName(sender.getName());
 
         return mailentity;
@@ -14,8 +14,10 @@ import javax.ejb.Stateless;
 import javax.enterprise.event.ObservesAsync;
 import javax.inject.Inject;
 
+import net.m4e.app.auth.SessionPrincipal;
 import net.m4e.app.communication.ConnectedClients;
 import net.m4e.app.communication.Packet;
+import net.m4e.app.event.business.EventMemberships;
 import net.m4e.app.user.business.UserEntity;
 import net.m4e.app.user.business.Users;
 import org.slf4j.Logger;
@@ -46,22 +48,30 @@ public class NotifyUsersListener {
      */
     private final Users users;
 
+    /**
+     * Event memberships used for finding user relatives
+     */
+    private final EventMemberships eventMemberships;
+
 
     /**
      * EJB's default constructor. Make the container happy.
      */
     protected NotifyUsersListener() {
         this.users = null;  
+        this.eventMemberships = null;
     }
 
     /**
      * Create the listener.
      *
-     * @param users     Users instance
+     * @param users             Users instance
+     * @param eventMemberships  Event memberships
      */
     @Inject
-    public NotifyUsersListener(Users users) {
+    public NotifyUsersListener(Users users, EventMemberships eventMemberships) {
         this.users = users;
+        this.eventMemberships = eventMemberships;
     }
 
     /**
@@ -78,7 +88,7 @@ public class NotifyUsersListener {
         }
 
         // is a user sending a notification or the system?
-        UserEntity sender = null;
+        SessionPrincipal sender = null;
         Long senderid = event.getSenderId();
         if (senderid != 0L) {
             sender = connections.getConnectedUser(senderid);
@@ -87,7 +97,7 @@ public class NotifyUsersListener {
         // assemble a packet and send it out
         Packet<Map<String, Object>> packet = new Packet<>();
         packet.setChannel(Packet.CHANNEL_NOTIFY);
-        packet.setSourceId((sender != null) && (sender.getId() != null) ? sender.getId().toString() : "");
+        packet.setSourceId((sender != null) ? Long.toString(sender.getUserId()) : "");
         packet.setSource((sender != null) ? sender.getName() : "");
 
         Map<String, Object> data = new HashMap<>();
@@ -97,7 +107,7 @@ public class NotifyUsersListener {
         data.put("data", event.getData());
         packet.setData(data);
 
-        connections.sendPacket(packet, event.getRecipientIds());
+        connections.sendNotification(packet, event.getRecipientIds());
     }
 
     /**
@@ -144,7 +154,7 @@ public class NotifyUsersListener {
 
         packet.setData(data);
 
-        List<Long> recipients = users.getUserRelatives(sender);
-        connections.sendPacket(packet, recipients);
+        List<Long> recipients = eventMemberships.getRelatives(sender.getId());
+        connections.sendNotification(packet, recipients);
     }
 }
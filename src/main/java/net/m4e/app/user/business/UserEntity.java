@@ -7,6 +7,7 @@
  */
 package net.m4e.app.user.business;
 
+import net.m4e.app.auth.AppRoles;
 import net.m4e.app.auth.RoleEntity;
 import net.m4e.app.resources.*;
 import net.m4e.common.*;
@@ -172,6 +173,20 @@ public class UserEntity extends EntityBase implements Serializable, EntityWithPh
         return stringList;
     }
 
+    /**
+     * Get user roles as a role mask, see AppRoles.
+     */
+    public long getRolesAsMask() {
+        long mask = 0L;
+        if (roles == null) {
+            return mask;
+        }
+        for (RoleEntity role: roles) {
+            mask |= AppRoles.bitOf(role.getName());
+        }
+        return mask;
+    }
+
     /**
      * Set user roles.
      */
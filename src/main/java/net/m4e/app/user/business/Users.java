@@ -99,10 +99,7 @@ public class Users {
      * @return          Return true if at least one of given roles matches.
      */
     public boolean checkUserRoles(@NotNull UserEntity user, List<String> roles) {
-        if (user.getRolesAsString().isEmpty() || roles.isEmpty()) {
-            return false;
-        }
-        return user.getRolesAsString().stream().anyMatch((role) -> (roles.contains(role)));
+        return (user.getRolesAsMask() & AppRoles.maskOf(roles)) != 0L;
     }
 
     /**
@@ -283,6 +280,19 @@ public class Users {
         return entities.find(UserEntity.class, id);
     }
 
+    /**
+     * Load the user entity of an authenticated user given its session principal.
+     *
+     * @param principal Session principal, can be null
+     * @return Return user entity if found, otherwise return null.
+     */
+    public UserEntity findSessionUser(@Nullable SessionPrincipal principal) {
+        if (principal == null) {
+            return null;
+        }
+        return entities.find(UserEntity.class, principal.getUserId());
+    }
+
     /**
      * Try to find a user with given login.
      * 
@@ -300,6 +310,16 @@ public class Users {
         return null;
     }
 
+    /**
+     * Get the count of users whose stored password hash starts with given prefix.
+     * 
+     * @param prefix    Prefix of the password hash, e.g. 'PasswordHashing.ADAPTIVE_PREFIX'
+     * @return Count of users
+     */
+    public int getCountUsersWithPasswordPrefix(String prefix) {
+        return entities.getCountByPrefix(UserEntity.class, "password", prefix);
+    }
+
     /**
      * Try to find a user with given email.
      * 
@@ -40,14 +40,18 @@ public class UserAuthenticationRestService {
 
     private final Users users;
 
+    private final PasswordHashing passwordHashing;
+
     /**
      * Create the bean.
      * 
-     * @param users Injected Users instance
+     * @param users             Injected Users instance
+     * @param passwordHashing   Injected password hashing
      */
     @Inject
-    public UserAuthenticationRestService(@NotNull Users users) {
+    public UserAuthenticationRestService(@NotNull Users users, @NotNull PasswordHashing passwordHashing) {
         this.users = users;
+        this.passwordHashing = passwordHashing;
     }
 
     @GET
@@ -58,15 +62,15 @@ public class UserAuthenticationRestService {
     @ApiOperation(value = "Get the authentication state")
     public GenericResponseResult<AuthState> state(@Context HttpServletRequest request) {
         HttpSession session = request.getSession();
-        UserEntity userEntity = (UserEntity)session.getAttribute(AuthorityConfig.SESSION_ATTR_USER);
+        SessionPrincipal principal = AuthorityConfig.getInstance().getSessionPrincipal(session);
         boolean auth = false;
         String  uid = "";
-        if (userEntity != null) {
+        if (principal != null) {
             auth = true;
-            uid = userEntity.getId().toString();
+            uid = Long.toString(principal.getUserId());
         }
 
-        return GenericResponseResult.ok("Authentication state", new AuthState(auth, uid, session.getId()));
+        return GenericResponseResult.ok("Authentication state", new AuthState(auth, uid, session.getId(), passwordHashing.isPasswordHashNeeded()));
     }
 
     @POST
@@ -83,8 +87,7 @@ public class UserAuthenticationRestService {
         LOGGER.trace("User tries to login: " + loginCmd.getLogin());
 
         HttpSession session = request.getSession();
-        Object      user    = session.getAttribute(AuthorityConfig.SESSION_ATTR_USER);
-        if (user != null) {
+        if (AuthorityConfig.getInstance().getSessionPrincipal(session) != null) {
             LOGGER.debug("  User login attempt failed, user is already logged in, user ({})", loginCmd.getLogin());
             return GenericResponseResult.notAcceptable("Failed to login user. A user is already logged in.");
         }
@@ -96,15 +99,24 @@ public class UserAuthenticationRestService {
             return GenericResponseResult.notFound("Failed to login user.");
         }
         // check user password
-        String saltedPassword = AuthorityConfig.getInstance().createPassword(existingUser.getPassword() + session.getId());
-        if (!saltedPassword.contentEquals(loginCmd.getPassword())) {
+        PasswordHashing.Result check = passwordHashing.checkLogin(existingUser.getPassword(), session.getId(),
+                loginCmd.getPassword(), loginCmd.getPasswordHash());
+        if (check.getOutcome() == PasswordHashing.Outcome.BUSY) {
+            LOGGER.debug("  User login attempt failed, password check is busy, user ({})", loginCmd.getLogin());
+            return GenericResponseResult.serviceUnavailable("Failed to login user. Please try again later.");
+        }
+        if (check.getOutcome() != PasswordHashing.Outcome.GRANTED) {
             LOGGER.debug("  User login attempt failed, wrong password, user ({})", loginCmd.getLogin());
             return GenericResponseResult.unauthorized("Failed to login user.");
         }
+        if (check.getUpgradedHash() != null) {
+            LOGGER.debug("  Upgrading the password hash of user ({})", loginCmd.getLogin());
+            existingUser.setPassword(check.getUpgradedHash());
+        }
 
         LOGGER.trace(" User successfully logged in: {}", loginCmd.getLogin());
-        // store the user in client session
-        session.setAttribute(AuthorityConfig.SESSION_ATTR_USER, existingUser);
+        // store the user's principal in client session
+        AuthorityConfig.getInstance().setSessionPrincipal(session, existingUser);
         // update user
         users.updateUserLastLogin(existingUser);
 
@@ -119,8 +131,7 @@ public class UserAuthenticationRestService {
     @ApiOperation(value = "Logout user")
     public GenericResponseResult<Void> logout(@Context HttpServletRequest request) {
         HttpSession session = request.getSession();
-        Object user = session.getAttribute(AuthorityConfig.SESSION_ATTR_USER);
-        if (user == null) {
+        if (AuthorityConfig.getInstance().getSessionPrincipal(session) == null) {
             LOGGER.debug("*** Invalid logout attempt");
             return GenericResponseResult.notAcceptable("Failed to logout user. User was not logged in before.");
         }
@@ -92,7 +92,7 @@ public class UserRestService {
     @net.m4e.app.auth.AuthRole(grantRoles = {AuthRole.USER_ROLE_ADMIN})
     @ApiOperation(value = "Create a new user")
     public GenericResponseResult<UserId> createUser(UserCmd userCmd, @Context HttpServletRequest request) {
-        UserEntity sessionUser = AuthorityConfig.getInstance().getSessionUser(request);
+        UserEntity sessionUser = users.findSessionUser(AuthorityConfig.getInstance().getSessionPrincipal(request));
 
         UserEntity userEntity;
         try {
@@ -118,15 +118,14 @@ public class UserRestService {
     @net.m4e.app.auth.AuthRole(grantRoles = {AuthRole.VIRT_ROLE_GUEST})
     @ApiOperation(value = "Register a new user")
     public GenericResponseResult<UserId> registerUser(UserCmd userCmd, @Context HttpServletRequest request) {
-        UserEntity sessionUser = AuthorityConfig.getInstance().getSessionUser(request);
-        if (sessionUser != null) {
+        if (AuthorityConfig.getInstance().getSessionPrincipal(request) != null) {
             LOGGER.error("*** an already authenticated user tries a user registration!");
             return GenericResponseResult.notAcceptable("Failed to register user, logout first.");
         }
 
         UserEntity userEntity;
         try {
-            userEntity = validator.validateNewEntityInput(sessionUser, userCmd);
+            userEntity = validator.validateNewEntityInput(null, userCmd);
         } catch (Exception ex) {
             LOGGER.warn("*** Could not register a new user, validation failed, reason: {}", ex.getMessage());
             return GenericResponseResult.badRequest(ex.getLocalizedMessage());
@@ -198,8 +197,7 @@ public class UserRestService {
     @net.m4e.app.auth.AuthRole(grantRoles = {AuthRole.VIRT_ROLE_GUEST})
     @ApiOperation(value = "Activate a fresh registered user with given token")
     public GenericResponseResult<ActivateUser> activateUser(@PathParam("token") String token, @Context HttpServletRequest request) {
-        UserEntity sessionUser = AuthorityConfig.getInstance().getSessionUser(request);
-        if (sessionUser != null) {
+        if (AuthorityConfig.getInstance().getSessionPrincipal(request) != null) {
             LOGGER.error("*** an already authenticated user tries a user activation!");
             return GenericResponseResult.notAcceptable("Failed to activate user account, logout first.");
         }
@@ -226,8 +224,7 @@ public class UserRestService {
     @net.m4e.app.auth.AuthRole(grantRoles = {AuthRole.VIRT_ROLE_GUEST})
     @ApiOperation(value = "Request for resetting the account password")
     public GenericResponseResult<Void> requestPasswordReset(RequestPasswordResetCmd requestPasswordResetCmd, @Context HttpServletRequest request) {
-        UserEntity sessionUser = AuthorityConfig.getInstance().getSessionUser(request);
-        if (sessionUser != null) {
+        if (AuthorityConfig.getInstance().getSessionPrincipal(request) != null) {
             LOGGER.error("*** an already authenticated user tries to reset the password!");
             return GenericResponseResult.notAcceptable("Failed to reset user password, logout first.");
         }
@@ -260,8 +257,7 @@ public class UserRestService {
     @net.m4e.app.auth.AuthRole(grantRoles = {AuthRole.VIRT_ROLE_GUEST})
     @ApiOperation(value = "Perform the account password reset with given token")
     public GenericResponseResult<PerformPasswordReset> passwordReset(PerformPasswordResetCmd performPasswordResetCmd, @PathParam("token") String token, @Context HttpServletRequest request) {
-        UserEntity sessionUser = AuthorityConfig.getInstance().getSessionUser(request);
-        if (sessionUser != null) {
+        if (AuthorityConfig.getInstance().getSessionPrincipal(request) != null) {
             LOGGER.error("*** an already authenticated user tries to reset an user password");
             return GenericResponseResult.notAcceptable("Failed to reset user password, logout first.");
         }
@@ -291,7 +287,7 @@ public class UserRestService {
     @net.m4e.app.auth.AuthRole(grantRoles = {AuthRole.VIRT_ROLE_USER})
     @ApiOperation(value = "Update an existing user")
     public GenericResponseResult<UserId> edit(@PathParam("id") Long id, UserCmd userCmd, @Context HttpServletRequest request) {
-        UserEntity sessionUser = AuthorityConfig.getInstance().getSessionUser(request);
+        UserEntity sessionUser = users.findSessionUser(AuthorityConfig.getInstance().getSessionPrincipal(request));
         UserId updateUser = new UserId(id.toString());
         UserEntity updateEntity;
         try {
@@ -358,9 +354,9 @@ public class UserRestService {
     @ApiOperation(value = "Request for deleting an existing user")
     public GenericResponseResult<UserId> remove(@PathParam("id") Long id, @Context HttpServletRequest request) {
         UserId response = new UserId(id.toString());
-        UserEntity sessionUser = AuthorityConfig.getInstance().getSessionUser(request);
+        SessionPrincipal principal = AuthorityConfig.getInstance().getSessionPrincipal(request);
 
-        if (sessionUser.getId().equals(id)) {
+        if (id.equals(principal.getUserId())) {
             LOGGER.warn("*** User was attempting to delete itself! Call a doctor.");
             return GenericResponseResult.notAcceptable("Failed to delete yourself.", response);
         }
@@ -441,7 +437,7 @@ public class UserRestService {
             return GenericResponseResult.notFound("User was not found.", userInfo);
         }
 
-        UserEntity sessionUser = AuthorityConfig.getInstance().getSessionUser(request);
+        UserEntity sessionUser = users.findSessionUser(AuthorityConfig.getInstance().getSessionPrincipal(request));
         if (!users.userIsOwnerOrAdmin(sessionUser, user.getStatus())) {
             return GenericResponseResult.unauthorized("Insufficient privilege", userInfo);
         }
@@ -457,7 +453,7 @@ public class UserRestService {
     @net.m4e.app.auth.AuthRole(grantRoles = {AuthRole.VIRT_ROLE_USER})
     @ApiOperation(value = "Get all users. An admin gets all users but a non-admin gets only herself/himself.")
     public GenericResponseResult<List<UserInfo>> findAllUsers(@Context HttpServletRequest request) {
-        UserEntity sessionUser = AuthorityConfig.getInstance().getSessionUser(request);
+        UserEntity sessionUser = users.findSessionUser(AuthorityConfig.getInstance().getSessionPrincipal(request));
         List<UserEntity> foundUsers = entities.findAll(UserEntity.class);
         List<UserInfo> exportUsers = users.exportUsers(foundUsers, sessionUser, connections);
         return GenericResponseResult.ok("List of users", exportUsers);
@@ -472,7 +468,7 @@ public class UserRestService {
     @net.m4e.app.auth.AuthRole(grantRoles = {AuthRole.VIRT_ROLE_USER})
     @ApiOperation(value = "Get users in given range. An admin gets all users but a non-admin gets only herself/himself.")
     public GenericResponseResult<List<UserInfo>> findRange(@PathParam("from") Integer from, @PathParam("to") Integer to, @Context HttpServletRequest request) {
-        UserEntity sessionUser = AuthorityConfig.getInstance().getSessionUser(request);
+        UserEntity sessionUser = users.findSessionUser(AuthorityConfig.getInstance().getSessionPrincipal(request));
         List<UserEntity> foundUsers = entities.findRange(UserEntity.class, from, to);
         List<UserInfo> exportUsers = users.exportUsers(foundUsers, sessionUser, connections);
         return GenericResponseResult.ok("List of users", exportUsers);
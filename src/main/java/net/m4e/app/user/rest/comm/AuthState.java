@@ -15,13 +15,16 @@ public class AuthState {
     private final boolean auth;
     private final String id;
     private final String sid;
+    private final boolean passwordHash;
 
     public AuthState(final boolean auth,
                      final String id,
-                     final String sid) {
+                     final String sid,
+                     final boolean passwordHash) {
         this.auth = auth;
         this.id = id;
         this.sid = sid;
+        this.passwordHash = passwordHash;
     }
 
     public boolean isAuth() {
@@ -35,4 +38,11 @@ public class AuthState {
     public String getSid() {
         return sid;
     }
+
+    /**
+     * Does the login need the password hash?
+     */
+    public boolean isPasswordHash() {
+        return passwordHash;
+    }
 }
@@ -24,6 +24,12 @@ public class LoginCmd {
     @Size(min = UserValidator.USER_INPUT_MIN_LEN_PASSWD, max = UserValidator.USER_INPUT_MAX_LEN_PASSWD)
     private String password;
 
+    /**
+     * Optional password hash, it is needed for checking and upgrading adaptive password hashes.
+     */
+    @Size(min = UserValidator.USER_INPUT_MIN_LEN_PASSWD, max = UserValidator.USER_INPUT_MAX_LEN_PASSWD)
+    private String passwordHash;
+
     public LoginCmd() {}
 
     public LoginCmd(final String login,
@@ -49,4 +55,13 @@ public class LoginCmd {
     public void setPassword(String password) {
         this.password = password;
     }
+
+    public String getPasswordHash() {
+        return passwordHash;
+    }
+
+    @JsonbProperty("passwordHash")
+    public void setPasswordHash(String passwordHash) {
+        this.passwordHash = passwordHash;
+    }
 }
@@ -112,6 +112,24 @@ public class Entities {
         return ((Long)q.getSingleResult()).intValue();
     }
 
+    /**
+     * Get the count of entities whose field 'fieldName' starts with given prefix.
+     * 
+     * @param <T>           Entity class type
+     * @param entityClass   Pass the entity class
+     * @param fieldName     Name of field which is checked for the prefix, it must be of type String
+     * @param prefix        Prefix to check in given field
+     * @return Count of matching entities
+     */
+    public <T> int getCountByPrefix(Class<T> entityClass, String fieldName, String prefix) {
+        javax.persistence.criteria.CriteriaBuilder cb = entityManager.getCriteriaBuilder();
+        javax.persistence.criteria.CriteriaQuery<Long> cq = cb.createQuery(Long.class);
+        javax.persistence.criteria.Root<T> rt = cq.from(entityClass);
+        String pattern = prefix.replace("\\", "\\\\").replace("%", "\\%").replace("_", "\\_") + "%";
+        cq.select(cb.count(rt)).where(cb.like(rt.<String>get(fieldName), pattern, '\\'));
+        return entityManager.createQuery(cq).getSingleResult().intValue();
+    }
+
     /**
      * Find all entities of given type.
      * 
@@ -162,6 +162,14 @@ public class GenericResponseResult<T> {
         return new GenericResponseResult<>(STATUS_NOT_OK, desc, CODE_INTERNAL_SRV_ERROR, getResponseData(data));
     }
 
+    /**
+     * 503.
+     */
+    @SafeVarargs
+    public static <T> GenericResponseResult<T> serviceUnavailable(final String desc, final T... data) {
+        return new GenericResponseResult<>(STATUS_NOT_OK, desc, CODE_SERVICE_UNAVAILABLE, getResponseData(data));
+    }
+
     public String toJSON() {
         Jsonb json = JsonbBuilder.create();
         return json.toJson(this);
@@ -10,6 +10,7 @@ package net.m4e.common;
 import org.slf4j.*;
 
 import java.lang.invoke.MethodHandles;
+import java.nio.charset.StandardCharsets;
 import java.security.*;
 
 
@@ -27,6 +28,30 @@ public class HashCreator {
 
     private static final String ALGO_SHA512 = "SHA-512";
 
+    private static final byte[] HEX_DIGITS = "0123456789abcdef".getBytes(StandardCharsets.US_ASCII);
+
+    /**
+     * Digest and buffers for chained SHA 512 hashes, every thread reuses its own instance.
+     */
+    private static final ThreadLocal<ChainBuffers> SHA512_CHAIN_BUFFERS = ThreadLocal.withInitial(() -> new ChainBuffers(ALGO_SHA512));
+
+    private static final class ChainBuffers {
+        private final MessageDigest digest;
+        private final byte[] hash;
+        private final byte[] hex;
+
+        private ChainBuffers(String algorithmName) {
+            try {
+                digest = MessageDigest.getInstance(algorithmName);
+            }
+            catch (NoSuchAlgorithmException ex) {
+                throw new IllegalStateException(ex.getMessage(), ex);
+            }
+            hash = new byte[digest.getDigestLength()];
+            hex = new byte[hash.length * 2];
+        }
+    }
+
     /**
      * Create a SHA 256 hash out of given content.
      *
@@ -45,6 +70,46 @@ public class HashCreator {
         return createHash(content, ALGO_SHA512);
     }
 
+    /**
+     * Create a chain of SHA 512 hashes out of given content. The first round hashes the content,
+     * every further round hashes the hex string of the former round. The result is the same as
+     * applying createSHA512 on the hex string of each round, but the digest and the buffers of
+     * the calling thread are reused, and only the final hex string is allocated.
+     *
+     * @param content   Content to hash, it is encoded in UTF-8
+     * @param rounds    Count of rounds, if it is 0 then the content itself is returned
+     * @return          Hex string of the last round
+     * @throws Exception if something goes wrong.
+     */
+    public static String createChainedSHA512(String content, int rounds) throws Exception {
+        if (rounds < 1) {
+            return content;
+        }
+        ChainBuffers buffers = SHA512_CHAIN_BUFFERS.get();
+        MessageDigest digest = buffers.digest;
+        byte[] hash = buffers.hash;
+        byte[] hex = buffers.hex;
+        try {
+            digest.update(content.getBytes(StandardCharsets.UTF_8));
+            for (int round = 0; round < rounds; round++) {
+                if (round > 0) {
+                    digest.update(hex);
+                }
+                digest.digest(hash, 0, hash.length);
+                for (int i = 0; i < hash.length; i++) {
+                    hex[2 * i] = HEX_DIGITS[(hash[i] >> 4) & 0x0f];
+                    hex[2 * i + 1] = HEX_DIGITS[hash[i] & 0x0f];
+                }
+            }
+        }
+        catch (DigestException ex) {
+            digest.reset();
+            LOGGER.error("Problem occurred while creating a chained SHA-512 hash, reason: " + ex.getMessage());
+            throw new Exception(ex.getMessage());
+        }
+        return new String(hex, StandardCharsets.US_ASCII);
+    }
+
     private static String createHash(byte[] content, final String algorithmName) throws Exception {
         try {
             MessageDigest digest = MessageDigest.getInstance(algorithmName);
@@ -61,6 +61,128 @@ public class AppConfiguration {
      */
     public final static String TOKEN_ACC_REGISTRATION_CONFIG_FILE = "AccountRegistrationConfigFile";
 
+    /**
+     * Configuration token name for the maximal count of queued outgoing messages per WebSocket session.
+     */
+    public final static String TOKEN_WS_OUTBOUND_QUEUE_SIZE = "WebSocketOutboundQueueSize";
+
+    /**
+     * Configuration token name for the policy used when a WebSocket session's outbound queue is full.
+     * One of DROP_OLDEST, COLLAPSE or DISCONNECT.
+     */
+    public final static String TOKEN_WS_OUTBOUND_OVERFLOW_POLICY = "WebSocketOutboundOverflowPolicy";
+
+    /**
+     * Configuration token name for the time window in milliseconds used for batching notifications per
+     * WebSocket session. A value of 0 disables batching.
+     */
+    public final static String TOKEN_WS_NOTIFICATION_BATCH_WINDOW = "WebSocketNotificationBatchWindow";
+
+    /**
+     * Configuration token name for the maximal count of notifications sent in one batch.
+     */
+    public final static String TOKEN_WS_NOTIFICATION_BATCH_SIZE = "WebSocketNotificationBatchSize";
+
+    /**
+     * Configuration token name for the grace period in milliseconds before a disconnected user goes offline.
+     */
+    public final static String TOKEN_WS_PRESENCE_GRACE_PERIOD = "WebSocketPresenceGracePeriod";
+
+    /**
+     * Configuration token name for the time in milliseconds without incoming messages after which a
+     * WebSocket session is closed. A value of 0 disables the eviction of idle sessions.
+     */
+    public final static String TOKEN_WS_IDLE_TIMEOUT = "WebSocketIdleTimeout";
+
+    /**
+     * Configuration token name for the count of partitions of every WebSocket channel's dispatch lane.
+     */
+    public final static String TOKEN_WS_DISPATCH_PARTITIONS = "WebSocketDispatchPartitions";
+
+    /**
+     * Configuration token name for the maximal count of queued messages per dispatch partition.
+     */
+    public final static String TOKEN_WS_DISPATCH_QUEUE_SIZE = "WebSocketDispatchQueueSize";
+
+    /**
+     * Configuration token name for the type of dispatch threads: platform or virtual.
+     */
+    public final static String TOKEN_WS_DISPATCH_THREADS = "WebSocketDispatchThreads";
+
+    /**
+     * Configuration token names for the rate limits of incoming WebSocket messages per session and
+     * channel, given as "messages per second, burst". A rate of 0 disables the limit of the channel.
+     */
+    public final static String TOKEN_WS_RATE_LIMIT_CHAT = "WebSocketRateLimitChat";
+    public final static String TOKEN_WS_RATE_LIMIT_EVENT = "WebSocketRateLimitEvent";
+    public final static String TOKEN_WS_RATE_LIMIT_SYSTEM = "WebSocketRateLimitSystem";
+
+    /**
+     * Configuration token name for the count of rate limit violations after which a client is warned.
+     */
+    public final static String TOKEN_WS_RATE_LIMIT_WARN_AFTER = "WebSocketRateLimitWarnAfter";
+
+    /**
+     * Configuration token name for the count of rate limit violations after which a session is closed.
+     */
+    public final static String TOKEN_WS_RATE_LIMIT_DISCONNECT_AFTER = "WebSocketRateLimitDisconnectAfter";
+
+    /**
+     * Configuration token name for the maximal count of chat messages held per conversation for replay.
+     */
+    public final static String TOKEN_CHAT_HISTORY_MESSAGES = "ChatHistoryMessages";
+
+    /**
+     * Configuration token name for the maximal total size in bytes of all chat messages held for replay.
+     * A value of 0 disables the chat history.
+     */
+    public final static String TOKEN_CHAT_HISTORY_BYTES = "ChatHistoryBytes";
+
+    /**
+     * Configuration token name for the directory of the chat log. If it is empty then chat messages are not logged.
+     */
+    public final static String TOKEN_CHAT_LOG_DIRECTORY = "ChatLogDirectory";
+
+    /**
+     * Configuration token name for the count of days the chat log is kept. A value of 0 keeps it forever.
+     */
+    public final static String TOKEN_CHAT_LOG_RETENTION_DAYS = "ChatLogRetentionDays";
+
+    /**
+     * Configuration token name for the cluster message bus type: none, loopback or tcp.
+     */
+    public final static String TOKEN_CLUSTER_BUS = "ClusterMessageBus";
+
+    /**
+     * Configuration token name for the address (host:port) of the local cluster node, it is also the node ID.
+     */
+    public final static String TOKEN_CLUSTER_NODE_ADDRESS = "ClusterNodeAddress";
+
+    /**
+     * Configuration token name for the comma separated addresses (host:port) of all cluster nodes.
+     */
+    public final static String TOKEN_CLUSTER_PEER_ADDRESSES = "ClusterPeerAddresses";
+
+    /**
+     * Configuration token name for the count of password hashing threads, it defaults to the count of cores.
+     */
+    public final static String TOKEN_PW_HASH_THREADS = "PasswordHashThreads";
+
+    /**
+     * Configuration token name for the maximal count of queued password hashing tasks.
+     */
+    public final static String TOKEN_PW_HASH_QUEUE_SIZE = "PasswordHashQueueSize";
+
+    /**
+     * Configuration token name for the target latency in milliseconds of an adaptive password hash.
+     */
+    public final static String TOKEN_PW_HASH_TARGET_LATENCY = "PasswordHashTargetLatency";
+
+    /**
+     * Configuration token name for upgrading stored password hashes to the adaptive scheme on login: true or false.
+     */
+    public final static String TOKEN_PW_HASH_UPGRADE = "PasswordHashUpgrade";
+
     /**
      * All settings found in account registration file, if one exists.
      */
@@ -81,6 +203,26 @@ public class AppConfiguration {
         return configs.get(token);
     }
 
+    /**
+     * Get the numerical configuration value for given token.
+     * 
+     * @param token         Token
+     * @param defaultValue  Value returned if the token is not set or is not a number
+     * @return              Token value
+     */
+    public long getConfigNumber(String token, long defaultValue) {
+        String value = configs.get(token);
+        if (value != null) {
+            try {
+                return Long.parseLong(value.trim());
+            }
+            catch (NumberFormatException ex) {
+                LOGGER.warn("invalid configuration value for {}: {}, using default", token, value);
+            }
+        }
+        return defaultValue;
+    }
+
     /**
      * Set the configuration value for given token.
      * 
@@ -128,6 +270,33 @@ public class AppConfiguration {
         String mailerCfg = context.getInitParameter(AppConfiguration.TOKEN_MAILER_CONFIG_FILE);
         AppConfiguration.getInstance().setConfigValue(AppConfiguration.TOKEN_MAILER_CONFIG_FILE, mailerCfg);
 
+        // setup the WebSocket configuration
+        copyContextParameter(context, AppConfiguration.TOKEN_WS_OUTBOUND_QUEUE_SIZE);
+        copyContextParameter(context, AppConfiguration.TOKEN_WS_OUTBOUND_OVERFLOW_POLICY);
+        copyContextParameter(context, AppConfiguration.TOKEN_WS_NOTIFICATION_BATCH_WINDOW);
+        copyContextParameter(context, AppConfiguration.TOKEN_WS_NOTIFICATION_BATCH_SIZE);
+        copyContextParameter(context, AppConfiguration.TOKEN_WS_PRESENCE_GRACE_PERIOD);
+        copyContextParameter(context, AppConfiguration.TOKEN_WS_IDLE_TIMEOUT);
+        copyContextParameter(context, AppConfiguration.TOKEN_WS_DISPATCH_PARTITIONS);
+        copyContextParameter(context, AppConfiguration.TOKEN_WS_DISPATCH_QUEUE_SIZE);
+        copyContextParameter(context, AppConfiguration.TOKEN_WS_DISPATCH_THREADS);
+        copyContextParameter(context, AppConfiguration.TOKEN_WS_RATE_LIMIT_CHAT);
+        copyContextParameter(context, AppConfiguration.TOKEN_WS_RATE_LIMIT_EVENT);
+        copyContextParameter(context, AppConfiguration.TOKEN_WS_RATE_LIMIT_SYSTEM);
+        copyContextParameter(context, AppConfiguration.TOKEN_WS_RATE_LIMIT_WARN_AFTER);
+        copyContextParameter(context, AppConfiguration.TOKEN_WS_RATE_LIMIT_DISCONNECT_AFTER);
+        copyContextParameter(context, AppConfiguration.TOKEN_CHAT_HISTORY_MESSAGES);
+        copyContextParameter(context, AppConfiguration.TOKEN_CHAT_HISTORY_BYTES);
+        copyContextParameter(context, AppConfiguration.TOKEN_CHAT_LOG_DIRECTORY);
+        copyContextParameter(context, AppConfiguration.TOKEN_CHAT_LOG_RETENTION_DAYS);
+        copyContextParameter(context, AppConfiguration.TOKEN_CLUSTER_BUS);
+        copyContextParameter(context, AppConfiguration.TOKEN_CLUSTER_NODE_ADDRESS);
+        copyContextParameter(context, AppConfiguration.TOKEN_CLUSTER_PEER_ADDRESSES);
+        copyContextParameter(context, AppConfiguration.TOKEN_PW_HASH_THREADS);
+        copyContextParameter(context, AppConfiguration.TOKEN_PW_HASH_QUEUE_SIZE);
+        copyContextParameter(context, AppConfiguration.TOKEN_PW_HASH_TARGET_LATENCY);
+        copyContextParameter(context, AppConfiguration.TOKEN_PW_HASH_UPGRADE);
+
         // setup the user registration configuration
         String accountRegCfg = context.getInitParameter(AppConfiguration.TOKEN_ACC_REGISTRATION_CONFIG_FILE);
         InputStream configContent = context.getResourceAsStream("/WEB-INF/" + accountRegCfg);
@@ -138,6 +307,19 @@ public class AppConfiguration {
 
     }
 
+    /**
+     * Copy an optional context parameter into the app configuration.
+     *
+     * @param context   Servlet context
+     * @param token     Context parameter name, it is also used as token
+     */
+    private void copyContextParameter(ServletContext context, String token) {
+        String value = context.getInitParameter(token);
+        if (value != null) {
+            setConfigValue(token, value);
+        }
+    }
+
     /**
      * Singleton access
      * 
@@ -8,9 +8,10 @@
 package net.m4e.system.core;
 
 import io.swagger.jaxrs.config.BeanConfig;
+import net.m4e.app.auth.AuthRuleTable;
 
 import javax.ws.rs.core.Application;
-import java.util.Set;
+import java.util.*;
 
 /**
  * Central application configuration
@@ -21,10 +22,21 @@ import java.util.Set;
 @javax.ws.rs.ApplicationPath(AppConfiguration.REST_BASE_URL)
 public class AppStart extends Application {
 
+    /**
+     * Swagger configuration reading the REST bean classes collected at build time instead of
+     * scanning the class path.
+     */
+    private static class ResourceBeanConfig extends BeanConfig {
+        @Override
+        public Set<Class<?>> classes() {
+            return new HashSet<>(AuthRuleTable.getResourceClasses());
+        }
+    }
+
     public AppStart() {
         String appVersion = AppConfiguration.getInstance().getConfigValue(AppConfiguration.TOKEN_APP_VERSION);
 
-        BeanConfig beanConfig = new BeanConfig();
+        BeanConfig beanConfig = new ResourceBeanConfig();
         beanConfig.setVersion(appVersion);
         beanConfig.setTitle("Meat4Eat");
         beanConfig.setSchemes(new String[] {"http", "https"});
@@ -46,14 +58,7 @@ public class AppStart extends Application {
     }
 
     private void addRestResourceClasses(Set<Class<?>> resources) {
-        resources.add(net.m4e.app.event.rest.EventRestService.class);
-        resources.add(net.m4e.app.event.rest.EventLocationVoteRestService.class);
-        resources.add(net.m4e.app.mailbox.rest.MailRestService.class);
-        resources.add(net.m4e.app.resources.DocumentRestService.class);
-        resources.add(net.m4e.app.user.rest.UserAuthenticationRestService.class);
-        resources.add(net.m4e.app.user.rest.UserRestService.class);
-        resources.add(net.m4e.system.core.AppInfoRestService.class);
-        resources.add(net.m4e.system.maintenance.rest.MaintenanceRestService.class);
-        resources.add(net.m4e.update.rest.UpdateCheckRestService.class);
+        // all classes annotated with javax.ws.rs.Path, they are collected at build time
+        resources.addAll(AuthRuleTable.getResourceClasses());
     }
 }
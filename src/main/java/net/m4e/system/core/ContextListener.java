@@ -7,6 +7,7 @@
  */
 package net.m4e.system.core;
 
+import net.m4e.app.event.business.EventMemberships;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -30,12 +31,15 @@ public class ContextListener implements ServletContextListener {
 
     private final AppUpdater appUpdater;
 
+    private final EventMemberships eventMemberships;
+
     @Resource
     private UserTransaction userTransaction;
 
     @Inject
-    public ContextListener(AppUpdater appUpdater) {
+    public ContextListener(AppUpdater appUpdater, EventMemberships eventMemberships) {
         this.appUpdater = appUpdater;
+        this.eventMemberships = eventMemberships;
     }
 
     @Override
@@ -45,6 +49,8 @@ public class ContextListener implements ServletContextListener {
         AppConfiguration.getInstance().setup(event.getServletContext());
 
         checkAndPerformDeployment();
+
+        warmUpCaches();
     }
 
     @Override
@@ -52,6 +58,15 @@ public class ContextListener implements ServletContextListener {
         LOGGER.info("Destroying the servlet container");
     }
 
+    protected void warmUpCaches() {
+        try {
+            eventMemberships.warmUp();
+        }
+        catch(Exception exception) {
+            LOGGER.error("problem occurred while warming up the event membership index, reason: {}", exception.getMessage());
+        }
+    }
+
     protected void checkAndPerformDeployment() {
         try {
             handlePossibleUpdate();
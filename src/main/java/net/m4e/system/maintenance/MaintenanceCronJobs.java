@@ -7,6 +7,7 @@
  */
 package net.m4e.system.maintenance;
 
+import net.m4e.app.chat.ChatSystem;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -32,21 +33,26 @@ public class MaintenanceCronJobs {
 
     private final Maintenance maintenance;
 
+    private final ChatSystem chatSystem;
+
     /**
      * EJB's default constructor.
      */
     public MaintenanceCronJobs() {
         this.maintenance = null;
+        this.chatSystem = null;
     }
 
     /**
      * Create the bean.
      * 
      * @param maintenance   The maintenance instance
+     * @param chatSystem    The chat system, its log is maintained
      */
     @Inject
-    public MaintenanceCronJobs(Maintenance maintenance) {
+    public MaintenanceCronJobs(Maintenance maintenance, ChatSystem chatSystem) {
         this.maintenance = maintenance;
+        this.chatSystem = chatSystem;
     }
 
     /**
@@ -57,5 +63,6 @@ public class MaintenanceCronJobs {
         LOGGER.info("starting midnight maintenance tasks");
         int countpurges = maintenance.purgeExpiredResources();
         LOGGER.info(" count of purged expired resource: " + countpurges);
+        chatSystem.maintainChatLog();
     }
 }
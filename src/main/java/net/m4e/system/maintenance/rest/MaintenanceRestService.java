@@ -8,7 +8,8 @@
 package net.m4e.system.maintenance.rest;
 
 import io.swagger.annotations.*;
-import net.m4e.app.auth.AuthRole;
+import net.m4e.app.auth.*;
+import net.m4e.app.communication.*;
 import net.m4e.common.GenericResponseResult;
 import net.m4e.system.core.*;
 import net.m4e.system.maintenance.Maintenance;
@@ -40,12 +41,18 @@ public class MaintenanceRestService {
 
     private final AppInfos appInfos;
 
+    private final ConnectedClients connections;
+
+    private final MessageDistribution messageDistribution;
+
     /**
      * Make the EJB container happy (e.g. for the case that we want to inject this bean in another bean).
      */
     protected MaintenanceRestService() {
         maintenance = null;
         appInfos = null;
+        connections = null;
+        messageDistribution = null;
     }
 
     /**
@@ -53,11 +60,16 @@ public class MaintenanceRestService {
      * 
      * @param maintenance   The maintenance instance
      * @param appInfos      AppInfos instance used for accessing application information such as version and stats
+     * @param connections   Central place holding all client connections
+     * @param messageDistribution   Dispatcher of incoming WebSocket messages
      */
     @Inject
-    public MaintenanceRestService(@NotNull Maintenance maintenance, @NotNull AppInfos appInfos) {
+    public MaintenanceRestService(@NotNull Maintenance maintenance, @NotNull AppInfos appInfos, @NotNull ConnectedClients connections,
+                                  @NotNull MessageDistribution messageDistribution) {
         this.maintenance = maintenance;
         this.appInfos = appInfos;
+        this.connections = connections;
+        this.messageDistribution = messageDistribution;
     }
 
     /**
@@ -78,6 +90,42 @@ public class MaintenanceRestService {
         return GenericResponseResult.ok("System maintenance stats", maintenance.exportInfo(infoEntity));
     }
 
+    /**
+     * Get statistics of all WebSocket connections such as outbound queue depths, send latencies
+     * and the backlog of incoming messages.
+     * 
+     * @return JSON response
+     */
+    @GET
+    @Path("connections")
+    @Produces(MediaType.APPLICATION_JSON)
+    @net.m4e.app.auth.AuthRole(grantRoles={AuthRole.USER_ROLE_ADMIN})
+    @ApiOperation(value = "Get WebSocket connection statistics")
+    public GenericResponseResult<ConnectionsInfo> connections() {
+        ConnectionsInfo info = connections.exportInfo();
+        info.setDispatchLanes(messageDistribution.exportDispatchInfo());
+        return GenericResponseResult.ok("WebSocket connection stats", info);
+    }
+
+    /**
+     * Get statistics of the authorization checker such as the hit ratio of its decision
+     * cache and the latencies of access checks.
+     * 
+     * @return JSON response
+     */
+    @GET
+    @Path("auth")
+    @Produces(MediaType.APPLICATION_JSON)
+    @net.m4e.app.auth.AuthRole(grantRoles={AuthRole.USER_ROLE_ADMIN})
+    @ApiOperation(value = "Get authorization check statistics")
+    public GenericResponseResult<AuthCheckerInfo> auth() {
+        AuthCheckerInfo info = AuthorityConfig.getInstance().exportAuthCheckerInfo();
+        if (info == null) {
+            return GenericResponseResult.internalError("Internal error: authorization checker is not initialized.");
+        }
+        return GenericResponseResult.ok("Authorization check stats", info);
+    }
+
     /**
      * Perform purging resources.
      * 
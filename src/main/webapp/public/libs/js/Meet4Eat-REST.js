@@ -648,6 +648,7 @@ function Meet4EatAuth() {
 		self._fcnRequestJson(self._rootPath + '/state', null, 'GET', {
 			success: function(results, response) {
 				var sid = "";
+				var sendPasswordHash = false;
 				// already authenticated?
 				try {
 					if (results.data.auth) {
@@ -657,15 +658,20 @@ function Meet4EatAuth() {
 						}
 					}
 					sid = results.data.sid;
+					sendPasswordHash = results.data.passwordHash;
 				}
 				catch(e) {
 					if (resultsCallback.error) {
 						resultsCallback.error("Exception occurred while parsing JSON response of auth state, reason: " + e, data);
 					}
 				}
-				var pw = self.createHash(userPassword);
-				pw = self.createHash(pw + sid);
+				var hash = self.createHash(userPassword);
+				var pw = self.createHash(hash + sid);
 				var data = {'login' : userName, 'password' : pw};
+				// the server needs the password hash for checking and upgrading adaptive password hashes
+				if (sendPasswordHash) {
+					data.passwordHash = hash;
+				}
 				self._fcnRequestJson(self._rootPath + '/login', data, 'POST', resultsCallback);
 			},
 			error: function(err) {
@@ -207,6 +207,24 @@ class AuthAccessRuleCheckerTest {
         assertThat(checker.checkRoles(accessmethod_nohit, accesroles)).isFalse();
     }
 
+    @Test
+    void checkRoles_mask() {
+        String path = "/path";
+        AuthAccessRuleChecker checker = new AuthAccessRuleChecker(path);
+        assertThat(checker.addAccessRoles("GET", Arrays.asList(AuthRole.USER_ROLE_MODERATOR, AuthRole.USER_ROLE_ADMIN))).isTrue();
+        assertThat(checker.addAccessRoles("POST", Arrays.asList(AuthRole.VIRT_ENDPOINT_CHECK))).isTrue();
+
+        assertThat(checker.getAccessMask("GET")).isEqualTo(AppRoles.MODERATOR.bit() | AppRoles.ADMIN.bit());
+        assertThat(checker.getAccessMask("POST")).isEqualTo(AppRoles.VIRT_ENDPOINT_CHECK_BIT);
+        assertThat(checker.getAccessMask("PUT")).isEqualTo(0L);
+
+        assertThat(checker.checkRoles("GET", AppRoles.ADMIN.bit() | AppRoles.USER.bit())).isTrue();
+        assertThat(checker.checkRoles("GET", AppRoles.USER.bit())).isFalse();
+        assertThat(checker.checkRoles("GET", 0L)).isFalse();
+        assertThat(checker.checkRoles("POST", AppRoles.GUEST.bit())).isTrue();
+        assertThat(checker.checkRoles("PUT", AppRoles.ADMIN.bit())).isFalse();
+    }
+
     @Test
     void toString_fix_path() {
         List<String> accesroles = Arrays.asList(AuthRole.VIRT_ROLE_USER);
@@ -0,0 +1,148 @@
+/*
+ * Copyright (c) 2017-2019 by Botorabi. All rights reserved.
+ * https://github.com/botorabi/Meet4Eat
+ *
+ * License: MIT License (MIT), read the LICENSE text in
+ *          main directory for more details.
+ */
+package net.m4e.app.auth;
+
+import org.junit.jupiter.api.*;
+
+import java.util.*;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Compares the access rule lookup of the former checker, a map of fix paths followed by a
+ * linear scan over regular expressions of parameterized paths, with the route trie. Both
+ * are built from the rules of all REST beans and queried with a mix of typical requests.
+ * Additionally the complete access check of the checker including its decision cache and
+ * statistics is measured.
+ *
+ * The benchmark is skipped by default, run it with:
+ *
+ *   mvn test -Dtest=AuthCheckerBenchmark -Dbenchmark=true
+ *
+ * @author boto
+ * Date of creation Oct 18, 2026
+ */
+class AuthCheckerBenchmark {
+
+    private static final int COUNT_WARMUP = 50000;
+    private static final int COUNT_ROUNDS = 500000;
+
+    private static final List<String> USER_ROLES = Arrays.asList(AuthRole.VIRT_ROLE_USER);
+    private static final long USER_MASK = AppRoles.USER.bit();
+
+    private static final String[][] REQUESTS = {
+            {"GET", "/rest/authentication/state"},
+            {"GET", "/rest/events"},
+            {"GET", "/rest/events/42"},
+            {"PUT", "/rest/events/addmember/42/7"},
+            {"GET", "/rest/locationvoting/getvotes/42/1000/2000"},
+            {"PUT", "/rest/locationvoting/setvote/42/3/true"},
+            {"GET", "/rest/mails/countUnread"},
+            {"GET", "/rest/users/42"},
+            {"GET", "/rest/users/search/bob"},
+            {"GET", "/rest/chat/event/42/0/50"},
+    };
+
+    private final Map<String, AuthAccessRuleChecker> legacyFixPaths = new HashMap<>();
+    private final List<AuthAccessRuleChecker> legacyComplexPaths = new ArrayList<>();
+    private final AuthRouteTrie trie = new AuthRouteTrie();
+    private final AuthChecker checker = new AuthChecker();
+
+    @BeforeEach
+    void setup() {
+        Assumptions.assumeTrue(Boolean.getBoolean("benchmark"), "benchmark is disabled");
+
+        checker.initialize(AuthorityConfig.getInstance().getAccessBeanClasses());
+
+        Annotations annotations = new Annotations();
+        for (Class<?> clazz: AuthorityConfig.getInstance().getAccessBeanClasses()) {
+            String classPath = annotations.getClassPath(clazz);
+            annotations.getMethodsAuthRoles(clazz).forEach((path, roles) -> {
+                String fullPath = classPath + (path.isEmpty() ? "" : "/" + path);
+                AuthAccessRuleChecker legacyRule = new AuthAccessRuleChecker(fullPath);
+                AuthAccessRuleChecker rule = new AuthAccessRuleChecker(fullPath);
+                roles.forEach(legacyRule::addAccessRoles);
+                roles.forEach(rule::addAccessRoles);
+                if (fullPath.contains("{")) {
+                    legacyComplexPaths.add(legacyRule);
+                }
+                else {
+                    legacyFixPaths.put(fullPath, legacyRule);
+                }
+                trie.add(rule);
+            });
+        }
+    }
+
+    @Test
+    void compareLookup() {
+        for (int i = 0; i < COUNT_WARMUP; i++) {
+            checkLegacy(i);
+            checkTrie(i);
+            checkCached(i);
+        }
+
+        long start = System.nanoTime();
+        int grantedLegacy = 0;
+        for (int i = 0; i < COUNT_ROUNDS; i++) {
+            grantedLegacy += checkLegacy(i) ? 1 : 0;
+        }
+        long legacy = System.nanoTime() - start;
+
+        start = System.nanoTime();
+        int grantedTrie = 0;
+        for (int i = 0; i < COUNT_ROUNDS; i++) {
+            grantedTrie += checkTrie(i) ? 1 : 0;
+        }
+        long trieTime = System.nanoTime() - start;
+
+        start = System.nanoTime();
+        int grantedCached = 0;
+        for (int i = 0; i < COUNT_ROUNDS; i++) {
+            grantedCached += checkCached(i) ? 1 : 0;
+        }
+        long cachedTime = System.nanoTime() - start;
+
+        System.out.println(String.format("Access rule lookup of %d requests (%d rules), linear regex scan: %d ms (%d ns/op), trie: %d ms (%d ns/op)",
+                COUNT_ROUNDS, trie.getCountRules(),
+                TimeUnit.NANOSECONDS.toMillis(legacy), legacy / COUNT_ROUNDS,
+                TimeUnit.NANOSECONDS.toMillis(trieTime), trieTime / COUNT_ROUNDS));
+        System.out.println(String.format("Access check with decision cache: %d ms (%d ns/op), cache hit ratio: %.3f",
+                TimeUnit.NANOSECONDS.toMillis(cachedTime), cachedTime / COUNT_ROUNDS, checker.exportInfo().getCacheHitRatio()));
+        System.out.println(String.format("Granted requests, linear regex scan: %d, trie: %d, cached: %d", grantedLegacy, grantedTrie, grantedCached));
+
+        assertThat(trieTime).isLessThan(legacy);
+        assertThat(grantedCached).isEqualTo(grantedTrie);
+    }
+
+    private boolean checkLegacy(int round) {
+        String[] request = REQUESTS[round % REQUESTS.length];
+        AuthAccessRuleChecker rule = legacyFixPaths.get(request[1]);
+        if (rule != null) {
+            return rule.checkFixPath(request[1], request[0], USER_ROLES);
+        }
+        for (AuthAccessRuleChecker complexRule: legacyComplexPaths) {
+            if (complexRule.checkComplexPath(request[1], request[0], USER_ROLES)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private boolean checkTrie(int round) {
+        String[] request = REQUESTS[round % REQUESTS.length];
+        AuthAccessRuleChecker rule = trie.find(request[1]);
+        return (rule != null) && rule.checkRoles(request[0], USER_MASK);
+    }
+
+    private boolean checkCached(int round) {
+        String[] request = REQUESTS[round % REQUESTS.length];
+        return checker.checkAccess("", request[1], request[0], USER_MASK);
+    }
+}
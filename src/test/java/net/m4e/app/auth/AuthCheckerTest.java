@@ -9,23 +9,18 @@ package net.m4e.app.auth;
 
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
-import org.mockito.Mock;
-import org.mockito.Mockito;
-import org.mockito.MockitoAnnotations;
 
-import javax.servlet.http.HttpServletRequest;
 import javax.ws.rs.GET;
 import javax.ws.rs.POST;
 import javax.ws.rs.PUT;
 import javax.ws.rs.Path;
-import java.net.URL;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.List;
 import java.util.Map;
 
 import static org.assertj.core.api.Assertions.assertThat;
-import static org.mockito.Mockito.mock;
+import static org.assertj.core.api.Assertions.within;
 
 /**
  * Test class for AuthChecker
@@ -35,8 +30,6 @@ import static org.mockito.Mockito.mock;
  */
 class AuthCheckerTest {
 
-    final String REQ_SCHEME = "https://mydomain.com";
-    final String REQ_SCHEME_BAD = "htt//mydomain.com";
     final String REQ_BASE_PATH = "/root";
     final String REQ_BASE_PATH_INVALID = "/somebasepath";
     final String BEAN_BASE_PATH1 = "/bean1";
@@ -78,20 +71,18 @@ class AuthCheckerTest {
         public void m2() {}
     }
 
-    AuthChecker authChecker;
-
-    private HttpServletRequest mockHttpRequest(String beanPath, String accessMethod) {
-        StringBuffer accesspath = new StringBuffer(REQ_SCHEME + REQ_BASE_PATH + beanPath);
-        HttpServletRequest request = mock(HttpServletRequest.class);
-        Mockito.when(request.getRequestURL()).thenReturn(accesspath);
-        Mockito.when(request.getMethod()).thenReturn(accessMethod);
-        return request;
+    @Path(BEAN_BASE_PATH1)
+    class Bean3 {
+        @PUT
+        @Path("m3/{id}")
+        @AuthRole(grantRoles={AuthRole.USER_ROLE_MODERATOR})
+        public void m3() {}
     }
 
+    AuthChecker authChecker;
+
     @BeforeEach
     void setup() {
-        MockitoAnnotations.initMocks(this);
-
         authChecker = new AuthChecker();
         List<Class<?>> beans = Arrays.asList(Bean1.class, Bean2.class);
         authChecker.initialize(beans);
@@ -104,59 +95,98 @@ class AuthCheckerTest {
     }
 
     @Test
-    void checkAccess_bad_url() {
-        StringBuffer accesspath = new StringBuffer(REQ_SCHEME_BAD + REQ_BASE_PATH + BEAN_BASE_PATH1 + "/m3/myID");
-        HttpServletRequest request = mock(HttpServletRequest.class);
-        Mockito.when(request.getRequestURL()).thenReturn(accesspath);
-        Mockito.when(request.getMethod()).thenReturn("PUT");
-
-        List<String> hitroles = Arrays.asList(AuthRole.VIRT_ROLE_USER);
-        assertThat(authChecker.checkAccess(REQ_BASE_PATH, request, hitroles)).isFalse();
+    void checkAccess_bad_path() {
+        long hitroles = AppRoles.maskOf(Arrays.asList(AuthRole.USER_ROLE_MODERATOR));
+        assertThat(authChecker.checkAccess(REQ_BASE_PATH, REQ_BASE_PATH + BEAN_BASE_PATH2.substring(1) + "/m2", "POST", hitroles)).isFalse();
+        assertThat(authChecker.checkAccess(REQ_BASE_PATH, REQ_BASE_PATH + BEAN_BASE_PATH2 + "/m2/", "POST", hitroles)).isFalse();
+        assertThat(authChecker.checkAccess(REQ_BASE_PATH, REQ_BASE_PATH, "POST", hitroles)).isFalse();
     }
 
     @Test
     void checkAccess_without_grant_always_roles() {
-        HttpServletRequest request = mockHttpRequest(BEAN_BASE_PATH1 + "/m1", "GET");
+        String path = REQ_BASE_PATH + BEAN_BASE_PATH1 + "/m1";
+        String method = "GET";
 
-        List<String> hitroles = Arrays.asList(AuthRole.VIRT_ROLE_USER);
-        assertThat(authChecker.checkAccess(REQ_BASE_PATH, request, hitroles)).isTrue();
+        long hitroles = AppRoles.maskOf(Arrays.asList(AuthRole.VIRT_ROLE_USER));
+        assertThat(authChecker.checkAccess(REQ_BASE_PATH, path, method, hitroles)).isTrue();
 
-        List<String> nohitroles = Arrays.asList(AuthRole.USER_ROLE_ADMIN);
-        assertThat(authChecker.checkAccess(REQ_BASE_PATH, request, nohitroles)).isFalse();
+        long nohitroles = AppRoles.maskOf(Arrays.asList(AuthRole.USER_ROLE_ADMIN));
+        assertThat(authChecker.checkAccess(REQ_BASE_PATH, path, method, nohitroles)).isFalse();
     }
 
     @Test
     void checkAccess_with_grant_always_roles() {
-        HttpServletRequest request = mockHttpRequest(BEAN_BASE_PATH1 + "/m2", "POST");
+        String path = REQ_BASE_PATH + BEAN_BASE_PATH1 + "/m2";
+        String method = "POST";
 
         List<String> adminroles = Arrays.asList(AuthRole.USER_ROLE_ADMIN);
         authChecker.setGrantAlwaysRoles(adminroles);
         assertThat(authChecker.getGrantAlwaysRoles().size()).isEqualTo(1);
         assertThat(authChecker.getGrantAlwaysRoles().containsAll(adminroles)).isTrue();
 
-        List<String> hitroles = Arrays.asList(AuthRole.USER_ROLE_ADMIN);
-        assertThat(authChecker.checkAccess(REQ_BASE_PATH, request, hitroles)).isTrue();
+        long hitroles = AppRoles.maskOf(Arrays.asList(AuthRole.USER_ROLE_ADMIN));
+        assertThat(authChecker.checkAccess(REQ_BASE_PATH, path, method, hitroles)).isTrue();
 
-        List<String> nohitroles = Arrays.asList(AuthRole.VIRT_ROLE_GUEST);
-        assertThat(authChecker.checkAccess(REQ_BASE_PATH, request, nohitroles)).isFalse();
+        long nohitroles = AppRoles.maskOf(Arrays.asList(AuthRole.VIRT_ROLE_GUEST));
+        assertThat(authChecker.checkAccess(REQ_BASE_PATH, path, method, nohitroles)).isFalse();
     }
 
     @Test
     void checkAccess_no_path_hit() {
-        HttpServletRequest request = mockHttpRequest(BEAN_BASE_PATH2 + "/m1", "PUT");
+        String path = REQ_BASE_PATH + BEAN_BASE_PATH2 + "/m1";
+        String method = "PUT";
 
-        List<String> nohitroles = Arrays.asList(AuthRole.USER_ROLE_ADMIN);
-        assertThat(authChecker.checkAccess(REQ_BASE_PATH_INVALID, request, nohitroles)).isFalse();
+        long nohitroles = AppRoles.maskOf(Arrays.asList(AuthRole.USER_ROLE_ADMIN));
+        assertThat(authChecker.checkAccess(REQ_BASE_PATH_INVALID, path, method, nohitroles)).isFalse();
     }
 
     @Test
     void checkAccess_complex_path() {
-        HttpServletRequest request = mockHttpRequest(BEAN_BASE_PATH1 + "/m3/myID", "PUT");
+        String path = REQ_BASE_PATH + BEAN_BASE_PATH1 + "/m3/myID";
+        String method = "PUT";
+
+        long hitroles = AppRoles.maskOf(Arrays.asList(AuthRole.VIRT_ROLE_USER));
+        assertThat(authChecker.checkAccess(REQ_BASE_PATH, path, method, hitroles)).isFalse();
+
+        long nohitroles = AppRoles.maskOf(Arrays.asList(AuthRole.USER_ROLE_ADMIN));
+        assertThat(authChecker.checkAccess(REQ_BASE_PATH, path, method, nohitroles)).isTrue();
+    }
+
+    @Test
+    void checkAccess_cached_decisions() {
+        String path = REQ_BASE_PATH + BEAN_BASE_PATH1 + "/m3/myID";
+        long userroles = AppRoles.maskOf(Arrays.asList(AuthRole.VIRT_ROLE_USER));
+
+        assertThat(authChecker.checkAccess(REQ_BASE_PATH, path, "PUT", userroles)).isFalse();
+        assertThat(authChecker.checkAccess(REQ_BASE_PATH, path, "PUT", userroles)).isFalse();
+        assertThat(authChecker.checkAccess(REQ_BASE_PATH, REQ_BASE_PATH + BEAN_BASE_PATH1 + "/m3/otherID", "PUT", userroles)).isFalse();
+
+        AuthCheckerInfo info = authChecker.exportInfo();
+        assertThat(info.getCountRules()).isEqualTo(6);
+        assertThat(info.getCacheCapacity()).isEqualTo(AuthChecker.DEFAULT_DECISION_CACHE_SIZE);
+        assertThat(info.getCountChecks()).isEqualTo(3);
+        assertThat(info.getCountCacheMisses()).isEqualTo(1);
+        assertThat(info.getCountCacheHits()).isEqualTo(2);
+        assertThat(info.getCacheHitRatio()).isCloseTo(2.0 / 3.0, within(0.001));
+        assertThat(info.getLatencyHistogram().values().stream().mapToLong(Long::longValue).sum()).isEqualTo(3);
+    }
+
+    @Test
+    void checkAccess_invalidate_decisions() {
+        String path = REQ_BASE_PATH + BEAN_BASE_PATH1 + "/m3/myID";
+        long moderatorroles = AppRoles.maskOf(Arrays.asList(AuthRole.USER_ROLE_MODERATOR));
+
+        authChecker.setGrantAlwaysRoles(Arrays.asList(AuthRole.USER_ROLE_ADMIN));
+        assertThat(authChecker.checkAccess(REQ_BASE_PATH, path, "PUT", moderatorroles)).isFalse();
+
+        authChecker.setGrantAlwaysRoles(Arrays.asList(AuthRole.USER_ROLE_MODERATOR));
+        assertThat(authChecker.checkAccess(REQ_BASE_PATH, path, "PUT", moderatorroles)).isTrue();
 
-        List<String> hitroles = Arrays.asList(AuthRole.VIRT_ROLE_USER);
-        assertThat(authChecker.checkAccess(REQ_BASE_PATH, request, hitroles)).isFalse();
+        authChecker.setGrantAlwaysRoles(Arrays.asList(AuthRole.USER_ROLE_ADMIN));
+        assertThat(authChecker.checkAccess(REQ_BASE_PATH, path, "PUT", moderatorroles)).isFalse();
 
-        List<String> nohitroles = Arrays.asList(AuthRole.USER_ROLE_ADMIN);
-        assertThat(authChecker.checkAccess(REQ_BASE_PATH, request, nohitroles)).isTrue();
+        authChecker.initialize(Arrays.asList(Bean3.class));
+        assertThat(authChecker.checkAccess(REQ_BASE_PATH, path, "PUT", moderatorroles)).isTrue();
+        assertThat(authChecker.exportInfo().getCountCacheMisses()).isEqualTo(3);
     }
 }
@@ -0,0 +1,57 @@
+/*
+ * Copyright (c) 2017-2019 by Botorabi. All rights reserved.
+ * https://github.com/botorabi/Meet4Eat
+ *
+ * License: MIT License (MIT), read the LICENSE text in
+ *          main directory for more details.
+ */
+package net.m4e.app.auth;
+
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * @author boto
+ * Date of creation Oct 18, 2026
+ */
+class AuthDecisionCacheTest {
+
+    @Test
+    void capacity() {
+        assertThat(new AuthDecisionCache(1000).getCapacity()).isEqualTo(1024);
+        assertThat(new AuthDecisionCache(1024).getCapacity()).isEqualTo(1024);
+        assertThat(new AuthDecisionCache(0).getCapacity()).isEqualTo(2);
+    }
+
+    @Test
+    void createKey() {
+        long key = AuthDecisionCache.createKey(1, "GET", AppRoles.USER.bit());
+        assertThat(key).isNotEqualTo(AuthDecisionCache.NO_KEY);
+        assertThat(AuthDecisionCache.createKey(1, "POST", AppRoles.USER.bit())).isNotEqualTo(key);
+        assertThat(AuthDecisionCache.createKey(2, "GET", AppRoles.USER.bit())).isNotEqualTo(key);
+        assertThat(AuthDecisionCache.createKey(1, "GET", AppRoles.GUEST.bit())).isNotEqualTo(key);
+
+        assertThat(AuthDecisionCache.createKey(0, "GET", AppRoles.USER.bit())).isEqualTo(AuthDecisionCache.NO_KEY);
+        assertThat(AuthDecisionCache.createKey(1, "TRACE", AppRoles.USER.bit())).isEqualTo(AuthDecisionCache.NO_KEY);
+        assertThat(AuthDecisionCache.createKey(1, null, AppRoles.USER.bit())).isEqualTo(AuthDecisionCache.NO_KEY);
+        assertThat(AuthDecisionCache.createKey(1, "GET", 1L << 40)).isEqualTo(AuthDecisionCache.NO_KEY);
+    }
+
+    @Test
+    void getAndPut() {
+        AuthDecisionCache cache = new AuthDecisionCache(16);
+        long granted = AuthDecisionCache.createKey(1, "GET", AppRoles.USER.bit());
+        long denied = AuthDecisionCache.createKey(2, "GET", AppRoles.USER.bit());
+
+        assertThat(cache.get(granted)).isEqualTo(AuthDecisionCache.MISS);
+
+        cache.put(granted, true);
+        cache.put(denied, false);
+
+        assertThat(cache.get(denied)).isEqualTo(0);
+        assertThat(cache.get(AuthDecisionCache.createKey(3, "GET", AppRoles.USER.bit()))).isEqualTo(AuthDecisionCache.MISS);
+        // both keys may share a slot, then the latest decision replaced the former one
+        assertThat(cache.get(granted)).isIn(1, AuthDecisionCache.MISS);
+    }
+}
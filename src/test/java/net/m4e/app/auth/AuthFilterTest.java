@@ -0,0 +1,94 @@
+/*
+ * Copyright (c) 2017-2019 by Botorabi. All rights reserved.
+ * https://github.com/botorabi/Meet4Eat
+ *
+ * License: MIT License (MIT), read the LICENSE text in
+ *          main directory for more details.
+ */
+package net.m4e.app.auth;
+
+import net.m4e.app.auth.AuthFilter.PathType;
+import org.junit.jupiter.api.*;
+import org.mockito.Mockito;
+
+import javax.servlet.*;
+import javax.servlet.http.*;
+import java.io.*;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Matchers.any;
+import static org.mockito.Mockito.*;
+
+/**
+ * @author boto
+ * Date of creation Oct 18, 2026
+ */
+class AuthFilterTest {
+
+    private AuthFilter filter;
+
+    @BeforeEach
+    void setup() {
+        FilterConfig config = mock(FilterConfig.class);
+        Mockito.when(config.getInitParameter("basePath")).thenReturn("m4e");
+        Mockito.when(config.getInitParameter("publicBasePath")).thenReturn("public");
+        Mockito.when(config.getInitParameter("protectedBasePath")).thenReturn("webresources");
+
+        filter = new AuthFilter();
+        filter.init(config);
+    }
+
+    @Test
+    void classifyPath() {
+        assertThat(filter.classifyPath("/other/index.html")).isEqualTo(PathType.OUTSIDE);
+        assertThat(filter.classifyPath("/m4e/")).isEqualTo(PathType.HTML);
+        assertThat(filter.classifyPath("/m4e/docs/index.html")).isEqualTo(PathType.HTML);
+        assertThat(filter.classifyPath("/m4e/public/img/logo.png")).isEqualTo(PathType.PUBLIC);
+        assertThat(filter.classifyPath("/m4e/ws")).isEqualTo(PathType.WEBSOCKET);
+        assertThat(filter.classifyPath("/m4e/webresources/swagger.json")).isEqualTo(PathType.SWAGGER);
+        assertThat(filter.classifyPath("/m4e/webresources/rest/users/42")).isEqualTo(PathType.PROTECTED);
+        assertThat(filter.classifyPath("/m4e")).isEqualTo(PathType.UNKNOWN);
+        assertThat(filter.classifyPath("/m4e/script.js")).isEqualTo(PathType.UNKNOWN);
+    }
+
+    @Test
+    void classifyPathWithDotSegments() {
+        assertThat(filter.classifyPath("/m4e/public/../webresources/rest/users")).isEqualTo(PathType.UNKNOWN);
+        assertThat(filter.classifyPath("/m4e/public/./img/logo.png")).isEqualTo(PathType.UNKNOWN);
+        assertThat(filter.classifyPath("/m4e/public/..")).isEqualTo(PathType.UNKNOWN);
+        assertThat(filter.classifyPath("/m4e/public/.well-known/file")).isEqualTo(PathType.PUBLIC);
+    }
+
+    @Test
+    void stripPathParameters() {
+        assertThat(AuthFilter.stripPathParameters("/m4e/index.html")).isEqualTo("/m4e/index.html");
+        assertThat(AuthFilter.stripPathParameters("/m4e/index.html;jsessionid=1234")).isEqualTo("/m4e/index.html");
+    }
+
+    @Test
+    void doFilter() throws Exception {
+        FilterChain chain = mock(FilterChain.class);
+        StringWriter output = new StringWriter();
+        HttpServletResponse response = mock(HttpServletResponse.class);
+        Mockito.when(response.getWriter()).thenReturn(new PrintWriter(output));
+
+        filter.doFilter(mockRequest("/m4e/public/img/logo.png;jsessionid=1234"), response, chain);
+        verify(chain, times(1)).doFilter(any(), any());
+
+        filter.doFilter(mockRequest("/other/index.html"), response, chain);
+        verify(chain, times(1)).doFilter(any(), any());
+        assertThat(output.toString()).isEmpty();
+
+        filter.doFilter(mockRequest("/m4e/webresources/rest/users/42"), response, chain);
+        verify(chain, times(1)).doFilter(any(), any());
+        assertThat(output.toString()).contains("Denied access to: /m4e/webresources/rest/users/42");
+    }
+
+    private HttpServletRequest mockRequest(String uri) {
+        HttpServletRequest request = mock(HttpServletRequest.class);
+        Mockito.when(request.getRequestURI()).thenReturn(uri);
+        Mockito.when(request.getMethod()).thenReturn("GET");
+        Mockito.when(request.getSession()).thenReturn(mock(HttpSession.class));
+        return request;
+    }
+}
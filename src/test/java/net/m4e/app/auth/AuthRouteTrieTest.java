@@ -0,0 +1,87 @@
+/*
+ * Copyright (c) 2017-2019 by Botorabi. All rights reserved.
+ * https://github.com/botorabi/Meet4Eat
+ *
+ * License: MIT License (MIT), read the LICENSE text in
+ *          main directory for more details.
+ */
+package net.m4e.app.auth;
+
+import org.junit.jupiter.api.*;
+
+import java.util.Arrays;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * @author boto
+ * Date of creation Oct 18, 2026
+ */
+class AuthRouteTrieTest {
+
+    private AuthRouteTrie trie;
+
+    @BeforeEach
+    void setup() {
+        trie = new AuthRouteTrie();
+        add("/rest/users", "GET");
+        add("/rest/users/count", "GET");
+        add("/rest/users/{id}", "GET");
+        add("/rest/users/{from}/{to}", "GET");
+        add("/rest/users//search/{keyword}", "GET");
+        add("/rest/events/{eventId}/members", "GET");
+        add("/rest/events/open/members/{memberId}", "GET");
+    }
+
+    @Test
+    void literalPaths() {
+        assertThat(find("/rest/users")).isEqualTo("/rest/users");
+        assertThat(find("/rest/users/count")).isEqualTo("/rest/users/count");
+        assertThat(find("/rest/users/search/bob")).isEqualTo("/rest/users//search/{keyword}");
+    }
+
+    @Test
+    void parameterPaths() {
+        assertThat(find("/rest/users/42")).isEqualTo("/rest/users/{id}");
+        assertThat(find("/rest/users/0/10")).isEqualTo("/rest/users/{from}/{to}");
+    }
+
+    @Test
+    void backtrackToParameter() {
+        assertThat(find("/rest/events/open/members")).isEqualTo("/rest/events/{eventId}/members");
+        assertThat(find("/rest/events/open/members/7")).isEqualTo("/rest/events/open/members/{memberId}");
+    }
+
+    @Test
+    void noMatch() {
+        assertThat(find("")).isNull();
+        assertThat(find("/rest")).isNull();
+        assertThat(find("/rest/users/")).isNull();
+        assertThat(find("/rest/users//42")).isNull();
+        assertThat(find("/rest/users/1/2/3")).isNull();
+        assertThat(find("rest/users")).isNull();
+        assertThat(find("/rest/userscount")).isNull();
+    }
+
+    @Test
+    void mergeSameTemplate() {
+        AuthAccessRuleChecker rule = new AuthAccessRuleChecker("/rest/users/{userId}");
+        rule.addAccessRoles("DELETE", Arrays.asList(AuthRole.USER_ROLE_ADMIN));
+        AuthAccessRuleChecker stored = trie.add(rule);
+
+        assertThat(trie.getCountRules()).isEqualTo(7);
+        assertThat(stored.getResourcePath()).isEqualTo("/rest/users/{id}");
+        assertThat(stored.getAccessRules()).containsKeys("GET", "DELETE");
+    }
+
+    private void add(String path, String method) {
+        AuthAccessRuleChecker rule = new AuthAccessRuleChecker(path);
+        rule.addAccessRoles(method, Arrays.asList(AuthRole.VIRT_ROLE_USER));
+        trie.add(rule);
+    }
+
+    private String find(String path) {
+        AuthAccessRuleChecker rule = trie.find(path);
+        return (rule != null) ? rule.getResourcePath() : null;
+    }
+}
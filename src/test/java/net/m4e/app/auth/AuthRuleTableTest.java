@@ -0,0 +1,66 @@
+/*
+ * Copyright (c) 2017-2019 by Botorabi. All rights reserved.
+ * https://github.com/botorabi/Meet4Eat
+ *
+ * License: MIT License (MIT), read the LICENSE text in
+ *          main directory for more details.
+ */
+package net.m4e.app.auth;
+
+import net.m4e.app.user.rest.UserRestService;
+import org.junit.jupiter.api.Test;
+
+import java.util.*;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Test class for the generated AuthRuleTable, it must match the rules which are
+ * found by reflection at runtime.
+ *
+ * @author boto
+ * Date of creation Oct 18, 2026
+ */
+class AuthRuleTableTest {
+
+    @Test
+    void resourceClasses() {
+        List<Class<?>> classes = AuthRuleTable.getResourceClasses();
+        assertThat(classes).hasSize(10);
+        assertThat(classes).contains(UserRestService.class);
+        assertThat(classes).allMatch(cls -> cls.isAnnotationPresent(javax.ws.rs.Path.class));
+    }
+
+    @Test
+    void rulesMatchReflection() {
+        Map<String, List<String>> expected = new TreeMap<>();
+        Annotations annotations = new Annotations();
+        for (Class<?> clazz: AuthRuleTable.getResourceClasses()) {
+            String classPath = annotations.getClassPath(clazz);
+            annotations.getMethodsAuthRoles(clazz).forEach((path, roles) -> {
+                String fullPath = classPath + (path.isEmpty() ? "" : "/" + path);
+                roles.forEach((method, names) -> expected.computeIfAbsent(fullPath + " " + method, k -> new ArrayList<>()).addAll(names));
+            });
+        }
+
+        Map<String, List<String>> generated = new TreeMap<>();
+        for (String[] row: AuthRuleTable.getRules()) {
+            generated.computeIfAbsent(row[0] + " " + row[1], k -> new ArrayList<>()).addAll(Arrays.asList(row).subList(2, row.length));
+        }
+
+        assertThat(generated.keySet()).containsExactlyElementsOf(expected.keySet());
+        expected.forEach((rule, roles) -> assertThat(generated.get(rule)).as(rule).containsOnlyElementsOf(roles).hasSameSizeAs(roles));
+    }
+
+    @Test
+    void initializeChecker() {
+        AuthChecker checker = new AuthChecker();
+        checker.initialize();
+
+        assertThat(checker.exportInfo().getCountRules()).isGreaterThan(0);
+        assertThat(checker.checkAccess("", "/rest/users/42", "GET", AppRoles.USER.bit())).isTrue();
+        assertThat(checker.checkAccess("", "/rest/users/42", "GET", AppRoles.GUEST.bit())).isFalse();
+        assertThat(checker.checkAccess("", "/rest/maintenance/stats", "GET", AppRoles.USER.bit())).isFalse();
+        assertThat(checker.checkAccess("", "/rest/maintenance/stats", "GET", AppRoles.ADMIN.bit())).isTrue();
+    }
+}
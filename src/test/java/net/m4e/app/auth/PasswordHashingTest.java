@@ -0,0 +1,158 @@
+/*
+ * Copyright (c) 2017-2019 by Botorabi. All rights reserved.
+ * https://github.com/botorabi/Meet4Eat
+ *
+ * License: MIT License (MIT), read the LICENSE text in
+ *          main directory for more details.
+ */
+package net.m4e.app.auth;
+
+import org.junit.jupiter.api.*;
+
+import java.util.*;
+import java.util.concurrent.*;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * @author boto
+ * Date of creation Oct 18, 2026
+ */
+class PasswordHashingTest {
+
+    private static final String SESSION_ID = "session_id";
+
+    private final String passwordHash = AuthorityConfig.getInstance().createPassword("password");
+    private final String response = AuthorityConfig.getInstance().createPassword(passwordHash + SESSION_ID);
+
+    private PasswordHashing hashing;
+
+    @BeforeEach
+    void setup() {
+        hashing = new PasswordHashing();
+        hashing.setup(1, 4, PasswordHashing.MIN_ITERATIONS, true);
+    }
+
+    @AfterEach
+    void tearDown() {
+        hashing.passwordHashingShutdown();
+    }
+
+    @Test
+    void legacyHashWithoutPasswordHash() {
+        PasswordHashing.Result result = hashing.checkLogin(passwordHash, SESSION_ID, response, null);
+
+        assertThat(result.getOutcome()).isEqualTo(PasswordHashing.Outcome.GRANTED);
+        assertThat(result.getUpgradedHash()).isNull();
+        assertThat(hashing.checkLogin(passwordHash, "other", response, null).getOutcome()).isEqualTo(PasswordHashing.Outcome.DENIED);
+    }
+
+    @Test
+    void legacyHashIsUpgraded() {
+        PasswordHashing.Result result = hashing.checkLogin(passwordHash, SESSION_ID, response, passwordHash);
+
+        assertThat(result.getOutcome()).isEqualTo(PasswordHashing.Outcome.GRANTED);
+        assertThat(result.getUpgradedHash()).startsWith(PasswordHashing.ADAPTIVE_PREFIX + PasswordHashing.MIN_ITERATIONS + "$");
+
+        String upgraded = result.getUpgradedHash();
+        result = hashing.checkLogin(upgraded, SESSION_ID, response, passwordHash);
+        assertThat(result.getOutcome()).isEqualTo(PasswordHashing.Outcome.GRANTED);
+        assertThat(result.getUpgradedHash()).isNull();
+    }
+
+    @Test
+    void legacyHashIsKeptWithoutUpgrade() {
+        hashing.setup(1, 4, PasswordHashing.MIN_ITERATIONS, false);
+        PasswordHashing.Result result = hashing.checkLogin(passwordHash, SESSION_ID, response, passwordHash);
+
+        assertThat(result.getOutcome()).isEqualTo(PasswordHashing.Outcome.GRANTED);
+        assertThat(result.getUpgradedHash()).isNull();
+    }
+
+    @Test
+    void adaptiveHashAfterUpgradeIsDisabled() {
+        String adaptive = hashing.createAdaptiveHash(passwordHash);
+        hashing.setup(1, 4, PasswordHashing.MIN_ITERATIONS, false);
+
+        assertThat(hashing.isPasswordHashNeeded()).isTrue();
+        PasswordHashing.Result result = hashing.checkLogin(adaptive, SESSION_ID, response, passwordHash);
+        assertThat(result.getOutcome()).isEqualTo(PasswordHashing.Outcome.GRANTED);
+        assertThat(result.getUpgradedHash()).isNull();
+    }
+
+    @Test
+    void passwordHashNeeded() {
+        PasswordHashing other = new PasswordHashing();
+        other.setup(1, 4, PasswordHashing.MIN_ITERATIONS, false);
+        try {
+            assertThat(other.isPasswordHashNeeded()).isFalse();
+
+            // an adaptive hash stored while the upgrade was enabled before
+            String adaptive = hashing.createAdaptiveHash(passwordHash);
+            assertThat(other.checkLogin(adaptive, SESSION_ID, response, null).getOutcome()).isEqualTo(PasswordHashing.Outcome.DENIED);
+            assertThat(other.isPasswordHashNeeded()).isTrue();
+            assertThat(other.checkLogin(adaptive, SESSION_ID, response, passwordHash).getOutcome()).isEqualTo(PasswordHashing.Outcome.GRANTED);
+        }
+        finally {
+            other.passwordHashingShutdown();
+        }
+    }
+
+    @Test
+    void wrongPasswordHash() {
+        String otherHash = AuthorityConfig.getInstance().createPassword("other");
+        String otherResponse = AuthorityConfig.getInstance().createPassword(otherHash + SESSION_ID);
+
+        assertThat(hashing.checkLogin(passwordHash, SESSION_ID, otherResponse, otherHash).getOutcome()).isEqualTo(PasswordHashing.Outcome.DENIED);
+        assertThat(hashing.checkLogin(passwordHash, SESSION_ID, response, otherHash).getOutcome()).isEqualTo(PasswordHashing.Outcome.DENIED);
+
+        String adaptive = hashing.createAdaptiveHash(passwordHash);
+        assertThat(hashing.checkLogin(adaptive, SESSION_ID, otherResponse, otherHash).getOutcome()).isEqualTo(PasswordHashing.Outcome.DENIED);
+        assertThat(hashing.checkLogin("pbkdf2-sha512$broken", SESSION_ID, response, passwordHash).getOutcome()).isEqualTo(PasswordHashing.Outcome.DENIED);
+    }
+
+    @Test
+    void adaptiveHashNeedsPasswordHash() {
+        String adaptive = hashing.createAdaptiveHash(passwordHash);
+
+        assertThat(hashing.checkLogin(adaptive, SESSION_ID, response, null).getOutcome()).isEqualTo(PasswordHashing.Outcome.DENIED);
+    }
+
+    @Test
+    void weakAdaptiveHashIsRehashed() {
+        String adaptive = hashing.createAdaptiveHash(passwordHash);
+        hashing.setup(1, 4, 2 * PasswordHashing.MIN_ITERATIONS, true);
+
+        PasswordHashing.Result result = hashing.checkLogin(adaptive, SESSION_ID, response, passwordHash);
+
+        assertThat(result.getOutcome()).isEqualTo(PasswordHashing.Outcome.GRANTED);
+        assertThat(result.getUpgradedHash()).startsWith(PasswordHashing.ADAPTIVE_PREFIX + 2 * PasswordHashing.MIN_ITERATIONS + "$");
+    }
+
+    @Test
+    void busyWhenQueueIsFull() throws Exception {
+        hashing.setup(1, 1, 50 * PasswordHashing.MIN_ITERATIONS, false);
+        String adaptive = hashing.createAdaptiveHash(passwordHash);
+        ExecutorService clients = Executors.newFixedThreadPool(8);
+        try {
+            List<Future<PasswordHashing.Result>> results = new ArrayList<>();
+            for (int i = 0; i < 8; i++) {
+                results.add(clients.submit(() -> hashing.checkLogin(adaptive, SESSION_ID, response, passwordHash)));
+            }
+            Set<PasswordHashing.Outcome> outcomes = EnumSet.noneOf(PasswordHashing.Outcome.class);
+            for (Future<PasswordHashing.Result> result: results) {
+                outcomes.add(result.get().getOutcome());
+            }
+            assertThat(outcomes).containsOnly(PasswordHashing.Outcome.GRANTED, PasswordHashing.Outcome.BUSY);
+        }
+        finally {
+            clients.shutdownNow();
+        }
+    }
+
+    @Test
+    void calibrate() {
+        assertThat(hashing.calibrate(0)).isEqualTo(PasswordHashing.MIN_ITERATIONS);
+        assertThat(hashing.calibrate(Long.MAX_VALUE / 1000000000L)).isEqualTo(PasswordHashing.MAX_ITERATIONS);
+    }
+}
@@ -0,0 +1,83 @@
+/*
+ * Copyright (c) 2017-2019 by Botorabi. All rights reserved.
+ * https://github.com/botorabi/Meet4Eat
+ *
+ * License: MIT License (MIT), read the LICENSE text in
+ *          main directory for more details.
+ */
+package net.m4e.app.auth;
+
+import net.m4e.app.resources.StatusEntity;
+import net.m4e.app.user.business.UserEntity;
+import org.junit.jupiter.api.Test;
+
+import java.io.*;
+import java.util.*;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * @author boto
+ * Date of creation Oct 18, 2026
+ */
+class SessionPrincipalTest {
+
+    @Test
+    void fromUser() {
+        SessionPrincipal principal = SessionPrincipal.fromUser(createUser(AuthRole.USER_ROLE_ADMIN, "CUSTOM"));
+
+        assertThat(principal.getUserId()).isEqualTo(42L);
+        assertThat(principal.getName()).isEqualTo("User");
+        assertThat(principal.getRoleNames()).containsExactly(AuthRole.USER_ROLE_ADMIN);
+        assertThat(principal.hasRole(AuthRole.USER_ROLE_ADMIN)).isTrue();
+        assertThat(principal.hasRole(AuthRole.USER_ROLE_MODERATOR)).isFalse();
+        assertThat(principal.hasAnyRole(Arrays.asList(AuthRole.USER_ROLE_MODERATOR, AuthRole.USER_ROLE_ADMIN))).isTrue();
+    }
+
+    @Test
+    void userWithoutRoles() {
+        UserEntity user = createUser();
+        user.setRoles(null);
+        user.setStatus(null);
+        SessionPrincipal principal = SessionPrincipal.fromUser(user);
+
+        assertThat(principal.getRoles()).isEqualTo(0L);
+        assertThat(principal.getRoleNames()).isEmpty();
+        assertThat(principal.hasRole(AuthRole.USER_ROLE_ADMIN)).isFalse();
+    }
+
+    @Test
+    void serializable() throws Exception {
+        SessionPrincipal principal = SessionPrincipal.fromUser(createUser(AuthRole.USER_ROLE_MODERATOR));
+
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (ObjectOutputStream output = new ObjectOutputStream(bytes)) {
+            output.writeObject(principal);
+        }
+        SessionPrincipal copy;
+        try (ObjectInputStream input = new ObjectInputStream(new ByteArrayInputStream(bytes.toByteArray()))) {
+            copy = (SessionPrincipal) input.readObject();
+        }
+
+        assertThat(copy.getUserId()).isEqualTo(principal.getUserId());
+        assertThat(copy.getName()).isEqualTo(principal.getName());
+        assertThat(copy.getRoles()).isEqualTo(principal.getRoles());
+    }
+
+    private UserEntity createUser(String... roleNames) {
+        List<RoleEntity> roles = new ArrayList<>();
+        for (String roleName: roleNames) {
+            RoleEntity role = new RoleEntity();
+            role.setName(roleName);
+            roles.add(role);
+        }
+        StatusEntity status = new StatusEntity();
+        status.setDateLastUpdate(1000L);
+        UserEntity user = new UserEntity();
+        user.setId(42L);
+        user.setName("User");
+        user.setRoles(roles);
+        user.setStatus(status);
+        return user;
+    }
+}
@@ -0,0 +1,189 @@
+/*
+ * Copyright (c) 2017-2019 by Botorabi. All rights reserved.
+ * https://github.com/botorabi/Meet4Eat
+ *
+ * License: MIT License (MIT), read the LICENSE text in
+ *          main directory for more details.
+ */
+package net.m4e.app.chat;
+
+import net.m4e.app.communication.*;
+import org.junit.jupiter.api.*;
+
+import org.mockito.InOrder;
+
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.stream.Collectors;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Matchers.*;
+import static org.mockito.Mockito.*;
+
+/**
+ * @author boto
+ * Date of creation Oct 18, 2026
+ */
+class ChatHistoryTest {
+
+    private static final long START_SEQUENCE = 1000L;
+    private static final long EVENT_ID = 10L;
+    private static final long OTHER_EVENT_ID = 11L;
+    private static final long USER_ID = 1L;
+    private static final long OTHER_USER_ID = 2L;
+
+    private ChatHistory history;
+
+    @BeforeEach
+    void setup() {
+        history = new ChatHistory(3, ChatHistory.DEFAULT_MAX_BYTES, START_SEQUENCE);
+    }
+
+    @Test
+    void sequenceNumbers() {
+        Packet<ChatMessage> first = createPacket("first");
+        Packet<ChatMessage> second = createPacket("second");
+        history.addEventMessage(EVENT_ID, first);
+        history.addUserMessage(USER_ID, OTHER_USER_ID, second);
+
+        assertThat(first.getData().getSequence()).isEqualTo(START_SEQUENCE + 1);
+        assertThat(second.getData().getSequence()).isEqualTo(START_SEQUENCE + 2);
+        assertThat(history.getSequence()).isEqualTo(START_SEQUENCE + 2);
+    }
+
+    @Test
+    void messagesSince() {
+        history.addEventMessage(EVENT_ID, createPacket("event 1"));
+        history.addUserMessage(OTHER_USER_ID, USER_ID, createPacket("direct 1"));
+        history.addEventMessage(OTHER_EVENT_ID, createPacket("other event"));
+        history.addUserMessage(OTHER_USER_ID, 3L, createPacket("other direct"));
+        history.addEventMessage(EVENT_ID, createPacket("event 2"));
+
+        ChatHistoryInfo info = history.getMessages(USER_ID, Collections.singletonList(EVENT_ID), START_SEQUENCE + 1, 100);
+
+        assertThat(texts(info)).containsExactly("direct 1", "event 2");
+        assertThat(info.isComplete()).isTrue();
+        assertThat(info.getSequence()).isEqualTo(START_SEQUENCE + 5);
+        assertThat(info.getCmd()).isEqualTo(SystemCommand.CMD_CHAT_HISTORY);
+    }
+
+    @Test
+    void ringBufferDropsOldest() {
+        for (int i = 1; i <= 5; i++) {
+            history.addEventMessage(EVENT_ID, createPacket("message " + i));
+        }
+
+        ChatHistoryInfo info = history.getMessages(USER_ID, Collections.singletonList(EVENT_ID), START_SEQUENCE, 100);
+        assertThat(texts(info)).containsExactly("message 3", "message 4", "message 5");
+        assertThat(info.isComplete()).isFalse();
+        assertThat(history.getMessageCount()).isEqualTo(3L);
+
+        info = history.getMessages(USER_ID, Collections.singletonList(EVENT_ID), START_SEQUENCE + 2, 100);
+        assertThat(info.isComplete()).isTrue();
+    }
+
+    @Test
+    void limitKeepsLatest() {
+        for (int i = 1; i <= 3; i++) {
+            history.addEventMessage(EVENT_ID, createPacket("message " + i));
+        }
+
+        ChatHistoryInfo info = history.getMessages(USER_ID, Collections.singletonList(EVENT_ID), START_SEQUENCE, 2);
+
+        assertThat(texts(info)).containsExactly("message 2", "message 3");
+        assertThat(info.isComplete()).isFalse();
+    }
+
+    @Test
+    void totalSizeEvictsLeastRecentlyUsed() {
+        history.addEventMessage(EVENT_ID, createPacket("old"));
+        long messageSize = history.getTotalBytes();
+        history = new ChatHistory(10, 3 * messageSize, START_SEQUENCE);
+
+        history.addEventMessage(EVENT_ID, createPacket("old"));
+        history.addEventMessage(OTHER_EVENT_ID, createPacket("new"));
+        history.addUserMessage(USER_ID, OTHER_USER_ID, createPacket("dm1"));
+        assertThat(history.getCountEvicted()).isEqualTo(0L);
+
+        history.addUserMessage(USER_ID, OTHER_USER_ID, createPacket("dm2"));
+
+        assertThat(history.getCountEvicted()).isEqualTo(1L);
+        assertThat(history.getConversationCount()).isEqualTo(2);
+        assertThat(history.getTotalBytes()).isLessThanOrEqualTo(3 * messageSize);
+
+        ChatHistoryInfo info = history.getMessages(USER_ID, Arrays.asList(EVENT_ID, OTHER_EVENT_ID), START_SEQUENCE, 100);
+        assertThat(texts(info)).containsExactly("new", "dm1", "dm2");
+        assertThat(info.isComplete()).isFalse();
+    }
+
+    @Test
+    void disabled() {
+        history = new ChatHistory(10, 0L, START_SEQUENCE);
+        Packet<ChatMessage> packet = createPacket("message");
+        history.addEventMessage(EVENT_ID, packet);
+
+        assertThat(packet.getData().getSequence()).isEqualTo(START_SEQUENCE + 1);
+        assertThat(history.getConversationCount()).isEqualTo(0);
+    }
+
+    @Test
+    void unknownSequence() {
+        history.addEventMessage(EVENT_ID, createPacket("message"));
+
+        ChatHistoryInfo info = history.getMessages(USER_ID, Collections.singletonList(EVENT_ID), START_SEQUENCE + 100, 100);
+
+        assertThat(info.getMessages()).isEmpty();
+        assertThat(info.isComplete()).isFalse();
+    }
+
+    @Test
+    void logIsWrittenOutsideLock() throws Exception {
+        ChatLog log = mock(ChatLog.class);
+        CountDownLatch appending = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        when(log.append(any(), anyLong(), anyLong())).thenAnswer(invocation -> {
+            appending.countDown();
+            release.await(5, TimeUnit.SECONDS);
+            return true;
+        });
+        history.setLog(log);
+
+        ExecutorService writer = Executors.newSingleThreadExecutor();
+        ExecutorService reader = Executors.newSingleThreadExecutor();
+        try {
+            Packet<ChatMessage> first = createPacket("first");
+            Future<?> firstAdded = writer.submit(() -> history.addEventMessage(EVENT_ID, first));
+            assertThat(appending.await(5, TimeUnit.SECONDS)).isTrue();
+
+            // the log is blocked, the history must not be
+            Packet<ChatMessage> second = createPacket("second");
+            ChatHistoryInfo info = reader.submit(() -> {
+                history.addUserMessage(USER_ID, OTHER_USER_ID, second);
+                return history.getMessages(USER_ID, Collections.singletonList(EVENT_ID), START_SEQUENCE, 100);
+            }).get(1, TimeUnit.SECONDS);
+            assertThat(texts(info)).containsExactly("first", "second");
+
+            release.countDown();
+            firstAdded.get(5, TimeUnit.SECONDS);
+
+            InOrder inOrder = inOrder(log);
+            inOrder.verify(log).append(first, EVENT_ID, 0L);
+            inOrder.verify(log).append(second, 0L, OTHER_USER_ID);
+        }
+        finally {
+            release.countDown();
+            writer.shutdownNow();
+            reader.shutdownNow();
+        }
+    }
+
+    private Packet<ChatMessage> createPacket(String text) {
+        ChatMessage message = new ChatMessage();
+        message.setText(text);
+        return new Packet<>(Packet.CHANNEL_CHAT, "1", "user", message);
+    }
+
+    private List<String> texts(ChatHistoryInfo info) {
+        return info.getMessages().stream().map(packet -> packet.getData().getText()).collect(Collectors.toList());
+    }
+}
@@ -0,0 +1,221 @@
+/*
+ * Copyright (c) 2017-2019 by Botorabi. All rights reserved.
+ * https://github.com/botorabi/Meet4Eat
+ *
+ * License: MIT License (MIT), read the LICENSE text in
+ *          main directory for more details.
+ */
+package net.m4e.app.chat;
+
+import net.m4e.app.communication.*;
+import org.junit.jupiter.api.*;
+
+import javax.json.JsonObject;
+import java.io.IOException;
+import java.nio.channels.FileChannel;
+import java.nio.file.*;
+import java.time.*;
+import java.util.*;
+import java.util.stream.*;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * @author boto
+ * Date of creation Oct 18, 2026
+ */
+class ChatLogTest {
+
+    private static final long EVENT_ID = 10L;
+    private static final long OTHER_EVENT_ID = 11L;
+    private static final Instant START = Instant.parse("2026-10-18T10:00:00Z");
+
+    /**
+     * Clock which can be moved forward by the tests
+     */
+    private static class TestClock extends Clock {
+        private Instant now = START;
+
+        void advance(Duration duration) {
+            now = now.plus(duration);
+        }
+
+        @Override
+        public ZoneId getZone() {
+            return ZoneOffset.UTC;
+        }
+
+        @Override
+        public Clock withZone(ZoneId zone) {
+            return this;
+        }
+
+        @Override
+        public Instant instant() {
+            return now;
+        }
+    }
+
+    private Path directory;
+
+    private TestClock clock;
+
+    private ChatLog chatLog;
+
+    private long sequence = 0L;
+
+    @BeforeEach
+    void setup() throws IOException {
+        directory = Files.createTempDirectory("m4e-chatlog");
+        clock = new TestClock();
+        chatLog = new ChatLog(directory, 2, clock);
+        chatLog.open();
+    }
+
+    @AfterEach
+    void cleanup() throws IOException {
+        chatLog.close();
+        try (Stream<Path> files = Files.walk(directory)) {
+            for (Path file: files.sorted(Comparator.reverseOrder()).collect(Collectors.toList())) {
+                Files.delete(file);
+            }
+        }
+    }
+
+    @Test
+    void appendAndPage() {
+        append(EVENT_ID, "message 1");
+        append(OTHER_EVENT_ID, "other");
+        append(EVENT_ID, "message 2");
+        append(EVENT_ID, "message 3");
+
+        ChatLogPage page = chatLog.getEventMessages(EVENT_ID, 0L, 2);
+        assertThat(texts(page)).containsExactly("message 1", "message 2");
+        assertThat(page.isMore()).isTrue();
+        assertThat(page.getNextSequence()).isEqualTo(3L);
+
+        page = chatLog.getEventMessages(EVENT_ID, page.getNextSequence(), 2);
+        assertThat(texts(page)).containsExactly("message 3");
+        assertThat(page.isMore()).isFalse();
+        assertThat(page.getNextSequence()).isEqualTo(4L);
+
+        assertThat(chatLog.getCountAppended()).isEqualTo(4L);
+    }
+
+    @Test
+    void outOfOrderRejected() {
+        append(EVENT_ID, "message");
+        sequence = 0L;
+
+        assertThat(append(EVENT_ID, "old")).isFalse();
+        assertThat(chatLog.getCountFailed()).isEqualTo(1L);
+    }
+
+    @Test
+    void reopenUsesIndex() throws IOException {
+        int count = 3 * ChatLog.INDEX_INTERVAL + 5;
+        for (int i = 1; i <= count; i++) {
+            append(EVENT_ID, "message " + i);
+        }
+        chatLog.close();
+
+        chatLog = new ChatLog(directory, 2, clock);
+        chatLog.open();
+
+        assertThat(chatLog.getLastSequence()).isEqualTo(count);
+        ChatLogPage page = chatLog.getEventMessages(EVENT_ID, 2L * ChatLog.INDEX_INTERVAL + 10, 3);
+        assertThat(texts(page)).containsExactly(
+                "message " + (2 * ChatLog.INDEX_INTERVAL + 11),
+                "message " + (2 * ChatLog.INDEX_INTERVAL + 12),
+                "message " + (2 * ChatLog.INDEX_INTERVAL + 13));
+
+        append(EVENT_ID, "after reopen");
+        page = chatLog.getEventMessages(EVENT_ID, count, 10);
+        assertThat(texts(page)).containsExactly("after reopen");
+    }
+
+    @Test
+    void missingIndexIsRebuilt() throws IOException {
+        for (int i = 1; i <= ChatLog.INDEX_INTERVAL + 1; i++) {
+            append(EVENT_ID, "message " + i);
+        }
+        chatLog.close();
+        Path indexFile = directory.resolve("chat-20261018.idx");
+        Files.delete(indexFile);
+
+        chatLog = new ChatLog(directory, 2, clock);
+        chatLog.open();
+
+        assertThat(Files.size(indexFile)).isEqualTo(2 * 16L);
+        assertThat(texts(chatLog.getEventMessages(EVENT_ID, ChatLog.INDEX_INTERVAL, 10)))
+                .containsExactly("message " + (ChatLog.INDEX_INTERVAL + 1));
+    }
+
+    @Test
+    void incompleteRecordIsTruncated() throws IOException {
+        append(EVENT_ID, "message 1");
+        append(EVENT_ID, "message 2");
+        chatLog.close();
+
+        Path file = directory.resolve("chat-20261018.log");
+        long size = Files.size(file);
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.WRITE)) {
+            channel.truncate(size - 3);
+        }
+
+        chatLog = new ChatLog(directory, 2, clock);
+        chatLog.open();
+
+        assertThat(chatLog.getLastSequence()).isEqualTo(1L);
+        assertThat(append(EVENT_ID, "message 3")).isTrue();
+        assertThat(texts(chatLog.getEventMessages(EVENT_ID, 0L, 10))).containsExactly("message 1", "message 3");
+    }
+
+    @Test
+    void segmentPerDayAndRetention() {
+        append(EVENT_ID, "day 1");
+        clock.advance(Duration.ofDays(1));
+        append(EVENT_ID, "day 2");
+        clock.advance(Duration.ofDays(1));
+        append(EVENT_ID, "day 3");
+
+        assertThat(chatLog.getSegmentCount()).isEqualTo(3);
+        assertThat(texts(chatLog.getEventMessages(EVENT_ID, 0L, 10))).containsExactly("day 1", "day 2", "day 3");
+
+        clock.advance(Duration.ofDays(1));
+        assertThat(chatLog.purgeExpiredSegments()).isEqualTo(1);
+
+        assertThat(chatLog.getSegmentCount()).isEqualTo(2);
+        assertThat(Files.exists(directory.resolve("chat-20261018.log"))).isFalse();
+        assertThat(texts(chatLog.getEventMessages(EVENT_ID, 0L, 10))).containsExactly("day 2", "day 3");
+    }
+
+    @Test
+    void compaction() {
+        append(EVENT_ID, "kept");
+        append(OTHER_EVENT_ID, "removed");
+        append(0L, "direct");
+        clock.advance(Duration.ofDays(1));
+        append(OTHER_EVENT_ID, "active segment");
+
+        assertThat(chatLog.compact(eventId -> eventId == EVENT_ID)).isEqualTo(1L);
+
+        assertThat(texts(chatLog.getEventMessages(EVENT_ID, 0L, 10))).containsExactly("kept");
+        assertThat(texts(chatLog.getEventMessages(OTHER_EVENT_ID, 0L, 10))).containsExactly("active segment");
+        assertThat(chatLog.compact(eventId -> eventId == EVENT_ID)).isEqualTo(0L);
+    }
+
+    private boolean append(long eventId, String text) {
+        ChatMessage message = new ChatMessage();
+        message.setText(text);
+        message.setSequence(++sequence);
+        Packet<ChatMessage> packet = new Packet<>(Packet.CHANNEL_CHAT, "1", "user", message);
+        return chatLog.append(packet, eventId, (eventId == 0L) ? 2L : 0L);
+    }
+
+    private List<String> texts(ChatLogPage page) {
+        return page.getMessages().stream()
+                .map(message -> message.getJsonObject("data").getString("text"))
+                .collect(Collectors.toList());
+    }
+}
@@ -0,0 +1,88 @@
+/*
+ * Copyright (c) 2017-2019 by Botorabi. All rights reserved.
+ * https://github.com/botorabi/Meet4Eat
+ *
+ * License: MIT License (MIT), read the LICENSE text in
+ *          main directory for more details.
+ */
+package net.m4e.app.chat;
+
+import net.m4e.app.auth.SessionPrincipal;
+import net.m4e.app.communication.*;
+import net.m4e.app.event.business.*;
+import org.junit.jupiter.api.*;
+import org.mockito.*;
+
+import java.util.*;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Matchers.*;
+
+/**
+ * @author boto
+ * Date of creation Oct 18, 2026
+ */
+class ChatSystemTest {
+
+    private static final Long SENDER_ID = 1L;
+    private static final Long RELATIVE_ID = 2L;
+    private static final Long CONNECTED_ID = 3L;
+    private static final Long UNKNOWN_ID = 999L;
+
+    @Mock
+    Events events;
+    @Mock
+    EventMemberships eventMemberships;
+    @Mock
+    ConnectedClients connections;
+
+    private ChatSystem chatSystem;
+
+    @BeforeEach
+    void setup() {
+        MockitoAnnotations.initMocks(this);
+        Mockito.when(connections.getConnectedUser(SENDER_ID)).thenReturn(new SessionPrincipal(SENDER_ID, "sender", 0L));
+        Mockito.when(connections.isUserConnected(CONNECTED_ID)).thenReturn(true);
+        Mockito.when(eventMemberships.getRelatives(SENDER_ID)).thenReturn(Collections.singletonList(RELATIVE_ID));
+
+        chatSystem = new ChatSystem(events, eventMemberships);
+        chatSystem.connections = connections;
+    }
+
+    @Test
+    void messageToUnknownUserIsNotRecorded() {
+        chatSystem.dispatchMessage(createEvent(UNKNOWN_ID));
+
+        assertThat(chatSystem.getHistory().getMessageCount()).isEqualTo(0L);
+        Mockito.verify(connections, Mockito.never()).sendPacket(any(), anyListOf(Long.class));
+    }
+
+    @Test
+    void messageToOfflineRelativeIsRecorded() {
+        chatSystem.dispatchMessage(createEvent(RELATIVE_ID));
+
+        assertThat(chatSystem.getHistory().getMessageCount()).isEqualTo(1L);
+        Mockito.verify(connections, Mockito.never()).sendPacket(any(), anyListOf(Long.class));
+    }
+
+    @Test
+    void messageToConnectedUserIsSent() {
+        chatSystem.dispatchMessage(createEvent(CONNECTED_ID));
+
+        assertThat(chatSystem.getHistory().getMessageCount()).isEqualTo(1L);
+        Mockito.verify(connections).sendPacket(any(), eq(Arrays.asList(SENDER_ID, CONNECTED_ID)));
+    }
+
+    private ChannelChatEvent createEvent(Long receiverId) {
+        ChatMessage message = new ChatMessage();
+        message.setText("hello");
+        message.setReceiverUser(receiverId.toString());
+        message.setReceiverEvent("");
+
+        ChannelChatEvent event = new ChannelChatEvent();
+        event.setSenderId(SENDER_ID);
+        event.setSessionId("s1");
+        event.setPacket(new Packet<>(Packet.CHANNEL_CHAT, "", "", message));
+        return event;
+    }
+}
@@ -0,0 +1,177 @@
+/*
+ * Copyright (c) 2017-2019 by Botorabi. All rights reserved.
+ * https://github.com/botorabi/Meet4Eat
+ *
+ * License: MIT License (MIT), read the LICENSE text in
+ *          main directory for more details.
+ */
+package net.m4e.app.communication;
+
+import org.junit.jupiter.api.*;
+import org.mockito.Mockito;
+
+import javax.websocket.*;
+import java.nio.ByteBuffer;
+import java.util.*;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Matchers.any;
+
+/**
+ * @author boto
+ * Date of creation Oct 18, 2026
+ */
+class BinaryPacketCodecTest {
+
+    private BinaryPacketDecoder decoder;
+
+    @BeforeEach
+    void setup() {
+        decoder = new BinaryPacketDecoder();
+    }
+
+    @Test
+    void chatMessage() {
+        ChatMessage message = new ChatMessage();
+        message.setReceiverEvent("42");
+        message.setText("Hello üöä");
+        Packet<ChatMessage> packet = new Packet<>(Packet.CHANNEL_CHAT, "1", "Bob", message);
+        packet.setTime(-1234567890L);
+
+        Packet<?> decoded = roundTrip(packet);
+
+        assertThat(decoded.getChannel()).isEqualTo(Packet.CHANNEL_CHAT);
+        assertThat(decoded.getSourceId()).isEqualTo("1");
+        assertThat(decoded.getSource()).isEqualTo("Bob");
+        assertThat(decoded.getTime()).isEqualTo(-1234567890L);
+        assertThat(decoded.getData()).isInstanceOf(ChatMessage.class);
+
+        ChatMessage decodedMessage = (ChatMessage) decoded.getData();
+        assertThat(decodedMessage.getReceiverEvent()).isEqualTo("42");
+        assertThat(decodedMessage.getReceiverUser()).isEmpty();
+        assertThat(decodedMessage.getText()).isEqualTo("Hello üöä");
+    }
+
+    @Test
+    void systemCommand() {
+        SystemCommand command = new SystemCommand();
+        command.setCmd(SystemCommand.CMD_PING);
+
+        Packet<?> decoded = roundTrip(new Packet<>(Packet.CHANNEL_SYSTEM, null, null, command));
+
+        assertThat(decoded.getSourceId()).isNull();
+        assertThat(decoded.getData()).isInstanceOf(SystemCommand.class);
+        assertThat(((SystemCommand) decoded.getData()).getCmd()).isEqualTo(SystemCommand.CMD_PING);
+    }
+
+    @Test
+    void customChannel() {
+        Packet<?> decoded = roundTrip(new Packet<>("custom", "1", "Bob", "data"));
+
+        assertThat(decoded.getChannel()).isEqualTo("custom");
+        assertThat(decoded.getData()).isNull();
+    }
+
+    @Test
+    void repeatedStringsAreReferenced() {
+        List<Map<String, Object>> members = new ArrayList<>();
+        for (int i = 0; i < 10; i++) {
+            Map<String, Object> member = new HashMap<>();
+            member.put("name", "Some member name");
+            member.put("id", (long) i);
+            members.add(member);
+        }
+        Map<String, Object> data = new HashMap<>();
+        data.put("members", members);
+        Packet<Map<String, Object>> packet = new Packet<>(Packet.CHANNEL_NOTIFY, "1", "Bob", data);
+
+        byte[] frame = BinaryPacketEncoder.toBytes(packet);
+        String json = new EncodedPacket(packet).getText();
+
+        assertThat(frame).isNotNull();
+        assertThat(frame.length).isLessThan(json.length() / 2);
+        assertThat(decoder.decode(ByteBuffer.wrap(frame))).isNotNull();
+    }
+
+    @Test
+    void beanProperties() {
+        EventMessage message = new EventMessage();
+        message.setType("info");
+        message.setData(new EventMessage.Data());
+        message.getData().setEventId("7");
+
+        Packet<?> decoded = roundTrip(new Packet<>(Packet.CHANNEL_EVENT, "1", "Bob", message));
+
+        EventMessage decodedMessage = (EventMessage) decoded.getData();
+        assertThat(decodedMessage.getType()).isEqualTo("info");
+        assertThat(decodedMessage.getData().getEventId()).isEqualTo("7");
+    }
+
+    @Test
+    void invalidFrames() {
+        assertThat(decoder.decode(ByteBuffer.wrap(new byte[0]))).isNull();
+        assertThat(decoder.decode(ByteBuffer.wrap(new byte[]{9, 0, 0}))).isNull();
+        assertThat(decoder.decode(ByteBuffer.wrap(new byte[]{BinaryProtocol.VERSION, 17, 0}))).isNull();
+        assertThat(decoder.decode(ByteBuffer.wrap(new byte[]{BinaryProtocol.VERSION, 0, 0, 42}))).isNull();
+
+        byte[] frame = BinaryPacketEncoder.toBytes(new Packet<>(Packet.CHANNEL_CHAT, "1", "Bob", new ChatMessage()));
+        assertThat(decoder.decode(ByteBuffer.wrap(Arrays.copyOf(frame, frame.length - 2)))).isNull();
+    }
+
+    @Test
+    void deeplyNestedFrame() {
+        assertThat(decoder.decode(ByteBuffer.wrap(nestedArrays(BinaryProtocol.MAX_DEPTH)))).isNotNull();
+        assertThat(decoder.decode(ByteBuffer.wrap(nestedArrays(BinaryProtocol.MAX_DEPTH + 1)))).isNull();
+        assertThat(decoder.decode(ByteBuffer.wrap(nestedArrays(100000)))).isNull();
+    }
+
+    private byte[] nestedArrays(int depth) {
+        byte[] frame = new byte[5 + 2 * depth + 1];
+        int position = 0;
+        frame[position++] = BinaryProtocol.VERSION;
+        frame[position++] = 0;
+        frame[position++] = 0;
+        frame[position++] = BinaryProtocol.TAG_NULL;
+        frame[position++] = BinaryProtocol.TAG_NULL;
+        for (int i = 0; i < depth; i++) {
+            frame[position++] = BinaryProtocol.TAG_ARRAY;
+            frame[position++] = 1;
+        }
+        frame[position] = BinaryProtocol.TAG_NULL;
+        return frame;
+    }
+
+    @Test
+    void outboundQueueSendsBinary() {
+        Session session = Mockito.mock(Session.class);
+        RemoteEndpoint.Async remote = Mockito.mock(RemoteEndpoint.Async.class);
+        Mockito.when(session.getAsyncRemote()).thenReturn(remote);
+        Mockito.when(session.getNegotiatedSubprotocol()).thenReturn(BinaryProtocol.SUBPROTOCOL_BINARY);
+
+        EncodedPacket message = new EncodedPacket(new Packet<>(Packet.CHANNEL_CHAT, "1", "Bob", new ChatMessage()));
+        new OutboundQueue(session, 10, OutboundQueue.OverflowPolicy.DROP_OLDEST).enqueue(message, null);
+
+        Mockito.verify(remote).sendBinary(Mockito.eq(ByteBuffer.wrap(message.getBinary())), any());
+        Mockito.verify(remote, Mockito.never()).sendText(any(), any());
+    }
+
+    @Test
+    void negotiateSubprotocol() {
+        ConnectionConfigurator configurator = new ConnectionConfigurator();
+        List<String> supported = Arrays.asList(BinaryProtocol.SUBPROTOCOL_BINARY, BinaryProtocol.SUBPROTOCOL_JSON);
+
+        assertThat(configurator.getNegotiatedSubprotocol(supported, Arrays.asList("foo", BinaryProtocol.SUBPROTOCOL_BINARY)))
+                .isEqualTo(BinaryProtocol.SUBPROTOCOL_BINARY);
+        assertThat(configurator.getNegotiatedSubprotocol(supported, Collections.singletonList(BinaryProtocol.SUBPROTOCOL_JSON)))
+                .isEqualTo(BinaryProtocol.SUBPROTOCOL_JSON);
+        assertThat(configurator.getNegotiatedSubprotocol(supported, Collections.emptyList())).isEmpty();
+    }
+
+    private Packet<?> roundTrip(Packet<?> packet) {
+        byte[] frame = BinaryPacketEncoder.toBytes(packet);
+        assertThat(frame).isNotNull();
+        Packet<?> decoded = decoder.decode(ByteBuffer.wrap(frame));
+        assertThat(decoded).isNotNull();
+        return decoded;
+    }
+}
@@ -0,0 +1,90 @@
+/*
+ * Copyright (c) 2017-2019 by Botorabi. All rights reserved.
+ * https://github.com/botorabi/Meet4Eat
+ *
+ * License: MIT License (MIT), read the LICENSE text in
+ *          main directory for more details.
+ */
+package net.m4e.app.communication;
+
+import org.junit.jupiter.api.*;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.*;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Compares frame size and encode/decode time of the JSON and the binary protocol
+ * for a typical event notification.
+ *
+ * The benchmark is skipped by default, run it with:
+ *
+ *   mvn test -Dtest=BinaryProtocolBenchmark -Dbenchmark=true
+ *
+ * @author boto
+ * Date of creation Oct 18, 2026
+ */
+class BinaryProtocolBenchmark {
+
+    private static final int COUNT_WARMUP = 2000;
+    private static final int COUNT_ROUNDS = 10000;
+
+    @BeforeEach
+    void checkEnabled() {
+        Assumptions.assumeTrue(Boolean.getBoolean("benchmark"), "benchmark is disabled");
+    }
+
+    @Test
+    void compareProtocols() {
+        Packet<Map<String, Object>> packet = createEventPacket();
+        PacketDecoder jsonDecoder = new PacketDecoder();
+        BinaryPacketDecoder binaryDecoder = new BinaryPacketDecoder();
+
+        String json = Connection.JsonBEncoder.toJson(packet);
+        byte[] binary = BinaryPacketEncoder.toBytes(packet);
+
+        for (int i = 0; i < COUNT_WARMUP; i++) {
+            jsonDecoder.decode(Connection.JsonBEncoder.toJson(packet));
+            binaryDecoder.decode(ByteBuffer.wrap(BinaryPacketEncoder.toBytes(packet)));
+        }
+
+        long jsonEncode = measure(() -> Connection.JsonBEncoder.toJson(packet));
+        long binaryEncode = measure(() -> BinaryPacketEncoder.toBytes(packet));
+        long jsonDecode = measure(() -> jsonDecoder.decode(json));
+        long binaryDecode = measure(() -> binaryDecoder.decode(ByteBuffer.wrap(binary)));
+
+        int jsonSize = json.getBytes(StandardCharsets.UTF_8).length;
+        System.out.println(String.format("Frame size JSON: %d bytes, binary: %d bytes", jsonSize, binary.length));
+        System.out.println(String.format("Encode JSON: %d ns, binary: %d ns", jsonEncode, binaryEncode));
+        System.out.println(String.format("Decode JSON: %d ns, binary: %d ns", jsonDecode, binaryDecode));
+
+        assertThat(binary.length).isLessThan(jsonSize);
+    }
+
+    private long measure(Runnable round) {
+        long start = System.nanoTime();
+        for (int i = 0; i < COUNT_ROUNDS; i++) {
+            round.run();
+        }
+        return (System.nanoTime() - start) / COUNT_ROUNDS;
+    }
+
+    private Packet<Map<String, Object>> createEventPacket() {
+        List<Map<String, Object>> locations = new ArrayList<>();
+        for (int i = 0; i < 20; i++) {
+            Map<String, Object> location = new HashMap<>();
+            location.put("id", "" + i);
+            location.put("name", "Location " + i);
+            location.put("description", "Some restaurant around the corner");
+            locations.add(location);
+        }
+        Map<String, Object> data = new HashMap<>();
+        data.put("eventId", "42");
+        data.put("locations", locations);
+        Packet<Map<String, Object>> packet = new Packet<>(Packet.CHANNEL_NOTIFY, "1", "Bob", data);
+        packet.setTime(System.currentTimeMillis());
+        return packet;
+    }
+}
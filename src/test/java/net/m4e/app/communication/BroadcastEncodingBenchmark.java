@@ -0,0 +1,107 @@
+/*
+ * Copyright (c) 2017-2019 by Botorabi. All rights reserved.
+ * https://github.com/botorabi/Meet4Eat
+ *
+ * License: MIT License (MIT), read the LICENSE text in
+ *          main directory for more details.
+ */
+package net.m4e.app.communication;
+
+import org.junit.jupiter.api.*;
+
+import javax.json.bind.*;
+import java.util.*;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Compares encoding a broadcast packet once per recipient session (as done by the
+ * container calling the endpoint's encoder for every session) with encoding it
+ * once for all sessions.
+ *
+ * The benchmark is skipped by default, run it with:
+ *
+ *   mvn test -Dtest=BroadcastEncodingBenchmark -Dbenchmark=true
+ *
+ * @author boto
+ * Date of creation Oct 18, 2026
+ */
+class BroadcastEncodingBenchmark {
+
+    private static final int COUNT_SESSIONS = 200;
+    private static final int COUNT_WARMUP = 20;
+    private static final int COUNT_ROUNDS = 100;
+
+    @BeforeEach
+    void checkEnabled() {
+        Assumptions.assumeTrue(Boolean.getBoolean("benchmark"), "benchmark is disabled");
+    }
+
+    @Test
+    void compareEncoding() throws Exception {
+        Packet<Map<String, Object>> packet = createEventPacket();
+
+        for (int i = 0; i < COUNT_WARMUP; i++) {
+            encodePerSession(packet);
+            encodeOnce(packet);
+        }
+
+        long perSession = measure(() -> encodePerSession(packet));
+        long once = measure(() -> encodeOnce(packet));
+
+        System.out.println(String.format("Broadcast to %d sessions, per-session encoding: %d us, encode-once: %d us",
+                COUNT_SESSIONS, TimeUnit.NANOSECONDS.toMicros(perSession), TimeUnit.NANOSECONDS.toMicros(once)));
+
+        assertThat(once).isLessThan(perSession);
+    }
+
+    private interface Round {
+        void run() throws Exception;
+    }
+
+    private long measure(Round round) throws Exception {
+        long start = System.nanoTime();
+        for (int i = 0; i < COUNT_ROUNDS; i++) {
+            round.run();
+        }
+        return (System.nanoTime() - start) / COUNT_ROUNDS;
+    }
+
+    /**
+     * This is how the packets were encoded before: a new Jsonb per session.
+     */
+    private int encodePerSession(Packet<?> packet) throws Exception {
+        int length = 0;
+        for (int i = 0; i < COUNT_SESSIONS; i++) {
+            try (Jsonb jsonb = JsonbBuilder.create()) {
+                length += jsonb.toJson(packet).length();
+            }
+        }
+        return length;
+    }
+
+    private int encodeOnce(Packet<?> packet) {
+        EncodedPacket encodedPacket = new EncodedPacket(packet);
+        int length = 0;
+        for (int i = 0; i < COUNT_SESSIONS; i++) {
+            length += encodedPacket.getText().length();
+        }
+        return length;
+    }
+
+    private Packet<Map<String, Object>> createEventPacket() {
+        List<Map<String, Object>> locations = new ArrayList<>();
+        for (int i = 0; i < 20; i++) {
+            Map<String, Object> location = new HashMap<>();
+            location.put("id", "" + i);
+            location.put("name", "Location " + i);
+            location.put("description", "Some restaurant around the corner with a long description text " + i);
+            locations.add(location);
+        }
+        Map<String, Object> data = new HashMap<>();
+        data.put("eventId", "42");
+        data.put("locations", locations);
+        return new Packet<>(Packet.CHANNEL_EVENT, "1", "Bob", data);
+    }
+}
@@ -0,0 +1,523 @@
+/*
+ * Copyright (c) 2017-2019 by Botorabi. All rights reserved.
+ * https://github.com/botorabi/Meet4Eat
+ *
+ * License: MIT License (MIT), read the LICENSE text in
+ *          main directory for more details.
+ */
+package net.m4e.app.communication;
+
+import net.m4e.app.auth.SessionPrincipal;
+import net.m4e.app.communication.cluster.LoopbackClusterMessageBus;
+import org.junit.jupiter.api.*;
+import org.mockito.*;
+
+import javax.websocket.*;
+import java.nio.ByteBuffer;
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.*;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Matchers.any;
+import static org.mockito.Matchers.eq;
+
+/**
+ * @author boto
+ * Date of creation Oct 18, 2026
+ */
+class ConnectedClientsTest {
+
+    private ConnectedClients connectedClients;
+
+    private AtomicInteger countOnline;
+    private AtomicInteger countOffline;
+
+    @BeforeEach
+    void setup() {
+        countOnline = new AtomicInteger();
+        countOffline = new AtomicInteger();
+
+        Presence presence = Mockito.mock(Presence.class);
+        Mockito.doAnswer(invocation -> countOnline.incrementAndGet()).when(presence).userConnected(any());
+        Mockito.doAnswer(invocation -> countOffline.incrementAndGet()).when(presence).userDisconnected(any());
+
+        connectedClients = new ConnectedClients();
+        connectedClients.presence = presence;
+    }
+
+    @Nested
+    class AddRemove {
+
+        @Test
+        void addConnection() {
+            SessionPrincipal user = createUser(1L);
+            Session session = createSession("s1");
+
+            assertThat(connectedClients.addConnection(user, session)).isTrue();
+            assertThat(connectedClients.addConnection(user, session)).isFalse();
+
+            assertThat(connectedClients.getConnectedUser(1L)).isSameAs(user);
+            assertThat(connectedClients.getUser(session)).isSameAs(user);
+            assertThat(connectedClients.getSession("s1")).isSameAs(session);
+            assertThat(connectedClients.getSessionCount()).isEqualTo(1);
+            assertThat(countOnline.get()).isEqualTo(1);
+        }
+
+        @Test
+        void multipleSessions() {
+            SessionPrincipal user = createUser(1L);
+            Session session1 = createSession("s1");
+            Session session2 = createSession("s2");
+
+            connectedClients.addConnection(user, session1);
+            connectedClients.addConnection(user, session2);
+            assertThat(countOnline.get()).isEqualTo(1);
+
+            assertThat(connectedClients.removeConnection(user, session1)).isTrue();
+            assertThat(connectedClients.getConnectedUser(1L)).isSameAs(user);
+            assertThat(countOffline.get()).isEqualTo(0);
+
+            assertThat(connectedClients.removeConnection(user, session2)).isTrue();
+            assertThat(connectedClients.getConnectedUser(1L)).isNull();
+            assertThat(connectedClients.getSessionCount()).isEqualTo(0);
+            assertThat(countOffline.get()).isEqualTo(1);
+        }
+
+        @Test
+        void removeUnknownConnection() {
+            SessionPrincipal user = createUser(1L);
+
+            assertThat(connectedClients.removeConnection(user, createSession("s1"))).isFalse();
+            assertThat(connectedClients.removeConnection(null, createSession("s1"))).isFalse();
+            assertThat(countOffline.get()).isEqualTo(0);
+        }
+    }
+
+    @Nested
+    class ConcurrentConnects {
+
+        /**
+         * A session closing while another one of the same user connects must not leave the
+         * presence with the user going offline. The closing session is held up right after it
+         * was removed from the registry, until the new session was added completely.
+         */
+        @Test
+        void interleavedConnectAndDisconnect() throws Exception {
+            List<Boolean> announcements = Collections.synchronizedList(new ArrayList<>());
+            Presence presence = Mockito.mock(Presence.class);
+            Mockito.doAnswer(invocation -> announcements.add(true)).when(presence).userConnected(any());
+            Mockito.doAnswer(invocation -> announcements.add(false)).when(presence).userDisconnected(any());
+            connectedClients.presence = presence;
+
+            SessionPrincipal user = createUser(1L);
+            Session sessionA = createSession("a");
+            Session sessionB = createSession("b");
+            connectedClients.addConnection(user, sessionA);
+
+            AtomicBoolean closing = new AtomicBoolean();
+            CountDownLatch removed = new CountDownLatch(1);
+            CountDownLatch connected = new CountDownLatch(1);
+            Mockito.when(sessionA.getId()).thenAnswer(invocation -> {
+                if (closing.get()) {
+                    removed.countDown();
+                    connected.await(5, TimeUnit.SECONDS);
+                }
+                return "a";
+            });
+
+            ExecutorService executor = Executors.newSingleThreadExecutor();
+            try {
+                closing.set(true);
+                Future<Boolean> close = executor.submit(() -> connectedClients.removeConnection(user, sessionA));
+                assertThat(removed.await(5, TimeUnit.SECONDS)).isTrue();
+                connectedClients.addConnection(user, sessionB);
+                connected.countDown();
+                assertThat(close.get()).isTrue();
+            }
+            finally {
+                executor.shutdownNow();
+            }
+
+            assertThat(connectedClients.getConnectedUser(1L)).isSameAs(user);
+            assertThat(announcements).containsExactly(true);
+        }
+    }
+
+    @Nested
+    class Send {
+
+        @Test
+        void sendToRecipients() throws Exception {
+            Session session1 = createSession("s1");
+            Session session2 = createSession("s2");
+            Session session3 = createSession("s3");
+            connectedClients.addConnection(createUser(1L), session1);
+            connectedClients.addConnection(createUser(1L), session2);
+            connectedClients.addConnection(createUser(2L), session3);
+
+            Packet<String> packet = new Packet<>();
+            connectedClients.sendPacket(packet, Arrays.asList(1L, 3L));
+
+            ArgumentCaptor<String> text1 = ArgumentCaptor.forClass(String.class);
+            ArgumentCaptor<String> text2 = ArgumentCaptor.forClass(String.class);
+            Mockito.verify(session1.getAsyncRemote()).sendText(text1.capture(), any());
+            Mockito.verify(session2.getAsyncRemote()).sendText(text2.capture(), any());
+            Mockito.verify(session3.getAsyncRemote(), Mockito.never()).sendText(any(), any());
+
+            // the packet is encoded only once for all recipients
+            assertThat(text1.getValue()).isSameAs(text2.getValue());
+            assertThat(text1.getValue()).isEqualTo(new EncodedPacket(packet).getText());
+        }
+
+        @Test
+        void exportInfo() {
+            connectedClients.addConnection(createUser(1L), createSession("s1"));
+            connectedClients.addConnection(createUser(2L), createSession("s2"));
+            connectedClients.sendPacket(new Packet<>(), Arrays.asList(1L, 2L));
+
+            ConnectionsInfo info = connectedClients.exportInfo();
+
+            assertThat(info.getCountUsers()).isEqualTo(2);
+            assertThat(info.getCountSessions()).isEqualTo(2);
+            assertThat(info.getSessions()).extracting(SessionInfo::getCountSent).containsExactly(1L, 1L);
+            assertThat(info.getSessions()).extracting(SessionInfo::getQueueDepth).containsExactly(0, 0);
+        }
+
+        @Test
+        void collapseKey() {
+            Map<String, Object> data = new HashMap<>();
+            data.put("type", "onlinestatus");
+            Packet<Map<String, Object>> packet = new Packet<>(Packet.CHANNEL_NOTIFY, "42", "", data);
+
+            assertThat(ConnectedClients.getCollapseKey(packet)).isEqualTo("onlinestatus/42");
+
+            data.put("type", "addmember");
+            assertThat(ConnectedClients.getCollapseKey(packet)).isNull();
+
+            packet.setChannel(Packet.CHANNEL_CHAT);
+            assertThat(ConnectedClients.getCollapseKey(packet)).isNull();
+        }
+
+        @Test
+        void sendNotificationBatched() {
+            Session session = createSession("s1");
+            connectedClients.addConnection(createUser(1L), session);
+
+            ScheduledExecutorService scheduler = Executors.newSingleThreadScheduledExecutor();
+            try {
+                connectedClients.setNotificationBatcher(new NotificationBatcher(scheduler, 10000L, 2));
+                connectedClients.sendNotification(new Packet<>(), Collections.singletonList(1L));
+                Mockito.verify(session.getAsyncRemote(), Mockito.never()).sendText(any(), any());
+
+                // the batch is full with the second notification
+                connectedClients.sendNotification(new Packet<>(), Collections.singletonList(1L));
+                Mockito.verify(session.getAsyncRemote(), Mockito.times(1)).sendText(any(), any());
+                assertThat(connectedClients.exportInfo().getCountNotificationFrames()).isEqualTo(1L);
+            }
+            finally {
+                scheduler.shutdownNow();
+            }
+        }
+
+        @Test
+        void subscriptionFilter() {
+            Session session1 = createSession("s1");
+            Session session2 = createSession("s2");
+            connectedClients.addConnection(createUser(1L), session1);
+            connectedClients.addConnection(createUser(1L), session2);
+
+            assertThat(connectedClients.subscribe(1L, "s1", Subscription.of(Collections.singletonList("10"), null))).isTrue();
+            assertThat(connectedClients.subscribe(2L, "s2", Subscription.of(Collections.emptyList(), null))).isFalse();
+
+            connectedClients.sendNotification(createNotification("addvote", "10"), Collections.singletonList(1L));
+            connectedClients.sendNotification(createNotification("addvote", "20"), Collections.singletonList(1L));
+
+            Mockito.verify(session1.getAsyncRemote(), Mockito.times(1)).sendText(any(), any());
+            Mockito.verify(session2.getAsyncRemote(), Mockito.times(2)).sendText(any(), any());
+            assertThat(connectedClients.exportInfo().getCountNotificationsFiltered()).isEqualTo(1L);
+            assertThat(connectedClients.exportInfo().getCountSubscriptions()).isEqualTo(1);
+
+            // subscribing all notifications removes the filter
+            connectedClients.subscribe(1L, "s1", Subscription.of(null, null));
+            assertThat(connectedClients.exportInfo().getCountSubscriptions()).isEqualTo(0);
+        }
+
+        @Test
+        void noSessionWantsNotification() {
+            Session session = createSession("s1");
+            connectedClients.addConnection(createUser(1L), session);
+            connectedClients.subscribe(1L, "s1", Subscription.of(null, Collections.singletonList("onlinestatus")));
+
+            connectedClients.sendNotification(createNotification("addvote", "10"), Collections.singletonList(1L));
+
+            Mockito.verify(session.getAsyncRemote(), Mockito.never()).sendText(any(), any());
+        }
+
+        @Test
+        void respondToPing() throws Exception {
+            Session session = createSession("s1");
+            connectedClients.addConnection(createUser(1L), session);
+
+            assertThat(connectedClients.respondToPing(session, 1234L)).isTrue();
+            assertThat(connectedClients.respondToPing(createSession("s2"), 1234L)).isFalse();
+
+            ArgumentCaptor<String> text = ArgumentCaptor.forClass(String.class);
+            Mockito.verify(session.getAsyncRemote()).sendText(text.capture(), any());
+            assertThat(text.getValue()).contains("\"pong\":1234");
+
+            ArgumentCaptor<ByteBuffer> ping = ArgumentCaptor.forClass(ByteBuffer.class);
+            Mockito.verify(session.getAsyncRemote()).sendPing(ping.capture());
+
+            // the next ping is answered, but the round trip is not probed again right away
+            connectedClients.respondToPing(session, 1235L);
+            Mockito.verify(session.getAsyncRemote(), Mockito.times(2)).sendText(any(), any());
+            Mockito.verify(session.getAsyncRemote(), Mockito.times(1)).sendPing(any());
+
+            connectedClients.recordRoundTrip(session, ping.getValue());
+            ConnectionsInfo info = connectedClients.exportInfo();
+            assertThat(info.getCountPings()).isEqualTo(2L);
+            assertThat(info.getSessions().get(0).getMaxRoundTripMicros()).isGreaterThanOrEqualTo(0L);
+            assertThat(info.getSessions().get(0).getAverageRoundTripMicros())
+                    .isEqualTo(info.getSessions().get(0).getLastRoundTripMicros());
+        }
+
+        @Test
+        void sendToSession() throws Exception {
+            Session session1 = createSession("s1");
+            Session session2 = createSession("s2");
+            connectedClients.addConnection(createUser(1L), session1);
+            connectedClients.addConnection(createUser(2L), session2);
+
+            Packet<String> packet = new Packet<>();
+            connectedClients.sendPacket(packet, 1L, "s1");
+            connectedClients.sendPacket(packet, 1L, "s2");
+
+            Mockito.verify(session1.getAsyncRemote()).sendText(eq(new EncodedPacket(packet).getText()), any());
+            Mockito.verify(session2.getAsyncRemote(), Mockito.never()).sendText(eq(new EncodedPacket(packet).getText()), any());
+        }
+    }
+
+    @Nested
+    class IdleSessions {
+
+        @Test
+        void evictIdleSession() throws Exception {
+            AtomicLong clock = new AtomicLong(1000L);
+            IdleSessionWheel wheel = connectedClients.enableIdleSessionEviction(1000L, 100L, clock::get);
+
+            Session idleSession = createSession("s1");
+            Session activeSession = createSession("s2");
+            connectedClients.addConnection(createUser(1L), idleSession);
+            connectedClients.addConnection(createUser(2L), activeSession);
+
+            clock.addAndGet(500L);
+            connectedClients.touch(activeSession);
+            wheel.tick(clock.get());
+            Mockito.verify(idleSession.getAsyncRemote()).sendPing(any());
+
+            clock.addAndGet(500L);
+            wheel.tick(clock.get());
+
+            Mockito.verify(idleSession).close(any());
+            Mockito.verify(activeSession, Mockito.never()).close(any());
+            assertThat(connectedClients.getConnectedUser(1L)).isNull();
+            assertThat(connectedClients.getConnectedUser(2L)).isNotNull();
+            assertThat(countOffline.get()).isEqualTo(1);
+            assertThat(connectedClients.exportInfo().getCountIdleEvicted()).isEqualTo(1L);
+
+            // closing the evicted session later on is harmless
+            assertThat(connectedClients.removeConnection(createUser(1L), idleSession)).isFalse();
+        }
+    }
+
+    @Nested
+    class RateLimits {
+
+        @Test
+        void unlimitedByDefault() {
+            Session session = createSession("s1");
+            connectedClients.addConnection(createUser(1L), session);
+
+            for (int i = 0; i < 100; i++) {
+                assertThat(connectedClients.checkRateLimit(session, Packet.CHANNEL_CHAT)).isEqualTo(RateLimiter.Outcome.ALLOW);
+            }
+        }
+
+        @Test
+        void escalation() throws Exception {
+            connectedClients.setRateLimits(RateLimiter.Limits.create(2, 3, 60000L).withChannel(Packet.CHANNEL_CHAT, 0.001, 1));
+            Session session = createSession("s1");
+            connectedClients.addConnection(createUser(1L), session);
+
+            assertThat(connectedClients.checkRateLimit(session, Packet.CHANNEL_CHAT)).isEqualTo(RateLimiter.Outcome.ALLOW);
+            assertThat(connectedClients.checkRateLimit(session, Packet.CHANNEL_EVENT)).isEqualTo(RateLimiter.Outcome.ALLOW);
+            assertThat(connectedClients.checkRateLimit(session, Packet.CHANNEL_CHAT)).isEqualTo(RateLimiter.Outcome.DROP);
+            assertThat(connectedClients.checkRateLimit(session, Packet.CHANNEL_CHAT)).isEqualTo(RateLimiter.Outcome.WARN);
+            assertThat(connectedClients.checkRateLimit(session, Packet.CHANNEL_CHAT)).isEqualTo(RateLimiter.Outcome.DISCONNECT);
+
+            ConnectionsInfo info = connectedClients.exportInfo();
+            assertThat(info.getCountRateLimitDropped()).isEqualTo(1L);
+            assertThat(info.getCountRateLimitWarned()).isEqualTo(1L);
+            assertThat(info.getCountRateLimitDisconnected()).isEqualTo(1L);
+            assertThat(info.getSessions().get(0).getCountRateLimited()).isEqualTo(3L);
+
+            connectedClients.closeSession(session, new CloseReason(CloseReason.CloseCodes.VIOLATED_POLICY, "Rate limit exceeded"));
+            Mockito.verify(session).close(any());
+            assertThat(connectedClients.getConnectedUser(1L)).isNull();
+            assertThat(connectedClients.checkRateLimit(session, Packet.CHANNEL_CHAT)).isEqualTo(RateLimiter.Outcome.ALLOW);
+        }
+    }
+
+    @Nested
+    class Cluster {
+
+        private ConnectedClients otherNode;
+
+        @BeforeEach
+        void setup() {
+            otherNode = new ConnectedClients();
+            otherNode.presence = Mockito.mock(Presence.class);
+
+            LoopbackClusterMessageBus.Hub hub = new LoopbackClusterMessageBus.Hub();
+            connectedClients.setClusterMessageBus(new LoopbackClusterMessageBus(hub, "node1"));
+            otherNode.setClusterMessageBus(new LoopbackClusterMessageBus(hub, "node2"));
+        }
+
+        @Test
+        void sendToOtherNode() {
+            Session localSession = createSession("s1");
+            Session remoteSession = createSession("s2");
+            connectedClients.addConnection(createUser(1L), localSession);
+            otherNode.addConnection(createUser(2L), remoteSession);
+
+            assertThat(connectedClients.isUserConnected(2L)).isTrue();
+            assertThat(connectedClients.getConnectedUser(2L)).isNull();
+
+            Packet<String> packet = new Packet<>(Packet.CHANNEL_CHAT, "1", "user1", "hello");
+            connectedClients.sendPacket(packet, Arrays.asList(1L, 2L));
+
+            String text = new EncodedPacket(packet).getText();
+            Mockito.verify(localSession.getAsyncRemote()).sendText(eq(text), any());
+            Mockito.verify(remoteSession.getAsyncRemote()).sendText(eq(text), any());
+            assertThat(connectedClients.exportInfo().getCountClusterForwarded()).isEqualTo(1L);
+        }
+
+        @Test
+        void routesFollowConnections() {
+            Session session = createSession("s1");
+            otherNode.addConnection(createUser(2L), session);
+            assertThat(connectedClients.exportInfo().getCountRemoteUsers()).isEqualTo(1);
+
+            otherNode.removeConnection(createUser(2L), session);
+            assertThat(connectedClients.isUserConnected(2L)).isFalse();
+
+            connectedClients.sendPacket(new Packet<>(), Collections.singletonList(2L));
+            assertThat(connectedClients.exportInfo().getCountClusterForwarded()).isEqualTo(0L);
+        }
+
+        @Test
+        void notificationsAreBatchedOnOtherNode() {
+            Session session = createSession("s2");
+            otherNode.addConnection(createUser(2L), session);
+
+            ScheduledExecutorService scheduler = Executors.newSingleThreadScheduledExecutor();
+            try {
+                otherNode.setNotificationBatcher(new NotificationBatcher(scheduler, 10000L, 2));
+
+                Map<String, Object> data = new HashMap<>();
+                data.put("type", "addmember");
+                connectedClients.sendNotification(new Packet<>(Packet.CHANNEL_NOTIFY, "1", "user1", data), Collections.singletonList(2L));
+                connectedClients.sendNotification(new Packet<>(Packet.CHANNEL_NOTIFY, "1", "user1", data), Collections.singletonList(2L));
+
+                ArgumentCaptor<String> text = ArgumentCaptor.forClass(String.class);
+                Mockito.verify(session.getAsyncRemote(), Mockito.times(1)).sendText(text.capture(), any());
+                assertThat(text.getValue()).contains("\"type\":\"addmember\"");
+                assertThat(otherNode.exportInfo().getCountNotificationFrames()).isEqualTo(1L);
+            }
+            finally {
+                scheduler.shutdownNow();
+            }
+        }
+    }
+
+    @Nested
+    class Stress {
+
+        private static final int COUNT_THREADS = 16;
+        private static final int COUNT_USERS = 8;
+        private static final int COUNT_ITERATIONS = 250;
+
+        @Test
+        void concurrentOpenCloseSend() throws Exception {
+            List<SessionPrincipal> users = new ArrayList<>();
+            for (long id = 1; id <= COUNT_USERS; id++) {
+                users.add(createUser(id));
+            }
+            List<Long> allUserIds = new ArrayList<>();
+            users.forEach(user -> allUserIds.add(user.getUserId()));
+
+            ExecutorService executor = Executors.newFixedThreadPool(COUNT_THREADS);
+            CountDownLatch start = new CountDownLatch(1);
+            List<Future<?>> results = new ArrayList<>();
+
+            for (int thread = 0; thread < COUNT_THREADS; thread++) {
+                final int threadNumber = thread;
+                // create the sessions up-front, stubbing mocks is not thread-safe
+                List<Session> threadSessions = new ArrayList<>();
+                for (int i = 0; i < COUNT_ITERATIONS; i++) {
+                    threadSessions.add(createSession("s-" + threadNumber + "-" + i));
+                }
+                results.add(executor.submit(() -> {
+                    start.await();
+                    Packet<String> packet = new Packet<>();
+                    for (int i = 0; i < COUNT_ITERATIONS; i++) {
+                        SessionPrincipal user = users.get((threadNumber + i) % COUNT_USERS);
+                        Session session = threadSessions.get(i);
+                        assertThat(connectedClients.addConnection(user, session)).isTrue();
+                        connectedClients.sendPacket(packet, allUserIds);
+                        connectedClients.sendPacket(packet, user.getUserId(), session.getId());
+                        assertThat(connectedClients.removeConnection(user, session)).isTrue();
+                    }
+                    return null;
+                }));
+            }
+
+            start.countDown();
+            for (Future<?> result : results) {
+                result.get(60, TimeUnit.SECONDS);
+            }
+            executor.shutdown();
+
+            assertThat(connectedClients.getConnectedUserCount()).isEqualTo(0);
+            assertThat(connectedClients.getSessionCount()).isEqualTo(0);
+            assertThat(countOnline.get()).isEqualTo(countOffline.get());
+            assertThat(countOnline.get()).isGreaterThanOrEqualTo(COUNT_USERS);
+        }
+    }
+
+    private Packet<Map<String, Object>> createNotification(String type, String eventId) {
+        Map<String, Object> data = new HashMap<>();
+        data.put("type", type);
+        data.put("data", Collections.singletonMap("eventId", eventId));
+        return new Packet<>(Packet.CHANNEL_NOTIFY, "", "", data);
+    }
+
+    private SessionPrincipal createUser(long id) {
+        return new SessionPrincipal(id, "user" + id, 0L);
+    }
+
+    private Session createSession(String id) {
+        Session session = Mockito.mock(Session.class);
+        RemoteEndpoint.Async remote = Mockito.mock(RemoteEndpoint.Async.class);
+        Mockito.doAnswer(invocation -> {
+            ((SendHandler) invocation.getArguments()[1]).onResult(new SendResult());
+            return null;
+        }).when(remote).sendText(any(), any());
+        Map<String, Object> properties = new ConcurrentHashMap<>();
+        Mockito.when(session.getId()).thenReturn(id);
+        Mockito.when(session.getUserProperties()).thenReturn(properties);
+        Mockito.when(session.getAsyncRemote()).thenReturn(remote);
+        return session;
+    }
+}
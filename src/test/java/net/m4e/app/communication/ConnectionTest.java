@@ -22,39 +22,6 @@ import static com.revinate.assertj.json.JsonPathAssert.assertThat;
  */
 class ConnectionTest {
 
-    @Nested
-    class PacketMapDecoderTest {
-
-        @Test
-        void testEmptyPayloadDecoding() throws DecodeException {
-            PacketMapDecoder packetMapDecoder = new PacketMapDecoder();
-
-            String json = "{\"channel\":\"lennahc\", \"sourceid\":\"1\", \"source\":\"ecruos\"}";
-
-            Packet<Map<String, Object>> packet = packetMapDecoder.decode(json);
-
-            Assertions.assertThat(packet.getChannel()).isEqualTo("lennahc");
-            Assertions.assertThat(packet.getSourceId()).isEqualTo("1");
-            Assertions.assertThat(packet.getSource()).isEqualTo("ecruos");
-            Assertions.assertThat(packet.getData()).isNull();
-
-        }
-
-        @Test
-        void testValidPayloadDecoding() throws DecodeException {
-            PacketMapDecoder packetMapDecoder = new PacketMapDecoder();
-
-            String json = "{\"channel\":\"lennahc\", \"sourceid\":\"1\", \"source\":\"ecruos\", \"data\":{\"test\":\"tset\"}}";
-
-            Packet<Map<String, Object>> packet = packetMapDecoder.decode(json);
-
-            Assertions.assertThat(packet.getChannel()).isEqualTo("lennahc");
-            Assertions.assertThat(packet.getSourceId()).isEqualTo("1");
-            Assertions.assertThat(packet.getSource()).isEqualTo("ecruos");
-            Assertions.assertThat(packet.getData().get("test")).isEqualTo("tset");
-        }
-    }
-
     @Nested
     class JsonBEncoderTest {
 
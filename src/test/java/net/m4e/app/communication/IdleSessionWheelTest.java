@@ -0,0 +1,147 @@
+/*
+ * Copyright (c) 2017-2019 by Botorabi. All rights reserved.
+ * https://github.com/botorabi/Meet4Eat
+ *
+ * License: MIT License (MIT), read the LICENSE text in
+ *          main directory for more details.
+ */
+package net.m4e.app.communication;
+
+import org.junit.jupiter.api.*;
+import org.mockito.Mockito;
+
+import javax.websocket.Session;
+import java.util.*;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * @author boto
+ * Date of creation Oct 18, 2026
+ */
+class IdleSessionWheelTest {
+
+    private static final long TIMEOUT = 10000L;
+    private static final long TICK = 100L;
+
+    private AtomicLong clock;
+    private List<String> probed;
+    private List<String> evicted;
+    private IdleSessionWheel wheel;
+
+    @BeforeEach
+    void setup() {
+        clock = new AtomicLong(1000000L);
+        probed = new ArrayList<>();
+        evicted = new ArrayList<>();
+        wheel = new IdleSessionWheel(TIMEOUT, TICK, new IdleSessionWheel.Listener() {
+            @Override
+            public void probe(Session session) {
+                probed.add(session.getId());
+            }
+
+            @Override
+            public void evict(Session session) {
+                evicted.add(session.getId());
+            }
+        }, clock::get);
+    }
+
+    @Test
+    void evictIdleSession() {
+        wheel.add(createSession("s1"));
+
+        advance(TIMEOUT / 2 - TICK);
+        assertThat(probed).isEmpty();
+
+        advance(TICK);
+        assertThat(probed).containsExactly("s1");
+        assertThat(evicted).isEmpty();
+
+        advance(TIMEOUT / 2);
+        assertThat(evicted).containsExactly("s1");
+        assertThat(wheel.getSessionCount()).isEqualTo(0);
+        assertThat(wheel.getCountProbed()).isEqualTo(1L);
+        assertThat(wheel.getCountEvicted()).isEqualTo(1L);
+
+        // an evicted session is not evicted again
+        advance(TIMEOUT * 3);
+        assertThat(evicted).hasSize(1);
+    }
+
+    @Test
+    void activeSessionIsKept() {
+        wheel.add(createSession("s1"));
+        for (int i = 0; i < 100; i++) {
+            advance(TIMEOUT / 4);
+            wheel.touch("s1");
+        }
+        assertThat(probed).isEmpty();
+        assertThat(evicted).isEmpty();
+    }
+
+    @Test
+    void probeAnswered() {
+        wheel.add(createSession("s1"));
+        advance(TIMEOUT / 2);
+        assertThat(probed).containsExactly("s1");
+
+        // the pong arrives
+        wheel.touch("s1");
+        advance(TIMEOUT / 2);
+        assertThat(evicted).isEmpty();
+
+        advance(TIMEOUT);
+        assertThat(probed).hasSize(2);
+        assertThat(evicted).containsExactly("s1");
+    }
+
+    @Test
+    void removedSessionIsIgnored() {
+        wheel.add(createSession("s1"));
+        wheel.add(createSession("s2"));
+        wheel.remove("s1");
+
+        advance(TIMEOUT * 2);
+        assertThat(evicted).containsExactly("s2");
+    }
+
+    @Test
+    void timeoutBeyondOneRevolution() {
+        IdleSessionWheel smallWheel = new IdleSessionWheel(100000L, TICK, new IdleSessionWheel.Listener() {
+            @Override
+            public void probe(Session session) {
+                probed.add(session.getId());
+            }
+
+            @Override
+            public void evict(Session session) {
+                evicted.add(session.getId());
+            }
+        }, clock::get);
+        smallWheel.add(createSession("s1"));
+
+        for (long time = 0; time < 100000L; time += TICK) {
+            clock.addAndGet(TICK);
+            smallWheel.tick(clock.get());
+            if (time < 49000L) {
+                assertThat(probed).isEmpty();
+            }
+        }
+        assertThat(probed).containsExactly("s1");
+        assertThat(evicted).containsExactly("s1");
+    }
+
+    private void advance(long time) {
+        // ticks may be missed, the wheel catches up
+        clock.addAndGet(time);
+        wheel.tick(clock.get());
+    }
+
+    private Session createSession(String id) {
+        Session session = Mockito.mock(Session.class);
+        Mockito.when(session.getId()).thenReturn(id);
+        return session;
+    }
+}
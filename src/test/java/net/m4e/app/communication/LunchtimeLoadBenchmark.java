@@ -0,0 +1,471 @@
+/*
+ * Copyright (c) 2017-2019 by Botorabi. All rights reserved.
+ * https://github.com/botorabi/Meet4Eat
+ *
+ * License: MIT License (MIT), read the LICENSE text in
+ *          main directory for more details.
+ */
+package net.m4e.app.communication;
+
+import net.m4e.app.auth.SessionPrincipal;
+import net.m4e.app.chat.ChatSystem;
+import net.m4e.app.event.business.*;
+import net.m4e.app.notification.*;
+import net.m4e.app.resources.StatusEntity;
+import net.m4e.app.user.business.*;
+import net.m4e.common.Entities;
+import org.junit.jupiter.api.*;
+import org.mockito.Mockito;
+
+import javax.enterprise.event.*;
+import javax.enterprise.util.TypeLiteral;
+import javax.websocket.*;
+import java.lang.annotation.Annotation;
+import java.lang.management.ManagementFactory;
+import java.lang.reflect.*;
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.*;
+import java.util.function.Consumer;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Matchers.anyLong;
+
+/**
+ * Load test simulating the lunchtime spike: thousands of users connect within a short
+ * time, vote for the locations of their events and chat with the other event members.
+ *
+ * The server side runs in-process with its real classes: 'Connection', 'ConnectedClients',
+ * 'MessageDistribution' with its dispatch lanes, 'ChatSystem', 'EventNotifications',
+ * 'NotifyUsersListener', 'Presence' and 'EventMemberships'. Only the database and the
+ * container are replaced: CDI events are delivered by executors, and the WebSocket sessions
+ * are synthetic ones which take the time when a packet arrives. A vote is fed in where
+ * 'EventLocationVoteRestService' notifies the event members after storing the vote.
+ *
+ * It reports the fan-out latency percentiles (from sending until a member received the
+ * packet), the throughput and the heap growth.
+ *
+ * The benchmark is skipped by default, run it with:
+ *
+ *   mvn test -Dtest=LunchtimeLoadBenchmark -Dbenchmark=true
+ *
+ * The load can be changed with the properties 'load.users', 'load.eventSize', 'load.votes',
+ * 'load.chats' and 'load.clients', e.g. -Dload.users=10000
+ *
+ * @author boto
+ * Date of creation Oct 18, 2026
+ */
+class LunchtimeLoadBenchmark {
+
+    private static final int COUNT_USERS = Integer.getInteger("load.users", 2000);
+    private static final int EVENT_SIZE = Integer.getInteger("load.eventSize", 8);
+    private static final int VOTES_PER_USER = Integer.getInteger("load.votes", 2);
+    private static final int CHATS_PER_USER = Integer.getInteger("load.chats", 3);
+    private static final int CLIENT_THREADS = Integer.getInteger("load.clients", 16);
+
+    private static final long TIMEOUT_SECONDS = 120L;
+
+    private static final String MARKER_CHAT = "\"text\":\"load:";
+    private static final String MARKER_VOTE = "\"locationId\":\"";
+
+    private final PacketDecoder decoder = new PacketDecoder();
+
+    private final List<UserEntity> users = new ArrayList<>();
+    private final List<EventEntity> events = new ArrayList<>();
+    private final List<Session> sessions = new ArrayList<>();
+    private final List<Connection> connections = new ArrayList<>();
+
+    private ConnectedClients connectedClients;
+    private MessageDistribution messageDistribution;
+    private EventNotifications eventNotifications;
+    private ExecutorService containerExecutor;
+
+    /**
+     * Send times of all fanned out messages by message ID
+     */
+    private long[] sendTimes;
+    private final AtomicInteger nextMessageId = new AtomicInteger();
+
+    private LatencyRecorder recorder;
+
+    @BeforeEach
+    void setup() throws Exception {
+        Assumptions.assumeTrue(Boolean.getBoolean("benchmark"), "benchmark is disabled");
+
+        Entities entities = Mockito.mock(Entities.class);
+        EventMemberships memberships = new EventMemberships(entities);
+        createUsersAndEvents(memberships);
+
+        Events eventsMock = Mockito.mock(Events.class);
+        Mockito.when(eventsMock.getMembers(anyLong())).thenAnswer(invocation ->
+                new HashSet<>(memberships.getMembership((Long) invocation.getArguments()[0]).getOwnerAndMemberIds()));
+
+        connectedClients = new ConnectedClients();
+        connectedClients.presence = new Presence(connectedClients, memberships);
+
+        containerExecutor = Executors.newFixedThreadPool(Runtime.getRuntime().availableProcessors());
+
+        ChatSystem chatSystem = new ChatSystem(eventsMock, memberships);
+        inject(chatSystem, "connections", connectedClients);
+
+        NotifyUsersListener notifyUsersListener = new NotifyUsersListener(Mockito.mock(Users.class), memberships);
+        inject(notifyUsersListener, "connections", connectedClients);
+        eventNotifications = new EventNotifications(new ExecutorEvent<>(notifyUsersListener::notifyUsers),
+                new ExecutorEvent<>(notifyUsersListener::notifyUserRelatives), Mockito.mock(EventRevisions.class));
+
+        messageDistribution = new MessageDistribution();
+        messageDistribution.connections = connectedClients;
+        messageDistribution.presence = connectedClients.presence;
+        messageDistribution.channelChatEvent = new ExecutorEvent<>(chatSystem::dispatchMessage);
+        messageDistribution.channelEventEvent = new ExecutorEvent<>(event -> {});
+        messageDistribution.channelEventSystem = new ExecutorEvent<>(messageDistribution::dispatchMessage);
+        int queueSize = COUNT_USERS * Math.max(1, CHATS_PER_USER);
+        for (String channel: Arrays.asList(Packet.CHANNEL_CHAT, Packet.CHANNEL_EVENT, Packet.CHANNEL_SYSTEM)) {
+            messageDistribution.setDispatchLane(channel, new PartitionedExecutor(channel, Runtime.getRuntime().availableProcessors(),
+                    queueSize, PartitionedExecutor.createThreadFactory(null, "m4e-load-" + channel + "-")));
+        }
+
+        sendTimes = new long[COUNT_USERS * (VOTES_PER_USER + CHATS_PER_USER)];
+    }
+
+    @AfterEach
+    void shutdown() {
+        if (messageDistribution != null) {
+            messageDistribution.messageDistributionShutdown();
+        }
+        if (containerExecutor != null) {
+            containerExecutor.shutdownNow();
+        }
+    }
+
+    @Test
+    void lunchtimeSpike() throws Exception {
+        long heapBefore = usedHeap();
+
+        // everybody connects at once
+        long start = System.nanoTime();
+        runClients(index -> {
+            Session session = createSession("session-" + index);
+            Connection connection = new Connection();
+            connection.user = SessionPrincipal.fromUser(users.get(index));
+            connection.connections = connectedClients;
+            connection.msgHandler = messageDistribution;
+            connectedClients.addConnection(connection.user, session);
+            synchronized (sessions) {
+                sessions.add(session);
+                connections.add(connection);
+            }
+        });
+        long connectTime = System.nanoTime() - start;
+        assertThat(connectedClients.getConnectedUserCount()).isEqualTo(COUNT_USERS);
+        report("connect", COUNT_USERS, connectTime, null);
+
+        Map<Long, Integer> indexByUser = new HashMap<>();
+        for (int i = 0; i < connections.size(); i++) {
+            indexByUser.put(connections.get(i).user.getUserId(), i);
+        }
+
+        // voting spike, every vote is fanned out to the owner and members of the event
+        int eventRecipients = EVENT_SIZE;
+        recorder = new LatencyRecorder(COUNT_USERS * VOTES_PER_USER * eventRecipients);
+        start = System.nanoTime();
+        runClients(index -> {
+            UserEntity user = users.get(index);
+            EventEntity event = events.get(index / EVENT_SIZE);
+            for (int vote = 0; vote < VOTES_PER_USER; vote++) {
+                int messageId = nextMessageId.getAndIncrement();
+                sendTimes[messageId] = System.nanoTime();
+                eventNotifications.sendNotifyLocationVote(EventNotifications.ChangeType.Modify, user, event, (long) messageId, true);
+            }
+        });
+        recorder.await();
+        report("vote", COUNT_USERS * VOTES_PER_USER, System.nanoTime() - start, recorder);
+
+        // chat spike, the messages go through the whole incoming path
+        recorder = new LatencyRecorder(COUNT_USERS * CHATS_PER_USER * eventRecipients);
+        start = System.nanoTime();
+        runClients(index -> {
+            UserEntity user = users.get(index);
+            int connectionIndex = indexByUser.get(user.getId());
+            EventEntity event = events.get(index / EVENT_SIZE);
+            for (int chat = 0; chat < CHATS_PER_USER; chat++) {
+                int messageId = nextMessageId.getAndIncrement();
+                String json = "{\"channel\":\"chat\",\"data\":{\"receiverEvent\":\"" + event.getId() +
+                        "\",\"text\":\"load:" + messageId + "\"}}";
+                sendTimes[messageId] = System.nanoTime();
+                connections.get(connectionIndex).handleMessage(decoder.decode(json), sessions.get(connectionIndex));
+            }
+        });
+        recorder.await();
+        report("chat", COUNT_USERS * CHATS_PER_USER, System.nanoTime() - start, recorder);
+
+        long heapAfter = usedHeap();
+        ConnectionsInfo info = connectedClients.exportInfo();
+        long dropped = info.getSessions().stream().mapToLong(SessionInfo::getCountDropped).sum();
+        long dispatchDropped = messageDistribution.exportDispatchInfo().stream().mapToLong(DispatchLaneInfo::getCountRejected).sum();
+
+        System.out.println(String.format("Heap: before %d KB, after %d KB, growth %d KB (%d bytes per session)",
+                heapBefore / 1024, heapAfter / 1024, (heapAfter - heapBefore) / 1024, (heapAfter - heapBefore) / COUNT_USERS));
+        System.out.println(String.format("Dropped: outbound queues %d, dispatch lanes %d", dropped, dispatchDropped));
+
+        assertThat(dropped).isEqualTo(0L);
+        assertThat(dispatchDropped).isEqualTo(0L);
+    }
+
+    private interface ClientTask {
+        void run(int userIndex) throws Exception;
+    }
+
+    /**
+     * Run the task for every user, spread over the client threads.
+     */
+    private void runClients(ClientTask task) throws Exception {
+        ExecutorService clients = Executors.newFixedThreadPool(CLIENT_THREADS);
+        try {
+            List<Future<?>> futures = new ArrayList<>();
+            for (int i = 0; i < COUNT_USERS; i++) {
+                int index = i;
+                futures.add(clients.submit(() -> {
+                    task.run(index);
+                    return null;
+                }));
+            }
+            for (Future<?> future: futures) {
+                future.get(TIMEOUT_SECONDS, TimeUnit.SECONDS);
+            }
+        }
+        finally {
+            clients.shutdownNow();
+        }
+    }
+
+    private void report(String phase, int countSent, long duration, LatencyRecorder recorder) {
+        double seconds = duration / 1e9;
+        StringBuilder line = new StringBuilder(String.format("%-8s users: %d, sent: %d in %d ms, %.0f/s",
+                phase, COUNT_USERS, countSent, TimeUnit.NANOSECONDS.toMillis(duration), countSent / seconds));
+        if (recorder != null) {
+            line.append(String.format(", delivered: %d, %.0f/s, fan-out latency us: p50 %d, p90 %d, p99 %d, p99.9 %d, max %d",
+                    recorder.getCount(), recorder.getCount() / seconds,
+                    recorder.percentile(50.0), recorder.percentile(90.0), recorder.percentile(99.0),
+                    recorder.percentile(99.9), recorder.percentile(100.0)));
+        }
+        System.out.println(line);
+    }
+
+    private void createUsersAndEvents(EventMemberships memberships) {
+        for (int i = 0; i < COUNT_USERS; i++) {
+            StatusEntity status = new StatusEntity();
+            status.setEnabled(true);
+            UserEntity user = new UserEntity();
+            user.setId(1000L + i);
+            user.setName("User " + i);
+            user.setStatus(status);
+            users.add(user);
+        }
+        // the first user of a group owns the event, the others are its members
+        for (int first = 0; first < COUNT_USERS; first += EVENT_SIZE) {
+            StatusEntity status = new StatusEntity();
+            status.setEnabled(true);
+            status.setIdOwner(users.get(first).getId());
+            EventEntity event = new EventEntity();
+            event.setId(100000L + events.size());
+            event.setName("Lunch " + events.size());
+            event.setStatus(status);
+            event.setMembers(new ArrayList<>(users.subList(first + 1, Math.min(first + EVENT_SIZE, COUNT_USERS))));
+            memberships.update(event);
+            events.add(event);
+        }
+        assertThat(COUNT_USERS % EVENT_SIZE).as("count of users must be a multiple of the event size").isEqualTo(0);
+    }
+
+    /**
+     * Called by a synthetic session for every packet it gets.
+     */
+    private void onPacket(String text) {
+        long now = System.nanoTime();
+        LatencyRecorder current = recorder;
+        if (current == null) {
+            return;
+        }
+        int messageId = parseMessageId(text, MARKER_CHAT);
+        if (messageId < 0) {
+            messageId = parseMessageId(text, MARKER_VOTE);
+        }
+        if (messageId >= 0) {
+            current.record(now - sendTimes[messageId]);
+        }
+    }
+
+    private static int parseMessageId(String text, String marker) {
+        int position = text.indexOf(marker);
+        if (position < 0) {
+            return -1;
+        }
+        int id = 0;
+        for (int i = position + marker.length(); (i < text.length()) && Character.isDigit(text.charAt(i)); i++) {
+            id = id * 10 + (text.charAt(i) - '0');
+        }
+        return id;
+    }
+
+    /**
+     * Create a synthetic WebSocket session, the packets are completed right away.
+     */
+    private Session createSession(String id) {
+        Map<String, Object> properties = new ConcurrentHashMap<>();
+        RemoteEndpoint.Async remote = proxy(RemoteEndpoint.Async.class, (method, args) -> {
+            if ("sendText".equals(method.getName()) && (args.length == 2)) {
+                onPacket((String) args[0]);
+                ((SendHandler) args[1]).onResult(new SendResult());
+            }
+            return null;
+        });
+        return proxy(Session.class, (method, args) -> {
+            switch (method.getName()) {
+                case "getId":
+                    return id;
+                case "getUserProperties":
+                    return properties;
+                case "getAsyncRemote":
+                    return remote;
+                case "isOpen":
+                    return true;
+                default:
+                    return null;
+            }
+        });
+    }
+
+    private interface Handler {
+        Object invoke(Method method, Object[] args) throws Throwable;
+    }
+
+    @SuppressWarnings("unchecked")
+    private static <T> T proxy(Class<T> type, Handler handler) {
+        return (T) Proxy.newProxyInstance(type.getClassLoader(), new Class<?>[]{type}, (proxy, method, args) -> {
+            Object[] arguments = (args != null) ? args : new Object[0];
+            switch (method.getName()) {
+                case "hashCode":
+                    return System.identityHashCode(proxy);
+                case "equals":
+                    return proxy == arguments[0];
+                case "toString":
+                    return type.getSimpleName() + "@" + Integer.toHexString(System.identityHashCode(proxy));
+                default:
+                    Object result = handler.invoke(method, arguments);
+                    if ((result == null) && method.getReturnType().isPrimitive() && (method.getReturnType() != void.class)) {
+                        return (method.getReturnType() == boolean.class) ? (Object) false : (Object) 0;
+                    }
+                    return result;
+            }
+        });
+    }
+
+    private static void inject(Object target, String fieldName, Object value) throws ReflectiveOperationException {
+        Field field = target.getClass().getDeclaredField(fieldName);
+        field.setAccessible(true);
+        field.set(target, value);
+    }
+
+    private static long usedHeap() {
+        for (int i = 0; i < 3; i++) {
+            System.gc();
+        }
+        return ManagementFactory.getMemoryMXBean().getHeapMemoryUsage().getUsed();
+    }
+
+    /**
+     * Collects the latencies of an expected count of deliveries.
+     */
+    private static class LatencyRecorder {
+        private final long[] samples;
+        private final AtomicInteger count = new AtomicInteger();
+        private final CountDownLatch done;
+
+        LatencyRecorder(int expected) {
+            samples = new long[expected];
+            done = new CountDownLatch(expected);
+        }
+
+        void record(long latency) {
+            int index = count.getAndIncrement();
+            if (index < samples.length) {
+                samples[index] = latency;
+                done.countDown();
+            }
+        }
+
+        void await() throws InterruptedException {
+            assertThat(done.await(TIMEOUT_SECONDS, TimeUnit.SECONDS))
+                    .as("all packets were delivered, got %d of %d", count.get(), samples.length).isTrue();
+        }
+
+        int getCount() {
+            return Math.min(count.get(), samples.length);
+        }
+
+        /**
+         * Get a latency percentile in microseconds.
+         */
+        long percentile(double percentile) {
+            long[] sorted = Arrays.copyOf(samples, getCount());
+            Arrays.sort(sorted);
+            if (sorted.length == 0) {
+                return 0L;
+            }
+            int index = (int) Math.ceil(percentile / 100.0 * sorted.length) - 1;
+            return TimeUnit.NANOSECONDS.toMicros(sorted[Math.max(0, Math.min(index, sorted.length - 1))]);
+        }
+    }
+
+    /**
+     * CDI event delivered to one observer, asynchronous events run on the container executor
+     * or on the executor given in the notification options.
+     */
+    private class ExecutorEvent<T> implements javax.enterprise.event.Event<T> {
+        private final Consumer<T> observer;
+
+        ExecutorEvent(Consumer<T> observer) {
+            this.observer = observer;
+        }
+
+        @Override
+        public void fire(T event) {
+            observer.accept(event);
+        }
+
+        @Override
+        public <U extends T> CompletionStage<U> fireAsync(U event) {
+            return CompletableFuture.supplyAsync(() -> {
+                observer.accept(event);
+                return event;
+            }, containerExecutor);
+        }
+
+        @Override
+        public <U extends T> CompletionStage<U> fireAsync(U event, NotificationOptions options) {
+            Executor executor = (options.getExecutor() != null) ? options.getExecutor() : containerExecutor;
+            return CompletableFuture.supplyAsync(() -> {
+                observer.accept(event);
+                return event;
+            }, executor);
+        }
+
+        @Override
+        public javax.enterprise.event.Event<T> select(Annotation... qualifiers) {
+            return this;
+        }
+
+        @Override
+        @SuppressWarnings("unchecked")
+        public <U extends T> javax.enterprise.event.Event<U> select(Class<U> subtype, Annotation... qualifiers) {
+            return (javax.enterprise.event.Event<U>) this;
+        }
+
+        @Override
+        @SuppressWarnings("unchecked")
+        public <U extends T> javax.enterprise.event.Event<U> select(TypeLiteral<U> subtype, Annotation... qualifiers) {
+            return (javax.enterprise.event.Event<U>) this;
+        }
+    }
+}
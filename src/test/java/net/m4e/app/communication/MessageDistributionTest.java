@@ -0,0 +1,97 @@
+/*
+ * Copyright (c) 2017-2019 by Botorabi. All rights reserved.
+ * https://github.com/botorabi/Meet4Eat
+ *
+ * License: MIT License (MIT), read the LICENSE text in
+ *          main directory for more details.
+ */
+package net.m4e.app.communication;
+
+import net.m4e.app.auth.SessionPrincipal;
+import org.junit.jupiter.api.*;
+import org.mockito.Mockito;
+
+import javax.websocket.*;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Matchers.*;
+
+/**
+ * @author boto
+ * Date of creation Oct 18, 2026
+ */
+class MessageDistributionTest {
+
+    private ConnectedClients connectedClients;
+
+    private MessageDistribution messageDistribution;
+
+    @BeforeEach
+    void setup() {
+        connectedClients = new ConnectedClients();
+        connectedClients.presence = Mockito.mock(Presence.class);
+        // three pings in a burst, then warn on the 2nd and disconnect on the 4th violation
+        connectedClients.setRateLimits(RateLimiter.Limits.create(2, 4, RateLimiter.DEFAULT_COOL_DOWN)
+                .withChannel(Packet.CHANNEL_SYSTEM, 0.001, 3));
+
+        messageDistribution = new MessageDistribution();
+        messageDistribution.connections = connectedClients;
+    }
+
+    @Test
+    void pingFloodIsRateLimited() throws Exception {
+        Session session = createSession("s1");
+        connectedClients.addConnection(new SessionPrincipal(1L, "user1", 0L), session);
+
+        for (int i = 0; i < 7; i++) {
+            messageDistribution.dispatchMessage(createPing(), session);
+        }
+
+        ConnectionsInfo info = connectedClients.exportInfo();
+        assertThat(info.getCountPings()).isEqualTo(3L);
+        assertThat(info.getCountRateLimitWarned()).isEqualTo(1L);
+        assertThat(info.getCountRateLimitDisconnected()).isEqualTo(1L);
+        assertThat(connectedClients.getConnectedUser(1L)).isNull();
+        Mockito.verify(session).close(any(CloseReason.class));
+    }
+
+    @Test
+    void rateLimitOfClosedSession() {
+        Session session = createSession("s1");
+        ConnectedClients closedConnections = Mockito.mock(ConnectedClients.class);
+        Mockito.when(closedConnections.checkRateLimit(session, Packet.CHANNEL_SYSTEM))
+                .thenReturn(RateLimiter.Outcome.WARN, RateLimiter.Outcome.DISCONNECT);
+        Mockito.when(closedConnections.getUser(session)).thenReturn(null);
+        messageDistribution.connections = closedConnections;
+
+        messageDistribution.dispatchMessage(createPing(), session);
+        messageDistribution.dispatchMessage(createPing(), session);
+
+        Mockito.verify(closedConnections, Mockito.never()).respondToPing(any(), anyLong());
+        Mockito.verify(closedConnections, Mockito.never()).closeSession(any(), any());
+    }
+
+    private Packet<SystemCommand> createPing() {
+        SystemCommand command = new SystemCommand();
+        command.setCmd(SystemCommand.CMD_PING);
+        Packet<SystemCommand> packet = new Packet<>(Packet.CHANNEL_SYSTEM, "", "", command);
+        packet.setTime(1234L);
+        return packet;
+    }
+
+    private Session createSession(String id) {
+        Session session = Mockito.mock(Session.class);
+        RemoteEndpoint.Async remote = Mockito.mock(RemoteEndpoint.Async.class);
+        Mockito.doAnswer(invocation -> {
+            ((SendHandler) invocation.getArguments()[1]).onResult(new SendResult());
+            return null;
+        }).when(remote).sendText(any(), any());
+        Map<String, Object> properties = new ConcurrentHashMap<>();
+        Mockito.when(session.getId()).thenReturn(id);
+        Mockito.when(session.getUserProperties()).thenReturn(properties);
+        Mockito.when(session.getAsyncRemote()).thenReturn(remote);
+        return session;
+    }
+}
@@ -0,0 +1,190 @@
+/*
+ * Copyright (c) 2017-2019 by Botorabi. All rights reserved.
+ * https://github.com/botorabi/Meet4Eat
+ *
+ * License: MIT License (MIT), read the LICENSE text in
+ *          main directory for more details.
+ */
+package net.m4e.app.communication;
+
+import net.m4e.app.communication.OutboundQueue.OverflowPolicy;
+import org.junit.jupiter.api.*;
+import org.mockito.Mockito;
+
+import javax.websocket.*;
+import java.util.*;
+import java.util.concurrent.*;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Matchers.*;
+
+/**
+ * @author boto
+ * Date of creation Oct 18, 2026
+ */
+class NotificationBatcherTest {
+
+    private static final int MAX_SIZE = 3;
+
+    /**
+     * Flush tasks scheduled by the batcher, they are run by the test.
+     */
+    private List<Runnable> scheduledTasks;
+
+    /**
+     * Text frames sent to the session
+     */
+    private List<String> sentFrames;
+
+    private Session session;
+
+    private OutboundQueue queue;
+
+    private NotificationBatcher batcher;
+
+    @BeforeEach
+    void setup() {
+        scheduledTasks = new ArrayList<>();
+        sentFrames = new ArrayList<>();
+
+        ScheduledExecutorService scheduler = Mockito.mock(ScheduledExecutorService.class);
+        Mockito.doAnswer(invocation -> {
+            scheduledTasks.add((Runnable) invocation.getArguments()[0]);
+            return null;
+        }).when(scheduler).schedule(any(Runnable.class), anyLong(), any(TimeUnit.class));
+
+        session = Mockito.mock(Session.class);
+        RemoteEndpoint.Async remote = Mockito.mock(RemoteEndpoint.Async.class);
+        Mockito.doAnswer(invocation -> {
+            sentFrames.add((String) invocation.getArguments()[0]);
+            ((SendHandler) invocation.getArguments()[1]).onResult(new SendResult());
+            return null;
+        }).when(remote).sendText(any(), any());
+        Mockito.when(session.getAsyncRemote()).thenReturn(remote);
+
+        queue = new OutboundQueue(session, 10, OverflowPolicy.DROP_OLDEST);
+        batcher = new NotificationBatcher(scheduler, 30L, MAX_SIZE);
+    }
+
+    @Test
+    void singleNotificationIsSentAsItIs() {
+        Packet<?> packet = notification("1", "addmember");
+        EncodedPacket message = new EncodedPacket(packet);
+        batcher.add(queue, packet, message, null);
+
+        assertThat(sentFrames).isEmpty();
+        runScheduledTasks();
+
+        assertThat(sentFrames).containsExactly(message.getText());
+    }
+
+    @Test
+    void notificationsAreBatched() {
+        add(notification("1", "addmember"), null);
+        add(notification("2", "modifyevent"), null);
+
+        assertThat(scheduledTasks).hasSize(1);
+        runScheduledTasks();
+
+        assertThat(sentFrames).hasSize(1);
+        assertThat(sentFrames.get(0)).contains("\"channel\":\"notify\"", "addmember", "modifyevent");
+        assertThat(batcher.getCountNotifications()).isEqualTo(2L);
+        assertThat(batcher.getCountFrames()).isEqualTo(1L);
+    }
+
+    @Test
+    void batchTextEqualsSerializedPacket() {
+        Packet<?> first = notification("1", "addmember");
+        Packet<?> second = notification("2", "modifyevent");
+        add(first, null);
+        add(second, null);
+        runScheduledTasks();
+
+        Packet<List<Packet<?>>> expected = new Packet<>(Packet.CHANNEL_NOTIFY, "", "", Arrays.asList(first, second));
+        String sent = sentFrames.get(0);
+        expected.setTime(Long.parseLong(sent.substring(sent.lastIndexOf(':') + 1, sent.length() - 1)));
+        assertThat(sent).isEqualTo(Connection.JsonBEncoder.toJson(expected));
+    }
+
+    @Test
+    void oneElementListTextEqualsSerializedPacket() {
+        Packet<?> element = notification("1", "addmember");
+        Packet<List<Packet<?>>> list = new Packet<>(Packet.CHANNEL_NOTIFY, "42", null, Collections.singletonList(element));
+        list.setTime(1234L);
+
+        String text = EncodedPacket.ofList(list, Collections.singletonList(new EncodedPacket(element))).getText();
+
+        assertThat(text).isEqualTo(Connection.JsonBEncoder.toJson(list));
+    }
+
+    @Test
+    void sessionsShareEncodedBatch() {
+        OutboundQueue otherQueue = new OutboundQueue(session, 10, OverflowPolicy.DROP_OLDEST);
+        Packet<?> first = notification("1", "addmember");
+        Packet<?> second = notification("2", "modifyevent");
+        EncodedPacket firstMessage = new EncodedPacket(first);
+        EncodedPacket secondMessage = new EncodedPacket(second);
+        for (OutboundQueue sessionQueue: Arrays.asList(queue, otherQueue)) {
+            batcher.add(sessionQueue, first, firstMessage, null);
+            batcher.add(sessionQueue, second, secondMessage, null);
+        }
+        runScheduledTasks();
+
+        assertThat(sentFrames).hasSize(2);
+        assertThat(sentFrames.get(1)).isSameAs(sentFrames.get(0));
+    }
+
+    @Test
+    void fullBatchIsSentImmediately() {
+        for (int i = 0; i < MAX_SIZE; i++) {
+            add(notification("" + i, "type" + i), null);
+        }
+        assertThat(sentFrames).hasSize(1);
+
+        // the scheduled flush of the sent batch does nothing
+        runScheduledTasks();
+        assertThat(sentFrames).hasSize(1);
+    }
+
+    @Test
+    void collapseNotifications() {
+        add(notification("1", "onlinestatus", "offline"), "onlinestatus/1");
+        add(notification("2", "addmember"), null);
+        add(notification("1", "onlinestatus", "online"), "onlinestatus/1");
+
+        runScheduledTasks();
+
+        assertThat(sentFrames).hasSize(1);
+        assertThat(sentFrames.get(0)).contains("online", "addmember").doesNotContain("offline");
+        assertThat(batcher.getCountCollapsed()).isEqualTo(1L);
+    }
+
+    @Test
+    void flushAll() {
+        add(notification("1", "addmember"), null);
+        batcher.flushAll();
+
+        assertThat(sentFrames).hasSize(1);
+    }
+
+    private void add(Packet<?> packet, String collapseKey) {
+        batcher.add(queue, packet, new EncodedPacket(packet), collapseKey);
+    }
+
+    private void runScheduledTasks() {
+        List<Runnable> tasks = new ArrayList<>(scheduledTasks);
+        scheduledTasks.clear();
+        tasks.forEach(Runnable::run);
+    }
+
+    private Packet<Map<String, Object>> notification(String sourceId, String type) {
+        return notification(sourceId, type, "");
+    }
+
+    private Packet<Map<String, Object>> notification(String sourceId, String type, String text) {
+        Map<String, Object> data = new HashMap<>();
+        data.put("type", type);
+        data.put("text", text);
+        return new Packet<>(Packet.CHANNEL_NOTIFY, sourceId, "", data);
+    }
+}
@@ -0,0 +1,168 @@
+/*
+ * Copyright (c) 2017-2019 by Botorabi. All rights reserved.
+ * https://github.com/botorabi/Meet4Eat
+ *
+ * License: MIT License (MIT), read the LICENSE text in
+ *          main directory for more details.
+ */
+package net.m4e.app.communication;
+
+import net.m4e.app.communication.OutboundQueue.OverflowPolicy;
+import org.junit.jupiter.api.*;
+import org.mockito.Mockito;
+
+import javax.websocket.*;
+import java.util.*;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Matchers.any;
+
+/**
+ * @author boto
+ * Date of creation Oct 18, 2026
+ */
+class OutboundQueueTest {
+
+    private Session session;
+
+    /**
+     * Send handlers of messages in flight, they are completed by the test.
+     */
+    private List<SendHandler> pendingHandlers;
+
+    /**
+     * Names of all messages passed to the async remote
+     */
+    private List<String> sentMessages;
+
+    /**
+     * Message names by their text frames
+     */
+    private Map<String, String> messageNames;
+
+    @BeforeEach
+    void setup() {
+        pendingHandlers = new ArrayList<>();
+        sentMessages = new ArrayList<>();
+        messageNames = new HashMap<>();
+
+        session = Mockito.mock(Session.class);
+        RemoteEndpoint.Async remote = Mockito.mock(RemoteEndpoint.Async.class);
+        Mockito.doAnswer(invocation -> {
+            sentMessages.add(messageNames.get((String) invocation.getArguments()[0]));
+            pendingHandlers.add((SendHandler) invocation.getArguments()[1]);
+            return null;
+        }).when(remote).sendText(any(), any());
+        Mockito.when(session.getId()).thenReturn("s1");
+        Mockito.when(session.getAsyncRemote()).thenReturn(remote);
+    }
+
+    @Test
+    void sendInOrder() {
+        OutboundQueue queue = new OutboundQueue(session, 10, OverflowPolicy.DROP_OLDEST);
+
+        queue.enqueue(message("m1"), null);
+        queue.enqueue(message("m2"), null);
+        queue.enqueue(message("m3"), null);
+
+        // only one message is in flight at any time
+        assertThat(sentMessages).containsExactly("m1");
+        assertThat(queue.getQueueDepth()).isEqualTo(2);
+
+        completeAll();
+
+        assertThat(sentMessages).containsExactly("m1", "m2", "m3");
+        assertThat(queue.getQueueDepth()).isEqualTo(0);
+        assertThat(queue.getCountSent()).isEqualTo(3L);
+        assertThat(queue.getCountDropped()).isEqualTo(0L);
+    }
+
+    @Test
+    void dropOldest() {
+        OutboundQueue queue = new OutboundQueue(session, 2, OverflowPolicy.DROP_OLDEST);
+
+        queue.enqueue(message("m1"), null);
+        queue.enqueue(message("m2"), null);
+        queue.enqueue(message("m3"), null);
+        assertThat(queue.enqueue(message("m4"), null)).isTrue();
+
+        completeAll();
+
+        assertThat(sentMessages).containsExactly("m1", "m3", "m4");
+        assertThat(queue.getCountDropped()).isEqualTo(1L);
+    }
+
+    @Test
+    void collapse() {
+        OutboundQueue queue = new OutboundQueue(session, 2, OverflowPolicy.COLLAPSE);
+
+        queue.enqueue(message("m1"), null);
+        queue.enqueue(message("status-1"), "status");
+        queue.enqueue(message("m2"), null);
+        queue.enqueue(message("status-2"), "status");
+
+        completeAll();
+
+        assertThat(sentMessages).containsExactly("m1", "m2", "status-2");
+        assertThat(queue.getCountDropped()).isEqualTo(1L);
+    }
+
+    @Test
+    void disconnectSlowConsumer() throws Exception {
+        OutboundQueue queue = new OutboundQueue(session, 1, OverflowPolicy.DISCONNECT);
+
+        queue.enqueue(message("m1"), null);
+        queue.enqueue(message("m2"), null);
+        assertThat(queue.enqueue(message("m3"), null)).isFalse();
+        assertThat(queue.enqueue(message("m4"), null)).isFalse();
+
+        Mockito.verify(session).close(any());
+        completeAll();
+
+        assertThat(sentMessages).containsExactly("m1");
+        assertThat(queue.getCountDropped()).isEqualTo(2L);
+    }
+
+    @Test
+    void closedQueue() {
+        OutboundQueue queue = new OutboundQueue(session, 10, OverflowPolicy.DROP_OLDEST);
+        queue.close();
+
+        assertThat(queue.enqueue(message("m1"), null)).isFalse();
+        assertThat(sentMessages).isEmpty();
+    }
+
+    @Test
+    void failedSend() {
+        OutboundQueue queue = new OutboundQueue(session, 10, OverflowPolicy.DROP_OLDEST);
+
+        queue.enqueue(message("m1"), null);
+        queue.enqueue(message("m2"), null);
+        pendingHandlers.remove(0).onResult(new SendResult(new RuntimeException("failed")));
+        completeAll();
+
+        assertThat(sentMessages).containsExactly("m1", "m2");
+        assertThat(queue.getCountFailed()).isEqualTo(1L);
+        assertThat(queue.getCountSent()).isEqualTo(1L);
+    }
+
+    @Test
+    void overflowPolicyFromString() {
+        assertThat(OverflowPolicy.fromString("disconnect", OverflowPolicy.COLLAPSE)).isEqualTo(OverflowPolicy.DISCONNECT);
+        assertThat(OverflowPolicy.fromString(" Drop_Oldest ", OverflowPolicy.COLLAPSE)).isEqualTo(OverflowPolicy.DROP_OLDEST);
+        assertThat(OverflowPolicy.fromString("invalid", OverflowPolicy.COLLAPSE)).isEqualTo(OverflowPolicy.COLLAPSE);
+        assertThat(OverflowPolicy.fromString(null, OverflowPolicy.COLLAPSE)).isEqualTo(OverflowPolicy.COLLAPSE);
+    }
+
+    private EncodedPacket message(String name) {
+        EncodedPacket message = new EncodedPacket(new Packet<>(Packet.CHANNEL_NOTIFY, "", name, null));
+        messageNames.put(message.getText(), name);
+        return message;
+    }
+
+    private void completeAll() {
+        while (!pendingHandlers.isEmpty()) {
+            pendingHandlers.remove(0).onResult(new SendResult());
+        }
+    }
+}
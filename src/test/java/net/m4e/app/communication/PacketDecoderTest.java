@@ -0,0 +1,116 @@
+/*
+ * Copyright (c) 2017-2019 by Botorabi. All rights reserved.
+ * https://github.com/botorabi/Meet4Eat
+ *
+ * License: MIT License (MIT), read the LICENSE text in
+ *          main directory for more details.
+ */
+package net.m4e.app.communication;
+
+import org.assertj.core.api.Assertions;
+import org.junit.jupiter.api.*;
+
+/**
+ * @author boto
+ * Date of creation Oct 18, 2026
+ */
+class PacketDecoderTest {
+
+    private PacketDecoder decoder;
+
+    @BeforeEach
+    void setup() {
+        decoder = new PacketDecoder();
+    }
+
+    @Test
+    void testEmptyPayloadDecoding() {
+        String json = "{\"channel\":\"lennahc\", \"sourceid\":\"1\", \"source\":\"ecruos\"}";
+
+        Packet<?> packet = decoder.decode(json);
+
+        Assertions.assertThat(packet.getChannel()).isEqualTo("lennahc");
+        Assertions.assertThat(packet.getSourceId()).isEqualTo("1");
+        Assertions.assertThat(packet.getSource()).isEqualTo("ecruos");
+        Assertions.assertThat(packet.getData()).isNull();
+    }
+
+    @Test
+    void testUnknownChannelPayloadIsIgnored() {
+        String json = "{\"channel\":\"lennahc\", \"sourceid\":\"1\", \"source\":\"ecruos\", \"data\":{\"test\":\"tset\"}}";
+
+        Packet<?> packet = decoder.decode(json);
+
+        Assertions.assertThat(packet.getChannel()).isEqualTo("lennahc");
+        Assertions.assertThat(packet.getSource()).isEqualTo("ecruos");
+        Assertions.assertThat(packet.getData()).isNull();
+    }
+
+    @Test
+    void testChatDecoding() {
+        String json = "{\"channel\":\"chat\", \"time\":100, \"data\":{\"receiverEvent\":\"42\", \"text\":\"Hello\", " +
+                "\"unknown\":{\"nested\":[1,2,{\"a\":\"b\"}]}}}";
+
+        Packet<?> packet = decoder.decode(json);
+
+        Assertions.assertThat(packet.getTime()).isEqualTo(100L);
+        Assertions.assertThat(packet.getData()).isInstanceOf(ChatMessage.class);
+        ChatMessage message = (ChatMessage) packet.getData();
+        Assertions.assertThat(message.getReceiverEvent()).isEqualTo("42");
+        Assertions.assertThat(message.getReceiverUser()).isEmpty();
+        Assertions.assertThat(message.getText()).isEqualTo("Hello");
+    }
+
+    @Test
+    void testEventDecoding() {
+        String json = "{\"channel\":\"event\", \"data\":{\"type\":\"t\", \"subject\":\"s\", \"data\":{\"eventId\":42}}}";
+
+        Packet<?> packet = decoder.decode(json);
+
+        Assertions.assertThat(packet.getData()).isInstanceOf(EventMessage.class);
+        EventMessage message = (EventMessage) packet.getData();
+        Assertions.assertThat(message.getType()).isEqualTo("t");
+        Assertions.assertThat(message.getSubject()).isEqualTo("s");
+        Assertions.assertThat(message.getData().getEventId()).isEqualTo("42");
+    }
+
+    @Test
+    void testSystemDecoding() {
+        String json = "{\"channel\":\"system\", \"data\":{\"cmd\":\"ping\"}}";
+
+        Packet<?> packet = decoder.decode(json);
+
+        Assertions.assertThat(packet.getData()).isInstanceOf(SystemCommand.class);
+        Assertions.assertThat(((SystemCommand) packet.getData()).getCmd()).isEqualTo(SystemCommand.CMD_PING);
+    }
+
+    @Test
+    void testSubscribeDecoding() {
+        String json = "{\"channel\":\"system\", \"data\":{\"cmd\":\"subscribe\", \"eventIds\":[\"12\", 34, {\"x\":1}], " +
+                "\"types\":[\"addvote\"]}}";
+
+        Packet<?> packet = decoder.decode(json);
+
+        SystemCommand command = (SystemCommand) packet.getData();
+        Assertions.assertThat(command.getCmd()).isEqualTo(SystemCommand.CMD_SUBSCRIBE);
+        Assertions.assertThat(command.getEventIds()).containsExactly("12", "34");
+        Assertions.assertThat(command.getTypes()).containsExactly("addvote");
+    }
+
+    @Test
+    void testDataBeforeChannel() {
+        String json = "{\"data\":{\"cmd\":\"ping\"}, \"channel\":\"system\"}";
+
+        Packet<?> packet = decoder.decode(json);
+
+        Assertions.assertThat(packet.getChannel()).isEqualTo(Packet.CHANNEL_SYSTEM);
+        Assertions.assertThat(((SystemCommand) packet.getData()).getCmd()).isEqualTo(SystemCommand.CMD_PING);
+    }
+
+    @Test
+    void testInvalidJson() {
+        Assertions.assertThat(decoder.decode("{\"channel\":")).isNull();
+        Assertions.assertThat(decoder.decode("[1, 2]")).isNull();
+        Assertions.assertThat(decoder.decode("")).isNull();
+    }
+}
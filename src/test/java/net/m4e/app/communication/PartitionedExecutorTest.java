@@ -0,0 +1,128 @@
+/*
+ * Copyright (c) 2017-2019 by Botorabi. All rights reserved.
+ * https://github.com/botorabi/Meet4Eat
+ *
+ * License: MIT License (MIT), read the LICENSE text in
+ *          main directory for more details.
+ */
+package net.m4e.app.communication;
+
+import org.junit.jupiter.api.*;
+
+import java.util.*;
+import java.util.concurrent.*;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+/**
+ * @author boto
+ * Date of creation Oct 18, 2026
+ */
+class PartitionedExecutorTest {
+
+    private PartitionedExecutor executor;
+
+    @AfterEach
+    void teardown() {
+        if (executor != null) {
+            executor.shutdown(1000L);
+        }
+    }
+
+    @Test
+    void orderPerKey() throws Exception {
+        final int countKeys = 16;
+        final int countTasks = 500;
+        executor = new PartitionedExecutor("test", 4, countKeys * countTasks,
+                PartitionedExecutor.createThreadFactory(PartitionedExecutor.THREADS_PLATFORM, "test-"));
+
+        Map<Long, List<Integer>> executed = new ConcurrentHashMap<>();
+        CountDownLatch done = new CountDownLatch(countKeys * countTasks);
+        for (int task = 0; task < countTasks; task++) {
+            for (long key = 0; key < countKeys; key++) {
+                final long taskKey = key;
+                final int taskNumber = task;
+                executor.forKey(key).execute(() -> {
+                    executed.computeIfAbsent(taskKey, k -> Collections.synchronizedList(new ArrayList<>())).add(taskNumber);
+                    done.countDown();
+                });
+            }
+        }
+
+        assertThat(done.await(10, TimeUnit.SECONDS)).isTrue();
+        executed.values().forEach(tasks -> assertThat(tasks).isSorted().hasSize(countTasks));
+        assertThat(executor.getCountSubmitted()).isEqualTo(countKeys * countTasks);
+        assertThat(executor.getCountRejected()).isEqualTo(0L);
+    }
+
+    @Test
+    void rejectWhenFull() throws Exception {
+        executor = new PartitionedExecutor("test", 1, 2,
+                PartitionedExecutor.createThreadFactory(PartitionedExecutor.THREADS_PLATFORM, "test-"));
+
+        CountDownLatch running = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        executor.execute(1L, () -> {
+            running.countDown();
+            try {
+                release.await();
+            }
+            catch (InterruptedException ex) {
+                Thread.currentThread().interrupt();
+            }
+        });
+        assertThat(running.await(5, TimeUnit.SECONDS)).isTrue();
+
+        executor.execute(1L, () -> {});
+        executor.execute(2L, () -> {});
+        assertThatThrownBy(() -> executor.execute(3L, () -> {})).isInstanceOf(RejectedExecutionException.class);
+
+        DispatchLaneInfo info = executor.exportInfo();
+        assertThat(info.getQueueDepth()).isEqualTo(2);
+        assertThat(info.getMaxQueueDepth()).isEqualTo(2);
+        assertThat(info.getCountRejected()).isEqualTo(1L);
+
+        release.countDown();
+        executor.shutdown(5000L);
+        assertThat(executor.getCountCompleted()).isEqualTo(3L);
+    }
+
+    @Test
+    void failingTaskKeepsPartitionAlive() throws Exception {
+        executor = new PartitionedExecutor("test", 1, 8,
+                PartitionedExecutor.createThreadFactory(PartitionedExecutor.THREADS_PLATFORM, "test-"));
+
+        CountDownLatch done = new CountDownLatch(1);
+        executor.execute(1L, () -> {
+            throw new IllegalStateException("test");
+        });
+        executor.execute(1L, done::countDown);
+
+        assertThat(done.await(5, TimeUnit.SECONDS)).isTrue();
+    }
+
+    @Test
+    void partitions() {
+        executor = new PartitionedExecutor("test", 8, 1,
+                PartitionedExecutor.createThreadFactory(PartitionedExecutor.THREADS_PLATFORM, "test-"));
+
+        Set<Integer> used = new HashSet<>();
+        for (long key = 1; key <= 64; key++) {
+            assertThat(executor.getPartition(key)).isEqualTo(executor.getPartition(key)).isBetween(0, 7);
+            used.add(executor.getPartition(key));
+        }
+        assertThat(used).hasSize(8);
+        assertThat(executor.getPartition(-1L)).isBetween(0, 7);
+    }
+
+    @Test
+    void virtualThreadFallback() throws Exception {
+        ThreadFactory factory = PartitionedExecutor.createThreadFactory(PartitionedExecutor.THREADS_VIRTUAL, "test-");
+        CountDownLatch done = new CountDownLatch(1);
+        Thread thread = factory.newThread(done::countDown);
+        thread.start();
+
+        assertThat(done.await(5, TimeUnit.SECONDS)).isTrue();
+    }
+}
@@ -0,0 +1,57 @@
+/*
+ * Copyright (c) 2017-2019 by Botorabi. All rights reserved.
+ * https://github.com/botorabi/Meet4Eat
+ *
+ * License: MIT License (MIT), read the LICENSE text in
+ *          main directory for more details.
+ */
+package net.m4e.app.communication;
+
+import org.junit.jupiter.api.*;
+
+import java.nio.ByteBuffer;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * @author boto
+ * Date of creation Oct 18, 2026
+ */
+class PingResponderTest {
+
+    @Test
+    void templateMatchesSerializer() {
+        long[][] samples = {{0L, 0L}, {1539850000123L, 1539850000456L}, {-1L, Long.MAX_VALUE}};
+        for (long[] sample: samples) {
+            EncodedPacket response = PingResponder.createResponse(sample[0], sample[1]);
+            String expected = Connection.JsonBEncoder.toJson(PingResponder.createPacket(sample[0], sample[1]));
+
+            assertThat(response.getText()).isEqualTo(expected);
+        }
+    }
+
+    @Test
+    void binaryResponse() {
+        EncodedPacket response = PingResponder.createResponse(42L, 43L);
+
+        Packet<?> decoded = new BinaryPacketDecoder().decode(ByteBuffer.wrap(response.getBinary()));
+        assertThat(decoded.getChannel()).isEqualTo(Packet.CHANNEL_EVENT);
+        assertThat(decoded.getTime()).isEqualTo(43L);
+    }
+
+    @Test
+    void isPing() {
+        SystemCommand ping = new SystemCommand();
+        ping.setCmd(SystemCommand.CMD_PING);
+        Packet<SystemCommand> packet = new Packet<>(Packet.CHANNEL_SYSTEM, "", "", ping);
+        assertThat(PingResponder.isPing(packet)).isTrue();
+
+        packet.setChannel(Packet.CHANNEL_CHAT);
+        assertThat(PingResponder.isPing(packet)).isFalse();
+
+        SystemCommand presence = new SystemCommand();
+        presence.setCmd(SystemCommand.CMD_PRESENCE);
+        assertThat(PingResponder.isPing(new Packet<>(Packet.CHANNEL_SYSTEM, "", "", presence))).isFalse();
+        assertThat(PingResponder.isPing(new Packet<>(Packet.CHANNEL_SYSTEM, "", "", null))).isFalse();
+    }
+}
@@ -0,0 +1,177 @@
+/*
+ * Copyright (c) 2017-2019 by Botorabi. All rights reserved.
+ * https://github.com/botorabi/Meet4Eat
+ *
+ * License: MIT License (MIT), read the LICENSE text in
+ *          main directory for more details.
+ */
+package net.m4e.app.communication;
+
+import net.m4e.app.auth.SessionPrincipal;
+import net.m4e.app.event.business.EventMemberships;
+import org.junit.jupiter.api.*;
+import org.mockito.*;
+
+import java.util.*;
+import java.util.concurrent.*;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Matchers.*;
+
+/**
+ * @author boto
+ * Date of creation Oct 18, 2026
+ */
+class PresenceTest {
+
+    private static final Long USER_ID = 1L;
+    private static final Long RELATIVE_ID = 2L;
+
+    @Mock
+    ConnectedClients connections;
+    @Mock
+    EventMemberships eventMemberships;
+
+    /**
+     * Grace period tasks scheduled by the presence, they are run by the test.
+     */
+    private List<Runnable> scheduledTasks;
+
+    private Presence presence;
+
+    private SessionPrincipal user;
+
+    @BeforeEach
+    void setup() {
+        MockitoAnnotations.initMocks(this);
+        scheduledTasks = new ArrayList<>();
+
+        ScheduledExecutorService scheduler = Mockito.mock(ScheduledExecutorService.class);
+        Mockito.doAnswer(invocation -> {
+            scheduledTasks.add((Runnable) invocation.getArguments()[0]);
+            return null;
+        }).when(scheduler).schedule(any(Runnable.class), anyLong(), any(TimeUnit.class));
+
+        Mockito.when(eventMemberships.getRelatives(USER_ID)).thenReturn(Collections.singletonList(RELATIVE_ID));
+        Mockito.when(eventMemberships.getRelatives(RELATIVE_ID)).thenReturn(Collections.singletonList(USER_ID));
+
+        presence = new Presence(connections, eventMemberships);
+        presence.setScheduler(scheduler, 1000L);
+
+        user = new SessionPrincipal(USER_ID, "user", 0L);
+    }
+
+    @Test
+    void goOnlineAndOffline() {
+        presence.userConnected(user);
+
+        assertThat(presence.isOnline(USER_ID)).isTrue();
+        Mockito.verify(connections).sendNotification(any(), eq(Collections.singletonList(RELATIVE_ID)));
+
+        presence.userDisconnected(user);
+        // still online within the grace period
+        assertThat(presence.isOnline(USER_ID)).isTrue();
+
+        runScheduledTasks();
+        assertThat(presence.isOnline(USER_ID)).isFalse();
+        Mockito.verify(connections, Mockito.times(2)).sendNotification(any(), any());
+        assertThat(presence.getVersion()).isEqualTo(2L);
+    }
+
+    @Test
+    void reconnectWithinGracePeriod() {
+        presence.userConnected(user);
+        presence.userDisconnected(user);
+        presence.userConnected(user);
+        runScheduledTasks();
+
+        assertThat(presence.isOnline(USER_ID)).isTrue();
+        Mockito.verify(connections, Mockito.times(1)).sendNotification(any(), any());
+        assertThat(presence.getCountDebounced()).isEqualTo(1L);
+        assertThat(presence.getVersion()).isEqualTo(1L);
+    }
+
+    @Test
+    @SuppressWarnings("rawtypes")
+    void reconnectRacingGracePeriodTimer() throws Exception {
+        presence.userConnected(user);
+        presence.userDisconnected(user);
+
+        // the timer thread pauses while notifying, the reconnect happens meanwhile
+        CountDownLatch notifying = new CountDownLatch(1);
+        CountDownLatch reconnected = new CountDownLatch(1);
+        Thread timer = Thread.currentThread();
+        Mockito.when(eventMemberships.getRelatives(USER_ID)).thenAnswer(invocation -> {
+            if (Thread.currentThread() == timer) {
+                notifying.countDown();
+                reconnected.await(500, TimeUnit.MILLISECONDS);
+            }
+            return Collections.singletonList(RELATIVE_ID);
+        });
+        ExecutorService client = Executors.newSingleThreadExecutor();
+        try {
+            Future<?> reconnect = client.submit(() -> {
+                notifying.await(5, TimeUnit.SECONDS);
+                presence.userConnected(user);
+                reconnected.countDown();
+                return null;
+            });
+            runScheduledTasks();
+            reconnect.get(5, TimeUnit.SECONDS);
+        }
+        finally {
+            client.shutdownNow();
+        }
+
+        ArgumentCaptor<Packet> packets = ArgumentCaptor.forClass(Packet.class);
+        Mockito.verify(connections, Mockito.times(3)).sendNotification(packets.capture(), any());
+        List<Long> versions = new ArrayList<>();
+        for (Packet<?> packet: packets.getAllValues()) {
+            versions.add((Long) ((Map<?, ?>) ((Map<?, ?>) packet.getData()).get("data")).get("version"));
+        }
+        assertThat(versions).containsExactly(1L, 2L, 3L);
+        assertThat(presence.isOnline(USER_ID)).isTrue();
+    }
+
+    @Test
+    void noGracePeriod() {
+        presence.setScheduler(null, 0L);
+        presence.userConnected(user);
+        presence.userDisconnected(user);
+
+        assertThat(presence.isOnline(USER_ID)).isFalse();
+        assertThat(scheduledTasks).isEmpty();
+    }
+
+    @Test
+    void snapshotAndChanges() {
+        PresenceInfo empty = presence.getPresence(RELATIVE_ID, 0L);
+        assertThat(empty.getFull()).isTrue();
+        assertThat(empty.getOnline()).isEmpty();
+
+        presence.userConnected(user);
+
+        PresenceInfo snapshot = presence.getPresence(RELATIVE_ID, 0L);
+        assertThat(snapshot.getFull()).isTrue();
+        assertThat(snapshot.getVersion()).isEqualTo(1L);
+        assertThat(snapshot.getOnline()).containsExactly(USER_ID);
+
+        presence.userDisconnected(user);
+        runScheduledTasks();
+
+        PresenceInfo changes = presence.getPresence(RELATIVE_ID, snapshot.getVersion());
+        assertThat(changes.getFull()).isFalse();
+        assertThat(changes.getVersion()).isEqualTo(2L);
+        assertThat(changes.getOnline()).isEmpty();
+        assertThat(changes.getOffline()).containsExactly(USER_ID);
+
+        // an unknown version results in a full snapshot
+        assertThat(presence.getPresence(RELATIVE_ID, 42L).getFull()).isTrue();
+    }
+
+    private void runScheduledTasks() {
+        List<Runnable> tasks = new ArrayList<>(scheduledTasks);
+        scheduledTasks.clear();
+        tasks.forEach(Runnable::run);
+    }
+}
@@ -0,0 +1,103 @@
+/*
+ * Copyright (c) 2017-2019 by Botorabi. All rights reserved.
+ * https://github.com/botorabi/Meet4Eat
+ *
+ * License: MIT License (MIT), read the LICENSE text in
+ *          main directory for more details.
+ */
+package net.m4e.app.communication;
+
+import org.junit.jupiter.api.*;
+
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * @author boto
+ * Date of creation Oct 18, 2026
+ */
+class RateLimiterTest {
+
+    private static final long SECOND = TimeUnit.SECONDS.toNanos(1);
+
+    private RateLimiter.Limits limits;
+
+    @BeforeEach
+    void setup() {
+        limits = RateLimiter.Limits.create(3, 5, 10000L)
+                .withChannel(Packet.CHANNEL_CHAT, 2.0, 4);
+    }
+
+    @Test
+    void burstThenRefill() {
+        RateLimiter rateLimiter = new RateLimiter(limits, 0L);
+        for (int i = 0; i < 4; i++) {
+            assertThat(rateLimiter.acquire(Packet.CHANNEL_CHAT, 0L)).isEqualTo(RateLimiter.Outcome.ALLOW);
+        }
+        assertThat(rateLimiter.acquire(Packet.CHANNEL_CHAT, 0L)).isEqualTo(RateLimiter.Outcome.DROP);
+
+        // two messages per second
+        assertThat(rateLimiter.acquire(Packet.CHANNEL_CHAT, SECOND / 2)).isEqualTo(RateLimiter.Outcome.ALLOW);
+        assertThat(rateLimiter.acquire(Packet.CHANNEL_CHAT, SECOND / 2)).isEqualTo(RateLimiter.Outcome.DROP);
+
+        // the bucket is not filled beyond its burst size
+        long later = 100 * SECOND;
+        for (int i = 0; i < 4; i++) {
+            assertThat(rateLimiter.acquire(Packet.CHANNEL_CHAT, later)).isEqualTo(RateLimiter.Outcome.ALLOW);
+        }
+        assertThat(rateLimiter.acquire(Packet.CHANNEL_CHAT, later)).isEqualTo(RateLimiter.Outcome.DROP);
+
+        assertThat(rateLimiter.getCountAllowed()).isEqualTo(9L);
+        assertThat(rateLimiter.getCountDropped()).isEqualTo(3L);
+    }
+
+    @Test
+    void unlimitedChannel() {
+        RateLimiter rateLimiter = new RateLimiter(limits, 0L);
+        for (int i = 0; i < 100; i++) {
+            assertThat(rateLimiter.acquire(Packet.CHANNEL_EVENT, 0L)).isEqualTo(RateLimiter.Outcome.ALLOW);
+        }
+    }
+
+    @Test
+    void escalation() {
+        RateLimiter rateLimiter = new RateLimiter(limits.withChannel(Packet.CHANNEL_SYSTEM, 1.0, 1), 0L);
+        assertThat(rateLimiter.acquire(Packet.CHANNEL_SYSTEM, 0L)).isEqualTo(RateLimiter.Outcome.ALLOW);
+
+        // violations on all channels count together
+        assertThat(rateLimiter.acquire(Packet.CHANNEL_SYSTEM, 0L)).isEqualTo(RateLimiter.Outcome.DROP);
+        assertThat(rateLimiter.acquire(Packet.CHANNEL_SYSTEM, 0L)).isEqualTo(RateLimiter.Outcome.DROP);
+        assertThat(rateLimiter.acquire(Packet.CHANNEL_SYSTEM, 0L)).isEqualTo(RateLimiter.Outcome.WARN);
+        assertThat(rateLimiter.acquire(Packet.CHANNEL_SYSTEM, 0L)).isEqualTo(RateLimiter.Outcome.DROP);
+        assertThat(rateLimiter.acquire(Packet.CHANNEL_SYSTEM, 0L)).isEqualTo(RateLimiter.Outcome.DISCONNECT);
+        assertThat(rateLimiter.getCountWarned()).isEqualTo(1L);
+    }
+
+    @Test
+    void violationsCoolDown() {
+        RateLimiter rateLimiter = new RateLimiter(limits, 0L);
+        for (int i = 0; i < 4; i++) {
+            rateLimiter.acquire(Packet.CHANNEL_CHAT, 0L);
+        }
+        assertThat(rateLimiter.acquire(Packet.CHANNEL_CHAT, 0L)).isEqualTo(RateLimiter.Outcome.DROP);
+        assertThat(rateLimiter.acquire(Packet.CHANNEL_CHAT, 0L)).isEqualTo(RateLimiter.Outcome.DROP);
+
+        // after the cool down the violations start again from zero
+        long later = 11 * SECOND;
+        for (int i = 0; i < 4; i++) {
+            rateLimiter.acquire(Packet.CHANNEL_CHAT, later);
+        }
+        assertThat(rateLimiter.acquire(Packet.CHANNEL_CHAT, later)).isEqualTo(RateLimiter.Outcome.DROP);
+        assertThat(rateLimiter.acquire(Packet.CHANNEL_CHAT, later)).isEqualTo(RateLimiter.Outcome.DROP);
+        assertThat(rateLimiter.acquire(Packet.CHANNEL_CHAT, later)).isEqualTo(RateLimiter.Outcome.WARN);
+    }
+
+    @Test
+    void configurationValues() {
+        assertThat(RateLimiter.Limits.create(1, 1, 0L).withChannel(Packet.CHANNEL_CHAT, "5,10", 1.0, 1).isEnabled()).isTrue();
+        assertThat(RateLimiter.Limits.create(1, 1, 0L).withChannel(Packet.CHANNEL_CHAT, "0,10", 1.0, 1).isEnabled()).isFalse();
+        assertThat(RateLimiter.Limits.create(1, 1, 0L).withChannel(Packet.CHANNEL_CHAT, "invalid", 0.0, 1).isEnabled()).isFalse();
+        assertThat(RateLimiter.Limits.create(1, 1, 0L).withChannel(Packet.CHANNEL_CHAT, null, 2.0, 4).isEnabled()).isTrue();
+    }
+}
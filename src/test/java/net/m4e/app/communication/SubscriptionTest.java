@@ -0,0 +1,79 @@
+/*
+ * Copyright (c) 2017-2019 by Botorabi. All rights reserved.
+ * https://github.com/botorabi/Meet4Eat
+ *
+ * License: MIT License (MIT), read the LICENSE text in
+ *          main directory for more details.
+ */
+package net.m4e.app.communication;
+
+import org.junit.jupiter.api.*;
+
+import javax.json.*;
+import java.util.*;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * @author boto
+ * Date of creation Oct 18, 2026
+ */
+class SubscriptionTest {
+
+    @Test
+    void filterEvents() {
+        Subscription subscription = Subscription.of(Arrays.asList("12", " 3", "invalid", "12"), null);
+
+        assertThat(subscription.isUnfiltered()).isFalse();
+        assertThat(subscription.getEventIds()).containsExactly("3", "12");
+        assertThat(subscription.accepts("addvote", 12L)).isTrue();
+        assertThat(subscription.accepts("addvote", 4L)).isFalse();
+        // notifications not referring to an event pass
+        assertThat(subscription.accepts("onlinestatus", null)).isTrue();
+    }
+
+    @Test
+    void filterTypes() {
+        Subscription subscription = Subscription.of(null, Collections.singletonList("onlinestatus"));
+
+        assertThat(subscription.accepts("onlinestatus", null)).isTrue();
+        assertThat(subscription.accepts("onlinestatus", 12L)).isTrue();
+        assertThat(subscription.accepts("addvote", 12L)).isFalse();
+        assertThat(subscription.accepts(null, null)).isFalse();
+    }
+
+    @Test
+    void unfiltered() {
+        Subscription subscription = Subscription.of(null, null);
+
+        assertThat(subscription.isUnfiltered()).isTrue();
+        assertThat(subscription.accepts("anything", 1L)).isTrue();
+        assertThat(Subscription.of(Collections.emptyList(), null).accepts("addvote", 1L)).isFalse();
+    }
+
+    @Test
+    void notificationTopic() {
+        Map<String, Object> data = new HashMap<>();
+        data.put("type", "modifylocation");
+        data.put("data", Collections.singletonMap("eventId", "42"));
+        Packet<Map<String, Object>> packet = new Packet<>(Packet.CHANNEL_NOTIFY, "", "", data);
+
+        assertThat(Subscription.getNotificationType(packet)).isEqualTo("modifylocation");
+        assertThat(Subscription.getNotificationEventId(packet)).isEqualTo(42L);
+
+        data.put("data", Collections.singletonMap("onlineStatus", "online"));
+        assertThat(Subscription.getNotificationEventId(packet)).isNull();
+    }
+
+    @Test
+    void notificationTopicOfJson() {
+        JsonObject data = Json.createObjectBuilder()
+                .add("type", "addvote")
+                .add("data", Json.createObjectBuilder().add("eventId", "7"))
+                .build();
+        Packet<JsonObject> packet = new Packet<>(Packet.CHANNEL_NOTIFY, "", "", data);
+
+        assertThat(Subscription.getNotificationType(packet)).isEqualTo("addvote");
+        assertThat(Subscription.getNotificationEventId(packet)).isEqualTo(7L);
+    }
+}
@@ -0,0 +1,112 @@
+/*
+ * Copyright (c) 2017-2019 by Botorabi. All rights reserved.
+ * https://github.com/botorabi/Meet4Eat
+ *
+ * License: MIT License (MIT), read the LICENSE text in
+ *          main directory for more details.
+ */
+package net.m4e.app.communication.cluster;
+
+import org.junit.jupiter.api.*;
+
+import java.util.*;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * @author boto
+ * Date of creation Oct 18, 2026
+ */
+class ClusterRouterTest {
+
+    private static class Delivery {
+        private final String payload;
+        private final List<Long> userIds;
+        private final boolean notification;
+
+        Delivery(String payload, List<Long> userIds, boolean notification) {
+            this.payload = payload;
+            this.userIds = userIds;
+            this.notification = notification;
+        }
+    }
+
+    private LoopbackClusterMessageBus.Hub hub;
+
+    @BeforeEach
+    void setup() {
+        hub = new LoopbackClusterMessageBus.Hub();
+    }
+
+    @Test
+    void forwardOneMessagePerNode() {
+        List<Delivery> deliveries2 = new ArrayList<>();
+        List<Delivery> deliveries3 = new ArrayList<>();
+        ClusterRouter router1 = createRouter("node1", new ArrayList<>(), Collections.emptyList());
+        ClusterRouter router2 = createRouter("node2", deliveries2, Collections.emptyList());
+        ClusterRouter router3 = createRouter("node3", deliveries3, Collections.emptyList());
+
+        router2.localUserConnected(10L);
+        router2.localUserConnected(11L);
+        router3.localUserConnected(20L);
+
+        router1.forward("{}", Arrays.asList(1L, 10L, 11L, 20L), null, true);
+
+        assertThat(router1.getCountForwarded()).isEqualTo(2L);
+        assertThat(deliveries2).hasSize(1);
+        assertThat(deliveries2.get(0).userIds).containsExactlyInAnyOrder(10L, 11L);
+        assertThat(deliveries2.get(0).notification).isTrue();
+        assertThat(deliveries3).hasSize(1);
+        assertThat(deliveries3.get(0).userIds).containsExactly(20L);
+        assertThat(deliveries3.get(0).payload).isEqualTo("{}");
+    }
+
+    @Test
+    void userOnManyNodes() {
+        List<Delivery> deliveries2 = new ArrayList<>();
+        List<Delivery> deliveries3 = new ArrayList<>();
+        ClusterRouter router1 = createRouter("node1", new ArrayList<>(), Collections.emptyList());
+        ClusterRouter router2 = createRouter("node2", deliveries2, Collections.emptyList());
+        ClusterRouter router3 = createRouter("node3", deliveries3, Collections.emptyList());
+
+        router2.localUserConnected(10L);
+        router3.localUserConnected(10L);
+        router2.localUserDisconnected(10L);
+
+        assertThat(router1.isConnectedRemotely(10L)).isTrue();
+        router1.forward("{}", Collections.singletonList(10L), null, false);
+
+        assertThat(deliveries2).isEmpty();
+        assertThat(deliveries3).hasSize(1);
+
+        router3.localUserDisconnected(10L);
+        assertThat(router1.isConnectedRemotely(10L)).isFalse();
+        assertThat(router1.getRemoteUserCount()).isEqualTo(0);
+    }
+
+    @Test
+    void syncOnStart() {
+        ClusterRouter router1 = createRouter("node1", new ArrayList<>(), Arrays.asList(1L, 2L));
+        ClusterRouter router2 = createRouter("node2", new ArrayList<>(), Collections.emptyList());
+
+        // the node started later fetches the routes of the running node
+        assertThat(router2.isConnectedRemotely(1L)).isTrue();
+        assertThat(router2.isConnectedRemotely(2L)).isTrue();
+
+        router2.localUserConnected(3L);
+        assertThat(router1.isConnectedRemotely(3L)).isTrue();
+
+        // a restarted node forgets all its users
+        router2.stop();
+        createRouter("node2", new ArrayList<>(), Collections.emptyList());
+        assertThat(router1.isConnectedRemotely(3L)).isFalse();
+    }
+
+    private ClusterRouter createRouter(String nodeId, List<Delivery> deliveries, Collection<Long> localUsers) {
+        ClusterRouter router = new ClusterRouter(new LoopbackClusterMessageBus(hub, nodeId),
+                (payload, userIds, collapseKey, notification) -> deliveries.add(new Delivery(payload, userIds, notification)),
+                () -> localUsers);
+        router.start();
+        return router;
+    }
+}
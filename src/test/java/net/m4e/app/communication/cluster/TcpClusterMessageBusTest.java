@@ -0,0 +1,87 @@
+/*
+ * Copyright (c) 2017-2019 by Botorabi. All rights reserved.
+ * https://github.com/botorabi/Meet4Eat
+ *
+ * License: MIT License (MIT), read the LICENSE text in
+ *          main directory for more details.
+ */
+package net.m4e.app.communication.cluster;
+
+import org.junit.jupiter.api.*;
+
+import java.io.*;
+import java.net.ServerSocket;
+import java.util.*;
+import java.util.concurrent.*;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+/**
+ * @author boto
+ * Date of creation Oct 18, 2026
+ */
+class TcpClusterMessageBusTest {
+
+    @Test
+    void frameRoundTrip() throws Exception {
+        List<ClusterMessage> messages = Arrays.asList(
+                ClusterMessage.route(ClusterMessage.Type.ROUTE_ADD, "node1", new long[]{1L, Long.MAX_VALUE}),
+                ClusterMessage.packet(true, "node1", new long[]{42L}, "{\"text\":\"grüße\"}", "onlinestatus/1"),
+                ClusterMessage.route(ClusterMessage.Type.SYNC_REQUEST, "node2", null));
+
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        TcpClusterMessageBus.writeFrame(new DataOutputStream(bytes), messages);
+        List<ClusterMessage> read = TcpClusterMessageBus.readFrame(new DataInputStream(new ByteArrayInputStream(bytes.toByteArray())));
+
+        assertThat(read).hasSize(3);
+        assertThat(read.get(0).getType()).isEqualTo(ClusterMessage.Type.ROUTE_ADD);
+        assertThat(read.get(0).getUserIds()).containsExactly(1L, Long.MAX_VALUE);
+        assertThat(read.get(1).getType()).isEqualTo(ClusterMessage.Type.NOTIFICATION);
+        assertThat(read.get(1).getSourceNode()).isEqualTo("node1");
+        assertThat(read.get(1).getPayload()).isEqualTo("{\"text\":\"grüße\"}");
+        assertThat(read.get(1).getCollapseKey()).isEqualTo("onlinestatus/1");
+        assertThat(read.get(2).getUserIds()).isEmpty();
+        assertThat(read.get(2).getPayload()).isNull();
+    }
+
+    @Test
+    void corruptFrame() {
+        byte[] frame = {0x7f, 0, 0, 0};
+        assertThatThrownBy(() -> TcpClusterMessageBus.readFrame(new DataInputStream(new ByteArrayInputStream(frame))))
+                .isInstanceOf(IOException.class);
+    }
+
+    @Test
+    void twoNodes() throws Exception {
+        String address1 = "127.0.0.1:" + freePort();
+        String address2 = "127.0.0.1:" + freePort();
+        List<String> addresses = Arrays.asList(address1, address2);
+
+        BlockingQueue<ClusterMessage> received = new LinkedBlockingQueue<>();
+        TcpClusterMessageBus bus1 = new TcpClusterMessageBus(address1, addresses);
+        TcpClusterMessageBus bus2 = new TcpClusterMessageBus(address2, addresses);
+        try {
+            bus1.start(message -> {});
+            bus2.start(received::add);
+
+            bus1.send(address2, ClusterMessage.packet(false, address1, new long[]{7L}, "{}", null));
+
+            ClusterMessage message = received.poll(10, TimeUnit.SECONDS);
+            assertThat(message).isNotNull();
+            assertThat(message.getSourceNode()).isEqualTo(address1);
+            assertThat(message.getUserIds()).containsExactly(7L);
+            assertThat(bus1.getCountSent()).isEqualTo(1L);
+        }
+        finally {
+            bus1.stop();
+            bus2.stop();
+        }
+    }
+
+    private static int freePort() throws IOException {
+        try (ServerSocket socket = new ServerSocket(0)) {
+            return socket.getLocalPort();
+        }
+    }
+}
@@ -0,0 +1,258 @@
+/*
+ * Copyright (c) 2017-2019 by Botorabi. All rights reserved.
+ * https://github.com/botorabi/Meet4Eat
+ *
+ * License: MIT License (MIT), read the LICENSE text in
+ *          main directory for more details.
+ */
+package net.m4e.app.event.business;
+
+import net.m4e.app.user.business.UserEntity;
+import net.m4e.common.*;
+import org.junit.jupiter.api.*;
+import org.mockito.*;
+
+import javax.transaction.*;
+import java.util.*;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Matchers.*;
+
+/**
+ * @author boto
+ * Date of creation Oct 18, 2026
+ */
+class EventMembershipsTest {
+
+    private static final Long OWNER_ID = 10L;
+
+    @Mock
+    Entities entities;
+
+    private EventMemberships eventMemberships;
+
+    @BeforeEach
+    void setup() {
+        MockitoAnnotations.initMocks(this);
+        eventMemberships = new EventMemberships(entities);
+    }
+
+    @Test
+    void warmUp() {
+        EventEntity inactiveEvent = createEvent(2L, 21L);
+        inactiveEvent.getStatus().setEnabled(false);
+        Mockito.doReturn(Arrays.asList(createEvent(1L, 11L, 12L), inactiveEvent)).when(entities).findAll(EventEntity.class);
+
+        eventMemberships.warmUp();
+
+        assertThat(eventMemberships.getEventCount()).isEqualTo(1);
+        assertThat(eventMemberships.isOwnerOrMember(1L, OWNER_ID)).isTrue();
+        assertThat(eventMemberships.isOwnerOrMember(1L, 12L)).isTrue();
+        assertThat(eventMemberships.getMembership(1L).getOwnerAndMemberIds()).containsExactly(OWNER_ID, 11L, 12L);
+        assertThat(eventMemberships.getEventIds(OWNER_ID)).containsExactly(1L);
+        assertThat(eventMemberships.getEventIds(21L)).isEmpty();
+    }
+
+    @Test
+    void loadOnFirstAccess() {
+        Mockito.doReturn(createEvent(1L, 11L)).when(entities).find(eq(EventEntity.class), eq(1L));
+
+        assertThat(eventMemberships.isOwnerOrMember(1L, 11L)).isTrue();
+        assertThat(eventMemberships.isOwnerOrMember(1L, 12L)).isFalse();
+        assertThat(eventMemberships.isOwnerOrMember(2L, 11L)).isFalse();
+        assertThat(eventMemberships.isOwnerOrMember(null, 11L)).isFalse();
+
+        // once indexed the database is not accessed anymore
+        eventMemberships.getMembership(1L);
+        Mockito.verify(entities, Mockito.times(1)).find(eq(EventEntity.class), eq(1L));
+    }
+
+    @Test
+    void absentEventIsRemembered() {
+        EventEntity inactiveEvent = createEvent(2L, 11L);
+        inactiveEvent.getStatus().setEnabled(false);
+        Mockito.doReturn(inactiveEvent).when(entities).find(eq(EventEntity.class), eq(2L));
+
+        assertThat(eventMemberships.getMembership(1L)).isNull();
+        assertThat(eventMemberships.getMembership(1L)).isNull();
+        assertThat(eventMemberships.getMembership(2L)).isNull();
+        assertThat(eventMemberships.getMembership(2L)).isNull();
+        Mockito.verify(entities, Mockito.times(1)).find(eq(EventEntity.class), eq(1L));
+        Mockito.verify(entities, Mockito.times(1)).find(eq(EventEntity.class), eq(2L));
+
+        // creating the event makes it known
+        eventMemberships.update(createEvent(1L, 11L));
+        assertThat(eventMemberships.isOwnerOrMember(1L, 11L)).isTrue();
+    }
+
+    @Test
+    void absenceIsNotRememberedWithPendingRemoval() {
+        eventMemberships.update(createEvent(1L, 11L));
+        Transaction transaction = new Transaction();
+        eventMemberships.transactions = transaction;
+
+        eventMemberships.remove(1L);
+        assertThat(eventMemberships.getMembership(2L)).isNull();
+        transaction.complete(Status.STATUS_ROLLEDBACK);
+
+        eventMemberships.transactions = null;
+        Mockito.doReturn(createEvent(2L, 12L)).when(entities).find(eq(EventEntity.class), eq(2L));
+        assertThat(eventMemberships.isOwnerOrMember(2L, 12L)).isTrue();
+    }
+
+    @Test
+    void updateMembers() {
+        EventEntity event = createEvent(1L, 11L, 12L);
+        eventMemberships.update(event);
+        eventMemberships.update(createEvent(2L, 12L));
+
+        event.getMembers().removeIf(member -> member.getId().equals(11L));
+        event.getMembers().add(createUser(13L));
+        eventMemberships.update(event);
+
+        assertThat(eventMemberships.isOwnerOrMember(1L, 11L)).isFalse();
+        assertThat(eventMemberships.isOwnerOrMember(1L, 13L)).isTrue();
+        assertThat(eventMemberships.getEventIds(11L)).isEmpty();
+        assertThat(eventMemberships.getEventIds(12L)).containsExactly(1L, 2L);
+        assertThat(eventMemberships.getEventIds(OWNER_ID)).containsExactly(1L, 2L);
+    }
+
+    @Test
+    void removeEvent() {
+        EventEntity event = createEvent(1L, 11L);
+        eventMemberships.update(event);
+        eventMemberships.update(createEvent(2L, 11L));
+
+        eventMemberships.remove(1L);
+        assertThat(eventMemberships.getEventIds(11L)).containsExactly(2L);
+
+        // deactivating an event removes it from index, too
+        EventEntity otherEvent = createEvent(2L, 11L);
+        otherEvent.getStatus().setEnabled(false);
+        eventMemberships.update(otherEvent);
+        assertThat(eventMemberships.getEventIds(11L)).isEmpty();
+        assertThat(eventMemberships.getEventCount()).isEqualTo(0);
+    }
+
+    @Test
+    void relatives() {
+        eventMemberships.update(createEvent(1L, 11L, 12L));
+        eventMemberships.update(createEvent(2L, 12L, 13L));
+
+        assertThat(eventMemberships.getRelatives(11L)).containsOnly(OWNER_ID, 12L);
+        assertThat(eventMemberships.getRelatives(12L)).containsOnly(OWNER_ID, 11L, 13L);
+        assertThat(eventMemberships.getRelatives(OWNER_ID)).containsOnly(11L, 12L, 13L);
+        assertThat(eventMemberships.getRelatives(14L)).isEmpty();
+    }
+
+    @Test
+    void changesAreAppliedOnCommit() {
+        eventMemberships.update(createEvent(1L, 11L));
+        Transaction transaction = new Transaction();
+        eventMemberships.transactions = transaction;
+
+        EventEntity event = createEvent(2L, 11L);
+        eventMemberships.update(event);
+        eventMemberships.remove(1L);
+        // later modifications of the entity do not affect the pending change
+        event.getMembers().add(createUser(12L));
+
+        assertThat(eventMemberships.getEventIds(11L)).containsExactly(1L);
+
+        transaction.complete(Status.STATUS_COMMITTED);
+        assertThat(eventMemberships.getEventIds(11L)).containsExactly(2L);
+        assertThat(eventMemberships.getEventIds(12L)).isEmpty();
+    }
+
+    @Test
+    void changesAreDiscardedOnRollback() {
+        eventMemberships.update(createEvent(1L, 11L));
+        Transaction transaction = new Transaction();
+        eventMemberships.transactions = transaction;
+
+        eventMemberships.update(createEvent(1L, 12L));
+        eventMemberships.update(createEvent(2L, 12L));
+        transaction.complete(Status.STATUS_ROLLEDBACK);
+
+        assertThat(eventMemberships.isOwnerOrMember(1L, 11L)).isTrue();
+        assertThat(eventMemberships.isOwnerOrMember(1L, 12L)).isFalse();
+        assertThat(eventMemberships.getEventIds(12L)).isEmpty();
+    }
+
+    @Test
+    void loadWithinTransactionIsNotIndexed() {
+        Mockito.doReturn(createEvent(1L, 11L)).when(entities).find(eq(EventEntity.class), eq(1L));
+        Transaction transaction = new Transaction();
+        eventMemberships.transactions = transaction;
+
+        assertThat(eventMemberships.isOwnerOrMember(1L, 11L)).isTrue();
+        assertThat(eventMemberships.getEventCount()).isEqualTo(0);
+    }
+
+    /**
+     * A single active transaction.
+     */
+    private static class Transaction implements TransactionSynchronizationRegistry {
+        private final Map<Object, Object> resources = new HashMap<>();
+        private final List<Synchronization> synchronizations = new ArrayList<>();
+        private int status = Status.STATUS_ACTIVE;
+
+        void complete(int completionStatus) {
+            status = completionStatus;
+            synchronizations.forEach(synchronization -> synchronization.afterCompletion(completionStatus));
+        }
+
+        @Override
+        public Object getTransactionKey() {
+            return this;
+        }
+
+        @Override
+        public void putResource(Object key, Object value) {
+            resources.put(key, value);
+        }
+
+        @Override
+        public Object getResource(Object key) {
+            return resources.get(key);
+        }
+
+        @Override
+        public void registerInterposedSynchronization(Synchronization sync) {
+            synchronizations.add(sync);
+        }
+
+        @Override
+        public int getTransactionStatus() {
+            return status;
+        }
+
+        @Override
+        public void setRollbackOnly() {
+            status = Status.STATUS_MARKED_ROLLBACK;
+        }
+
+        @Override
+        public boolean getRollbackOnly() {
+            return status == Status.STATUS_MARKED_ROLLBACK;
+        }
+    }
+
+    private EventEntity createEvent(Long id, Long... memberIds) {
+        EventEntity event = EventEntityCreator.create();
+        event.setId(id);
+        event.getStatus().setIdOwner(OWNER_ID);
+        List<UserEntity> members = new ArrayList<>();
+        for (Long memberId: memberIds) {
+            members.add(createUser(memberId));
+        }
+        event.setMembers(members);
+        return event;
+    }
+
+    private UserEntity createUser(Long id) {
+        UserEntity user = new UserEntity();
+        user.setId(id);
+        return user;
+    }
+}
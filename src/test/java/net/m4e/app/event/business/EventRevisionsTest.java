@@ -0,0 +1,200 @@
+/*
+ * Copyright (c) 2017-2019 by Botorabi. All rights reserved.
+ * https://github.com/botorabi/Meet4Eat
+ *
+ * License: MIT License (MIT), read the LICENSE text in
+ *          main directory for more details.
+ */
+package net.m4e.app.event.business;
+
+import net.m4e.app.communication.*;
+import net.m4e.app.user.business.UserEntity;
+import net.m4e.app.resources.StatusEntity;
+import org.junit.jupiter.api.*;
+import org.mockito.*;
+
+import javax.json.JsonString;
+import java.util.*;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Matchers.*;
+
+/**
+ * @author boto
+ * Date of creation Oct 18, 2026
+ */
+class EventRevisionsTest {
+
+    private static final Long EVENT_ID = 42L;
+    private static final Long OWNER_ID = 1L;
+    private static final Long MEMBER_ID = 2L;
+    private static final long START_REVISION = 1000L;
+
+    @Mock
+    Events events;
+    @Mock
+    EventMemberships eventMemberships;
+    @Mock
+    ConnectedClients connections;
+
+    private EventRevisions eventRevisions;
+
+    private EventEntity event;
+
+    private EventInfo eventInfo;
+
+    private UserEntity owner;
+
+    @BeforeEach
+    void setup() {
+        MockitoAnnotations.initMocks(this);
+
+        StatusEntity status = new StatusEntity();
+        status.setIdOwner(OWNER_ID);
+        event = new EventEntity();
+        event.setId(EVENT_ID);
+        event.setStatus(status);
+
+        eventInfo = new EventInfo();
+        eventInfo.setId(EVENT_ID.toString());
+        eventInfo.setName("Lunch");
+        eventInfo.setDescription("Daily lunch");
+        eventInfo.setMembers(new ArrayList<>());
+        eventInfo.setLocations(new ArrayList<>());
+
+        owner = new UserEntity();
+        owner.setId(OWNER_ID);
+        owner.setName("Owner");
+
+        Mockito.when(events.exportEvent(event)).thenAnswer(invocation -> eventInfo);
+        Mockito.when(events.findEvent(EVENT_ID)).thenReturn(event);
+        Mockito.when(eventMemberships.getMembership(EVENT_ID))
+                .thenReturn(new EventMemberships.Membership(EVENT_ID, OWNER_ID, new long[]{MEMBER_ID}));
+
+        eventRevisions = new EventRevisions(events, eventMemberships, connections);
+        eventRevisions.setClock(() -> START_REVISION);
+    }
+
+    @Test
+    void firstPublishPushesFullDelta() {
+        long revision = eventRevisions.publish(owner, event);
+
+        assertThat(revision).isEqualTo(START_REVISION);
+        EventDelta delta = capturePushedDelta(1);
+        assertThat(delta.isFull()).isTrue();
+        assertThat(delta.getEventId()).isEqualTo(EVENT_ID.toString());
+        assertThat(delta.getChanges()).containsKeys("id", "name", "description", "members", "locations");
+    }
+
+    @Test
+    void publishPushesOnlyChangedFields() {
+        eventRevisions.publish(owner, event);
+        eventInfo.setName("Dinner");
+
+        long revision = eventRevisions.publish(owner, event);
+
+        assertThat(revision).isEqualTo(START_REVISION + 1);
+        EventDelta delta = capturePushedDelta(2);
+        assertThat(delta.isFull()).isFalse();
+        assertThat(delta.getBaseRevision()).isEqualTo(START_REVISION);
+        assertThat(delta.getRevision()).isEqualTo(START_REVISION + 1);
+        assertThat(delta.getChanges()).containsOnlyKeys("name");
+        assertThat(((JsonString) delta.getChanges().get("name")).getString()).isEqualTo("Dinner");
+    }
+
+    @Test
+    void publishWithoutChanges() {
+        eventRevisions.publish(owner, event);
+
+        long revision = eventRevisions.publish(owner, event);
+
+        assertThat(revision).isEqualTo(START_REVISION);
+        Mockito.verify(connections, Mockito.times(1)).sendPacket(Matchers.<Packet<EventDelta>>any(), anyListOf(Long.class));
+    }
+
+    @Test
+    void resyncMergesChanges() {
+        eventRevisions.publish(owner, event);
+        eventInfo.setName("Dinner");
+        eventRevisions.publish(owner, event);
+        eventInfo.setDescription("Weekly dinner");
+        eventRevisions.publish(owner, event);
+        eventInfo.setName("Brunch");
+        eventRevisions.publish(owner, event);
+
+        EventDelta delta = eventRevisions.resync(EVENT_ID, START_REVISION + 1);
+
+        assertThat(delta.isFull()).isFalse();
+        assertThat(delta.getBaseRevision()).isEqualTo(START_REVISION + 1);
+        assertThat(delta.getRevision()).isEqualTo(START_REVISION + 3);
+        assertThat(delta.getChanges()).containsOnlyKeys("name", "description");
+        assertThat(((JsonString) delta.getChanges().get("name")).getString()).isEqualTo("Brunch");
+    }
+
+    @Test
+    void resyncUpToDate() {
+        eventRevisions.publish(owner, event);
+
+        EventDelta delta = eventRevisions.resync(EVENT_ID, START_REVISION);
+
+        assertThat(delta.isFull()).isFalse();
+        assertThat(delta.getChanges()).isEmpty();
+    }
+
+    @Test
+    void resyncUnknownRevision() {
+        eventRevisions.publish(owner, event);
+        eventInfo.setName("Dinner");
+        eventRevisions.publish(owner, event);
+
+        assertThat(eventRevisions.resync(EVENT_ID, 0L).isFull()).isTrue();
+        assertThat(eventRevisions.resync(EVENT_ID, START_REVISION + 5).isFull()).isTrue();
+        assertThat(eventRevisions.resync(EVENT_ID, START_REVISION - 1).isFull()).isTrue();
+        assertThat(eventRevisions.getCountFullResyncs()).isEqualTo(3L);
+    }
+
+    @Test
+    void resyncWithoutHistory() {
+        EventDelta delta = eventRevisions.resync(EVENT_ID, 7L);
+
+        assertThat(delta.isFull()).isTrue();
+        assertThat(delta.getRevision()).isEqualTo(START_REVISION);
+        assertThat(eventRevisions.getRevision(EVENT_ID)).isEqualTo(START_REVISION);
+        Mockito.verify(connections, Mockito.never()).sendPacket(Matchers.<Packet<EventDelta>>any(), anyListOf(Long.class));
+    }
+
+    @Test
+    void resyncUnknownEvent() {
+        assertThat(eventRevisions.resync(99L, 0L)).isNull();
+    }
+
+    @Test
+    void remove() {
+        eventRevisions.publish(owner, event);
+        eventRevisions.remove(EVENT_ID);
+
+        assertThat(eventRevisions.getRevision(EVENT_ID)).isEqualTo(0L);
+    }
+
+    @Test
+    void revisionsIncreaseAfterRestart() {
+        eventRevisions.publish(owner, event);
+        eventInfo.setName("Dinner");
+        eventRevisions.publish(owner, event);
+
+        EventRevisions restarted = new EventRevisions(events, eventMemberships, connections);
+        restarted.setClock(() -> START_REVISION + 100);
+
+        assertThat(restarted.publish(owner, event)).isGreaterThan(eventRevisions.getRevision(EVENT_ID));
+    }
+
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    private EventDelta capturePushedDelta(int times) {
+        ArgumentCaptor<Packet> packet = ArgumentCaptor.forClass(Packet.class);
+        ArgumentCaptor<List> recipients = ArgumentCaptor.forClass(List.class);
+        Mockito.verify(connections, Mockito.times(times)).sendPacket(packet.capture(), recipients.capture());
+        assertThat(packet.getValue().getChannel()).isEqualTo(Packet.CHANNEL_EVENT);
+        assertThat((List<Long>) recipients.getValue()).containsExactlyInAnyOrder(OWNER_ID, MEMBER_ID);
+        return (EventDelta) packet.getValue().getData();
+    }
+}
@@ -7,10 +7,10 @@
  */
 package net.m4e.app.event.business;
 
+import net.m4e.app.auth.SessionPrincipal;
 import net.m4e.app.communication.*;
-import net.m4e.app.user.business.UserEntity;
-import org.junit.jupiter.api.Test;
-import org.mockito.Mockito;
+import org.junit.jupiter.api.*;
+import org.mockito.*;
 
 import java.util.*;
 
@@ -26,11 +26,10 @@ class EventSystemTest {
     void dispatchMessage() {
         Events events = Mockito.mock(Events.class);
         Mockito.when(events.getMembers(Mockito.anyLong())).thenReturn(new HashSet<>());
-        UserEntity entity = new UserEntity();
-        entity.setId(42L);
+        SessionPrincipal principal = new SessionPrincipal(42L, "User", 0L);
         ConnectedClients connections = Mockito.mock(ConnectedClients.class);
-        Mockito.when(connections.getConnectedUser(any())).thenReturn(entity);
-        EventSystem eventSystem = new EventSystem(events, connections);
+        Mockito.when(connections.getConnectedUser(any())).thenReturn(principal);
+        EventSystem eventSystem = new EventSystem(events, connections, Mockito.mock(EventRevisions.class));
 
         ChannelEventEvent event = new ChannelEventEvent();
         event.setSenderId(1L);
@@ -40,14 +39,41 @@ class EventSystemTest {
         Mockito.verify(connections).sendPacket(any(), eq(singletonList(42L)));
     }
 
-    Packet<Map<String, Object>> buildPacket() {
-        Map<String, Object> innerData = new HashMap<>();
-        innerData.put("eventId", "15");
+    @Test
+    void dispatchResync() {
+        Events events = Mockito.mock(Events.class);
+        Mockito.when(events.getMembers(15L)).thenReturn(new HashSet<>(Arrays.asList(42L, 43L)));
+        SessionPrincipal principal = new SessionPrincipal(42L, "User", 0L);
+        ConnectedClients connections = Mockito.mock(ConnectedClients.class);
+        Mockito.when(connections.getConnectedUser(any())).thenReturn(principal);
+        EventRevisions eventRevisions = Mockito.mock(EventRevisions.class);
+        EventDelta delta = new EventDelta();
+        Mockito.when(eventRevisions.resync(15L, 7L)).thenReturn(delta);
+        EventSystem eventSystem = new EventSystem(events, connections, eventRevisions);
+
+        Packet<EventMessage> packet = buildPacket();
+        packet.getData().setType(EventDelta.TYPE_RESYNC);
+        packet.getData().getData().setRevision(7L);
+        ChannelEventEvent event = new ChannelEventEvent();
+        event.setSenderId(42L);
+        event.setSessionId("s1");
+        event.setPacket(packet);
+        eventSystem.dispatchMessage(event);
+
+        ArgumentCaptor<Packet> reply = ArgumentCaptor.forClass(Packet.class);
+        Mockito.verify(connections).sendPacket(reply.capture(), eq(42L), eq("s1"));
+        Mockito.verify(connections, Mockito.never()).sendPacket(any(), anyListOf(Long.class));
+        Assertions.assertSame(delta, reply.getValue().getData());
+    }
+
+    Packet<EventMessage> buildPacket() {
+        EventMessage.Data innerData = new EventMessage.Data();
+        innerData.setEventId("15");
 
-        Map<String, Object> data = new HashMap<>();
-        data.put("data", innerData);
+        EventMessage data = new EventMessage();
+        data.setData(innerData);
 
-        Packet<Map<String, Object>> packet = new Packet<>();
+        Packet<EventMessage> packet = new Packet<>();
 
         packet.setData(data);
         return packet;
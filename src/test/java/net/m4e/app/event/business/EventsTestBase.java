@@ -37,6 +37,8 @@ public class EventsTestBase {
     DocumentPool docPool;
     @Mock
     ConnectedClients connectedClients;
+    @Mock
+    EventMemberships eventMemberships;
 
     Events events;
 
@@ -44,6 +46,6 @@ public class EventsTestBase {
     void setup() {
         MockitoAnnotations.initMocks(this);
 
-        events = new Events(entities, users, appInfos, mails, docPool, connectedClients);
+        events = new Events(entities, users, appInfos, mails, docPool, connectedClients, eventMemberships);
     }
 }
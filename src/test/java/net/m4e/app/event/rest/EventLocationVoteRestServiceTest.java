@@ -9,6 +9,7 @@ package net.m4e.app.event.rest;
 
 import net.m4e.app.event.business.*;
 import net.m4e.app.event.rest.comm.LocationVote;
+import net.m4e.app.user.business.Users;
 import net.m4e.common.*;
 import net.m4e.tests.ResponseAssertions;
 import org.junit.jupiter.api.*;
@@ -49,6 +50,8 @@ public class EventLocationVoteRestServiceTest {
     @Mock
     Entities entities;
     @Mock
+    Users users;
+    @Mock
     EventLocations eventLocations;
     @Mock
     HttpServletRequest request;
@@ -65,7 +68,7 @@ public class EventLocationVoteRestServiceTest {
 
         Mockito.when(session.getId()).thenReturn(SESSION_ID);
         Mockito.when(request.getSession()).thenReturn(session);
-        voteRestService = new EventLocationVoteRestService(events, entities, eventLocations, eventNotifications);
+        voteRestService = new EventLocationVoteRestService(events, entities, users, eventLocations, eventNotifications);
 
         eventEntityCreator = new EventEntityCreator();
 
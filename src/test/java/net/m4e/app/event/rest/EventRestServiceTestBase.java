@@ -7,7 +7,7 @@
  */
 package net.m4e.app.event.rest;
 
-import net.m4e.app.auth.AuthorityConfig;
+import net.m4e.app.auth.*;
 import net.m4e.app.event.business.*;
 import net.m4e.app.event.rest.comm.*;
 import net.m4e.app.user.business.*;
@@ -83,7 +83,8 @@ class EventRestServiceTestBase {
     }
 
     protected void mockSessionUser(UserEntity user) {
-        Mockito.when(session.getAttribute(AuthorityConfig.SESSION_ATTR_USER)).thenReturn(user);
+        Mockito.when(session.getAttribute(AuthorityConfig.SESSION_ATTR_USER)).thenReturn((user != null) ? SessionPrincipal.fromUser(user) : null);
+        Mockito.when(users.findSessionUser(anyObject())).thenReturn(user);
     }
 
     protected void mockPrivilegedUser() {
@@ -7,7 +7,7 @@
  */
 package net.m4e.app.mailbox.rest;
 
-import net.m4e.app.auth.AuthorityConfig;
+import net.m4e.app.auth.*;
 import net.m4e.app.mailbox.business.*;
 import net.m4e.app.mailbox.rest.comm.*;
 import net.m4e.app.user.business.UserEntity;
@@ -56,7 +56,7 @@ class MailRestServiceTest {
     private HttpServletRequest requestWithSessionUser(UserEntity userEntity) {
         HttpServletRequest request = mock(HttpServletRequest.class);
         HttpSession session = mock(HttpSession.class);
-        when(session.getAttribute(AuthorityConfig.SESSION_ATTR_USER)).thenReturn(userEntity);
+        when(session.getAttribute(AuthorityConfig.SESSION_ATTR_USER)).thenReturn((userEntity != null) ? SessionPrincipal.fromUser(userEntity) : null);
         when(request.getSession()).thenReturn(session);
         return request;
     }
@@ -76,7 +76,7 @@ class MailRestServiceTest {
 
         @Test
         void noMails() {
-            when(mails.getMails(eq(userEntity), anyInt(), anyInt())).thenReturn(emptyList());
+            when(mails.getMails(eq(42L), anyInt(), anyInt())).thenReturn(emptyList());
 
             MailRestService mailRestService = new MailRestService(newMailValidator, mails);
 
@@ -92,7 +92,7 @@ class MailRestServiceTest {
 
         @Test
         void oneMail() {
-            when(mails.getMails(eq(userEntity), anyInt(), anyInt())).thenReturn(singletonList(new Mail(new MailEntity(), true, null)));
+            when(mails.getMails(eq(42L), anyInt(), anyInt())).thenReturn(singletonList(new Mail(new MailEntity(), true, null)));
 
             MailRestService mailRestService = new MailRestService(newMailValidator, mails);
 
@@ -135,8 +135,8 @@ class MailRestServiceTest {
 
         @Test
         void getCount() {
-            when(mails.getCountTotalMails(eq(userEntity))).thenReturn(5L);
-            when(mails.getCountUnreadMails(eq(userEntity))).thenReturn(2L);
+            when(mails.getCountTotalMails(eq(42L))).thenReturn(5L);
+            when(mails.getCountUnreadMails(eq(42L))).thenReturn(2L);
 
             MailRestService mailRestService = new MailRestService(newMailValidator, mails);
 
@@ -182,8 +182,8 @@ class MailRestServiceTest {
 
         @Test
         void getUnread() {
-            when(mails.getCountTotalMails(eq(userEntity))).thenReturn(5L);
-            when(mails.getCountUnreadMails(eq(userEntity))).thenReturn(2L);
+            when(mails.getCountTotalMails(eq(42L))).thenReturn(5L);
+            when(mails.getCountUnreadMails(eq(42L))).thenReturn(2L);
 
             MailRestService mailRestService = new MailRestService(newMailValidator, mails);
 
@@ -295,12 +295,12 @@ class MailRestServiceTest {
         Answer<MailEntity> createMailEntity() {
             return args -> {
                 NewMailCmd mailCmd = args.getArgumentAt(0, NewMailCmd.class);
-                UserEntity user = args.getArgumentAt(1, UserEntity.class);
+                SessionPrincipal user = args.getArgumentAt(1, SessionPrincipal.class);
                 MailEntity mailEntity = new MailEntity();
 
                 mailEntity.setReceiverName("");
                 mailEntity.setReceiverId(mailCmd.getReceiverId());
-                mailEntity.setSenderId(user.getId());
+                mailEntity.setSenderId(user.getUserId());
                 mailEntity.setSenderName("");
                 mailEntity.setSendDate(0L);
                 mailEntity.setSubject(mailCmd.getSubject());
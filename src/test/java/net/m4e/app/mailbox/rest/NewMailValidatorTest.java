@@ -7,6 +7,7 @@
  */
 package net.m4e.app.mailbox.rest;
 
+import net.m4e.app.auth.SessionPrincipal;
 import net.m4e.app.mailbox.business.MailEntity;
 import net.m4e.app.mailbox.rest.comm.NewMailCmd;
 import net.m4e.app.resources.StatusEntity;
@@ -59,7 +60,7 @@ class NewMailValidatorTest {
         NewMailValidator newMailValidator = new NewMailValidator(users);
 
 
-        MailEntity mailEntity = newMailValidator.validateNewEntityInput(newMailCmd, user42);
+        MailEntity mailEntity = newMailValidator.validateNewEntityInput(newMailCmd, SessionPrincipal.fromUser(user42));
 
 
         Assertions.assertThat(mailEntity.getContent()).isEqualTo("Content...");
@@ -79,7 +80,7 @@ class NewMailValidatorTest {
         NewMailValidator newMailValidator = new NewMailValidator(users);
 
 
-        assertThatThrownBy(() -> newMailValidator.validateNewEntityInput(newMailCmd, user42))
+        assertThatThrownBy(() -> newMailValidator.validateNewEntityInput(newMailCmd, SessionPrincipal.fromUser(user42)))
                 .isInstanceOf(Exception.class)
                 .hasMessage(("Failed to send mail, recipient does not exist."));
     }
@@ -91,7 +92,7 @@ class NewMailValidatorTest {
         NewMailValidator newMailValidator = new NewMailValidator(users);
 
 
-        assertThatThrownBy(() -> newMailValidator.validateNewEntityInput(newMailCmd, user42))
+        assertThatThrownBy(() -> newMailValidator.validateNewEntityInput(newMailCmd, SessionPrincipal.fromUser(user42)))
                 .isInstanceOf(Exception.class)
                 .hasMessage(("Failed to send mail, recipient does not exist."));
     }
@@ -103,7 +104,7 @@ class NewMailValidatorTest {
         NewMailValidator newMailValidator = new NewMailValidator(users);
 
 
-        assertThatThrownBy(() -> newMailValidator.validateNewEntityInput(newMailCmd, user42))
+        assertThatThrownBy(() -> newMailValidator.validateNewEntityInput(newMailCmd, SessionPrincipal.fromUser(user42)))
                 .isInstanceOf(Exception.class)
                 .hasMessage(("Failed to send mail, invalid recipient."));
     }
@@ -115,7 +116,7 @@ class NewMailValidatorTest {
         NewMailValidator newMailValidator = new NewMailValidator(users);
 
 
-        assertThatThrownBy(() -> newMailValidator.validateNewEntityInput(newMailCmd, user42))
+        assertThatThrownBy(() -> newMailValidator.validateNewEntityInput(newMailCmd, SessionPrincipal.fromUser(user42)))
                 .isInstanceOf(Exception.class)
                 .hasMessageContaining(("Mail subject must be at least"));
     }
@@ -128,7 +129,7 @@ class NewMailValidatorTest {
         NewMailValidator newMailValidator = new NewMailValidator(users);
 
 
-        assertThatThrownBy(() -> newMailValidator.validateNewEntityInput(newMailCmd, user42))
+        assertThatThrownBy(() -> newMailValidator.validateNewEntityInput(newMailCmd, SessionPrincipal.fromUser(user42)))
                 .isInstanceOf(Exception.class)
                 .hasMessageContaining(("Mail subject must be at least"));
     }
@@ -137,7 +138,7 @@ class NewMailValidatorTest {
     void nullMail() {
         NewMailValidator newMailValidator = new NewMailValidator(users);
 
-        assertThatThrownBy(() -> newMailValidator.validateNewEntityInput(null, user42))
+        assertThatThrownBy(() -> newMailValidator.validateNewEntityInput(null, SessionPrincipal.fromUser(user42)))
                 .isInstanceOf(Exception.class)
                 .hasMessage(("Failed to send mail, invalid input."));
     }
@@ -8,6 +8,7 @@
 package net.m4e.app.user.business;
 
 import net.m4e.app.auth.AuthRole;
+import net.m4e.app.auth.SessionPrincipal;
 import net.m4e.app.communication.ConnectedClients;
 import net.m4e.app.user.rest.comm.UserCmd;
 import net.m4e.common.UserEntityCreator;
@@ -42,7 +43,7 @@ class UsersExportImportTest extends UsersTestBase {
         @Test
         void exportUserOnline() {
             UserEntity user = UserEntityCreator.create();
-            Mockito.when(connections.getConnectedUser(anyObject())).thenReturn(new UserEntity());
+            Mockito.when(connections.getConnectedUser(anyObject())).thenReturn(new SessionPrincipal(1L, "User", 0L));
 
             UserInfo userInfo = users.exportUser(user, connections);
 
@@ -7,7 +7,7 @@
  */
 package net.m4e.app.user.rest;
 
-import net.m4e.app.auth.AuthorityConfig;
+import net.m4e.app.auth.*;
 import net.m4e.app.resources.StatusEntity;
 import net.m4e.app.user.business.*;
 import net.m4e.app.user.rest.comm.*;
@@ -43,6 +43,8 @@ class UserAuthenticationRestServiceTest {
     @Mock
     HttpSession session;
 
+    PasswordHashing passwordHashing;
+
     UserAuthenticationRestService userAuthentication;
 
     @BeforeEach
@@ -51,7 +53,9 @@ class UserAuthenticationRestServiceTest {
 
         Mockito.when(session.getId()).thenReturn(SESSION_ID);
         Mockito.when(request.getSession()).thenReturn(session);
-        userAuthentication = new UserAuthenticationRestService(users);
+        passwordHashing = new PasswordHashing();
+        passwordHashing.setup(1, 4, PasswordHashing.MIN_ITERATIONS, false);
+        userAuthentication = new UserAuthenticationRestService(users, passwordHashing);
 
         UserEntity userEntity = new UserEntity();
         userEntity.setStatus(new StatusEntity());
@@ -62,6 +66,11 @@ class UserAuthenticationRestServiceTest {
         Mockito.when(users.findUser(NON_EXISTING_USER)).thenReturn(null);
     }
 
+    @AfterEach
+    void tearDown() {
+        passwordHashing.passwordHashingShutdown();
+    }
+
     private static String clientSideHash(String plainPassword, String salt) {
         return AuthorityConfig.getInstance().createPassword(
                 AuthorityConfig.getInstance().createPassword(plainPassword) + salt);
@@ -69,9 +78,7 @@ class UserAuthenticationRestServiceTest {
 
     @Test
     void stateAuthenticated() {
-        UserEntity userEntity = new UserEntity();
-        userEntity.setId(42L);
-        Mockito.when(session.getAttribute(AuthorityConfig.SESSION_ATTR_USER)).thenReturn(userEntity);
+        Mockito.when(session.getAttribute(AuthorityConfig.SESSION_ATTR_USER)).thenReturn(new SessionPrincipal(42L, "User", 0L));
 
         Assertions.assertThat(userAuthentication.state(request).getCode()).isEqualTo(GenericResponseResult.CODE_OK);
         Assertions.assertThat(userAuthentication.state(request).getData().isAuth()).isTrue();
@@ -88,6 +95,40 @@ class UserAuthenticationRestServiceTest {
     @Test
     void loginRightCredentials() {
         Assertions.assertThat(userAuthentication.login(RIGHT_CREDENTIALS, request).getCode()).isEqualTo(GenericResponseResult.CODE_OK);
+
+        ArgumentCaptor<Object> principal = ArgumentCaptor.forClass(Object.class);
+        Mockito.verify(session).setAttribute(Mockito.eq(AuthorityConfig.SESSION_ATTR_USER), principal.capture());
+        Assertions.assertThat(principal.getValue()).isInstanceOf(SessionPrincipal.class);
+        Assertions.assertThat(((SessionPrincipal)principal.getValue()).getUserId()).isEqualTo(1L);
+    }
+
+    @Test
+    void loginUpgradesPasswordHash() {
+        passwordHashing.setup(1, 4, PasswordHashing.MIN_ITERATIONS, true);
+        LoginCmd credentials = new LoginCmd(EXISTING_USER, clientSideHash(PASSWORD, SESSION_ID));
+        credentials.setPasswordHash(AuthorityConfig.getInstance().createPassword(PASSWORD));
+
+        Assertions.assertThat(userAuthentication.state(request).getData().isPasswordHash()).isTrue();
+        Assertions.assertThat(userAuthentication.login(credentials, request).getCode()).isEqualTo(GenericResponseResult.CODE_OK);
+
+        ArgumentCaptor<UserEntity> user = ArgumentCaptor.forClass(UserEntity.class);
+        Mockito.verify(users).updateUserLastLogin(user.capture());
+        Assertions.assertThat(user.getValue().getPassword()).startsWith(PasswordHashing.ADAPTIVE_PREFIX);
+    }
+
+    @Test
+    void loginAfterUpgradeIsDisabled() {
+        passwordHashing.setup(1, 4, PasswordHashing.MIN_ITERATIONS, true);
+        LoginCmd credentials = new LoginCmd(EXISTING_USER, clientSideHash(PASSWORD, SESSION_ID));
+        credentials.setPasswordHash(AuthorityConfig.getInstance().createPassword(PASSWORD));
+        Assertions.assertThat(userAuthentication.login(credentials, request).getCode()).isEqualTo(GenericResponseResult.CODE_OK);
+
+        Mockito.when(session.getAttribute(AuthorityConfig.SESSION_ATTR_USER)).thenReturn(null);
+        passwordHashing.setup(1, 4, PasswordHashing.MIN_ITERATIONS, false);
+
+        Assertions.assertThat(userAuthentication.state(request).getData().isPasswordHash()).isTrue();
+        Assertions.assertThat(userAuthentication.login(credentials, request).getCode()).isEqualTo(GenericResponseResult.CODE_OK);
+        Assertions.assertThat(userAuthentication.login(RIGHT_CREDENTIALS, request).getCode()).isEqualTo(GenericResponseResult.CODE_UNAUTHORIZED);
     }
 
     @Test
@@ -98,7 +139,7 @@ class UserAuthenticationRestServiceTest {
     @Test
     void loginAlreadyLoggedInUser() {
         LoginCmd input = RIGHT_CREDENTIALS;
-        Mockito.when(session.getAttribute(AuthorityConfig.SESSION_ATTR_USER)).thenReturn(new Object());
+        Mockito.when(session.getAttribute(AuthorityConfig.SESSION_ATTR_USER)).thenReturn(new SessionPrincipal(1L, "User", 0L));
 
         GenericResponseResult<LoggedIn> response = userAuthentication.login(input, request);
 
@@ -139,11 +180,7 @@ class UserAuthenticationRestServiceTest {
 
     @Test
     void logoutLoggedIn() {
-        UserEntity userEntity = new UserEntity();
-        userEntity.setId(142L);
-
-
-        Mockito.when(session.getAttribute(AuthorityConfig.SESSION_ATTR_USER)).thenReturn(userEntity);
+        Mockito.when(session.getAttribute(AuthorityConfig.SESSION_ATTR_USER)).thenReturn(new SessionPrincipal(142L, "User", 0L));
 
 
         Assertions.assertThat(userAuthentication.logout(request).getCode()).isEqualTo(GenericResponseResult.CODE_OK);
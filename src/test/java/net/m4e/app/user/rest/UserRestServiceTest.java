@@ -7,7 +7,7 @@
  */
 package net.m4e.app.user.rest;
 
-import net.m4e.app.auth.AuthorityConfig;
+import net.m4e.app.auth.*;
 import net.m4e.app.communication.ConnectedClients;
 import net.m4e.app.user.business.*;
 import net.m4e.app.user.rest.comm.*;
@@ -311,7 +311,8 @@ class UserRestServiceTest {
     }
 
     private void mockSessionUser(UserEntity user) {
-        Mockito.when(session.getAttribute(AuthorityConfig.SESSION_ATTR_USER)).thenReturn(user);
+        Mockito.when(session.getAttribute(AuthorityConfig.SESSION_ATTR_USER)).thenReturn((user != null) ? SessionPrincipal.fromUser(user) : null);
+        Mockito.when(users.findSessionUser(anyObject())).thenReturn(user);
     }
 
     private void mockNewUserValidationSuccess() throws Exception {
@@ -28,4 +28,17 @@ class HashCreatorTest {
     void createSHA512() throws Exception {
         assertThat(HashCreator.createSHA512(CONTENT.getBytes())).isNotEmpty();
     }
+
+    @Test
+    void createChainedSHA512() throws Exception {
+        String expected = CONTENT;
+        for (int i = 0; i < 10; i++) {
+            expected = HashCreator.createSHA512(expected.getBytes());
+        }
+        assertThat(HashCreator.createChainedSHA512(CONTENT, 10)).isEqualTo(expected);
+        // the buffers of the thread are reused, a second chain must give the same result
+        assertThat(HashCreator.createChainedSHA512(CONTENT, 10)).isEqualTo(expected);
+        assertThat(HashCreator.createChainedSHA512(CONTENT, 1)).isEqualTo(HashCreator.createSHA512(CONTENT.getBytes()));
+        assertThat(HashCreator.createChainedSHA512(CONTENT, 0)).isEqualTo(CONTENT);
+    }
 }